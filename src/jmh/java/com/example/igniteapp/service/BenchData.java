@@ -0,0 +1,98 @@
+package com.example.igniteapp.service;
+
+import org.h2.tools.SimpleResultSet;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Формы результата для бенчмарков: narrow — 2 колонки, wide — 20 колонок разных типов.
+ * Одни и те же данные и в таблицах Ignite (для SqlService), и в памяти (SimpleResultSet).
+ */
+final class BenchData {
+
+    static final String NARROW_DDL = "CREATE TABLE IF NOT EXISTS NARROW (ID BIGINT PRIMARY KEY, NAME VARCHAR)";
+
+    static final String WIDE_DDL = "CREATE TABLE IF NOT EXISTS WIDE (ID BIGINT PRIMARY KEY, " +
+            "I1 INT, I2 INT, I3 INT, I4 INT, " +
+            "L1 BIGINT, L2 BIGINT, L3 BIGINT, " +
+            "D1 DOUBLE, D2 DOUBLE, D3 DOUBLE, " +
+            "S1 VARCHAR, S2 VARCHAR, S3 VARCHAR, S4 VARCHAR, " +
+            "T1 TIMESTAMP, T2 TIMESTAMP, " +
+            "N1 DECIMAL(18, 4), N2 DECIMAL(18, 4), B1 BOOLEAN)";
+
+    private static final long T0 = Timestamp.valueOf("2024-01-01 00:00:00").getTime();
+
+    private BenchData() {
+    }
+
+    static String ddl(String shape) {
+        return "wide".equals(shape) ? WIDE_DDL : NARROW_DDL;
+    }
+
+    static String table(String shape) {
+        return "wide".equals(shape) ? "WIDE" : "NARROW";
+    }
+
+    /**
+     * INSERT ... SELECT из SYSTEM_RANGE: строки с ID в [from, to].
+     */
+    static String seed(String shape, long from, long to) {
+        String range = " FROM SYSTEM_RANGE(" + from + ", " + to + ")";
+        if (!"wide".equals(shape)) {
+            return "INSERT INTO NARROW (ID, NAME) SELECT X, CONCAT('name-', X)" + range;
+        }
+        return "INSERT INTO WIDE (ID, I1, I2, I3, I4, L1, L2, L3, D1, D2, D3, S1, S2, S3, S4, T1, T2, N1, N2, B1) " +
+                "SELECT X, CAST(MOD(X, 1000) AS INT), CAST(MOD(X, 7) AS INT), CAST(MOD(X, 100000) AS INT), 42, " +
+                "X * 31, X * 17, -X, X / 3.0, X * 1.5, 0.25, " +
+                "CONCAT('name-', X), CONCAT('city-', MOD(X, 500)), 'constant value', CONCAT('descr ', X, ' lorem ipsum'), " +
+                "DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00'), TIMESTAMP '2024-06-01 12:00:00', " +
+                "CAST(X / 7.0 AS DECIMAL(18, 4)), CAST(100.5 AS DECIMAL(18, 4)), MOD(X, 2) = 0" + range;
+    }
+
+    /**
+     * Те же строки, что даёт seed(), но в памяти — для бенчмарков без кластера.
+     */
+    static SimpleResultSet resultSet(String shape, int rows) {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.setAutoClose(false);
+        rs.addColumn("ID", Types.BIGINT, 19, 0);
+        if (!"wide".equals(shape)) {
+            rs.addColumn("NAME", Types.VARCHAR, Integer.MAX_VALUE, 0);
+            for (long x = 1; x <= rows; x++) {
+                rs.addRow(x, "name-" + x);
+            }
+            return rs;
+        }
+
+        for (String c : new String[]{"I1", "I2", "I3", "I4"}) rs.addColumn(c, Types.INTEGER, 10, 0);
+        for (String c : new String[]{"L1", "L2", "L3"}) rs.addColumn(c, Types.BIGINT, 19, 0);
+        for (String c : new String[]{"D1", "D2", "D3"}) rs.addColumn(c, Types.DOUBLE, 17, 0);
+        for (String c : new String[]{"S1", "S2", "S3", "S4"}) rs.addColumn(c, Types.VARCHAR, Integer.MAX_VALUE, 0);
+        for (String c : new String[]{"T1", "T2"}) rs.addColumn(c, Types.TIMESTAMP, 26, 6);
+        for (String c : new String[]{"N1", "N2"}) rs.addColumn(c, Types.DECIMAL, 18, 4);
+        rs.addColumn("B1", Types.BOOLEAN, 1, 0);
+
+        Timestamp fixed = Timestamp.valueOf("2024-06-01 12:00:00");
+        BigDecimal n2 = new BigDecimal("100.5000");
+        for (long x = 1; x <= rows; x++) {
+            rs.addRow(x,
+                    (int) (x % 1000), (int) (x % 7), (int) (x % 100_000), 42,
+                    x * 31, x * 17, -x,
+                    x / 3.0, x * 1.5, 0.25,
+                    "name-" + x, "city-" + (x % 500), "constant value", "descr " + x + " lorem ipsum",
+                    new Timestamp(T0 + x * 1000), fixed,
+                    BigDecimal.valueOf(x).divide(BigDecimal.valueOf(7), 4, RoundingMode.HALF_UP), n2,
+                    x % 2 == 0);
+        }
+        return rs;
+    }
+
+    static ResultSet rewind(SimpleResultSet rs) throws Exception {
+        rs.beforeFirst();
+        return rs;
+    }
+}
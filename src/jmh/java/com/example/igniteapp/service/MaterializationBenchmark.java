@@ -0,0 +1,52 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.api.dto.ColumnVector;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Материализация ResultSet без кластера: построчно в Map (format=rows, {@link SqlService#readRows})
+ * против колоночных векторов (format=compact, {@link ColumnarResultReader}).
+ * С -prof gc видно, сколько байт уходит на строку в каждом формате.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class MaterializationBenchmark {
+
+    @Param({"narrow", "wide"})
+    public String shape;
+
+    @Param({"1", "1000", "100000"})
+    public int rows;
+
+    private SimpleResultSet rs;
+    private List<String> columns;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        rs = BenchData.resultSet(shape, rows);
+        columns = new ArrayList<>();
+        for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+            columns.add(rs.getMetaData().getColumnLabel(i));
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> rowMaps() throws Exception {
+        return SqlService.readRows(BenchData.rewind(rs), columns, 0, ResultBudget.unlimited());
+    }
+
+    @Benchmark
+    public List<ColumnVector> columnVectors() throws Exception {
+        return ColumnarResultReader.read(BenchData.rewind(rs), 0, ResultBudget.unlimited());
+    }
+}
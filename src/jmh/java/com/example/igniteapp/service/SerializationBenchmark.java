@@ -0,0 +1,82 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.api.dto.SqlExecuteResponse;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson-сериализация SqlExecuteResponse отдельно от выполнения: format=rows и format=compact
+ * на одних и тех же данных. Пишем в пустой OutputStream — меряется только генерация JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class SerializationBenchmark {
+
+    @Param({"narrow", "wide"})
+    public String shape;
+
+    @Param({"1", "1000", "100000"})
+    public int rows;
+
+    @Param({"rows", "compact"})
+    public String format;
+
+    private ObjectWriter writer;
+    private SqlExecuteResponse response;
+    private OutputStream sink;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // тот же конструктор ObjectMapper, что использует Spring Boot для HTTP-ответов
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(SqlExecuteResponse.class);
+        sink = new DiscardingOutputStream();
+
+        SimpleResultSet rs = BenchData.resultSet(shape, rows);
+        List<String> columns = new ArrayList<>();
+        for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+            columns.add(rs.getMetaData().getColumnLabel(i));
+        }
+
+        response = new SqlExecuteResponse();
+        response.setOk(true);
+        response.setElapsedMs(1);
+        response.setColumns(columns);
+        response.setFormat(format);
+        response.setEngine("jdbc");
+        if ("compact".equals(format)) {
+            response.setRows(new ArrayList<>());
+            response.setVectors(ColumnarResultReader.read(rs, 0, ResultBudget.unlimited()));
+        } else {
+            response.setRows(SqlService.readRows(rs, columns, 0, ResultBudget.unlimited()));
+        }
+    }
+
+    @Benchmark
+    public void serialize() throws Exception {
+        writer.writeValue(sink, response);
+    }
+
+    /**
+     * Jackson закрывает поток после writeValue, OutputStream.nullOutputStream() после close() падает.
+     */
+    private static final class DiscardingOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.config.IgniteProperties;
+import com.example.igniteapp.ignite.EmbeddedIgniteManager;
+import com.example.igniteapp.ignite.IgniteConnectionPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SqlService.executeWithLimit против embedded-узла (поднимается так же, как в приложении —
+ * через EmbeddedIgniteManager) на разных формах результата: время выполнения + чтения строк.
+ * <p>
+ * Узел и данные создаются на каждый форк (одна комбинация параметров). Перед запуском остановите
+ * локально запущенное приложение: узел бенчмарка иначе войдёт в его кластер (discovery 47500..47509).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Xms2g", "-Xmx3g",
+        "--add-opens=java.base/java.nio=ALL-UNNAMED",
+        "--add-opens=java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-opens=java.base/java.lang=ALL-UNNAMED",
+        "--add-opens=java.base/java.util=ALL-UNNAMED",
+        "--add-opens=java.base/java.lang.invoke=ALL-UNNAMED",
+        "--add-opens=java.base/java.util.concurrent=ALL-UNNAMED",
+        "--add-opens=java.base/java.util.concurrent.atomic=ALL-UNNAMED",
+        "--add-opens=java.base/java.lang.reflect=ALL-UNNAMED",
+        "--add-opens=java.base/java.io=ALL-UNNAMED",
+        "--add-opens=java.base/java.net=ALL-UNNAMED",
+        "--add-opens=java.base/java.text=ALL-UNNAMED",
+        "--add-opens=java.base/java.time=ALL-UNNAMED",
+        "--add-opens=java.base/jdk.internal.misc=ALL-UNNAMED",
+        "--add-opens=java.management/com.sun.jmx.mbeanserver=ALL-UNNAMED",
+        "--add-opens=java.sql/java.sql=ALL-UNNAMED",
+        "--add-exports=java.base/jdk.internal.misc=ALL-UNNAMED",
+        "--add-exports=java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-exports=java.management/com.sun.jmx.mbeanserver=ALL-UNNAMED",
+        "-DIGNITE_QUIET=true",
+        "-DIGNITE_UPDATE_NOTIFIER=false"
+})
+public class SqlServiceBenchmark {
+
+    private static final int SEED_CHUNK = 100_000;
+
+    @Param({"narrow", "wide"})
+    public String shape;
+
+    @Param({"1", "1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"jdbc", "native"})
+    public String engine;
+
+    private EmbeddedIgniteManager embedded;
+    private IgniteConnectionPool pool;
+    private SqlService sqlService;
+    private String sql;
+    private Path workDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("ignite-bench");
+
+        IgniteProperties props = new IgniteProperties();
+        props.getEmbedded().setEnabled(true);
+        props.getEmbedded().setInstanceName("ignite-bench");
+        props.getEmbedded().setWorkDir(workDir.toString());
+        props.setJdbcUrl("jdbc:ignite:thin://127.0.0.1:" + props.getEmbedded().getThinPort());
+        props.setEngine(engine);
+        props.setQueryTimeoutSeconds(0);
+        props.setMaxRows(rows);
+        // меряем материализацию целиком, без обрезки по бюджету памяти
+        props.setMaxResultBytes(0);
+        props.setMaxTotalResultBytes(0);
+        props.getCache().setEnabled(false);
+        props.getPool().setMaxSize(2);
+        props.getPool().setMinIdle(1);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        embedded = new EmbeddedIgniteManager(props, registry);
+        embedded.start();
+        pool = new IgniteConnectionPool(props);
+        pool.start();
+
+        SqlMetrics metrics = new SqlMetrics(registry);
+        sqlService = new SqlService(props, pool, new QueryResultCache(props), new PreparedStatementCache(props),
+                new NativeQueryEngine(props, embedded, metrics), new SqlAdmission(props), metrics,
+                new QueryStatsCollector(props), new PlanCache(props), new ResultBudget(props, registry));
+
+        sqlService.execute(SqlQuery.of(BenchData.ddl(shape)).noCache());
+        for (long from = 1; from <= rows; from += SEED_CHUNK) {
+            sqlService.execute(SqlQuery.of(BenchData.seed(shape, from, Math.min(rows, from + SEED_CHUNK - 1))).noCache());
+        }
+        sql = "SELECT * FROM " + BenchData.table(shape);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pool.stop();
+        embedded.stop();
+        try (java.util.stream.Stream<Path> files = Files.walk(workDir)) {
+            files.sorted(java.util.Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> executeWithLimit() throws Exception {
+        return sqlService.executeWithLimit(sql, rows);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.igniteapp.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры прогона из аргументов key=value:
+ * <pre>
+ * threads=16 users=16 warmupSec=10 durationSec=60 rows=100000 rangeRows=100 thinkMs=0 timeoutSec=30
+ * mix=point:50,range:20,agg:5,overview:15,ready:10 report=target/loadtest-report.json
+ * </pre>
+ * Аргументы вида --key=value — настройки приложения (например --app.ignite.admission.maxConcurrent=16).
+ */
+final class Config {
+
+    /** point / range / agg — POST /api/sql; overview, ready — GET. */
+    static final List<String> OPERATIONS = Arrays.asList("point", "range", "agg", "overview", "ready");
+
+    int threads = 16;
+    int users = -1;
+    int warmupSec = 10;
+    int durationSec = 60;
+    long rows = 100_000;
+    int rangeRows = 100;
+    long thinkMs = 0;
+    int timeoutSec = 30;
+    String report = "target/loadtest-report.json";
+    final Map<String, Integer> mix = new LinkedHashMap<>();
+    final Map<String, String> appArgs = new LinkedHashMap<>();
+
+    int totalWeight;
+    private String[] slots;
+
+    static Config parse(String[] args) {
+        Config c = new Config();
+        String mix = "point:50,range:20,agg:5,overview:15,ready:10";
+        for (String a : args) {
+            if (a == null || a.isBlank()) continue;
+            int eq = a.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value: " + a);
+            String key = a.substring(0, eq).trim();
+            String value = a.substring(eq + 1).trim();
+            if (key.startsWith("--")) {
+                c.appArgs.put(key.substring(2), value);
+                continue;
+            }
+            switch (key) {
+                case "threads": c.threads = Integer.parseInt(value); break;
+                case "users": c.users = Integer.parseInt(value); break;
+                case "warmupSec": c.warmupSec = Integer.parseInt(value); break;
+                case "durationSec": c.durationSec = Integer.parseInt(value); break;
+                case "rows": c.rows = Long.parseLong(value); break;
+                case "rangeRows": c.rangeRows = Integer.parseInt(value); break;
+                case "thinkMs": c.thinkMs = Long.parseLong(value); break;
+                case "timeoutSec": c.timeoutSec = Integer.parseInt(value); break;
+                case "report": c.report = value; break;
+                case "mix": mix = value; break;
+                default: throw new IllegalArgumentException("Unknown parameter: " + key);
+            }
+        }
+        if (c.threads < 1 || c.durationSec < 1 || c.rows < 1) {
+            throw new IllegalArgumentException("threads, durationSec and rows must be positive");
+        }
+        if (c.users < 1) c.users = c.threads;
+        c.parseMix(mix);
+        return c;
+    }
+
+    private void parseMix(String spec) {
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2 || !OPERATIONS.contains(kv[0].trim())) {
+                throw new IllegalArgumentException("Bad mix entry '" + part + "', expected op:weight with op in " + OPERATIONS);
+            }
+            int w = Integer.parseInt(kv[1].trim());
+            if (w > 0) mix.put(kv[0].trim(), w);
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("mix is empty");
+
+        totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        slots = new String[totalWeight];
+        int i = 0;
+        for (Map.Entry<String, Integer> e : mix.entrySet()) {
+            for (int k = 0; k < e.getValue(); k++) slots[i++] = e.getKey();
+        }
+    }
+
+    /**
+     * @param r случайное число в [0, totalWeight)
+     */
+    String pick(int r) {
+        return slots[r];
+    }
+
+    Map<String, Object> info(Map<String, String> effectiveAppArgs) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("threads", threads);
+        r.put("users", users);
+        r.put("warmupSec", warmupSec);
+        r.put("durationSec", durationSec);
+        r.put("rows", rows);
+        r.put("rangeRows", rangeRows);
+        r.put("thinkMs", thinkMs);
+        r.put("timeoutSec", timeoutSec);
+        r.put("mix", mix);
+        Map<String, String> app = new LinkedHashMap<>(effectiveAppArgs);
+        // временный каталог меняется от запуска к запуску — в отчёте только мешал бы diff'у
+        app.remove("app.ignite.embedded.workDir");
+        r.put("appArgs", app);
+        return r;
+    }
+}
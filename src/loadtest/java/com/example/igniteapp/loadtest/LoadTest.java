@@ -0,0 +1,399 @@
+package com.example.igniteapp.loadtest;
+
+import com.example.igniteapp.IgniteSqlUiApplication;
+import com.example.igniteapp.service.ReadinessChecker;
+import com.example.igniteapp.service.SqlQuery;
+import com.example.igniteapp.service.SqlService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Нагрузочный прогон одного экземпляра приложения: поднимает приложение с embedded Ignite в этом же JVM,
+ * наполняет таблицу и гоняет /api/sql, /api/ignite/overview и /api/ready из N виртуальных пользователей
+ * (закрытая модель: каждый шлёт следующий запрос после ответа на предыдущий).
+ * <p>
+ * Аргументы key=value (см. {@link Config}); аргументы с "--" передаются приложению как есть.
+ * Отчёт — JSON с фиксированным порядком полей, чтобы его можно было сравнивать diff'ом между версиями.
+ */
+public final class LoadTest {
+
+    static final String TABLE = "LOADTEST";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config cfg = Config.parse(args);
+        Path workDir = Files.createTempDirectory("ignite-loadtest");
+
+        Map<String, String> appArgs = new LinkedHashMap<>();
+        appArgs.put("server.port", "0");
+        appArgs.put("app.ignite.embedded.enabled", "true");
+        appArgs.put("app.ignite.embedded.instanceName", "ignite-loadtest");
+        appArgs.put("app.ignite.embedded.workDir", workDir.toString());
+        // каждый виртуальный пользователь — свой логин: per-user лимиты admission работают как в жизни
+        appArgs.put("app.security.mode", "fakelogin");
+        appArgs.put("logging.level.root", "WARN");
+        appArgs.putAll(cfg.appArgs);
+
+        List<String> springArgs = new ArrayList<>();
+        appArgs.forEach((k, v) -> springArgs.add("--" + k + "=" + v));
+
+        log("Starting application (embedded Ignite, workDir=" + workDir + ")");
+        ConfigurableApplicationContext ctx = SpringApplication.run(IgniteSqlUiApplication.class, springArgs.toArray(new String[0]));
+        int exitCode = 0;
+        try {
+            int port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+            String base = "http://127.0.0.1:" + port + ctx.getEnvironment().getProperty("server.servlet.context-path", "");
+
+            seed(ctx.getBean(SqlService.class), cfg.rows);
+            awaitReady(ctx.getBean(ReadinessChecker.class));
+
+            Map<String, Object> report = run(cfg, base, appArgs);
+            Path out = Paths.get(cfg.report);
+            if (out.getParent() != null) Files.createDirectories(out.getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), report);
+            log("Report: " + out.toAbsolutePath());
+        } catch (Exception e) {
+            exitCode = 1;
+            log("Load test failed: " + e);
+            e.printStackTrace();
+        } finally {
+            ctx.close();
+            deleteRecursively(workDir);
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Таблица LOADTEST: ID 1..rows, 100 групп, суммы и даты — для точечных, диапазонных и агрегатных запросов.
+     */
+    static void seed(SqlService sql, long rows) throws Exception {
+        long t0 = System.nanoTime();
+        sql.execute(SqlQuery.of("CREATE TABLE IF NOT EXISTS " + TABLE +
+                " (ID BIGINT PRIMARY KEY, GRP INT, NAME VARCHAR, AMOUNT DECIMAL(18, 2), CREATED TIMESTAMP)").noCache());
+        int chunk = 50_000;
+        for (long from = 1; from <= rows; from += chunk) {
+            long to = Math.min(rows, from + chunk - 1);
+            sql.execute(SqlQuery.of("INSERT INTO " + TABLE + " (ID, GRP, NAME, AMOUNT, CREATED) " +
+                    "SELECT X, CAST(MOD(X, 100) AS INT), CONCAT('name-', X), CAST(X * 1.25 AS DECIMAL(18, 2)), " +
+                    "DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00') FROM SYSTEM_RANGE(" + from + ", " + to + ")")
+                    .noCache());
+        }
+        log("Seeded " + rows + " rows in " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+    }
+
+    private static void awaitReady(ReadinessChecker readiness) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!readiness.isReady()) {
+            if (System.currentTimeMillis() > deadline) throw new IllegalStateException("Application is not READY after 60 s");
+            Thread.sleep(200);
+        }
+    }
+
+    private static Map<String, Object> run(Config cfg, String base, Map<String, String> appArgs) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        long measureFrom = start + Duration.ofSeconds(cfg.warmupSec).toNanos();
+        long end = measureFrom + Duration.ofSeconds(cfg.durationSec).toNanos();
+
+        log("Running: threads=" + cfg.threads + ", users=" + cfg.users + ", warmup=" + cfg.warmupSec +
+                " s, duration=" + cfg.durationSec + " s, mix=" + cfg.mix);
+
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        JvmStats jvm = new JvmStats();
+        for (int i = 0; i < cfg.threads; i++) {
+            Worker w = new Worker(cfg, client, base, "load-" + (i % cfg.users), measureFrom, end);
+            workers.add(w);
+            Thread t = new Thread(w, "loadtest-" + i);
+            threads.add(t);
+            t.start();
+        }
+
+        sleepUntil(measureFrom);
+        jvm.begin();
+        for (Thread t : threads) t.join();
+        jvm.end();
+
+        Map<String, Recorder> merged = new LinkedHashMap<>();
+        for (String op : cfg.mix.keySet()) merged.put(op, new Recorder());
+        for (Worker w : workers) {
+            w.recorders.forEach((op, r) -> merged.get(op).merge(r));
+        }
+        Recorder total = new Recorder();
+        merged.values().forEach(total::merge);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("config", cfg.info(appArgs));
+        report.put("environment", environment());
+        report.put("total", total.info(cfg.durationSec));
+        Map<String, Object> ops = new LinkedHashMap<>();
+        merged.forEach((op, r) -> ops.put(op, r.info(cfg.durationSec)));
+        report.put("operations", ops);
+        report.put("jvm", jvm.info(cfg.durationSec));
+
+        printSummary(total, merged, cfg.durationSec, jvm);
+        return report;
+    }
+
+    private static Map<String, Object> environment() {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("javaVersion", System.getProperty("java.version"));
+        r.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        r.put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        List<String> gcs = new ArrayList<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) gcs.add(gc.getName());
+        r.put("gc", gcs);
+        // генератор нагрузки живёт в том же JVM, что и приложение
+        r.put("inProcess", true);
+        return r;
+    }
+
+    private static void printSummary(Recorder total, Map<String, Recorder> ops, int durationSec, JvmStats jvm) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-10s %9s %9s %8s %9s %9s %9s %9s%n",
+                "op", "requests", "rps", "err%", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        Map<String, Recorder> rows = new LinkedHashMap<>(ops);
+        rows.put("total", total);
+        rows.forEach((op, r) -> {
+            long[] s = r.sorted();
+            System.out.printf(Locale.ROOT, "%-10s %9d %9.1f %8.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    op, r.count, (double) r.count / durationSec, r.errorRate() * 100,
+                    ms(Recorder.percentile(s, 0.5)), ms(Recorder.percentile(s, 0.99)),
+                    ms(Recorder.percentile(s, 0.999)), ms(s.length > 0 ? s[s.length - 1] : 0));
+        });
+        System.out.printf(Locale.ROOT, "GC: %d collections, %d ms (%.2f%% of run); heap peak %d MB%n%n",
+                jvm.gcCount, jvm.gcTimeMs, jvm.gcTimeMs * 100.0 / (durationSec * 1000L), jvm.heapPeak / (1024 * 1024));
+    }
+
+    static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long left;
+        while ((left = nanoTime - System.nanoTime()) > 0) {
+            Thread.sleep(Math.max(1, left / 1_000_000));
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (Exception e) {
+            log("Failed to delete " + dir + ": " + e.getMessage());
+        }
+    }
+
+    static void log(String msg) {
+        System.out.println("[loadtest] " + msg);
+    }
+
+    /**
+     * Виртуальный пользователь: выбирает операцию по весам mix, шлёт запрос, пишет задержку
+     * (только после прогрева). Сессионную cookie держит сам — иначе каждый запрос создавал бы новую сессию.
+     */
+    private static final class Worker implements Runnable {
+        private final Config cfg;
+        private final HttpClient client;
+        private final String base;
+        private final String authorization;
+        private final long measureFrom;
+        private final long end;
+        final Map<String, Recorder> recorders = new LinkedHashMap<>();
+        private String sessionCookie;
+
+        Worker(Config cfg, HttpClient client, String base, String user, long measureFrom, long end) {
+            this.cfg = cfg;
+            this.client = client;
+            this.base = base;
+            this.authorization = "Basic " + Base64.getEncoder()
+                    .encodeToString((user + ":x").getBytes(StandardCharsets.UTF_8));
+            this.measureFrom = measureFrom;
+            this.end = end;
+            for (String op : cfg.mix.keySet()) recorders.put(op, new Recorder());
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            while (true) {
+                long t0 = System.nanoTime();
+                if (t0 >= end) return;
+
+                String op = cfg.pick(rnd.nextInt(cfg.totalWeight));
+                HttpRequest req = request(op, rnd);
+                String error = null;
+                long bytes = 0;
+                try {
+                    HttpResponse<byte[]> resp = client.send(req, HttpResponse.BodyHandlers.ofByteArray());
+                    bytes = resp.body().length;
+                    resp.headers().firstValue("set-cookie").ifPresent(c -> {
+                        int semi = c.indexOf(';');
+                        sessionCookie = semi > 0 ? c.substring(0, semi) : c;
+                    });
+                    if (resp.statusCode() != 200) {
+                        error = "http_" + resp.statusCode();
+                    } else if (startsWithNotOk(resp.body())) {
+                        error = "ok_false";
+                    }
+                } catch (HttpTimeoutException e) {
+                    error = "timeout";
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    error = "io";
+                }
+                long t1 = System.nanoTime();
+                if (t0 >= measureFrom && t1 <= end) recorders.get(op).record(t1 - t0, bytes, error);
+
+                if (cfg.thinkMs > 0) {
+                    try {
+                        Thread.sleep(cfg.thinkMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private HttpRequest request(String op, ThreadLocalRandom rnd) {
+            HttpRequest.Builder b;
+            switch (op) {
+                case "overview":
+                    b = HttpRequest.newBuilder(URI.create(base + "/api/ignite/overview")).GET();
+                    break;
+                case "ready":
+                    b = HttpRequest.newBuilder(URI.create(base + "/api/ready")).GET();
+                    break;
+                default:
+                    b = HttpRequest.newBuilder(URI.create(base + "/api/sql"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(sqlBody(op, rnd)));
+            }
+            b.timeout(Duration.ofSeconds(cfg.timeoutSec)).header("Authorization", authorization);
+            if (sessionCookie != null) b.header("Cookie", sessionCookie);
+            return b.build();
+        }
+
+        private String sqlBody(String op, ThreadLocalRandom rnd) {
+            long id = 1 + rnd.nextLong(cfg.rows);
+            switch (op) {
+                case "point":
+                    return "{\"sql\":\"SELECT * FROM " + TABLE + " WHERE ID = ?\",\"params\":[{\"type\":\"BIGINT\",\"value\":" + id + "}]}";
+                case "range":
+                    return "{\"sql\":\"SELECT * FROM " + TABLE + " WHERE ID BETWEEN ? AND ?\",\"params\":[" +
+                            "{\"type\":\"BIGINT\",\"value\":" + id + "},{\"type\":\"BIGINT\",\"value\":" + (id + cfg.rangeRows - 1) + "}]}";
+                case "agg":
+                    return "{\"sql\":\"SELECT GRP, COUNT(*) AS CNT, SUM(AMOUNT) AS TOTAL FROM " + TABLE + " GROUP BY GRP\"}";
+                default:
+                    throw new IllegalArgumentException("Unknown operation: " + op);
+            }
+        }
+
+        /**
+         * Все ответы начинаются с {"ok":...} — достаточно посмотреть на начало тела.
+         */
+        private static boolean startsWithNotOk(byte[] body) {
+            int n = Math.min(body.length, 16);
+            return new String(body, 0, n, StandardCharsets.UTF_8).replace(" ", "").startsWith("{\"ok\":false");
+        }
+    }
+
+    /**
+     * GC и куча за время замера (без прогрева): число/время сборок по коллекторам и пик heap-пулов.
+     */
+    private static final class JvmStats {
+        private final Map<String, long[]> gcStart = new LinkedHashMap<>();
+        private final Map<String, Object> gcByCollector = new LinkedHashMap<>();
+        private long heapStart;
+        private long heapEnd;
+        long heapPeak;
+        long gcCount;
+        long gcTimeMs;
+
+        void begin() {
+            heapStart = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+            }
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcStart.put(gc.getName(), new long[]{gc.getCollectionCount(), gc.getCollectionTime()});
+            }
+        }
+
+        void end() {
+            heapEnd = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) heapPeak += pool.getPeakUsage().getUsed();
+            }
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                long[] s = gcStart.getOrDefault(gc.getName(), new long[2]);
+                long count = gc.getCollectionCount() - s[0];
+                long time = gc.getCollectionTime() - s[1];
+                gcCount += count;
+                gcTimeMs += time;
+                Map<String, Object> c = new LinkedHashMap<>();
+                c.put("count", count);
+                c.put("timeMs", time);
+                gcByCollector.put(gc.getName(), c);
+            }
+        }
+
+        Map<String, Object> info(int durationSec) {
+            long mb = 1024 * 1024;
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("heapUsedStartMb", heapStart / mb);
+            r.put("heapUsedEndMb", heapEnd / mb);
+            // сумма пиков по пулам — верхняя оценка одновременного пика
+            r.put("heapPeakMb", heapPeak / mb);
+            r.put("heapMaxMb", Runtime.getRuntime().maxMemory() / mb);
+            r.put("gcCount", gcCount);
+            r.put("gcTimeMs", gcTimeMs);
+            r.put("gcTimePct", round(gcTimeMs * 100.0 / (durationSec * 1000L)));
+            r.put("gcByCollector", gcByCollector);
+            return r;
+        }
+    }
+
+    static double round(double v) {
+        return Math.round(v * 1000) / 1000.0;
+    }
+}
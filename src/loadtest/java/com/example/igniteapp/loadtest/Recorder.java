@@ -0,0 +1,81 @@
+package com.example.igniteapp.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Задержки одной операции: хранит все значения (точные перцентили после сортировки),
+ * ошибки по видам и объём ответов. Не потокобезопасен — у каждого воркера свой, в конце сливаются.
+ */
+final class Recorder {
+
+    private long[] nanos = new long[1024];
+    long count;
+    long errors;
+    long bytes;
+    final Map<String, Long> errorsByKind = new TreeMap<>();
+
+    void record(long elapsedNanos, long responseBytes, String error) {
+        if (count == nanos.length) nanos = Arrays.copyOf(nanos, nanos.length * 2);
+        nanos[(int) count++] = elapsedNanos;
+        bytes += responseBytes;
+        if (error != null) {
+            errors++;
+            errorsByKind.merge(error, 1L, Long::sum);
+        }
+    }
+
+    void merge(Recorder other) {
+        if (count + other.count > nanos.length) {
+            nanos = Arrays.copyOf(nanos, (int) Math.max(nanos.length * 2L, count + other.count));
+        }
+        System.arraycopy(other.nanos, 0, nanos, (int) count, (int) other.count);
+        count += other.count;
+        errors += other.errors;
+        bytes += other.bytes;
+        other.errorsByKind.forEach((k, v) -> errorsByKind.merge(k, v, Long::sum));
+    }
+
+    double errorRate() {
+        return count > 0 ? (double) errors / count : 0;
+    }
+
+    long[] sorted() {
+        long[] s = Arrays.copyOf(nanos, (int) count);
+        Arrays.sort(s);
+        return s;
+    }
+
+    static long percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.ceil(q * sorted.length) - 1;
+        return sorted[Math.min(sorted.length - 1, Math.max(0, idx))];
+    }
+
+    Map<String, Object> info(int durationSec) {
+        long[] s = sorted();
+        double sum = 0;
+        for (long v : s) sum += v;
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("min", LoadTest.round(LoadTest.ms(s.length > 0 ? s[0] : 0)));
+        latency.put("mean", LoadTest.round(s.length > 0 ? LoadTest.ms((long) (sum / s.length)) : 0));
+        latency.put("p50", LoadTest.round(LoadTest.ms(percentile(s, 0.5))));
+        latency.put("p90", LoadTest.round(LoadTest.ms(percentile(s, 0.9))));
+        latency.put("p99", LoadTest.round(LoadTest.ms(percentile(s, 0.99))));
+        latency.put("p999", LoadTest.round(LoadTest.ms(percentile(s, 0.999))));
+        latency.put("max", LoadTest.round(LoadTest.ms(s.length > 0 ? s[s.length - 1] : 0)));
+
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("requests", count);
+        r.put("throughputRps", LoadTest.round((double) count / durationSec));
+        r.put("errors", errors);
+        r.put("errorRate", LoadTest.round(errorRate()));
+        r.put("errorsByKind", errorsByKind);
+        r.put("latencyMs", latency);
+        r.put("responseBytes", bytes);
+        return r;
+    }
+}
@@ -5,8 +5,10 @@ import com.example.igniteapp.security.AppSecurityProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 @EnableConfigurationProperties({IgniteProperties.class, AppSecurityProperties.class})
 public class IgniteSqlUiApplication {
     public static void main(String[] args) {
@@ -0,0 +1,47 @@
+package com.example.igniteapp.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "ColumnVector", description = "Колонка результата в компактном формате: метаданные + значения всех строк.")
+public class ColumnVector {
+
+    @Schema(description = "Имя колонки", example = "ID")
+    private String name;
+
+    @Schema(description = "JDBC тип (java.sql.Types)", example = "4")
+    private int jdbcType;
+
+    @Schema(description = "Имя типа в БД", example = "INTEGER")
+    private String typeName;
+
+    @Schema(description = "Значения по строкам. Числа и boolean — примитивный массив (null там = 0/false, см. nulls)")
+    private Object values;
+
+    @Schema(description = "Номера строк (с 0), где значение NULL; null, если NULL в колонке нет")
+    private int[] nulls;
+
+    public ColumnVector() {}
+
+    public ColumnVector(String name, int jdbcType, String typeName, Object values, int[] nulls) {
+        this.name = name;
+        this.jdbcType = jdbcType;
+        this.typeName = typeName;
+        this.values = values;
+        this.nulls = nulls;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public int getJdbcType() { return jdbcType; }
+    public void setJdbcType(int jdbcType) { this.jdbcType = jdbcType; }
+
+    public String getTypeName() { return typeName; }
+    public void setTypeName(String typeName) { this.typeName = typeName; }
+
+    public Object getValues() { return values; }
+    public void setValues(Object values) { this.values = values; }
+
+    public int[] getNulls() { return nulls; }
+    public void setNulls(int[] nulls) { this.nulls = nulls; }
+}
@@ -16,6 +16,18 @@ public class IgniteOverviewResponse {
     @Schema(description = "Данные. Внутри ключи: nodes, caches, schemas, activeQueries (каждый как результат /api/sql).")
     private Map<String, Object> data;
 
+    @Schema(description = "Когда снят снимок (epoch ms)", example = "1718000000000")
+    private Long snapshotAt;
+
+    @Schema(description = "Возраст снимка на момент ответа, мс", example = "3200")
+    private Long ageMs;
+
+    @Schema(description = "Сколько длилось обновление снимка (все запросы параллельно), мс", example = "45")
+    private Long refreshMs;
+
+    @Schema(description = "Интервал фонового обновления, мс", example = "10000")
+    private Long refreshIntervalMs;
+
     public boolean isOk() { return ok; }
     public void setOk(boolean ok) { this.ok = ok; }
 
@@ -24,4 +36,16 @@ public class IgniteOverviewResponse {
 
     public Map<String, Object> getData() { return data; }
     public void setData(Map<String, Object> data) { this.data = data; }
+
+    public Long getSnapshotAt() { return snapshotAt; }
+    public void setSnapshotAt(Long snapshotAt) { this.snapshotAt = snapshotAt; }
+
+    public Long getAgeMs() { return ageMs; }
+    public void setAgeMs(Long ageMs) { this.ageMs = ageMs; }
+
+    public Long getRefreshMs() { return refreshMs; }
+    public void setRefreshMs(Long refreshMs) { this.refreshMs = refreshMs; }
+
+    public Long getRefreshIntervalMs() { return refreshIntervalMs; }
+    public void setRefreshIntervalMs(Long refreshIntervalMs) { this.refreshIntervalMs = refreshIntervalMs; }
 }
@@ -0,0 +1,207 @@
+package com.example.igniteapp.api.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.text.DateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Строки результата (format=rows) напрямую через JsonGenerator — вместо общего MapSerializer,
+ * который на каждую ячейку ищет сериализатор по классу значения.
+ * <p>
+ * Для колонки один раз, по первому не-NULL значению, выбирается специализированная запись
+ * (writeNumber(long), writeString, ...); значение другого класса уходит в стандартный сериализатор.
+ * Имена колонок кодируются один раз на ответ (SerializedString). Timestamp в UTC форматируется
+ * без Calendar — тем же текстом, что и StdDateFormat Jackson.
+ * Вывод байт-в-байт совпадает с обычной сериализацией List&lt;Map&gt;.
+ */
+public class ResultRowsSerializer extends StdSerializer<List<Map<String, Object>>> {
+
+    private enum Kind { STRING, INT, LONG, DOUBLE, FLOAT, DECIMAL, BOOLEAN, TIMESTAMP, OTHER }
+
+    public ResultRowsSerializer() {
+        super(TypeFactory.defaultInstance().constructType(List.class));
+    }
+
+    @Override
+    public void serialize(List<Map<String, Object>> rows, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        gen.writeStartArray();
+        if (rows.isEmpty()) {
+            gen.writeEndArray();
+            return;
+        }
+
+        // все строки из одного ResultSet: одни и те же ключи в одном порядке
+        Map<String, Object> first = rows.get(0);
+        int cols = first.size();
+        String[] keys = first.keySet().toArray(new String[0]);
+        SerializedString[] names = new SerializedString[cols];
+        for (int i = 0; i < cols; i++) names[i] = new SerializedString(keys[i]);
+        Kind[] kinds = new Kind[cols];
+        char[] buf = new char[29];
+        boolean fastDates = utcStdDates(provider);
+
+        for (Map<String, Object> row : rows) {
+            gen.writeStartObject();
+            if (row.size() != cols) {
+                for (Map.Entry<String, Object> e : row.entrySet()) {
+                    gen.writeFieldName(e.getKey());
+                    provider.defaultSerializeValue(e.getValue(), gen);
+                }
+                gen.writeEndObject();
+                continue;
+            }
+            Iterator<Map.Entry<String, Object>> it = row.entrySet().iterator();
+            for (int i = 0; i < cols; i++) {
+                Map.Entry<String, Object> e = it.next();
+                String key = e.getKey();
+                if (key == keys[i] || key.equals(keys[i])) gen.writeFieldName(names[i]);
+                else gen.writeFieldName(key);
+
+                Object v = e.getValue();
+                if (v == null) {
+                    gen.writeNull();
+                    continue;
+                }
+                Kind k = kinds[i];
+                if (k == null) kinds[i] = k = kind(v);
+                write(k, v, gen, provider, fastDates, buf);
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    private static Kind kind(Object v) {
+        Class<?> c = v.getClass();
+        if (c == String.class) return Kind.STRING;
+        if (c == Integer.class || c == Short.class || c == Byte.class) return Kind.INT;
+        if (c == Long.class) return Kind.LONG;
+        if (c == Double.class) return Kind.DOUBLE;
+        if (c == Float.class) return Kind.FLOAT;
+        if (c == BigDecimal.class) return Kind.DECIMAL;
+        if (c == Boolean.class) return Kind.BOOLEAN;
+        if (c == Timestamp.class) return Kind.TIMESTAMP;
+        return Kind.OTHER;
+    }
+
+    private static void write(Kind k, Object v, JsonGenerator gen, SerializerProvider provider,
+                              boolean fastDates, char[] buf) throws IOException {
+        switch (k) {
+            case STRING:
+                if (v instanceof String) {
+                    gen.writeString((String) v);
+                    return;
+                }
+                break;
+            case INT:
+                if (v instanceof Integer || v instanceof Short || v instanceof Byte) {
+                    gen.writeNumber(((Number) v).intValue());
+                    return;
+                }
+                break;
+            case LONG:
+                if (v instanceof Long) {
+                    gen.writeNumber((Long) v);
+                    return;
+                }
+                break;
+            case DOUBLE:
+                if (v instanceof Double) {
+                    gen.writeNumber((Double) v);
+                    return;
+                }
+                break;
+            case FLOAT:
+                if (v instanceof Float) {
+                    gen.writeNumber((Float) v);
+                    return;
+                }
+                break;
+            case DECIMAL:
+                if (v instanceof BigDecimal) {
+                    gen.writeNumber((BigDecimal) v);
+                    return;
+                }
+                break;
+            case BOOLEAN:
+                if (v instanceof Boolean) {
+                    gen.writeBoolean((Boolean) v);
+                    return;
+                }
+                break;
+            case TIMESTAMP:
+                if (fastDates && v.getClass() == Timestamp.class && formatUtc(((Timestamp) v).getTime(), buf)) {
+                    gen.writeString(buf, 0, buf.length);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        provider.defaultSerializeValue(v, gen);
+    }
+
+    /**
+     * Даты строкой через StdDateFormat в UTC (по умолчанию в Spring Boot) — только тогда формат известен.
+     */
+    private static boolean utcStdDates(SerializerProvider provider) {
+        if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) return false;
+        DateFormat df = provider.getConfig().getDateFormat();
+        if (!(df instanceof StdDateFormat) || !((StdDateFormat) df).isColonIncludedInTimeZone()) return false;
+        TimeZone tz = provider.getConfig().getTimeZone();
+        return tz != null && "UTC".equals(tz.getID());
+    }
+
+    /**
+     * yyyy-MM-dd'T'HH:mm:ss.SSS+00:00 в buf; false — год вне 0..9999 (пусть форматирует Jackson).
+     */
+    private static boolean formatUtc(long millis, char[] buf) {
+        LocalDateTime t = LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+        int year = t.getYear();
+        if (year < 0 || year > 9999) return false;
+        digits(buf, 0, year, 4);
+        buf[4] = '-';
+        digits(buf, 5, t.getMonthValue(), 2);
+        buf[7] = '-';
+        digits(buf, 8, t.getDayOfMonth(), 2);
+        buf[10] = 'T';
+        digits(buf, 11, t.getHour(), 2);
+        buf[13] = ':';
+        digits(buf, 14, t.getMinute(), 2);
+        buf[16] = ':';
+        digits(buf, 17, t.getSecond(), 2);
+        buf[19] = '.';
+        digits(buf, 20, t.getNano() / 1_000_000, 3);
+        buf[23] = '+';
+        buf[24] = '0';
+        buf[25] = '0';
+        buf[26] = ':';
+        buf[27] = '0';
+        buf[28] = '0';
+        return true;
+    }
+
+    private static void digits(char[] buf, int at, int v, int width) {
+        for (int i = at + width - 1; i >= at; i--) {
+            buf[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.igniteapp.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(name = "SqlBatchRequest", description = "Пакетное выполнение: шаблон + строки параметров, либо список SQL.")
+public class SqlBatchRequest {
+
+    @Schema(description = "Шаблон с '?' (используется вместе с rows)", example = "INSERT INTO test_table (id, name) VALUES (?, ?)")
+    private String sql;
+
+    @Schema(description = "Типы параметров шаблона по позициям (как SqlParam.type). Можно не задавать.", example = "[\"INT\", \"VARCHAR\"]")
+    private List<String> types;
+
+    @Schema(description = "Строки значений для шаблона", example = "[[1, \"a\"], [2, \"b\"]]")
+    private List<List<Object>> rows;
+
+    @Schema(description = "Список отдельных SQL (вместо sql + rows)")
+    private List<String> statements;
+
+    @Schema(description = "true — Ignite streaming (SET STREAMING ON), только INSERT; быстрее, но updateCount не точен", example = "false")
+    private Boolean streaming;
+
+    @Schema(description = "Размер пакета executeBatch (по умолчанию app.ignite.batch.batchSize)", example = "1000")
+    private Integer batchSize;
+
+    @Schema(description = "Частота сброса буферов в streaming-режиме, мс (по умолчанию app.ignite.batch.flushFrequencyMs)", example = "1000")
+    private Long flushFrequencyMs;
+
+    public String getSql() { return sql; }
+    public void setSql(String sql) { this.sql = sql; }
+
+    public List<String> getTypes() { return types; }
+    public void setTypes(List<String> types) { this.types = types; }
+
+    public List<List<Object>> getRows() { return rows; }
+    public void setRows(List<List<Object>> rows) { this.rows = rows; }
+
+    public List<String> getStatements() { return statements; }
+    public void setStatements(List<String> statements) { this.statements = statements; }
+
+    public Boolean getStreaming() { return streaming; }
+    public void setStreaming(Boolean streaming) { this.streaming = streaming; }
+
+    public Integer getBatchSize() { return batchSize; }
+    public void setBatchSize(Integer batchSize) { this.batchSize = batchSize; }
+
+    public Long getFlushFrequencyMs() { return flushFrequencyMs; }
+    public void setFlushFrequencyMs(Long flushFrequencyMs) { this.flushFrequencyMs = flushFrequencyMs; }
+}
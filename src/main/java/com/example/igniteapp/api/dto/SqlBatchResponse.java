@@ -0,0 +1,87 @@
+package com.example.igniteapp.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(name = "SqlBatchResponse", description = "Результат пакетного выполнения.")
+public class SqlBatchResponse {
+
+    @Schema(description = "Успех", example = "true")
+    private boolean ok;
+
+    @Schema(description = "Текст ошибки (если ok=false). Пакеты до ошибки уже применены.")
+    private String error;
+
+    @Schema(description = "Режим: batch или streaming", example = "batch")
+    private String mode;
+
+    @Schema(description = "Сколько строк/операторов отправлено", example = "10000")
+    private long items;
+
+    @Schema(description = "Сумма updateCount по всем пакетам", example = "10000")
+    private long updateCount;
+
+    @Schema(description = "Общее время, мс", example = "350")
+    private long elapsedMs;
+
+    @Schema(description = "Пропускная способность, строк/с", example = "28571.4")
+    private double itemsPerSec;
+
+    @Schema(description = "Результат по каждому пакету")
+    private List<Batch> batches = new ArrayList<>();
+
+    public boolean isOk() { return ok; }
+    public void setOk(boolean ok) { this.ok = ok; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+
+    public long getItems() { return items; }
+    public void setItems(long items) { this.items = items; }
+
+    public long getUpdateCount() { return updateCount; }
+    public void setUpdateCount(long updateCount) { this.updateCount = updateCount; }
+
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+
+    public double getItemsPerSec() { return itemsPerSec; }
+    public void setItemsPerSec(double itemsPerSec) { this.itemsPerSec = itemsPerSec; }
+
+    public List<Batch> getBatches() { return batches; }
+    public void setBatches(List<Batch> batches) { this.batches = batches; }
+
+    @Schema(name = "SqlBatchResponse.Batch", description = "Один executeBatch")
+    public static class Batch {
+        private int index;
+        private int size;
+        private long updateCount;
+        private long elapsedMs;
+
+        public Batch() {}
+
+        public Batch(int index, int size, long updateCount, long elapsedMs) {
+            this.index = index;
+            this.size = size;
+            this.updateCount = updateCount;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public int getSize() { return size; }
+        public void setSize(int size) { this.size = size; }
+
+        public long getUpdateCount() { return updateCount; }
+        public void setUpdateCount(long updateCount) { this.updateCount = updateCount; }
+
+        public long getElapsedMs() { return elapsedMs; }
+        public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+    }
+}
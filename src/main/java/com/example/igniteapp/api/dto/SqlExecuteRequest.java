@@ -2,6 +2,8 @@ package com.example.igniteapp.api.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.util.List;
+
 @Schema(name = "SqlExecuteRequest", description = "Запрос на выполнение SQL в Apache Ignite (thin JDBC).")
 public class SqlExecuteRequest {
 
@@ -12,6 +14,40 @@ public class SqlExecuteRequest {
     )
     private String sql;
 
+    @Schema(
+            description = "Формат результата SELECT: rows — список map {column -> value}; " +
+                    "compact — колонки один раз + типизированные векторы значений (vectors).",
+            example = "rows",
+            allowableValues = {"rows", "compact"}
+    )
+    private String format;
+
+    @Schema(description = "Параметры для '?' в SQL по порядку. Запрос выполняется через PreparedStatement.")
+    private List<SqlParam> params;
+
+    @Schema(description = "true — не брать результат из кэша и не класть в него", example = "false")
+    private Boolean noCache;
+
+    @Schema(
+            description = "Движок выполнения: jdbc — thin JDBC; native — SqlFieldsQuery на embedded-узле; " +
+                    "auto — native при embedded, иначе jdbc. Пусто — app.ignite.engine.",
+            example = "auto",
+            allowableValues = {"auto", "jdbc", "native"}
+    )
+    private String engine;
+
+    @Schema(description = "true — выполнить, даже если guard (app.ignite.explain.guard=confirm) нашёл в плане полный скан большой таблицы",
+            example = "false")
+    private Boolean confirmFullScan;
+
+    @Schema(description = "Бюджет памяти результата в байтах (оценка); меньше app.ignite.maxResultBytes — обрезать раньше. " +
+            "Пусто — app.ignite.maxResultBytes", example = "1048576")
+    private Long maxResultBytes;
+
+    @Schema(description = "Не больше стольких строк (меньше app.ignite.maxRows — обрезать раньше, truncatedBy=rows). " +
+            "Пусто — app.ignite.maxRows", example = "500")
+    private Integer limitRows;
+
     public SqlExecuteRequest() {}
 
     public SqlExecuteRequest(String sql) {
@@ -20,4 +56,25 @@ public class SqlExecuteRequest {
 
     public String getSql() { return sql; }
     public void setSql(String sql) { this.sql = sql; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public List<SqlParam> getParams() { return params; }
+    public void setParams(List<SqlParam> params) { this.params = params; }
+
+    public Boolean getNoCache() { return noCache; }
+    public void setNoCache(Boolean noCache) { this.noCache = noCache; }
+
+    public String getEngine() { return engine; }
+    public void setEngine(String engine) { this.engine = engine; }
+
+    public Boolean getConfirmFullScan() { return confirmFullScan; }
+    public void setConfirmFullScan(Boolean confirmFullScan) { this.confirmFullScan = confirmFullScan; }
+
+    public Long getMaxResultBytes() { return maxResultBytes; }
+    public void setMaxResultBytes(Long maxResultBytes) { this.maxResultBytes = maxResultBytes; }
+
+    public Integer getLimitRows() { return limitRows; }
+    public void setLimitRows(Integer limitRows) { this.limitRows = limitRows; }
 }
@@ -1,5 +1,6 @@
 package com.example.igniteapp.api.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.util.List;
@@ -21,11 +22,42 @@ public class SqlExecuteResponse {
     private List<String> columns;
 
     @Schema(description = "Строки результата (для SELECT). Каждая строка = map {column -> value}")
+    @JsonSerialize(using = ResultRowsSerializer.class)
     private List<Map<String, Object>> rows;
 
     @Schema(description = "Количество затронутых строк (для non-SELECT)", example = "1")
     private Integer updateCount;
 
+    @Schema(description = "Сколько строк в ответе (для SELECT)", example = "500")
+    private Integer rowCount;
+
+    @Schema(description = "true — строк больше, чем в ответе: упёрлись в лимит строк или в бюджет памяти", example = "false")
+    private Boolean truncated;
+
+    @Schema(description = "Почему обрезан: rows (limitRows / app.ignite.maxRows) или bytes (maxResultBytes)", example = "bytes")
+    private String truncatedBy;
+
+    @Schema(description = "Оценка размера результата в куче, байты", example = "524288")
+    private Long bytesEstimated;
+
+    @Schema(description = "Формат результата: rows или compact", example = "rows")
+    private String format;
+
+    @Schema(description = "Колоночный результат (format=compact): по одному вектору на колонку, rows при этом пуст")
+    private List<ColumnVector> vectors;
+
+    @Schema(description = "true — результат взят из кэша результатов", example = "true")
+    private Boolean cached;
+
+    @Schema(description = "Каким движком выполнен запрос: jdbc или native", example = "jdbc")
+    private String engine;
+
+    @Schema(description = "true — запрос остановлен guard'ом: повторить с confirmFullScan=true, чтобы выполнить", example = "true")
+    private Boolean confirmRequired;
+
+    @Schema(description = "Предупреждения плана, из-за которых guard остановил запрос (code, severity, table, estimatedRows, message)")
+    private List<Map<String, Object>> planWarnings;
+
     public boolean isOk() { return ok; }
     public void setOk(boolean ok) { this.ok = ok; }
 
@@ -43,4 +75,34 @@ public class SqlExecuteResponse {
 
     public Integer getUpdateCount() { return updateCount; }
     public void setUpdateCount(Integer updateCount) { this.updateCount = updateCount; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public List<ColumnVector> getVectors() { return vectors; }
+    public void setVectors(List<ColumnVector> vectors) { this.vectors = vectors; }
+
+    public Boolean getCached() { return cached; }
+    public void setCached(Boolean cached) { this.cached = cached; }
+
+    public String getEngine() { return engine; }
+    public void setEngine(String engine) { this.engine = engine; }
+
+    public Boolean getConfirmRequired() { return confirmRequired; }
+    public void setConfirmRequired(Boolean confirmRequired) { this.confirmRequired = confirmRequired; }
+
+    public List<Map<String, Object>> getPlanWarnings() { return planWarnings; }
+    public void setPlanWarnings(List<Map<String, Object>> planWarnings) { this.planWarnings = planWarnings; }
+
+    public Integer getRowCount() { return rowCount; }
+    public void setRowCount(Integer rowCount) { this.rowCount = rowCount; }
+
+    public Boolean getTruncated() { return truncated; }
+    public void setTruncated(Boolean truncated) { this.truncated = truncated; }
+
+    public String getTruncatedBy() { return truncatedBy; }
+    public void setTruncatedBy(String truncatedBy) { this.truncatedBy = truncatedBy; }
+
+    public Long getBytesEstimated() { return bytesEstimated; }
+    public void setBytesEstimated(Long bytesEstimated) { this.bytesEstimated = bytesEstimated; }
 }
@@ -0,0 +1,35 @@
+package com.example.igniteapp.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "SqlParam", description = "Параметр запроса для '?' в SQL (по порядку).")
+public class SqlParam {
+
+    @Schema(
+            description = "Тип параметра. Если не задан — берётся из JSON-значения (число/строка/boolean).",
+            example = "INT",
+            allowableValues = {"VARCHAR", "INT", "BIGINT", "DOUBLE", "DECIMAL", "BOOLEAN", "DATE", "TIME", "TIMESTAMP", "UUID"}
+    )
+    private String type;
+
+    @Schema(description = "Значение. Даты/время — строкой в ISO-формате, null — SQL NULL.", example = "42")
+    private Object value;
+
+    public SqlParam() {}
+
+    public SqlParam(String type, Object value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Object getValue() { return value; }
+    public void setValue(Object value) { this.value = value; }
+
+    @Override
+    public String toString() {
+        return (type != null ? type : "") + ':' + value;
+    }
+}
@@ -8,8 +8,28 @@ public class IgniteProperties {
     private String jdbcUrl = "jdbc:ignite:thin://127.0.0.1:10800";
     private int queryTimeoutSeconds = 10;
     private int maxRows = 500;
+    private long maxResultBytes = 32L * 1024 * 1024;        // оценка размера результата одного /api/sql в куче
+    private long maxTotalResultBytes = 256L * 1024 * 1024;  // все результаты, читаемые одновременно
+    private String engine = "auto";   // jdbc | native | auto
 
     private Embedded embedded = new Embedded();
+    private Pool pool = new Pool();
+    private Stream stream = new Stream();
+    private Export export = new Export();
+    private Cursors cursors = new Cursors();
+    private Cache cache = new Cache();
+    private Statements statements = new Statements();
+    private Batch batch = new Batch();
+    private CsvImport csvImport = new CsvImport();
+    private NativeEngine nativeEngine = new NativeEngine();
+    private Jobs jobs = new Jobs();
+    private Events events = new Events();
+    private Admission admission = new Admission();
+    private QueryStats queryStats = new QueryStats();
+    private Overview overview = new Overview();
+    private Readiness readiness = new Readiness();
+    private Explain explain = new Explain();
+    private Advisor advisor = new Advisor();
 
     public String getJdbcUrl() { return jdbcUrl; }
     public void setJdbcUrl(String jdbcUrl) { this.jdbcUrl = jdbcUrl; }
@@ -20,13 +40,73 @@ public class IgniteProperties {
     public int getMaxRows() { return maxRows; }
     public void setMaxRows(int maxRows) { this.maxRows = maxRows; }
 
+    public long getMaxResultBytes() { return maxResultBytes; }
+    public void setMaxResultBytes(long maxResultBytes) { this.maxResultBytes = maxResultBytes; }
+
+    public long getMaxTotalResultBytes() { return maxTotalResultBytes; }
+    public void setMaxTotalResultBytes(long maxTotalResultBytes) { this.maxTotalResultBytes = maxTotalResultBytes; }
+
+    public String getEngine() { return engine; }
+    public void setEngine(String engine) { this.engine = engine; }
+
     public Embedded getEmbedded() { return embedded; }
     public void setEmbedded(Embedded embedded) { this.embedded = embedded; }
 
+    public Pool getPool() { return pool; }
+    public void setPool(Pool pool) { this.pool = pool; }
+
+    public Stream getStream() { return stream; }
+    public void setStream(Stream stream) { this.stream = stream; }
+
+    public Export getExport() { return export; }
+    public void setExport(Export export) { this.export = export; }
+
+    public Cursors getCursors() { return cursors; }
+    public void setCursors(Cursors cursors) { this.cursors = cursors; }
+
+    public Cache getCache() { return cache; }
+    public void setCache(Cache cache) { this.cache = cache; }
+
+    public Statements getStatements() { return statements; }
+    public void setStatements(Statements statements) { this.statements = statements; }
+
+    public Batch getBatch() { return batch; }
+    public void setBatch(Batch batch) { this.batch = batch; }
+
+    public CsvImport getCsvImport() { return csvImport; }
+    public void setCsvImport(CsvImport csvImport) { this.csvImport = csvImport; }
+
+    public NativeEngine getNativeEngine() { return nativeEngine; }
+    public void setNativeEngine(NativeEngine nativeEngine) { this.nativeEngine = nativeEngine; }
+
+    public Jobs getJobs() { return jobs; }
+    public void setJobs(Jobs jobs) { this.jobs = jobs; }
+
+    public Events getEvents() { return events; }
+    public void setEvents(Events events) { this.events = events; }
+
+    public Admission getAdmission() { return admission; }
+    public void setAdmission(Admission admission) { this.admission = admission; }
+
+    public QueryStats getQueryStats() { return queryStats; }
+    public void setQueryStats(QueryStats queryStats) { this.queryStats = queryStats; }
+
+    public Overview getOverview() { return overview; }
+    public void setOverview(Overview overview) { this.overview = overview; }
+
+    public Readiness getReadiness() { return readiness; }
+    public void setReadiness(Readiness readiness) { this.readiness = readiness; }
+
+    public Explain getExplain() { return explain; }
+    public void setExplain(Explain explain) { this.explain = explain; }
+
+    public Advisor getAdvisor() { return advisor; }
+    public void setAdvisor(Advisor advisor) { this.advisor = advisor; }
+
     public static class Embedded {
         private boolean enabled = false;
         private String instanceName = "ignite-embedded";
-        private String workDir = "ignite-work"; // лучше задавать абсолютный в yml
+        private String workDir = "ignite-work"; // относительный — от java.io.tmpdir
         private int thinPort = 10800;
         private boolean persistenceEnabled = false;
 
@@ -45,4 +125,508 @@ public class IgniteProperties {
         public boolean isPersistenceEnabled() { return persistenceEnabled; }
         public void setPersistenceEnabled(boolean persistenceEnabled) { this.persistenceEnabled = persistenceEnabled; }
     }
+
+    /**
+     * Пул thin JDBC соединений (HikariCP).
+     */
+    public static class Pool {
+        private int maxSize = 16;
+        private int minIdle = 2;
+        private long idleTimeoutMs = 600_000;
+        private long maxLifetimeMs = 1_800_000;
+        private long connectionTimeoutMs = 5_000;
+        private long validationTimeoutMs = 3_000;
+        private long keepaliveMs = 0;          // 0 = выключено
+        private String validationQuery = "";   // пусто = Connection.isValid()
+        private boolean prewarm = true;        // открыть minIdle соединений на старте
+
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+        public int getMinIdle() { return minIdle; }
+        public void setMinIdle(int minIdle) { this.minIdle = minIdle; }
+
+        public long getIdleTimeoutMs() { return idleTimeoutMs; }
+        public void setIdleTimeoutMs(long idleTimeoutMs) { this.idleTimeoutMs = idleTimeoutMs; }
+
+        public long getMaxLifetimeMs() { return maxLifetimeMs; }
+        public void setMaxLifetimeMs(long maxLifetimeMs) { this.maxLifetimeMs = maxLifetimeMs; }
+
+        public long getConnectionTimeoutMs() { return connectionTimeoutMs; }
+        public void setConnectionTimeoutMs(long connectionTimeoutMs) { this.connectionTimeoutMs = connectionTimeoutMs; }
+
+        public long getValidationTimeoutMs() { return validationTimeoutMs; }
+        public void setValidationTimeoutMs(long validationTimeoutMs) { this.validationTimeoutMs = validationTimeoutMs; }
+
+        public long getKeepaliveMs() { return keepaliveMs; }
+        public void setKeepaliveMs(long keepaliveMs) { this.keepaliveMs = keepaliveMs; }
+
+        public String getValidationQuery() { return validationQuery; }
+        public void setValidationQuery(String validationQuery) { this.validationQuery = validationQuery; }
+
+        public boolean isPrewarm() { return prewarm; }
+        public void setPrewarm(boolean prewarm) { this.prewarm = prewarm; }
+    }
+
+    /**
+     * Потоковая выдача результата (/api/sql/stream).
+     */
+    public static class Stream {
+        private int fetchSize = 1000;           // размер страницы thin JDBC
+        private int flushEveryRows = 500;       // как часто сбрасывать буфер клиенту
+        private int queryTimeoutSeconds = 0;    // 0 = без таймаута (большие выгрузки)
+
+        public int getFetchSize() { return fetchSize; }
+        public void setFetchSize(int fetchSize) { this.fetchSize = fetchSize; }
+
+        public int getFlushEveryRows() { return flushEveryRows; }
+        public void setFlushEveryRows(int flushEveryRows) { this.flushEveryRows = flushEveryRows; }
+
+        public int getQueryTimeoutSeconds() { return queryTimeoutSeconds; }
+        public void setQueryTimeoutSeconds(int queryTimeoutSeconds) { this.queryTimeoutSeconds = queryTimeoutSeconds; }
+    }
+
+    /**
+     * Выгрузка результата в файл (/api/sql/export).
+     */
+    public static class Export {
+        private int fetchSize = 5000;           // размер страницы thin JDBC
+        private int bufferBytes = 64 * 1024;    // буфер записи в ответ
+        private int gzipLevel = 1;              // 1 — быстрее всего, 9 — меньше всего
+        private int queryTimeoutSeconds = 0;    // 0 = без таймаута
+
+        public int getFetchSize() { return fetchSize; }
+        public void setFetchSize(int fetchSize) { this.fetchSize = fetchSize; }
+
+        public int getBufferBytes() { return bufferBytes; }
+        public void setBufferBytes(int bufferBytes) { this.bufferBytes = bufferBytes; }
+
+        public int getGzipLevel() { return gzipLevel; }
+        public void setGzipLevel(int gzipLevel) { this.gzipLevel = gzipLevel; }
+
+        public int getQueryTimeoutSeconds() { return queryTimeoutSeconds; }
+        public void setQueryTimeoutSeconds(int queryTimeoutSeconds) { this.queryTimeoutSeconds = queryTimeoutSeconds; }
+    }
+
+    /**
+     * Серверные курсоры (/api/sql/cursors). Каждый открытый курсор держит соединение из пула,
+     * поэтому maxTotal должен быть заметно меньше pool.maxSize.
+     */
+    public static class Cursors {
+        private int idleTtlSeconds = 300;
+        private int maxPerUser = 3;
+        private int maxTotal = 5;
+        private int fetchSize = 500;        // размер страницы thin JDBC
+        private int defaultPageRows = 200;
+        private int maxPageRows = 5000;
+        private long sweepIntervalMs = 10_000;
+
+        public int getIdleTtlSeconds() { return idleTtlSeconds; }
+        public void setIdleTtlSeconds(int idleTtlSeconds) { this.idleTtlSeconds = idleTtlSeconds; }
+
+        public int getMaxPerUser() { return maxPerUser; }
+        public void setMaxPerUser(int maxPerUser) { this.maxPerUser = maxPerUser; }
+
+        public int getMaxTotal() { return maxTotal; }
+        public void setMaxTotal(int maxTotal) { this.maxTotal = maxTotal; }
+
+        public int getFetchSize() { return fetchSize; }
+        public void setFetchSize(int fetchSize) { this.fetchSize = fetchSize; }
+
+        public int getDefaultPageRows() { return defaultPageRows; }
+        public void setDefaultPageRows(int defaultPageRows) { this.defaultPageRows = defaultPageRows; }
+
+        public int getMaxPageRows() { return maxPageRows; }
+        public void setMaxPageRows(int maxPageRows) { this.maxPageRows = maxPageRows; }
+
+        public long getSweepIntervalMs() { return sweepIntervalMs; }
+        public void setSweepIntervalMs(long sweepIntervalMs) { this.sweepIntervalMs = sweepIntervalMs; }
+    }
+
+    /**
+     * Кэш результатов read-only запросов (LRU по байтам + TTL).
+     */
+    public static class Cache {
+        private boolean enabled = false;
+        private long maxBytes = 64L * 1024 * 1024;
+        private long maxEntryBytes = 8L * 1024 * 1024;
+        private int ttlSeconds = 30;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public long getMaxBytes() { return maxBytes; }
+        public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+
+        public long getMaxEntryBytes() { return maxEntryBytes; }
+        public void setMaxEntryBytes(long maxEntryBytes) { this.maxEntryBytes = maxEntryBytes; }
+
+        public int getTtlSeconds() { return ttlSeconds; }
+        public void setTtlSeconds(int ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+    }
+
+    /**
+     * Кэш PreparedStatement (на каждое соединение пула).
+     */
+    public static class Statements {
+        private int cacheSize = 64;   // 0 = не кэшировать
+        private long purgeIntervalMs = 60_000;   // вычистка соединений, закрытых пулом
+
+        public int getCacheSize() { return cacheSize; }
+        public void setCacheSize(int cacheSize) { this.cacheSize = cacheSize; }
+
+        public long getPurgeIntervalMs() { return purgeIntervalMs; }
+        public void setPurgeIntervalMs(long purgeIntervalMs) { this.purgeIntervalMs = purgeIntervalMs; }
+    }
+
+    /**
+     * Пакетный DML (/api/sql/batch).
+     */
+    public static class Batch {
+        private int batchSize = 1000;
+        private long flushFrequencyMs = 1000;        // FLUSH_FREQUENCY для streaming
+        private boolean streamingAllowOverwrite = false;
+        private int maxItems = 1_000_000;            // строк/операторов в одном запросе
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public long getFlushFrequencyMs() { return flushFrequencyMs; }
+        public void setFlushFrequencyMs(long flushFrequencyMs) { this.flushFrequencyMs = flushFrequencyMs; }
+
+        public boolean isStreamingAllowOverwrite() { return streamingAllowOverwrite; }
+        public void setStreamingAllowOverwrite(boolean streamingAllowOverwrite) { this.streamingAllowOverwrite = streamingAllowOverwrite; }
+
+        public int getMaxItems() { return maxItems; }
+        public void setMaxItems(int maxItems) { this.maxItems = maxItems; }
+    }
+
+    /**
+     * Потоковая загрузка CSV (/api/import/csv).
+     */
+    public static class CsvImport {
+        private int batchSize = 5000;             // строк в одном пакете очереди
+        private int threads = 4;                  // потоков загрузки по умолчанию
+        private int maxThreads = 16;
+        private int queueBatches = 8;             // пакетов в очереди между разбором и загрузкой
+        private int maxConcurrent = 2;            // одновременных импортов
+        private int maxRecordChars = 1_048_576;   // защита от незакрытой кавычки
+        private boolean allowOverwrite = false;   // IgniteDataStreamer/STREAMING: перезаписывать ключи
+        private String mode = "auto";             // auto | streamer | jdbc
+        private int keepFinished = 20;            // сколько завершённых импортов показывать
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+
+        public int getMaxThreads() { return maxThreads; }
+        public void setMaxThreads(int maxThreads) { this.maxThreads = maxThreads; }
+
+        public int getQueueBatches() { return queueBatches; }
+        public void setQueueBatches(int queueBatches) { this.queueBatches = queueBatches; }
+
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+
+        public int getMaxRecordChars() { return maxRecordChars; }
+        public void setMaxRecordChars(int maxRecordChars) { this.maxRecordChars = maxRecordChars; }
+
+        public boolean isAllowOverwrite() { return allowOverwrite; }
+        public void setAllowOverwrite(boolean allowOverwrite) { this.allowOverwrite = allowOverwrite; }
+
+        public String getMode() { return mode; }
+        public void setMode(String mode) { this.mode = mode; }
+
+        public int getKeepFinished() { return keepFinished; }
+        public void setKeepFinished(int keepFinished) { this.keepFinished = keepFinished; }
+    }
+
+    /**
+     * Нативный движок (SqlFieldsQuery на embedded-узле).
+     */
+    public static class NativeEngine {
+        private boolean lazy = true;     // не материализовать результат целиком на узле
+        private int pageSize = 1024;
+        private String schema = "";      // пусто = из jdbcUrl (/SCHEMA или schema=), иначе PUBLIC
+
+        public boolean isLazy() { return lazy; }
+        public void setLazy(boolean lazy) { this.lazy = lazy; }
+
+        public int getPageSize() { return pageSize; }
+        public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+
+        public String getSchema() { return schema; }
+        public void setSchema(String schema) { this.schema = schema; }
+    }
+
+    /**
+     * Асинхронные SQL-задачи (/api/sql/jobs).
+     */
+    public static class Jobs {
+        private int threads = 4;                // исполнителей
+        private int queueCapacity = 32;
+        private int maxActivePerUser = 5;       // в очереди + выполняются
+        private int queryTimeoutSeconds = 0;    // 0 = без таймаута
+        private int fetchSize = 1000;
+        private int maxRows = 1_000_000;
+        private long maxResultBytes = 4L * 1024 * 1024 * 1024;         // на одну задачу (куча + диск), дальше truncated
+        private long maxTotalResultBytes = 16L * 1024 * 1024 * 1024;
+        private long spillThresholdBytes = 8L * 1024 * 1024;           // в куче на задачу, дальше — файл
+        private String spillDir = "";           // пусто = ${java.io.tmpdir}/ignite-sql-ui
+        private int resultTtlSeconds = 600;     // результат без обращений
+        private int jobTtlSeconds = 3600;       // статус завершённой задачи
+        private int defaultPageRows = 500;
+        private int maxPageRows = 5000;
+        private long sweepIntervalMs = 10_000;
+
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+        public int getMaxActivePerUser() { return maxActivePerUser; }
+        public void setMaxActivePerUser(int maxActivePerUser) { this.maxActivePerUser = maxActivePerUser; }
+
+        public int getQueryTimeoutSeconds() { return queryTimeoutSeconds; }
+        public void setQueryTimeoutSeconds(int queryTimeoutSeconds) { this.queryTimeoutSeconds = queryTimeoutSeconds; }
+
+        public int getFetchSize() { return fetchSize; }
+        public void setFetchSize(int fetchSize) { this.fetchSize = fetchSize; }
+
+        public int getMaxRows() { return maxRows; }
+        public void setMaxRows(int maxRows) { this.maxRows = maxRows; }
+
+        public long getMaxResultBytes() { return maxResultBytes; }
+        public void setMaxResultBytes(long maxResultBytes) { this.maxResultBytes = maxResultBytes; }
+
+        public long getMaxTotalResultBytes() { return maxTotalResultBytes; }
+        public void setMaxTotalResultBytes(long maxTotalResultBytes) { this.maxTotalResultBytes = maxTotalResultBytes; }
+
+        public long getSpillThresholdBytes() { return spillThresholdBytes; }
+        public void setSpillThresholdBytes(long spillThresholdBytes) { this.spillThresholdBytes = spillThresholdBytes; }
+
+        public String getSpillDir() { return spillDir; }
+        public void setSpillDir(String spillDir) { this.spillDir = spillDir; }
+
+        public int getResultTtlSeconds() { return resultTtlSeconds; }
+        public void setResultTtlSeconds(int resultTtlSeconds) { this.resultTtlSeconds = resultTtlSeconds; }
+
+        public int getJobTtlSeconds() { return jobTtlSeconds; }
+        public void setJobTtlSeconds(int jobTtlSeconds) { this.jobTtlSeconds = jobTtlSeconds; }
+
+        public int getDefaultPageRows() { return defaultPageRows; }
+        public void setDefaultPageRows(int defaultPageRows) { this.defaultPageRows = defaultPageRows; }
+
+        public int getMaxPageRows() { return maxPageRows; }
+        public void setMaxPageRows(int maxPageRows) { this.maxPageRows = maxPageRows; }
+
+        public long getSweepIntervalMs() { return sweepIntervalMs; }
+        public void setSweepIntervalMs(long sweepIntervalMs) { this.sweepIntervalMs = sweepIntervalMs; }
+    }
+
+    /**
+     * SSE-канал задачи (/api/sql/jobs/{id}/events): первые строки, пачки строк, прогресс, итог.
+     */
+    public static class Events {
+        private int threads = 2;                // рассылка событий всех подписок
+        private int maxStreams = 50;            // открытых каналов всего
+        private long tickMs = 200;              // как часто проверять новые строки
+        private int previewRows = 100;          // первая пачка — как только есть строки
+        private int batchRows = 1000;           // дальше — не больше стольких строк за тик
+        private int maxStreamRows = 20_000;     // остальное — страницами /result
+        private long progressIntervalMs = 1000; // прогресс + SYS.SQL_QUERIES
+
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+
+        public int getMaxStreams() { return maxStreams; }
+        public void setMaxStreams(int maxStreams) { this.maxStreams = maxStreams; }
+
+        public long getTickMs() { return tickMs; }
+        public void setTickMs(long tickMs) { this.tickMs = tickMs; }
+
+        public int getPreviewRows() { return previewRows; }
+        public void setPreviewRows(int previewRows) { this.previewRows = previewRows; }
+
+        public int getBatchRows() { return batchRows; }
+        public void setBatchRows(int batchRows) { this.batchRows = batchRows; }
+
+        public int getMaxStreamRows() { return maxStreamRows; }
+        public void setMaxStreamRows(int maxStreamRows) { this.maxStreamRows = maxStreamRows; }
+
+        public long getProgressIntervalMs() { return progressIntervalMs; }
+        public void setProgressIntervalMs(long progressIntervalMs) { this.progressIntervalMs = progressIntervalMs; }
+    }
+
+    /**
+     * Допуск SQL к выполнению (лимиты одновременных запросов, очередь, 429).
+     */
+    public static class Admission {
+        private boolean enabled = true;
+        private int maxConcurrent = 8;           // всего пользовательских запросов
+        private int maxPerUser = 2;
+        private int maxQueue = 32;               // ждущих слота; сверх — сразу 429
+        private long queueTimeoutMs = 5_000;     // ожидание слота; дольше — 429
+        private int systemConcurrent = 4;        // отдельная полоса для диагностики/ready
+        private int retryAfterSeconds = 2;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+
+        public int getMaxPerUser() { return maxPerUser; }
+        public void setMaxPerUser(int maxPerUser) { this.maxPerUser = maxPerUser; }
+
+        public int getMaxQueue() { return maxQueue; }
+        public void setMaxQueue(int maxQueue) { this.maxQueue = maxQueue; }
+
+        public long getQueueTimeoutMs() { return queueTimeoutMs; }
+        public void setQueueTimeoutMs(long queueTimeoutMs) { this.queueTimeoutMs = queueTimeoutMs; }
+
+        public int getSystemConcurrent() { return systemConcurrent; }
+        public void setSystemConcurrent(int systemConcurrent) { this.systemConcurrent = systemConcurrent; }
+
+        public int getRetryAfterSeconds() { return retryAfterSeconds; }
+        public void setRetryAfterSeconds(int retryAfterSeconds) { this.retryAfterSeconds = retryAfterSeconds; }
+    }
+
+    /**
+     * Статистика по отпечаткам запросов и журнал медленных запросов (/api/sql/stats, /api/sql/slow).
+     */
+    public static class QueryStats {
+        private boolean enabled = true;
+        private int maxFingerprints = 1000;      // сверх — всё в общую строку "(other)"
+        private int maxFingerprintChars = 2000;
+        private long slowThresholdMs = 1000;
+        private int slowLogSize = 200;           // кольцевой буфер, старые вытесняются
+        private int maxSlowSqlChars = 4000;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getMaxFingerprints() { return maxFingerprints; }
+        public void setMaxFingerprints(int maxFingerprints) { this.maxFingerprints = maxFingerprints; }
+
+        public int getMaxFingerprintChars() { return maxFingerprintChars; }
+        public void setMaxFingerprintChars(int maxFingerprintChars) { this.maxFingerprintChars = maxFingerprintChars; }
+
+        public long getSlowThresholdMs() { return slowThresholdMs; }
+        public void setSlowThresholdMs(long slowThresholdMs) { this.slowThresholdMs = slowThresholdMs; }
+
+        public int getSlowLogSize() { return slowLogSize; }
+        public void setSlowLogSize(int slowLogSize) { this.slowLogSize = slowLogSize; }
+
+        public int getMaxSlowSqlChars() { return maxSlowSqlChars; }
+        public void setMaxSlowSqlChars(int maxSlowSqlChars) { this.maxSlowSqlChars = maxSlowSqlChars; }
+    }
+
+    /**
+     * Снимок /api/ignite/overview: обновляется в фоне, запросы к SYS.* идут параллельно.
+     */
+    public static class Overview {
+        private long refreshIntervalMs = 10_000;
+        private long maxAgeMs = 60_000;          // старше — обновляем синхронно при запросе
+        private long idleAfterMs = 300_000;      // никто не смотрит дольше — фон не обновляет
+        private int maxRowsPerView = 100;
+        private int threads = 4;
+
+        public long getRefreshIntervalMs() { return refreshIntervalMs; }
+        public void setRefreshIntervalMs(long refreshIntervalMs) { this.refreshIntervalMs = refreshIntervalMs; }
+
+        public long getMaxAgeMs() { return maxAgeMs; }
+        public void setMaxAgeMs(long maxAgeMs) { this.maxAgeMs = maxAgeMs; }
+
+        public long getIdleAfterMs() { return idleAfterMs; }
+        public void setIdleAfterMs(long idleAfterMs) { this.idleAfterMs = idleAfterMs; }
+
+        public int getMaxRowsPerView() { return maxRowsPerView; }
+        public void setMaxRowsPerView(int maxRowsPerView) { this.maxRowsPerView = maxRowsPerView; }
+
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+    }
+
+    /**
+     * Фоновая проверка готовности для /api/ready.
+     */
+    public static class Readiness {
+        private long intervalMs = 5_000;
+        private int failureThreshold = 3;        // неудач подряд до NOT_READY
+        private int successThreshold = 1;        // успехов подряд до READY
+        private long staleAfterMs = 20_000;      // последняя проверка старше — NOT_READY
+        private int trendSize = 12;              // последних задержек в ответе
+
+        public long getIntervalMs() { return intervalMs; }
+        public void setIntervalMs(long intervalMs) { this.intervalMs = intervalMs; }
+
+        public int getFailureThreshold() { return failureThreshold; }
+        public void setFailureThreshold(int failureThreshold) { this.failureThreshold = failureThreshold; }
+
+        public int getSuccessThreshold() { return successThreshold; }
+        public void setSuccessThreshold(int successThreshold) { this.successThreshold = successThreshold; }
+
+        public long getStaleAfterMs() { return staleAfterMs; }
+        public void setStaleAfterMs(long staleAfterMs) { this.staleAfterMs = staleAfterMs; }
+
+        public int getTrendSize() { return trendSize; }
+        public void setTrendSize(int trendSize) { this.trendSize = trendSize; }
+    }
+
+    /**
+     * EXPLAIN (/api/sql/explain): кэш разобранных планов по отпечатку и защита от полных сканов.
+     */
+    public static class Explain {
+        private int planCacheSize = 500;
+        private int planCacheTtlSeconds = 300;  // оценки размеров таблиц в плане устаревают
+        private String guard = "off";            // off | confirm | reject
+        private long guardMinRows = 100_000;     // скан таблицы меньше — не повод останавливать запрос
+
+        public int getPlanCacheSize() { return planCacheSize; }
+        public void setPlanCacheSize(int planCacheSize) { this.planCacheSize = planCacheSize; }
+
+        public int getPlanCacheTtlSeconds() { return planCacheTtlSeconds; }
+        public void setPlanCacheTtlSeconds(int planCacheTtlSeconds) { this.planCacheTtlSeconds = planCacheTtlSeconds; }
+
+        public String getGuard() { return guard; }
+        public void setGuard(String guard) { this.guard = guard; }
+
+        public long getGuardMinRows() { return guardMinRows; }
+        public void setGuardMinRows(long guardMinRows) { this.guardMinRows = guardMinRows; }
+    }
+
+    public static class Advisor {
+        private int maxQueries = 500;         // из статистики и из SYS.SQL_QUERIES_HISTORY, самые дорогие по времени
+        private int maxCandidates = 50;
+        private long minTableRows = 10_000;   // по маленьким таблицам скан дешевле индекса
+        private int maxColumns = 3;
+        private int tryRuns = 3;              // прогонов на запрос при проверке, берётся медиана
+        private int tryMaxQueries = 5;
+        private int tryMaxRows = 10_000;
+
+        public int getMaxQueries() { return maxQueries; }
+        public void setMaxQueries(int maxQueries) { this.maxQueries = maxQueries; }
+
+        public int getMaxCandidates() { return maxCandidates; }
+        public void setMaxCandidates(int maxCandidates) { this.maxCandidates = maxCandidates; }
+
+        public long getMinTableRows() { return minTableRows; }
+        public void setMinTableRows(long minTableRows) { this.minTableRows = minTableRows; }
+
+        public int getMaxColumns() { return maxColumns; }
+        public void setMaxColumns(int maxColumns) { this.maxColumns = maxColumns; }
+
+        public int getTryRuns() { return tryRuns; }
+        public void setTryRuns(int tryRuns) { this.tryRuns = tryRuns; }
+
+        public int getTryMaxQueries() { return tryMaxQueries; }
+        public void setTryMaxQueries(int tryMaxQueries) { this.tryMaxQueries = tryMaxQueries; }
+
+        public int getTryMaxRows() { return tryMaxRows; }
+        public void setTryMaxRows(int tryMaxRows) { this.tryMaxRows = tryMaxRows; }
+    }
 }
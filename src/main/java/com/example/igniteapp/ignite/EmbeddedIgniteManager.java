@@ -1,6 +1,8 @@
 package com.example.igniteapp.ignite;
 
 import com.example.igniteapp.config.IgniteProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.Ignition;
 import org.apache.ignite.configuration.ClientConnectorConfiguration;
@@ -28,12 +30,14 @@ public class EmbeddedIgniteManager implements SmartLifecycle {
     private static final Logger log = LoggerFactory.getLogger(EmbeddedIgniteManager.class);
 
     private final IgniteProperties props;
+    private final MeterRegistry registry;
 
     private volatile boolean running = false;
-    private Ignite ignite;
+    private volatile Ignite ignite;
 
-    public EmbeddedIgniteManager(IgniteProperties props) {
+    public EmbeddedIgniteManager(IgniteProperties props, MeterRegistry registry) {
         this.props = props;
+        this.registry = registry;
     }
 
     @Override
@@ -41,14 +45,15 @@ public class EmbeddedIgniteManager implements SmartLifecycle {
         if (!props.getEmbedded().isEnabled()) return;
         if (running) return;
 
+        Timer.Sample sample = Timer.start(registry);
         IgniteConfiguration cfg = new IgniteConfiguration();
         cfg.setIgniteInstanceName(props.getEmbedded().getInstanceName());
 
-        // Make workDir absolute if needed
+        // Make workDir absolute if needed: relative paths go under java.io.tmpdir, never into the checkout
         String wd = props.getEmbedded().getWorkDir();
         Path p = Paths.get(wd);
         if (!p.isAbsolute()) {
-            wd = Paths.get(System.getProperty("user.dir")).resolve(wd).toAbsolutePath().toString();
+            wd = Paths.get(System.getProperty("java.io.tmpdir")).resolve(wd).toAbsolutePath().toString();
         }
         cfg.setWorkDirectory(wd);
 
@@ -72,8 +77,14 @@ public class EmbeddedIgniteManager implements SmartLifecycle {
         storage.setDefaultDataRegionConfiguration(region);
         cfg.setDataStorageConfiguration(storage);
 
-        ignite = Ignition.start(cfg);
+        try {
+            ignite = Ignition.start(cfg);
+        } catch (RuntimeException e) {
+            sample.stop(timer("ignite.embedded.start", "error"));
+            throw e;
+        }
         running = true;
+        sample.stop(timer("ignite.embedded.start", "success"));
 
         log.info("Embedded Ignite started. thinPort={}, workDir={}", props.getEmbedded().getThinPort(), wd);
     }
@@ -81,15 +92,32 @@ public class EmbeddedIgniteManager implements SmartLifecycle {
     @Override
     public void stop() {
         if (!running) return;
+        Timer.Sample sample = Timer.start(registry);
+        boolean stopped = false;
         try {
             Ignition.stop(props.getEmbedded().getInstanceName(), true);
+            stopped = true;
         } finally {
             running = false;
             ignite = null;
+            sample.stop(timer("ignite.embedded.stop", stopped ? "success" : "error"));
         }
         log.info("Embedded Ignite stopped.");
     }
 
+    private Timer timer(String name, String outcome) {
+        return Timer.builder(name)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Локальный узел или null, если embedded-режим выключен/узел остановлен.
+     */
+    public Ignite getIgnite() {
+        return running ? ignite : null;
+    }
+
     @Override public boolean isRunning() { return running; }
     @Override public boolean isAutoStartup() { return true; }
     @Override public int getPhase() { return Integer.MIN_VALUE + 1000; }
@@ -0,0 +1,236 @@
+package com.example.igniteapp.ignite;
+
+import com.example.igniteapp.config.IgniteProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пул thin JDBC соединений к Ignite (HikariCP).
+ * Стартует после EmbeddedIgniteManager, чтобы прогрев шёл уже в поднятый узел.
+ * <p>
+ * Служебные запросы (полоса SYSTEM: readiness, overview) берут соединения из отдельного маленького
+ * пула размером admission.systemConcurrent — занятый пользователями и курсорами основной пул
+ * не заставляет их ждать connectionTimeout.
+ */
+@Component
+public class IgniteConnectionPool implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(IgniteConnectionPool.class);
+
+    private final IgniteProperties props;
+
+    private volatile HikariDataSource ds;
+    private volatile HikariDataSource systemDs;
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireFailures = new LongAdder();
+    private final LongAdder acquireWaitNanos = new LongAdder();
+    private final AtomicLong acquireWaitMaxNanos = new AtomicLong();
+
+    public IgniteConnectionPool(IgniteProperties props) {
+        this.props = props;
+    }
+
+    /**
+     * Берёт соединение из пула. close() возвращает его обратно.
+     */
+    public Connection getConnection() throws SQLException {
+        return getConnection(ds);
+    }
+
+    /**
+     * Соединение из служебного пула (полоса SYSTEM).
+     */
+    public Connection getSystemConnection() throws SQLException {
+        return getConnection(systemDs);
+    }
+
+    private Connection getConnection(HikariDataSource d) throws SQLException {
+        if (d == null) {
+            throw new SQLException("Ignite JDBC pool is not started");
+        }
+
+        long t0 = System.nanoTime();
+        try {
+            return d.getConnection();
+        } catch (SQLException e) {
+            acquireFailures.increment();
+            throw e;
+        } finally {
+            long waited = System.nanoTime() - t0;
+            acquireCount.increment();
+            acquireWaitNanos.add(waited);
+            acquireWaitMaxNanos.accumulateAndGet(waited, Math::max);
+        }
+    }
+
+    /**
+     * Выбросить соединение из пула (например, если оно осталось в неизвестном состоянии).
+     */
+    public void evict(Connection c) {
+        HikariDataSource d = ds;
+        if (d != null && c != null) {
+            d.evictConnection(c);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> r = new LinkedHashMap<>();
+        HikariDataSource d = ds;
+        HikariPoolMXBean mx = d != null ? d.getHikariPoolMXBean() : null;
+
+        r.put("running", d != null && !d.isClosed());
+        r.put("maxSize", props.getPool().getMaxSize());
+        r.put("minIdle", props.getPool().getMinIdle());
+        r.put("active", mx != null ? mx.getActiveConnections() : 0);
+        r.put("idle", mx != null ? mx.getIdleConnections() : 0);
+        r.put("total", mx != null ? mx.getTotalConnections() : 0);
+        r.put("threadsAwaiting", mx != null ? mx.getThreadsAwaitingConnection() : 0);
+
+        long count = acquireCount.sum();
+        long waitNanos = acquireWaitNanos.sum();
+        r.put("acquireCount", count);
+        r.put("acquireFailures", acquireFailures.sum());
+        r.put("acquireWaitTotalMs", waitNanos / 1_000_000);
+        r.put("acquireWaitAvgUs", count > 0 ? waitNanos / count / 1_000 : 0);
+        r.put("acquireWaitMaxMs", acquireWaitMaxNanos.get() / 1_000_000);
+
+        HikariDataSource sd = systemDs;
+        HikariPoolMXBean smx = sd != null ? sd.getHikariPoolMXBean() : null;
+        Map<String, Object> system = new LinkedHashMap<>();
+        system.put("maxSize", systemPoolSize());
+        system.put("active", smx != null ? smx.getActiveConnections() : 0);
+        system.put("idle", smx != null ? smx.getIdleConnections() : 0);
+        system.put("threadsAwaiting", smx != null ? smx.getThreadsAwaitingConnection() : 0);
+        r.put("system", system);
+        return r;
+    }
+
+    private int systemPoolSize() {
+        return Math.max(1, props.getAdmission().getSystemConcurrent());
+    }
+
+    @Override
+    public void start() {
+        if (ds != null) return;
+
+        IgniteProperties.Pool p = props.getPool();
+        checkBudget(p);
+
+        HikariConfig cfg = config(p);
+        cfg.setPoolName("ignite-thin");
+        cfg.setMaximumPoolSize(Math.max(1, p.getMaxSize()));
+        cfg.setMinimumIdle(Math.max(0, Math.min(p.getMinIdle(), p.getMaxSize())));
+
+        HikariConfig sys = config(p);
+        sys.setPoolName("ignite-thin-system");
+        sys.setMaximumPoolSize(systemPoolSize());
+        sys.setMinimumIdle(1);
+
+        ds = new HikariDataSource(cfg);
+        systemDs = new HikariDataSource(sys);
+        log.info("Ignite JDBC pool created: maxSize={}, minIdle={}, systemMaxSize={}",
+                cfg.getMaximumPoolSize(), cfg.getMinimumIdle(), sys.getMaximumPoolSize());
+
+        if (p.isPrewarm()) {
+            prewarm(cfg.getMinimumIdle());
+        }
+    }
+
+    private HikariConfig config(IgniteProperties.Pool p) {
+        HikariConfig cfg = new HikariConfig();
+        cfg.setDriverClassName("org.apache.ignite.IgniteJdbcThinDriver");
+        cfg.setJdbcUrl(props.getJdbcUrl());
+        cfg.setIdleTimeout(p.getIdleTimeoutMs());
+        cfg.setMaxLifetime(p.getMaxLifetimeMs());
+        cfg.setConnectionTimeout(p.getConnectionTimeoutMs());
+        cfg.setValidationTimeout(p.getValidationTimeoutMs());
+        if (p.getKeepaliveMs() > 0) {
+            cfg.setKeepaliveTime(p.getKeepaliveMs());
+        }
+        if (p.getValidationQuery() != null && !p.getValidationQuery().isBlank()) {
+            cfg.setConnectionTestQuery(p.getValidationQuery());
+        }
+        // не валим старт приложения, если кластер ещё не поднят
+        cfg.setInitializationFailTimeout(-1);
+        return cfg;
+    }
+
+    /**
+     * Соединения основного пула держат и запросы под admission (maxConcurrent — USER, JOB, импорт),
+     * и открытые курсоры (вне admission). Если в maxSize это не помещается, запросы будут ждать
+     * connectionTimeout уже после получения слота.
+     */
+    private void checkBudget(IgniteProperties.Pool p) {
+        IgniteProperties.Admission a = props.getAdmission();
+        int need = a.getMaxConcurrent() + props.getCursors().getMaxTotal();
+        if (a.isEnabled() && need > p.getMaxSize()) {
+            log.warn("Ignite JDBC pool may be exhausted: pool.maxSize={} < admission.maxConcurrent={} + cursors.maxTotal={}",
+                    p.getMaxSize(), a.getMaxConcurrent(), props.getCursors().getMaxTotal());
+        }
+    }
+
+    private void prewarm(int count) {
+        if (count <= 0) return;
+
+        long t0 = System.nanoTime();
+        List<Connection> held = new ArrayList<>();
+        try {
+            // держим одновременно, иначе пул будет отдавать одно и то же соединение
+            for (int i = 0; i < count; i++) {
+                held.add(ds.getConnection());
+            }
+            log.info("Ignite JDBC pool prewarmed: connections={}, elapsedMs={}",
+                    held.size(), (System.nanoTime() - t0) / 1_000_000);
+        } catch (SQLException e) {
+            log.warn("Ignite JDBC pool prewarm failed after {} connections: {}", held.size(), e.getMessage());
+        } finally {
+            for (Connection c : held) {
+                try {
+                    c.close();
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        HikariDataSource d = ds;
+        HikariDataSource sd = systemDs;
+        ds = null;
+        systemDs = null;
+        if (sd != null) {
+            sd.close();
+        }
+        if (d != null) {
+            d.close();
+            log.info("Ignite JDBC pool closed.");
+        }
+    }
+
+    @Override public boolean isRunning() { return ds != null; }
+    @Override public boolean isAutoStartup() { return true; }
+    // после EmbeddedIgniteManager (старт раньше = меньше phase), остановка — раньше него
+    @Override public int getPhase() { return Integer.MIN_VALUE + 2000; }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.igniteapp.ignite;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.cache.query.FieldsQueryCursor;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.internal.IgniteEx;
+import org.apache.ignite.internal.processors.cache.QueryCursorImpl;
+import org.apache.ignite.internal.processors.query.GridQueryFieldMetadata;
+import org.apache.ignite.internal.processors.query.IgniteSQLException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Единственное место, где приложение трогает внутренний API Ignite (org.apache.ignite.internal.*).
+ * <p>
+ * Зачем: в Ignite 2.x у SqlFieldsQuery нет публичного входа без кэша — IgniteCache.query() требует
+ * кэш-"якорь", которого на чужом кластере может не быть (а создавать его ради запросов — побочный эффект).
+ * Кроме того, публичный FieldsQueryCursor не отдаёт ни типы колонок, ни признак "это SELECT, а не DML/DDL".
+ * Поэтому запрос идёт через GridQueryProcessor (как у thin JDBC на стороне узла), а метаданные —
+ * из QueryCursorImpl. SQLSTATE ошибок нативного пути тоже лежит только во внутреннем IgniteSQLException.
+ * <p>
+ * Внутренний API между минорными версиями Ignite может меняться: при обновлении проверять этот класс.
+ * Если нужных классов нет ({@link #isSupported()} == false), native-движок считается недоступным,
+ * и auto уходит в JDBC.
+ */
+public final class IgniteInternalSql {
+
+    private static final Logger log = LoggerFactory.getLogger(IgniteInternalSql.class);
+
+    private static final boolean SUPPORTED = detect();
+
+    private IgniteInternalSql() {
+    }
+
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * SqlFieldsQuery без кэша: DDL, DML, SELECT и запросы к SYS — как через JDBC.
+     */
+    public static FieldsQueryCursor<List<?>> query(Ignite ignite, SqlFieldsQuery qry) {
+        return ((IgniteEx) ignite).context().query().querySqlFields(qry, true);
+    }
+
+    /**
+     * false — курсор DML/DDL (одна строка с числом изменённых записей).
+     */
+    public static boolean isQuery(FieldsQueryCursor<?> cur) {
+        return !(cur instanceof QueryCursorImpl) || ((QueryCursorImpl<?>) cur).isQuery();
+    }
+
+    /**
+     * Java-класс колонки i из метаданных запроса; null — метаданных нет.
+     */
+    public static String fieldTypeName(FieldsQueryCursor<?> cur, int i) {
+        if (!(cur instanceof QueryCursorImpl)) return null;
+        List<GridQueryFieldMetadata> meta = ((QueryCursorImpl<?>) cur).fieldsMeta();
+        return meta != null && i < meta.size() ? meta.get(i).fieldTypeName() : null;
+    }
+
+    /**
+     * SQLSTATE ошибки нативного пути; null — t не IgniteSQLException.
+     */
+    public static String sqlState(Throwable t) {
+        return SUPPORTED && t instanceof IgniteSQLException ? ((IgniteSQLException) t).sqlState() : null;
+    }
+
+    private static boolean detect() {
+        try {
+            IgniteEx.class.getMethod("context");
+            QueryCursorImpl.class.getMethod("isQuery");
+            QueryCursorImpl.class.getMethod("fieldsMeta");
+            return true;
+        } catch (NoSuchMethodException | LinkageError e) {
+            log.warn("Ignite internal SQL API is not available, native engine disabled: {}", e.toString());
+            return false;
+        }
+    }
+}
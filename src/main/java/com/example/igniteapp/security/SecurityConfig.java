@@ -49,7 +49,7 @@ public class SecurityConfig {
                 .authorizeRequests(a -> a
                         // если хочешь оставить Swagger открытым, раскомментируй:
                         // .antMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
-                        .antMatchers("/api/health", "/api/ready").permitAll()
+                        .antMatchers("/api/health", "/api/ready", "/actuator/health", "/actuator/prometheus").permitAll()
                         .antMatchers("/api/shutdown").authenticated()
                         .anyRequest().authenticated()
                 )
@@ -69,7 +69,7 @@ public class SecurityConfig {
                 .csrf().disable()
                 .authorizeRequests(a -> a
                         // страницу логина Spring Security оставляем доступной
-                        .antMatchers("/login.html","/api/health","/login", "/error", "/api/ready").permitAll()
+                        .antMatchers("/login.html","/api/health","/login", "/error", "/api/ready", "/actuator/health", "/actuator/prometheus").permitAll()
                         .antMatchers("/api/shutdown").authenticated()
                         .anyRequest().authenticated()
                 )
@@ -0,0 +1,19 @@
+package com.example.igniteapp.service;
+
+/**
+ * Запрос не допущен к выполнению: очередь заполнена или ожидание истекло.
+ * В HTTP превращается в 429 + Retry-After.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
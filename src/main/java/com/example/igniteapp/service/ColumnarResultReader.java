@@ -0,0 +1,294 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.api.dto.ColumnVector;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Читает ResultSet в колоночные векторы: числа/boolean — в примитивные массивы,
+ * остальное — в Object[]. Имя и тип колонки хранятся один раз, а не в каждой строке.
+ */
+final class ColumnarResultReader {
+
+    private ColumnarResultReader() {
+    }
+
+    /**
+     * @param limitRows 0 — без лимита; если строк больше, {@link ResultBudget.Lease#rowLimitReached}
+     * @param lease     бюджет памяти: строка, на которую не хватило места, не читается
+     */
+    static List<ColumnVector> read(ResultSet rs, int limitRows, ResultBudget.Lease lease) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        int cols = md.getColumnCount();
+
+        Column[] columns = new Column[cols];
+        for (int i = 0; i < cols; i++) {
+            columns[i] = Column.of(md.getColumnType(i + 1));
+        }
+
+        int row = 0;
+        while (rs.next()) {
+            if (limitRows > 0 && row >= limitRows) {
+                lease.rowLimitReached();
+                break;
+            }
+            long bytes = 0;
+            for (int i = 0; i < cols; i++) {
+                columns[i].read(rs, i + 1, row);
+                bytes += columns[i].bytes(row);
+            }
+            if (!lease.reserve(bytes)) {
+                // значения уже записаны в позицию row: без row++ они не попадут в векторы
+                for (Column c : columns) c.dropNullsFrom(row);
+                break;
+            }
+            row++;
+        }
+
+        List<ColumnVector> res = new ArrayList<>(cols);
+        for (int i = 0; i < cols; i++) {
+            res.add(new ColumnVector(
+                    md.getColumnLabel(i + 1),
+                    md.getColumnType(i + 1),
+                    md.getColumnTypeName(i + 1),
+                    columns[i].values(row),
+                    columns[i].nulls()
+            ));
+        }
+        return res;
+    }
+
+    /**
+     * То же для строк, уже прочитанных не из JDBC (нативный движок): типы колонок задаёт вызывающий.
+     */
+    static List<ColumnVector> read(List<String> labels, int[] jdbcTypes, String[] typeNames,
+                                   Iterator<? extends List<?>> rows, int limitRows, ResultBudget.Lease lease) {
+        int cols = labels.size();
+        Column[] columns = new Column[cols];
+        for (int i = 0; i < cols; i++) {
+            columns[i] = Column.of(jdbcTypes[i]);
+        }
+
+        int row = 0;
+        while (rows.hasNext()) {
+            if (limitRows > 0 && row >= limitRows) {
+                lease.rowLimitReached();
+                break;
+            }
+            List<?> r = rows.next();
+            long bytes = 0;
+            for (int i = 0; i < cols; i++) {
+                columns[i].set(r.get(i), row);
+                bytes += columns[i].bytes(row);
+            }
+            if (!lease.reserve(bytes)) {
+                for (Column c : columns) c.dropNullsFrom(row);
+                break;
+            }
+            row++;
+        }
+
+        List<ColumnVector> res = new ArrayList<>(cols);
+        for (int i = 0; i < cols; i++) {
+            res.add(new ColumnVector(labels.get(i), jdbcTypes[i], typeNames[i], columns[i].values(row), columns[i].nulls()));
+        }
+        return res;
+    }
+
+    /**
+     * Растущий вектор одной колонки.
+     */
+    private abstract static class Column {
+        private int[] nulls = new int[0];
+        private int nullCount;
+
+        static Column of(int jdbcType) {
+            switch (jdbcType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                    return new IntColumn();
+                case Types.BIGINT:
+                    return new LongColumn();
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return new DoubleColumn();
+                case Types.BOOLEAN:
+                case Types.BIT:
+                    return new BooleanColumn();
+                default:
+                    return new ObjectColumn();
+            }
+        }
+
+        abstract void read(ResultSet rs, int idx, int row) throws SQLException;
+
+        abstract void set(Object value, int row);
+
+        abstract Object values(int rowCount);
+
+        /**
+         * Оценка размера значения в строке row (для бюджета памяти).
+         */
+        abstract long bytes(int row);
+
+        void markNullIf(ResultSet rs, int row) throws SQLException {
+            if (rs.wasNull()) markNull(row);
+        }
+
+        void markNull(int row) {
+            if (nullCount == nulls.length) {
+                nulls = Arrays.copyOf(nulls, Math.max(8, nullCount * 2));
+            }
+            nulls[nullCount++] = row;
+        }
+
+        void dropNullsFrom(int row) {
+            while (nullCount > 0 && nulls[nullCount - 1] >= row) nullCount--;
+        }
+
+        int[] nulls() {
+            return nullCount == 0 ? null : Arrays.copyOf(nulls, nullCount);
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        private int[] v = new int[16];
+
+        @Override
+        void read(ResultSet rs, int idx, int row) throws SQLException {
+            if (row == v.length) v = Arrays.copyOf(v, row * 2);
+            v[row] = rs.getInt(idx);
+            markNullIf(rs, row);
+        }
+
+        @Override
+        void set(Object value, int row) {
+            if (row == v.length) v = Arrays.copyOf(v, row * 2);
+            if (value == null) {
+                markNull(row);
+            } else {
+                v[row] = ((Number) value).intValue();
+            }
+        }
+
+        @Override
+        Object values(int rowCount) { return Arrays.copyOf(v, rowCount); }
+
+        @Override
+        long bytes(int row) { return 4; }
+    }
+
+    private static final class LongColumn extends Column {
+        private long[] v = new long[16];
+
+        @Override
+        void read(ResultSet rs, int idx, int row) throws SQLException {
+            if (row == v.length) v = Arrays.copyOf(v, row * 2);
+            v[row] = rs.getLong(idx);
+            markNullIf(rs, row);
+        }
+
+        @Override
+        void set(Object value, int row) {
+            if (row == v.length) v = Arrays.copyOf(v, row * 2);
+            if (value == null) {
+                markNull(row);
+            } else {
+                v[row] = ((Number) value).longValue();
+            }
+        }
+
+        @Override
+        Object values(int rowCount) { return Arrays.copyOf(v, rowCount); }
+
+        @Override
+        long bytes(int row) { return 8; }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private double[] v = new double[16];
+
+        @Override
+        void read(ResultSet rs, int idx, int row) throws SQLException {
+            if (row == v.length) v = Arrays.copyOf(v, row * 2);
+            v[row] = rs.getDouble(idx);
+            markNullIf(rs, row);
+        }
+
+        @Override
+        void set(Object value, int row) {
+            if (row == v.length) v = Arrays.copyOf(v, row * 2);
+            if (value == null) {
+                markNull(row);
+            } else {
+                v[row] = ((Number) value).doubleValue();
+            }
+        }
+
+        @Override
+        Object values(int rowCount) { return Arrays.copyOf(v, rowCount); }
+
+        @Override
+        long bytes(int row) { return 8; }
+    }
+
+    private static final class BooleanColumn extends Column {
+        private boolean[] v = new boolean[16];
+
+        @Override
+        void read(ResultSet rs, int idx, int row) throws SQLException {
+            if (row == v.length) v = Arrays.copyOf(v, row * 2);
+            v[row] = rs.getBoolean(idx);
+            markNullIf(rs, row);
+        }
+
+        @Override
+        void set(Object value, int row) {
+            if (row == v.length) v = Arrays.copyOf(v, row * 2);
+            if (value == null) {
+                markNull(row);
+            } else {
+                v[row] = (Boolean) value;
+            }
+        }
+
+        @Override
+        Object values(int rowCount) { return Arrays.copyOf(v, rowCount); }
+
+        @Override
+        long bytes(int row) { return 1; }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private Object[] v = new Object[16];
+
+        @Override
+        void read(ResultSet rs, int idx, int row) throws SQLException {
+            if (row == v.length) v = Arrays.copyOf(v, row * 2);
+            v[row] = rs.getObject(idx);
+            markNullIf(rs, row);
+        }
+
+        @Override
+        void set(Object value, int row) {
+            if (row == v.length) v = Arrays.copyOf(v, row * 2);
+            v[row] = value;
+            if (value == null) markNull(row);
+        }
+
+        @Override
+        Object values(int rowCount) { return Arrays.copyOf(v, rowCount); }
+
+        @Override
+        long bytes(int row) { return 8 + ResultSizeEstimator.value(v[row]); }
+    }
+}
@@ -0,0 +1,809 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.config.IgniteProperties;
+import com.example.igniteapp.ignite.EmbeddedIgniteManager;
+import com.example.igniteapp.ignite.IgniteConnectionPool;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteDataStreamer;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Потоковая загрузка CSV в существующую таблицу.
+ * <p>
+ * Поток запроса читает тело и режет его на пакеты записей; пакеты идут через ограниченную
+ * очередь в N потоков загрузки, которые приводят значения к типам колонок и пишут через
+ * IgniteDataStreamer (есть embedded-узел) или JDBC в режиме SET STREAMING ON.
+ * В памяти одновременно не больше (queueBatches + 2 * threads) пакетов — независимо от размера файла.
+ * <p>
+ * JDBC-поток держит соединение основного пула весь импорт, поэтому берёт слот {@link SqlAdmission}
+ * по полосе JOB (общий лимит и лимит пользователя, ожидание без таймаута): импорт не выбирает пул
+ * сверх admission.maxConcurrent. Стример соединений пула не держит.
+ * <p>
+ * При allowOverwrite=false строки с уже существующим ключом Ignite (стример и STREAMING) пропускает
+ * молча и не сообщает, сколько их было, — поэтому в итоге rowsSubmitted (переданы в Ignite), а не "записано".
+ */
+@Service
+public class CsvImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvImportService.class);
+
+    private static final List<String[]> END = Collections.emptyList();
+    private static final int MAX_ERROR_SAMPLES = 10;
+
+    private final IgniteProperties props;
+    private final IgniteConnectionPool pool;
+    private final EmbeddedIgniteManager embedded;
+    private final QueryResultCache cache;
+    private final SqlAdmission admission;
+
+    private final Map<String, Job> running = new ConcurrentHashMap<>();
+    private final Deque<Job> finished = new ConcurrentLinkedDeque<>();
+    private final Semaphore slots;
+
+    public CsvImportService(IgniteProperties props, IgniteConnectionPool pool,
+                            EmbeddedIgniteManager embedded, QueryResultCache cache, SqlAdmission admission) {
+        this.props = props;
+        this.pool = pool;
+        this.embedded = embedded;
+        this.cache = cache;
+        this.admission = admission;
+        this.slots = new Semaphore(Math.max(1, props.getCsvImport().getMaxConcurrent()));
+    }
+
+    /**
+     * Параметры одного импорта.
+     * <pre>
+     * CsvImportService.Options.into("PUBLIC", "T1").delimiter(';').threads(8)
+     * </pre>
+     */
+    public static class Options {
+        private final String schema;
+        private final String table;
+        private String owner = SqlAdmission.ANONYMOUS;
+        private String jobId;
+        private List<String> columns;          // порядок колонок в файле без заголовка
+        private boolean header = true;
+        private char delimiter = ',';
+        private Charset charset = StandardCharsets.UTF_8;
+        private String mode;                   // auto | streamer | jdbc
+        private Integer threads;
+        private Integer batchSize;
+        private long maxErrors;                // сколько плохих строк пропустить до остановки
+
+        private Options(String schema, String table) {
+            this.schema = schema;
+            this.table = table;
+        }
+
+        public static Options into(String schema, String table) {
+            return new Options(schema, table);
+        }
+
+        public Options owner(String owner) { this.owner = owner != null ? owner : SqlAdmission.ANONYMOUS; return this; }
+        public Options jobId(String jobId) { this.jobId = jobId; return this; }
+        public Options columns(List<String> columns) { this.columns = columns; return this; }
+        public Options header(boolean header) { this.header = header; return this; }
+        public Options delimiter(char delimiter) { this.delimiter = delimiter; return this; }
+        public Options charset(Charset charset) { this.charset = charset; return this; }
+        public Options mode(String mode) { this.mode = mode; return this; }
+        public Options threads(Integer threads) { this.threads = threads; return this; }
+        public Options batchSize(Integer batchSize) { this.batchSize = batchSize; return this; }
+        public Options maxErrors(long maxErrors) { this.maxErrors = maxErrors; return this; }
+    }
+
+    /**
+     * Загрузить CSV из потока. Блокирует до конца загрузки, прогресс виден через list()/get().
+     */
+    public Map<String, Object> importCsv(InputStream body, Options opt) throws Exception {
+        IgniteProperties.CsvImport cfg = props.getCsvImport();
+        if (opt.table == null || opt.table.isBlank()) {
+            throw new IllegalArgumentException("table is required");
+        }
+        if (!slots.tryAcquire()) {
+            throw new IllegalStateException("Too many concurrent imports (max " + cfg.getMaxConcurrent() + ")");
+        }
+
+        Job job = null;
+        TableMeta meta = null;
+        try {
+            meta = loadMeta(opt.schema, opt.table);
+            int threads = clamp(opt.threads != null ? opt.threads : cfg.getThreads(), 1, cfg.getMaxThreads());
+            int batchSize = Math.max(1, opt.batchSize != null ? opt.batchSize : cfg.getBatchSize());
+
+            Ignite ignite = embedded.getIgnite();
+            String mode = opt.mode != null && !opt.mode.isBlank() ? opt.mode : cfg.getMode();
+            boolean streamer;
+            switch (mode.trim().toLowerCase(Locale.ROOT)) {
+                case "streamer":
+                    if (ignite == null) throw new IllegalStateException("mode=streamer requires embedded Ignite node");
+                    streamer = true;
+                    break;
+                case "jdbc":
+                    streamer = false;
+                    break;
+                default:
+                    streamer = ignite != null;
+            }
+
+            String id = opt.jobId != null && !opt.jobId.isBlank() ? opt.jobId : UUID.randomUUID().toString();
+            job = new Job(id, opt.owner, meta.schema + "." + meta.table, streamer ? "streamer" : "jdbc", threads, batchSize,
+                    cfg.isAllowOverwrite());
+            if (running.putIfAbsent(id, job) != null) {
+                job = null;
+                throw new IllegalStateException("Import with id " + id + " is already running");
+            }
+
+            log.info("CSV import {} start: table={}, mode={}, threads={}, batchSize={}",
+                    id, job.table, job.mode, threads, batchSize);
+            run(job, body, opt, meta, streamer ? ignite : null);
+        } finally {
+            slots.release();
+            if (job != null) {
+                job.finish();
+                running.remove(job.id);
+                finished.addFirst(job);
+                while (finished.size() > Math.max(0, cfg.getKeepFinished())) finished.pollLast();
+                // ключи кэша — имя таблицы как в SqlText.tableName, т.е. настоящее имя из метаданных
+                cache.invalidate(meta.table);
+                log.info("CSV import {} done: ok={}, rowsSubmitted={}, rowsFailed={}, elapsedMs={}, rowsPerSec={}",
+                        job.id, job.error.get() == null, job.rowsSubmitted.get(), job.rowsFailed.get(),
+                        job.elapsedMs(), Math.round(job.rowsPerSec()));
+            }
+        }
+        return job.info();
+    }
+
+    /**
+     * Импорты владельца; чужие не видны.
+     */
+    public List<Map<String, Object>> list(String owner) {
+        List<Map<String, Object>> r = new ArrayList<>();
+        for (Job j : running.values()) {
+            if (j.owner.equals(owner)) r.add(j.info());
+        }
+        for (Job j : finished) {
+            if (j.owner.equals(owner)) r.add(j.info());
+        }
+        return r;
+    }
+
+    public Map<String, Object> get(String id, String owner) {
+        Job j = running.get(id);
+        if (j == null) {
+            for (Job f : finished) {
+                if (f.id.equals(id)) {
+                    j = f;
+                    break;
+                }
+            }
+        }
+        if (j == null || !j.owner.equals(owner)) throw new IllegalArgumentException("Import not found: " + id);
+        return j.info();
+    }
+
+    private void run(Job job, InputStream body, Options opt, TableMeta meta, Ignite ignite) throws Exception {
+        IgniteProperties.CsvImport cfg = props.getCsvImport();
+        CountingInputStream counted = new CountingInputStream(body, job.bytesRead);
+        Reader reader = new InputStreamReader(counted, opt.charset);
+        CsvParser parser = new CsvParser(reader, opt.delimiter, cfg.getMaxRecordChars());
+
+        List<Column> mapping = mapping(meta, opt, opt.header ? parser.next() : null);
+        job.columns = mapping.stream().map(c -> c.name).collect(Collectors.toList());
+
+        BlockingQueue<List<String[]>> queue = new ArrayBlockingQueue<>(Math.max(1, cfg.getQueueBatches()));
+        Loader loader = ignite != null
+                ? new StreamerLoader(ignite, meta, mapping, job)
+                : new JdbcLoader(meta, mapping, job);
+
+        CountDownLatch done = new CountDownLatch(job.threads);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < job.threads; i++) {
+            Thread t = new Thread(() -> work(job, queue, loader, opt.maxErrors, done), "csv-import-" + i);
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+
+        try {
+            List<String[]> batch = new ArrayList<>(job.batchSize);
+            String[] rec;
+            while (job.error.get() == null && (rec = parser.next()) != null) {
+                batch.add(rec);
+                job.rowsParsed.incrementAndGet();
+                if (batch.size() == job.batchSize) {
+                    if (!offer(queue, batch, job)) break;
+                    batch = new ArrayList<>(job.batchSize);
+                }
+            }
+            if (!batch.isEmpty()) offer(queue, batch, job);
+        } catch (Exception e) {
+            job.fail(e);
+        } finally {
+            for (int i = 0; i < job.threads; i++) offer(queue, END, job);
+            awaitWorkers(done, workers, job);
+            try {
+                loader.close(job.error.get() == null);
+            } catch (Exception e) {
+                job.fail(e);
+            }
+        }
+    }
+
+    private void work(Job job, BlockingQueue<List<String[]>> queue, Loader loader, long maxErrors, CountDownLatch done) {
+        try (Loader.Worker w = loader.worker()) {
+            while (true) {
+                List<String[]> batch = queue.take();
+                if (batch == END || job.error.get() != null) break;
+                w.load(batch, maxErrors);
+            }
+            w.success();
+        } catch (Exception e) {
+            job.fail(e);
+        } finally {
+            done.countDown();
+        }
+    }
+
+    /**
+     * put с проверкой ошибки: если загрузчики упали, поток запроса не должен висеть на полной очереди.
+     */
+    private static boolean offer(BlockingQueue<List<String[]>> queue, List<String[]> batch, Job job) {
+        try {
+            while (!queue.offer(batch, 200, TimeUnit.MILLISECONDS)) {
+                if (job.error.get() != null && batch != END) return false;
+                if (job.error.get() != null) {
+                    queue.clear();
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail(e);
+            return false;
+        }
+    }
+
+    private static void awaitWorkers(CountDownLatch done, List<Thread> workers, Job job) {
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.forEach(Thread::interrupt);
+            job.fail(e);
+        }
+    }
+
+    // --- Метаданные таблицы ---
+
+    private TableMeta loadMeta(String schema, String table) throws SQLException {
+        String s = schema != null && !schema.isBlank() ? schema.trim().toUpperCase(Locale.ROOT) : "PUBLIC";
+        String t = table.trim().toUpperCase(Locale.ROOT);
+
+        try (Connection c = pool.getConnection()) {
+            TableMeta meta = null;
+            try (PreparedStatement ps = c.prepareStatement(
+                    "SELECT SCHEMA_NAME, TABLE_NAME, CACHE_NAME, KEY_ALIAS, KEY_TYPE_NAME, VALUE_TYPE_NAME " +
+                            "FROM SYS.TABLES WHERE UPPER(SCHEMA_NAME) = ? AND UPPER(TABLE_NAME) = ?")) {
+                ps.setString(1, s);
+                ps.setString(2, t);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        meta = new TableMeta(rs.getString(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5), rs.getString(6));
+                    }
+                }
+            }
+            if (meta == null) throw new IllegalArgumentException("Table not found: " + s + "." + t);
+
+            try (PreparedStatement ps = c.prepareStatement(
+                    "SELECT COLUMN_NAME, TYPE, PK FROM SYS.TABLE_COLUMNS WHERE SCHEMA_NAME = ? AND TABLE_NAME = ?")) {
+                ps.setString(1, meta.schema);
+                ps.setString(2, meta.table);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String name = rs.getString(1);
+                        if ("_KEY".equals(name) || "_VAL".equals(name)) continue;
+                        meta.columns.add(new Column(name, rs.getString(2), rs.getBoolean(3)));
+                    }
+                }
+            }
+            return meta;
+        }
+    }
+
+    /**
+     * Какие колонки таблицы стоят в файле и в каком порядке: заголовок, явный список или все по порядку.
+     */
+    private static List<Column> mapping(TableMeta meta, Options opt, String[] header) {
+        List<String> names = header != null ? List.of(header)
+                : opt.columns != null && !opt.columns.isEmpty() ? opt.columns
+                : null;
+        if (names == null) return meta.columns;
+
+        List<Column> r = new ArrayList<>();
+        for (String n : names) {
+            Column col = n != null ? meta.column(n.trim()) : null;
+            if (col == null) {
+                throw new IllegalArgumentException("Column " + n + " not found in " + meta.schema + "." + meta.table);
+            }
+            r.add(col);
+        }
+        return r;
+    }
+
+    static final class TableMeta {
+        final String schema;
+        final String table;
+        final String cacheName;
+        final String keyAlias;
+        final String keyType;
+        final String valueType;
+        final List<Column> columns = new ArrayList<>();
+
+        TableMeta(String schema, String table, String cacheName, String keyAlias, String keyType, String valueType) {
+            this.schema = schema;
+            this.table = table;
+            this.cacheName = cacheName;
+            this.keyAlias = keyAlias;
+            this.keyType = keyType;
+            this.valueType = valueType;
+        }
+
+        Column column(String name) {
+            for (Column c : columns) {
+                if (c.name.equalsIgnoreCase(name)) return c;
+            }
+            return null;
+        }
+    }
+
+    static final class Column {
+        final String name;
+        final String type;   // имя Java-класса из SYS.TABLE_COLUMNS
+        final boolean pk;
+
+        Column(String name, String type, boolean pk) {
+            this.name = name;
+            this.type = type;
+            this.pk = pk;
+        }
+    }
+
+    /**
+     * Строка CSV -> значение нужного Java-типа. Числа и даты в ISO-формате.
+     */
+    static Object convert(Column col, String v) {
+        if (v == null) return null;
+        String s = col.type.equals("java.lang.String") ? v : v.trim();
+        switch (col.type) {
+            case "java.lang.String": return s;
+            case "java.lang.Integer": return Integer.valueOf(s);
+            case "java.lang.Long": return Long.valueOf(s);
+            case "java.lang.Short": return Short.valueOf(s);
+            case "java.lang.Byte": return Byte.valueOf(s);
+            case "java.lang.Double": return Double.valueOf(s);
+            case "java.lang.Float": return Float.valueOf(s);
+            case "java.math.BigDecimal": return new BigDecimal(s);
+            case "java.lang.Boolean": return Boolean.valueOf(s);
+            case "java.sql.Date": return Date.valueOf(LocalDate.parse(s));
+            case "java.sql.Time": return Time.valueOf(LocalTime.parse(s));
+            case "java.sql.Timestamp": return Timestamp.valueOf(LocalDateTime.parse(s.replace(' ', 'T')));
+            case "java.util.UUID": return UUID.fromString(s);
+            default:
+                throw new IllegalArgumentException("Unsupported column type " + col.type + " (" + col.name + ")");
+        }
+    }
+
+    // --- Загрузчики ---
+
+    interface Loader {
+        Worker worker() throws Exception;
+
+        void close(boolean success) throws Exception;
+
+        interface Worker extends AutoCloseable {
+            void load(List<String[]> batch, long maxErrors) throws Exception;
+
+            /** Вызывается, если все пакеты этого потока обработаны без ошибок. */
+            void success() throws Exception;
+        }
+    }
+
+    /**
+     * IgniteDataStreamer на embedded-узле: один стример на импорт, addData из всех потоков
+     * (стример потокобезопасен). Ключ/значение собираются как BinaryObject по типам из SYS.TABLES.
+     */
+    private final class StreamerLoader implements Loader {
+
+        private final Ignite ignite;
+        private final TableMeta meta;
+        private final List<Column> mapping;
+        private final Job job;
+        private final IgniteDataStreamer<Object, Object> streamer;
+        private final int[] target;   // позиция поля файла в meta.columns
+        private final int[] keyIdx;
+        private final int[] valIdx;
+        private final boolean simpleKey;
+        private final boolean simpleValue;
+
+        StreamerLoader(Ignite ignite, TableMeta meta, List<Column> mapping, Job job) {
+            this.ignite = ignite;
+            this.meta = meta;
+            this.mapping = mapping;
+            this.job = job;
+
+            target = new int[mapping.size()];
+            for (int i = 0; i < target.length; i++) target[i] = meta.columns.indexOf(mapping.get(i));
+            List<Integer> keys = new ArrayList<>();
+            List<Integer> vals = new ArrayList<>();
+            for (int i = 0; i < meta.columns.size(); i++) (meta.columns.get(i).pk ? keys : vals).add(i);
+            keyIdx = keys.stream().mapToInt(Integer::intValue).toArray();
+            valIdx = vals.stream().mapToInt(Integer::intValue).toArray();
+            if (keyIdx.length == 0) throw new IllegalStateException("Table " + meta.table + " has no primary key columns");
+
+            this.simpleKey = keyIdx.length == 1 && isJavaType(meta.keyType);
+            this.simpleValue = valIdx.length == 1 && isJavaType(meta.valueType);
+
+            this.streamer = ignite.dataStreamer(meta.cacheName);
+            streamer.keepBinary(true);
+            streamer.allowOverwrite(props.getCsvImport().isAllowOverwrite());
+        }
+
+        @Override
+        public Worker worker() {
+            return new Worker() {
+                @Override
+                public void load(List<String[]> batch, long maxErrors) {
+                    int loaded = 0;
+                    for (String[] rec : batch) {
+                        Object[] values;
+                        try {
+                            values = values(rec);
+                        } catch (RuntimeException e) {
+                            job.badRow(e, maxErrors);
+                            continue;
+                        }
+                        streamer.addData(key(values), value(values));
+                        loaded++;
+                    }
+                    job.submitted(loaded);
+                }
+
+                @Override
+                public void success() {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        /** Значения в порядке meta.columns. */
+        private Object[] values(String[] rec) {
+            checkWidth(rec, mapping.size());
+            Object[] values = new Object[meta.columns.size()];
+            for (int i = 0; i < target.length; i++) {
+                values[target[i]] = convert(mapping.get(i), rec[i]);
+            }
+            return values;
+        }
+
+        private Object key(Object[] values) {
+            if (simpleKey) {
+                Object k = values[keyIdx[0]];
+                if (k == null) {
+                    throw new IllegalArgumentException("Primary key column " + meta.columns.get(keyIdx[0]).name + " is null");
+                }
+                return k;
+            }
+            BinaryObjectBuilder b = ignite.binary().builder(meta.keyType);
+            for (int i : keyIdx) b.setField(meta.columns.get(i).name, values[i]);
+            return b.build();
+        }
+
+        private Object value(Object[] values) {
+            if (simpleValue) return values[valIdx[0]];
+            BinaryObjectBuilder b = ignite.binary().builder(meta.valueType);
+            for (int i : valIdx) {
+                if (values[i] != null) b.setField(meta.columns.get(i).name, values[i]);
+            }
+            return b.build();
+        }
+
+        @Override
+        public void close(boolean success) {
+            // close(false) дожидается отправки всех буферов, close(true) — отбрасывает их
+            streamer.close(!success);
+        }
+    }
+
+    /**
+     * JDBC streaming: у каждого потока своё соединение из пула в режиме SET STREAMING ON
+     * и PreparedStatement INSERT с addBatch/executeBatch.
+     */
+    private final class JdbcLoader implements Loader {
+
+        private final List<Column> mapping;
+        private final Job job;
+        private final String insertSql;
+
+        JdbcLoader(TableMeta meta, List<Column> mapping, Job job) {
+            this.mapping = mapping;
+            this.job = job;
+
+            StringBuilder sql = new StringBuilder("INSERT INTO \"").append(meta.schema).append("\".\"")
+                    .append(meta.table).append("\" (");
+            for (int i = 0; i < mapping.size(); i++) {
+                if (i > 0) sql.append(", ");
+                sql.append('"').append(mapping.get(i).name).append('"');
+            }
+            sql.append(") VALUES (").append("?, ".repeat(mapping.size() - 1)).append("?)");
+            this.insertSql = sql.toString();
+        }
+
+        @Override
+        public Worker worker() throws SQLException {
+            // слот — до соединения: ждём его, не занимая пул
+            SqlAdmission.Permit permit = admission.acquire(job.owner, SqlAdmission.Lane.JOB);
+            Connection c;
+            try {
+                c = pool.getConnection();
+            } catch (SQLException e) {
+                permit.close();
+                throw e;
+            }
+            try {
+                StringBuilder cmd = new StringBuilder("SET STREAMING ON");
+                if (props.getCsvImport().isAllowOverwrite()) cmd.append(" ALLOW_OVERWRITE ON");
+                cmd.append(" BATCH_SIZE ").append(job.batchSize);
+                try (Statement st = c.createStatement()) {
+                    st.execute(cmd.toString());
+                }
+                return new JdbcWorker(c, c.prepareStatement(insertSql), permit);
+            } catch (SQLException e) {
+                try {
+                    pool.evict(c);
+                    c.close();
+                } finally {
+                    permit.close();
+                }
+                throw e;
+            }
+        }
+
+        private final class JdbcWorker implements Worker {
+            private final Connection c;
+            private final PreparedStatement ps;
+            private final SqlAdmission.Permit permit;
+            private boolean clean;
+
+            JdbcWorker(Connection c, PreparedStatement ps, SqlAdmission.Permit permit) {
+                this.c = c;
+                this.ps = ps;
+                this.permit = permit;
+            }
+
+            @Override
+            public void load(List<String[]> batch, long maxErrors) throws SQLException {
+                int added = 0;
+                for (String[] rec : batch) {
+                    try {
+                        checkWidth(rec, mapping.size());
+                        for (int i = 0; i < mapping.size(); i++) {
+                            ps.setObject(i + 1, convert(mapping.get(i), rec[i]));
+                        }
+                    } catch (RuntimeException e) {
+                        ps.clearParameters();
+                        job.badRow(e, maxErrors);
+                        continue;
+                    }
+                    ps.addBatch();
+                    added++;
+                }
+                if (added > 0) ps.executeBatch();
+                job.submitted(added);
+            }
+
+            @Override
+            public void success() throws SQLException {
+                ps.close();
+                // OFF дожидается сброса буферов стримера на сервере
+                try (Statement st = c.createStatement()) {
+                    st.execute("SET STREAMING OFF");
+                }
+                clean = true;
+            }
+
+            @Override
+            public void close() throws SQLException {
+                try {
+                    if (!clean) {
+                        // соединение в потоковом состоянии в пул не возвращаем
+                        pool.evict(c);
+                    }
+                } finally {
+                    try {
+                        c.close();
+                    } finally {
+                        permit.close();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close(boolean success) {
+        }
+    }
+
+    private static void checkWidth(String[] rec, int expected) {
+        if (rec.length != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " fields, got " + rec.length);
+        }
+    }
+
+    private static boolean isJavaType(String typeName) {
+        return typeName != null && (typeName.startsWith("java.") || typeName.startsWith("javax."));
+    }
+
+    private static int clamp(int v, int min, int max) {
+        return Math.max(min, Math.min(v, Math.max(min, max)));
+    }
+
+    // --- Состояние импорта ---
+
+    static final class Job {
+        final String id;
+        final String owner;
+        final String table;
+        final String mode;
+        final int threads;
+        final int batchSize;
+        final boolean allowOverwrite;
+        final long startedAt = System.currentTimeMillis();
+        final long t0 = System.nanoTime();
+        volatile long finishedNanos;
+        volatile List<String> columns = List.of();
+
+        final AtomicLong bytesRead = new AtomicLong();
+        final AtomicLong rowsParsed = new AtomicLong();
+        final AtomicLong rowsSubmitted = new AtomicLong();
+        final AtomicLong rowsFailed = new AtomicLong();
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        final List<String> errorSamples = Collections.synchronizedList(new ArrayList<>());
+
+        Job(String id, String owner, String table, String mode, int threads, int batchSize, boolean allowOverwrite) {
+            this.id = id;
+            this.owner = owner;
+            this.table = table;
+            this.mode = mode;
+            this.threads = threads;
+            this.batchSize = batchSize;
+            this.allowOverwrite = allowOverwrite;
+        }
+
+        void submitted(int n) {
+            rowsSubmitted.addAndGet(n);
+        }
+
+        void badRow(RuntimeException e, long maxErrors) {
+            long n = rowsFailed.incrementAndGet();
+            if (errorSamples.size() < MAX_ERROR_SAMPLES) errorSamples.add(e.getMessage());
+            if (n > maxErrors) {
+                throw new IllegalArgumentException("Too many bad rows (" + n + "), last: " + e.getMessage(), e);
+            }
+        }
+
+        void fail(Exception e) {
+            error.compareAndSet(null, e);
+        }
+
+        void finish() {
+            finishedNanos = System.nanoTime();
+        }
+
+        long elapsedMs() {
+            long end = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+            return (end - t0) / 1_000_000;
+        }
+
+        double rowsPerSec() {
+            long ms = elapsedMs();
+            return ms > 0 ? rowsSubmitted.get() * 1000.0 / ms : 0;
+        }
+
+        Map<String, Object> info() {
+            Exception e = error.get();
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", e == null);
+            r.put("error", e != null ? e.getMessage() : null);
+            r.put("jobId", id);
+            r.put("owner", owner);
+            r.put("state", finishedNanos == 0 ? "RUNNING" : e == null ? "DONE" : "FAILED");
+            r.put("table", table);
+            r.put("mode", mode);
+            r.put("threads", threads);
+            r.put("batchSize", batchSize);
+            r.put("columns", columns);
+            r.put("startedAt", startedAt);
+            r.put("bytesRead", bytesRead.get());
+            r.put("rowsParsed", rowsParsed.get());
+            // при allowOverwrite=false сюда входят и строки, которые Ignite пропустил как дубликаты ключа
+            r.put("rowsSubmitted", rowsSubmitted.get());
+            r.put("allowOverwrite", allowOverwrite);
+            r.put("rowsFailed", rowsFailed.get());
+            r.put("errorSamples", new ArrayList<>(errorSamples));
+            r.put("elapsedMs", elapsedMs());
+            r.put("rowsPerSec", Math.round(rowsPerSec()));
+            return r;
+        }
+    }
+
+    /**
+     * Считает прочитанные байты тела запроса (для прогресса).
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong counter;
+
+        CountingInputStream(InputStream in, AtomicLong counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) counter.incrementAndGet();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) counter.addAndGet(n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.igniteapp.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый разбор CSV (RFC 4180): кавычки, "" внутри кавычек, переводы строк в полях, CRLF.
+ * Пустое поле без кавычек = null, "" в кавычках = пустая строка.
+ * Держит в памяти только текущую запись.
+ */
+final class CsvParser {
+
+    private final Reader in;
+    private final char delimiter;
+    private final int maxRecordChars;
+
+    private final char[] buf = new char[64 * 1024];
+    private int pos;
+    private int len;
+
+    private long recordNo;
+
+    CsvParser(Reader in, char delimiter, int maxRecordChars) {
+        this.in = in;
+        this.delimiter = delimiter;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    /**
+     * Номер последней прочитанной записи (с 1).
+     */
+    long recordNo() {
+        return recordNo;
+    }
+
+    /**
+     * Следующая запись или null в конце потока. Пустые строки пропускаются.
+     */
+    String[] next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;      // внутри кавычек
+        boolean wasQuoted = false;   // текущее поле было в кавычках
+        boolean any = false;         // в записи был хоть один символ
+        int recordChars = 0;
+
+        while (true) {
+            int ch = read();
+            if (ch < 0) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field in record " + (recordNo + 1));
+                }
+                if (!any) return null;
+                fields.add(value(field, wasQuoted));
+                recordNo++;
+                return fields.toArray(new String[0]);
+            }
+
+            if (++recordChars > maxRecordChars) {
+                throw new IOException("Record " + (recordNo + 1) + " is longer than " + maxRecordChars + " chars");
+            }
+
+            char c = (char) ch;
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+                continue;
+            }
+
+            if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+                any = true;
+            } else if (c == delimiter) {
+                fields.add(value(field, wasQuoted));
+                field.setLength(0);
+                wasQuoted = false;
+                any = true;
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && peek() == '\n') read();
+                if (!any && field.length() == 0) {
+                    recordChars = 0;
+                    continue;   // пустая строка
+                }
+                fields.add(value(field, wasQuoted));
+                recordNo++;
+                return fields.toArray(new String[0]);
+            } else {
+                field.append(c);
+                any = true;
+            }
+        }
+    }
+
+    private static String value(StringBuilder field, boolean wasQuoted) {
+        if (field.length() == 0 && !wasQuoted) return null;
+        return field.toString();
+    }
+
+    private int read() throws IOException {
+        if (pos == len && !fill()) return -1;
+        return buf[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == len && !fill()) return -1;
+        return buf[pos];
+    }
+
+    private boolean fill() throws IOException {
+        len = in.read(buf, 0, buf.length);
+        pos = 0;
+        if (len <= 0) {
+            len = 0;
+            return false;
+        }
+        return true;
+    }
+}
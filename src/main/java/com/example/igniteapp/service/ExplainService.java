@@ -0,0 +1,204 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.api.dto.SqlParam;
+import com.example.igniteapp.config.IgniteProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * EXPLAIN через SqlService: разбор плана ({@link QueryPlan}), предупреждения о полных сканах с оценкой
+ * размера таблиц, кэш разобранных планов по отпечатку ({@link PlanCache}) и guard для /api/sql.
+ * <p>
+ * Размер таблицы — OffHeapPrimaryEntriesCount кэша с узла, выполнившего запрос (SYS.METRICS),
+ * умноженный на число серверных узлов: оценка, а не COUNT(*).
+ */
+@Service
+public class ExplainService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExplainService.class);
+
+    private static final String TABLE_ROWS_SQL =
+            "SELECT M.VALUE, (SELECT COUNT(*) FROM SYS.NODES WHERE IS_CLIENT = FALSE) AS SERVERS " +
+                    "FROM SYS.TABLES T JOIN SYS.METRICS M " +
+                    "ON M.NAME = CONCAT('cache.', T.CACHE_NAME, '.OffHeapPrimaryEntriesCount') " +
+                    "WHERE T.SCHEMA_NAME = ? AND T.TABLE_NAME = ?";
+
+    private final SqlService sqlService;
+    private final PlanCache planCache;
+    private final IgniteProperties props;
+
+    public ExplainService(SqlService sqlService, PlanCache planCache, IgniteProperties props) {
+        this.sqlService = sqlService;
+        this.planCache = planCache;
+        this.props = props;
+    }
+
+    /**
+     * @param refresh true — не брать план из кэша
+     */
+    public Map<String, Object> explain(SqlQuery q, boolean refresh) throws Exception {
+        String fp = fingerprint(q.getSql());
+        PlanCache.Entry e = refresh ? null : planCache.get(fp);
+        boolean cached = e != null;
+        if (e == null) e = plan(q, fp);
+
+        IgniteProperties.Explain cfg = props.getExplain();
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", true);
+        r.put("fingerprint", fp);
+        r.put("cached", cached);
+        r.put("planAgeMs", e.ageMs());
+        r.putAll(e.plan.info());
+        r.put("tableRows", e.tableRows);
+        r.put("warnings", e.warnings);
+        Map<String, Object> guard = new LinkedHashMap<>();
+        guard.put("mode", guardMode());
+        guard.put("minRows", cfg.getGuardMinRows());
+        guard.put("wouldBlock", !blocking(e).isEmpty());
+        r.put("guard", guard);
+        return r;
+    }
+
+    /**
+     * Проверка перед выполнением в /api/sql. null — выполнять; иначе ответ с ok=false и причинами.
+     * Если EXPLAIN не удался (синтаксис и т.п.) — запрос пропускается: ошибку покажет само выполнение.
+     */
+    public Map<String, Object> guard(SqlQuery q, boolean confirmed) {
+        String mode = guardMode();
+        boolean active = "reject".equals(mode) || ("confirm".equals(mode) && !confirmed);
+        if (!active || !SqlText.isReadOnly(q.getSql())) {
+            return null;
+        }
+
+        String fp = fingerprint(q.getSql());
+        PlanCache.Entry e = planCache.get(fp);
+        if (e == null) {
+            try {
+                e = plan(q, fp);
+            } catch (AdmissionRejectedException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                log.debug("Guard skipped, EXPLAIN failed: {}", ex.getMessage());
+                return null;
+            }
+        }
+
+        List<Map<String, Object>> blocking = blocking(e);
+        if (blocking.isEmpty()) return null;
+
+        List<String> tables = new ArrayList<>();
+        for (Map<String, Object> w : blocking) tables.add(w.get("table") + " (~" + w.get("estimatedRows") + " rows)");
+        boolean confirm = "confirm".equals(mode);
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", false);
+        r.put("error", "Query plan has a full scan over a large table: " + String.join(", ", tables) +
+                (confirm ? ". Resend with confirmFullScan=true to run it anyway" : ""));
+        r.put("confirmRequired", confirm);
+        r.put("warnings", blocking);
+        return r;
+    }
+
+    public Map<String, Object> cacheStats() {
+        return planCache.stats();
+    }
+
+    public void clearCache() {
+        planCache.invalidate(null);
+    }
+
+    private PlanCache.Entry plan(SqlQuery q, String fp) throws Exception {
+        Map<String, Object> raw = sqlService.execute(SqlQuery.of("EXPLAIN " + q.getSql())
+                .params(q.getParams())
+                .engine(q.getEngine())
+                .owner(q.getOwner())
+                .noCache());
+
+        List<String> rows = new ArrayList<>();
+        Object rs = raw.get("rows");
+        if (rs instanceof List) {
+            for (Object row : (List<?>) rs) {
+                if (row instanceof Map && !((Map<?, ?>) row).isEmpty()) {
+                    rows.add(String.valueOf(((Map<?, ?>) row).values().iterator().next()));
+                }
+            }
+        }
+        QueryPlan plan = QueryPlan.parse(rows);
+
+        Map<String, Long> tableRows = new LinkedHashMap<>();
+        for (String table : plan.scannedTables()) tableRows.put(table, tableRows(table));
+
+        List<Map<String, Object>> warnings = new ArrayList<>();
+        for (Map<String, Object> w : plan.getWarnings()) {
+            Map<String, Object> copy = new LinkedHashMap<>(w);
+            if (w.get("table") != null) copy.put("estimatedRows", tableRows.get(w.get("table")));
+            warnings.add(copy);
+        }
+
+        Set<String> tables = new LinkedHashSet<>();
+        for (QueryPlan.Part p : plan.getParts()) {
+            for (QueryPlan.TableAccess t : p.tables) tables.add(SqlText.lastPart(t.table));
+        }
+
+        PlanCache.Entry e = new PlanCache.Entry(fp, plan, warnings, tableRows, tables);
+        planCache.put(e);
+        return e;
+    }
+
+    /**
+     * Оценка числа строк; null — не удалось определить (не кэш Ignite, нет метрики).
+     */
+    private Long tableRows(String table) {
+        String t = table.trim();
+        int dot = t.lastIndexOf('.');
+        String schema = dot > 0 ? SqlText.lastPart(t.substring(0, dot)) : "PUBLIC";
+        String name = SqlText.lastPart(t);
+        try {
+            Map<String, Object> r = sqlService.execute(SqlQuery.of(TABLE_ROWS_SQL)
+                    .params(Arrays.asList(new SqlParam("VARCHAR", schema), new SqlParam("VARCHAR", name)))
+                    .limitRows(1).noCache().system());
+            Object rows = r.get("rows");
+            if (!(rows instanceof List) || ((List<?>) rows).isEmpty()) return null;
+            Map<?, ?> row = (Map<?, ?>) ((List<?>) rows).get(0);
+            long local = Long.parseLong(String.valueOf(row.get("VALUE")));
+            long servers = Math.max(1, ((Number) row.get("SERVERS")).longValue());
+            return local * servers;
+        } catch (Exception e) {
+            log.debug("Table size lookup failed for {}: {}", table, e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Map<String, Object>> blocking(PlanCache.Entry e) {
+        long min = props.getExplain().getGuardMinRows();
+        List<Map<String, Object>> r = new ArrayList<>();
+        for (Map<String, Object> w : e.warnings) {
+            Object n = w.get("estimatedRows");
+            boolean scan = "FULL_SCAN".equals(w.get("code")) || "JOIN_SCAN".equals(w.get("code"));
+            if (scan && n instanceof Number && ((Number) n).longValue() >= min) r.add(w);
+        }
+        return r;
+    }
+
+    private String guardMode() {
+        String m = props.getExplain().getGuard();
+        return m == null ? "off" : m.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ключ кэша планов — отпечаток без обрезки по maxFingerprintChars: у длинных запросов
+     * с общим началом планы разные.
+     */
+    private static String fingerprint(String sql) {
+        return SqlText.fingerprint(sql, 0);
+    }
+}
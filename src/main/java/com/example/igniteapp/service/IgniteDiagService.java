@@ -1,25 +1,173 @@
 package com.example.igniteapp.service;
 
+import com.example.igniteapp.config.IgniteProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Сводка по кластеру для /api/ignite/overview. Отдаётся из памяти: снимок обновляется в фоне
+ * (пока overview кто-то смотрит), системные представления опрашиваются параллельно.
+ * Одновременные обновления склеиваются в одно.
+ */
 @Service
 public class IgniteDiagService {
 
+    private static final Logger log = LoggerFactory.getLogger(IgniteDiagService.class);
+
+    /** Ключ в ответе -> системное представление. */
+    private static final Map<String, String> VIEWS;
+
+    static {
+        Map<String, String> v = new LinkedHashMap<>();
+        v.put("nodes", "SYS.NODES");
+        v.put("caches", "SYS.CACHES");
+        v.put("schemas", "SYS.SCHEMAS");
+        v.put("activeQueries", "SYS.SQL_QUERIES");
+        VIEWS = Collections.unmodifiableMap(v);
+    }
+
     private final SqlService sqlService;
+    private final IgniteProperties props;
+    private final ExecutorService executor;
+
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+    private volatile Snapshot snapshot;
+    private volatile long lastReadAt;
 
-    public IgniteDiagService(SqlService sqlService) {
+    public IgniteDiagService(SqlService sqlService, IgniteProperties props) {
         this.sqlService = sqlService;
+        this.props = props;
+
+        AtomicInteger n = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, props.getOverview().getThreads()), r -> {
+            Thread t = new Thread(r, "diag-overview-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Последний снимок; если его нет, он старше maxAgeMs или refresh=true — обновить и дождаться.
+     */
+    public Snapshot overview(boolean refresh) throws Exception {
+        lastReadAt = System.currentTimeMillis();
+        Snapshot s = snapshot;
+        if (refresh || s == null || s.ageMs() > props.getOverview().getMaxAgeMs()) {
+            try {
+                return refresh().get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        return s;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ignite.overview.refreshIntervalMs:10000}")
+    public void backgroundRefresh() {
+        if (System.currentTimeMillis() - lastReadAt > props.getOverview().getIdleAfterMs()) return;
+        refresh();
+    }
+
+    /**
+     * Запустить обновление (или присоединиться к уже идущему).
+     */
+    CompletableFuture<Snapshot> refresh() {
+        while (true) {
+            CompletableFuture<Snapshot> running = inFlight.get();
+            if (running != null) return running;
+
+            CompletableFuture<Snapshot> created = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, created)) {
+                start(created);
+                return created;
+            }
+        }
+    }
+
+    private void start(CompletableFuture<Snapshot> target) {
+        long t0 = System.nanoTime();
+        int maxRows = Math.max(1, props.getOverview().getMaxRowsPerView());
+
+        Map<String, CompletableFuture<Map<String, Object>>> parts = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, String> v : VIEWS.entrySet()) {
+                parts.put(v.getKey(), CompletableFuture.supplyAsync(() -> query(v.getValue(), maxRows), executor));
+            }
+        } catch (RuntimeException e) {
+            // пул остановлен (shutdown)
+            inFlight.set(null);
+            target.completeExceptionally(e);
+            return;
+        }
+
+        CompletableFuture.allOf(parts.values().toArray(new CompletableFuture[0])).whenComplete((ignored, err) -> {
+            Map<String, Object> data = new LinkedHashMap<>();
+            for (Map.Entry<String, CompletableFuture<Map<String, Object>>> p : parts.entrySet()) {
+                data.put(p.getKey(), p.getValue().join());
+            }
+            Snapshot s = new Snapshot(data, System.currentTimeMillis(), (System.nanoTime() - t0) / 1_000_000);
+            snapshot = s;
+            inFlight.set(null);
+            target.complete(s);
+            log.debug("Ignite overview refreshed: {} ms", s.getRefreshMs());
+        });
+    }
+
+    /**
+     * Один блок снимка; ошибка остаётся внутри блока (ok=false), остальные блоки не страдают.
+     */
+    private Map<String, Object> query(String view, int maxRows) {
+        try {
+            // truncated ставит SqlService: строк больше maxRows; JDBC — кластер глазами тонкого клиента, как и readiness
+            return sqlService.execute(SqlQuery.of("SELECT * FROM " + view)
+                    .limitRows(maxRows).noCache().engine("jdbc").system());
+        } catch (Exception e) {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", false);
+            r.put("error", e.getMessage());
+            return r;
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        executor.shutdownNow();
     }
 
-    public Map<String, Object> overview() throws Exception {
-        Map<String, Object> res = new LinkedHashMap<>();
-        res.put("nodes", sqlService.execute("SELECT * FROM SYS.NODES"));
-        res.put("caches", sqlService.execute("SELECT * FROM SYS.CACHES"));
-        res.put("schemas", sqlService.execute("SELECT * FROM SYS.SCHEMAS"));
-        res.put("activeQueries", sqlService.execute("SELECT * FROM SYS.SQL_QUERIES"));
-        return res;
+    /**
+     * Неизменяемый снимок: данные, момент съёмки и сколько длилось обновление.
+     */
+    public static final class Snapshot {
+        private final Map<String, Object> data;
+        private final long takenAt;
+        private final long refreshMs;
+
+        Snapshot(Map<String, Object> data, long takenAt, long refreshMs) {
+            this.data = Collections.unmodifiableMap(data);
+            this.takenAt = takenAt;
+            this.refreshMs = refreshMs;
+        }
+
+        public Map<String, Object> getData() { return data; }
+        public long getTakenAt() { return takenAt; }
+        public long getRefreshMs() { return refreshMs; }
+
+        public long ageMs() {
+            return System.currentTimeMillis() - takenAt;
+        }
     }
 }
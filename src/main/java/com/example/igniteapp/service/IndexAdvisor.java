@@ -0,0 +1,568 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.config.IgniteProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Советник по индексам: по истории запросов (статистика {@link QueryStatsCollector} и SYS.SQL_QUERIES_HISTORY)
+ * находит столбцы в условиях WHERE/ON, по которым у таблицы нет подходящего индекса (SYS.INDEXES),
+ * и предлагает CREATE INDEX, упорядоченные по оценке выигрыша.
+ * <p>
+ * Кандидат — столбцы одного запроса по одной таблице: сначала равенства (=, IN, условие соединения),
+ * затем не больше одного диапазона (&lt;, &gt;, BETWEEN) или LIKE. Кандидат покрыт, если у таблицы есть индекс,
+ * начинающийся с этих столбцов (равенства — в любом порядке).
+ * <p>
+ * benefitMs — суммарное время запросов, которым помог бы индекс, с весом по виду ведущего условия
+ * (равенство 1.0, диапазон 0.6, LIKE 0.4 — с '%' в начале индекс не работает) и 0.3,
+ * если индекс с тем же ведущим столбцом уже есть. Это верхняя оценка, а не прогноз:
+ * проверить кандидата можно через {@link #tryCandidate}.
+ */
+@Service
+public class IndexAdvisor {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexAdvisor.class);
+
+    private static final String COLUMNS_SQL =
+            "SELECT SCHEMA_NAME, TABLE_NAME, COLUMN_NAME FROM SYS.TABLE_COLUMNS";
+
+    private static final String INDEXES_SQL =
+            "SELECT SCHEMA_NAME, TABLE_NAME, INDEX_NAME, COLUMNS FROM SYS.INDEXES";
+
+    private static final String TABLE_ROWS_SQL =
+            "SELECT T.SCHEMA_NAME, T.TABLE_NAME, M.VALUE, " +
+                    "(SELECT COUNT(*) FROM SYS.NODES WHERE IS_CLIENT = FALSE) AS SERVERS " +
+                    "FROM SYS.TABLES T JOIN SYS.METRICS M " +
+                    "ON M.NAME = CONCAT('cache.', T.CACHE_NAME, '.OffHeapPrimaryEntriesCount')";
+
+    private static final String HISTORY_SQL =
+            "SELECT SCHEMA_NAME, SQL, EXECUTIONS, DURATION_MIN, DURATION_MAX FROM SYS.SQL_QUERIES_HISTORY " +
+                    "WHERE FAILURES < EXECUTIONS ORDER BY EXECUTIONS * (DURATION_MIN + DURATION_MAX) DESC";
+
+    private static final int CATALOG_LIMIT = 100_000;
+    private static final int STATS_SAMPLE_CHARS = 300;
+
+    private static final Set<String> SYSTEM_COLUMNS = new LinkedHashSet<>(Arrays.asList("_KEY", "_VAL"));
+
+    private final SqlService sqlService;
+    private final QueryStatsCollector queryStats;
+    private final IgniteProperties props;
+
+    private final AtomicBoolean trying = new AtomicBoolean();
+
+    public IndexAdvisor(SqlService sqlService, QueryStatsCollector queryStats, IgniteProperties props) {
+        this.sqlService = sqlService;
+        this.queryStats = queryStats;
+        this.props = props;
+    }
+
+    public Map<String, Object> advise() throws Exception {
+        Analysis a = analyze();
+        IgniteProperties.Advisor cfg = props.getAdvisor();
+        List<Map<String, Object>> cs = new ArrayList<>();
+        for (Candidate c : a.candidates) {
+            if (cs.size() >= cfg.getMaxCandidates()) break;
+            cs.add(c.info());
+        }
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", true);
+        r.put("analyzedQueries", a.analyzed);
+        r.put("fromStats", a.fromStats);
+        r.put("fromHistory", a.fromHistory);
+        r.put("skippedSmallTables", a.smallTables);
+        r.put("minTableRows", cfg.getMinTableRows());
+        r.put("candidates", cs);
+        return r;
+    }
+
+    /**
+     * Создаёт индекс кандидата и перемеряет его самые дорогие запросы до и после.
+     * Перемеряются только SELECT без параметров с полным текстом; индекс удаляется, если keep=false
+     * и его не было до проверки.
+     */
+    public Map<String, Object> tryCandidate(String id, boolean keep, String owner) throws Exception {
+        if (!trying.compareAndSet(false, true)) {
+            throw new IllegalStateException("Another index candidate is being tested, try again later");
+        }
+        try {
+            Candidate c = null;
+            for (Candidate x : analyze().candidates) {
+                if (x.id().equals(id)) c = x;
+            }
+            if (c == null) throw new IllegalArgumentException("Unknown or already covered index candidate: " + id);
+
+            IgniteProperties.Advisor cfg = props.getAdvisor();
+            List<QueryUse> timed = new ArrayList<>();
+            int skipped = 0;
+            for (QueryUse q : c.sortedQueries()) {
+                if (timed.size() < cfg.getTryMaxQueries() && q.retimable()) timed.add(q);
+                else skipped++;
+            }
+            if (timed.isEmpty()) {
+                throw new IllegalArgumentException("No queries of this candidate can be re-run " +
+                        "(parameterized, truncated or not SELECT): " + id);
+            }
+
+            List<Double> before = new ArrayList<>();
+            for (QueryUse q : timed) before.add(time(q.sql, owner));
+
+            boolean existed = indexExists(c.schema, c.table, c.indexName());
+            long t0 = System.nanoTime();
+            sqlService.execute(SqlQuery.of(c.statement()).owner(owner).noCache());
+            double createMs = (System.nanoTime() - t0) / 1_000_000.0;
+
+            List<Double> after = new ArrayList<>();
+            try {
+                for (QueryUse q : timed) after.add(time(q.sql, owner));
+            } finally {
+                if (!keep && !existed) {
+                    sqlService.execute(SqlQuery.of("DROP INDEX IF EXISTS " + ident(c.schema) + "." + ident(c.indexName()))
+                            .owner(owner).noCache());
+                }
+            }
+
+            List<Map<String, Object>> qs = new ArrayList<>();
+            double totalBefore = 0;
+            double totalAfter = 0;
+            for (int i = 0; i < timed.size(); i++) {
+                Map<String, Object> q = new LinkedHashMap<>();
+                q.put("sql", SqlService.safePreview(timed.get(i).sql, STATS_SAMPLE_CHARS));
+                q.put("beforeMs", round(before.get(i)));
+                q.put("afterMs", round(after.get(i)));
+                q.put("speedup", speedup(before.get(i), after.get(i)));
+                qs.add(q);
+                totalBefore += before.get(i);
+                totalAfter += after.get(i);
+            }
+
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", true);
+            r.put("id", id);
+            r.put("statement", c.statement());
+            r.put("indexExisted", existed);
+            r.put("createMs", round(createMs));
+            r.put("kept", keep || existed);
+            r.put("runs", Math.max(1, cfg.getTryRuns()));
+            r.put("beforeMs", round(totalBefore));
+            r.put("afterMs", round(totalAfter));
+            r.put("speedup", speedup(totalBefore, totalAfter));
+            r.put("queries", qs);
+            r.put("skippedQueries", skipped);
+            return r;
+        } finally {
+            trying.set(false);
+        }
+    }
+
+    private Analysis analyze() throws Exception {
+        IgniteProperties.Advisor cfg = props.getAdvisor();
+        Analysis a = new Analysis();
+
+        Map<String, Set<String>> columns = new HashMap<>();
+        for (Map<?, ?> row : rows(COLUMNS_SQL, CATALOG_LIMIT)) {
+            columns.computeIfAbsent(key(row.get("SCHEMA_NAME"), row.get("TABLE_NAME")), k -> new LinkedHashSet<>())
+                    .add(String.valueOf(row.get("COLUMN_NAME")));
+        }
+        Map<String, List<IndexDef>> indexes = new HashMap<>();
+        for (Map<?, ?> row : rows(INDEXES_SQL, CATALOG_LIMIT)) {
+            indexes.computeIfAbsent(key(row.get("SCHEMA_NAME"), row.get("TABLE_NAME")), k -> new ArrayList<>())
+                    .add(IndexDef.of(String.valueOf(row.get("INDEX_NAME")), String.valueOf(row.get("COLUMNS"))));
+        }
+        Map<String, Long> tableRows = new HashMap<>();
+        for (Map<?, ?> row : rows(TABLE_ROWS_SQL, CATALOG_LIMIT)) {
+            try {
+                long servers = Math.max(1, ((Number) row.get("SERVERS")).longValue());
+                tableRows.put(key(row.get("SCHEMA_NAME"), row.get("TABLE_NAME")),
+                        Long.parseLong(String.valueOf(row.get("VALUE"))) * servers);
+            } catch (RuntimeException e) {
+                log.debug("Bad table size row {}: {}", row, e.getMessage());
+            }
+        }
+
+        Map<String, Candidate> candidates = new LinkedHashMap<>();
+        Set<String> small = new TreeSet<>();
+        for (QueryUse q : queries(a)) {
+            SqlPredicates parsed = SqlPredicates.parse(q.fingerprint);
+            Map<String, String> tables = new LinkedHashMap<>(); // qualifier -> key
+            List<String> keys = new ArrayList<>();
+            boolean system = false;
+            for (SqlPredicates.TableRef t : parsed.tables()) {
+                String schema = t.schema != null ? t.schema : q.schema;
+                if ("SYS".equalsIgnoreCase(schema)) system = true;
+                String k = key(schema, t.table);
+                if (!columns.containsKey(k)) continue;
+                if (!keys.contains(k)) keys.add(k);
+                tables.putIfAbsent(t.table, k);
+                if (t.alias != null) tables.put(t.alias, k);
+            }
+            if (system || keys.isEmpty()) continue;
+            a.analyzed++;
+
+            // по таблице: столбец -> вид условия (равенство сильнее диапазона и LIKE)
+            Map<String, Map<String, SqlPredicates.Predicate>> used = new LinkedHashMap<>();
+            for (SqlPredicates.Predicate p : parsed.predicates()) {
+                String k = resolve(p, tables, keys, columns);
+                if (k == null || SYSTEM_COLUMNS.contains(p.column)) continue;
+                Map<String, SqlPredicates.Predicate> cols = used.computeIfAbsent(k, x -> new LinkedHashMap<>());
+                SqlPredicates.Predicate prev = cols.get(p.column);
+                if (prev == null || rank(p.kind) < rank(prev.kind)) cols.put(p.column, p);
+            }
+
+            for (Map.Entry<String, Map<String, SqlPredicates.Predicate>> e : used.entrySet()) {
+                Long rows = tableRows.get(e.getKey());
+                if (rows != null && rows < cfg.getMinTableRows()) {
+                    small.add(e.getKey());
+                    continue;
+                }
+                List<String> eq = new ArrayList<>();
+                String range = null;
+                String rangeKind = null;
+                boolean join = false;
+                for (SqlPredicates.Predicate p : e.getValue().values()) {
+                    if (SqlPredicates.EQ.equals(p.kind)) {
+                        if (eq.size() < cfg.getMaxColumns()) eq.add(p.column);
+                        join |= p.join;
+                    } else if (range == null || rank(p.kind) < rank(rangeKind)) {
+                        range = p.column;
+                        rangeKind = p.kind;
+                    }
+                }
+                if (eq.size() >= cfg.getMaxColumns()) range = null;
+                String lead = eq.isEmpty() ? rangeKind : SqlPredicates.EQ;
+
+                List<IndexDef> existing = indexes.getOrDefault(e.getKey(), Collections.emptyList());
+                if (covered(existing, eq, range)) continue;
+                String partial = partiallyCovered(existing, eq, range);
+
+                List<String> cols = new ArrayList<>(eq);
+                if (range != null) cols.add(range);
+                String[] st = e.getKey().split("\\.", 2);
+                Candidate c = candidates.computeIfAbsent(e.getKey() + "(" + String.join(",", cols) + ")",
+                        id -> new Candidate(st[0], st[1], cols, rows));
+                c.join |= join;
+                c.partiallyCoveredBy = partial;
+                c.add(q, weight(lead) * (partial != null ? 0.3 : 1.0));
+            }
+        }
+
+        a.smallTables = new ArrayList<>(small);
+        a.candidates = new ArrayList<>(candidates.values());
+        a.candidates.sort(Comparator.comparingDouble((Candidate c) -> c.benefitMs).reversed());
+        return a;
+    }
+
+    /**
+     * Запросы из статистики SqlService и SYS.SQL_QUERIES_HISTORY, склеенные по отпечатку.
+     * История даёт только min/max длительности: время оценивается как executions × (min + max) / 2.
+     */
+    private List<QueryUse> queries(Analysis a) {
+        IgniteProperties.Advisor cfg = props.getAdvisor();
+        int maxChars = props.getQueryStats().getMaxFingerprintChars();
+        Map<String, QueryUse> byFp = new LinkedHashMap<>();
+
+        for (Map<String, Object> s : queryStats.top("total", cfg.getMaxQueries())) {
+            String fp = String.valueOf(s.get("fingerprint"));
+            if (QueryStatsCollector.OTHER.equals(fp) || !advisable(fp)) continue;
+            // ни разу не выполнился (синтаксис, нет таблицы) — разбирать нечего
+            if (((Number) s.get("errors")).longValue() >= ((Number) s.get("count")).longValue()) continue;
+            String sample = String.valueOf(s.get("sample"));
+            QueryUse q = new QueryUse(fp, "PUBLIC",
+                    sample.length() <= STATS_SAMPLE_CHARS ? sample : null,
+                    ((Number) s.get("count")).longValue(), ((Number) s.get("totalMs")).doubleValue(), "stats");
+            byFp.put(fp, q);
+            a.fromStats++;
+        }
+
+        try {
+            for (Map<?, ?> row : rows(HISTORY_SQL, cfg.getMaxQueries())) {
+                String sql = String.valueOf(row.get("SQL"));
+                String fp = SqlText.fingerprint(sql, maxChars);
+                if (!advisable(fp)) continue;
+                QueryUse q = byFp.get(fp);
+                if (q != null) {
+                    // те же выполнения уже посчитаны в статистике; история даёт полный текст
+                    q.sources.add("history");
+                    if (q.sql == null) q.sql = sql;
+                    continue;
+                }
+                long n = ((Number) row.get("EXECUTIONS")).longValue();
+                double avg = (((Number) row.get("DURATION_MIN")).doubleValue()
+                        + ((Number) row.get("DURATION_MAX")).doubleValue()) / 2;
+                Object schema = row.get("SCHEMA_NAME");
+                byFp.put(fp, new QueryUse(fp, schema != null ? String.valueOf(schema) : "PUBLIC", sql, n, n * avg, "history"));
+                a.fromHistory++;
+            }
+        } catch (AdmissionRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("SYS.SQL_QUERIES_HISTORY is not available: {}", e.getMessage());
+        }
+        return new ArrayList<>(byFp.values());
+    }
+
+    private static boolean advisable(String fp) {
+        String t = SqlText.statementType(fp);
+        return "SELECT".equals(t) || "WITH".equals(t) || "UPDATE".equals(t) || "DELETE".equals(t);
+    }
+
+    /**
+     * Таблица столбца: по алиасу/имени, а без квалификатора — единственная таблица запроса с таким столбцом.
+     */
+    private static String resolve(SqlPredicates.Predicate p, Map<String, String> tables, List<String> keys,
+                                  Map<String, Set<String>> columns) {
+        if (p.qualifier != null) {
+            String k = tables.get(p.qualifier);
+            return k != null && columns.get(k).contains(p.column) ? k : null;
+        }
+        String found = null;
+        for (String k : keys) {
+            if (!columns.get(k).contains(p.column)) continue;
+            if (found != null) return null;
+            found = k;
+        }
+        return found;
+    }
+
+    private static boolean covered(List<IndexDef> indexes, List<String> eq, String range) {
+        int n = eq.size() + (range != null ? 1 : 0);
+        if (n == 0) return true;
+        for (IndexDef idx : indexes) {
+            if (idx.columns.size() < n) continue;
+            if (!new LinkedHashSet<>(idx.columns.subList(0, eq.size())).equals(new LinkedHashSet<>(eq))) continue;
+            if (range == null || range.equals(idx.columns.get(eq.size()))) return true;
+        }
+        return false;
+    }
+
+    private static String partiallyCovered(List<IndexDef> indexes, List<String> eq, String range) {
+        for (IndexDef idx : indexes) {
+            if (idx.columns.isEmpty()) continue;
+            String first = idx.columns.get(0);
+            if (eq.contains(first) || (eq.isEmpty() && first.equals(range))) return idx.name;
+        }
+        return null;
+    }
+
+    private static int rank(String kind) {
+        if (SqlPredicates.EQ.equals(kind)) return 0;
+        return SqlPredicates.RANGE.equals(kind) ? 1 : 2;
+    }
+
+    private static double weight(String kind) {
+        if (SqlPredicates.EQ.equals(kind)) return 1.0;
+        return SqlPredicates.RANGE.equals(kind) ? 0.6 : 0.4;
+    }
+
+    /**
+     * Медиана tryRuns прогонов, мс.
+     */
+    private double time(String sql, String owner) throws Exception {
+        IgniteProperties.Advisor cfg = props.getAdvisor();
+        int runs = Math.max(1, cfg.getTryRuns());
+        double[] ms = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long t0 = System.nanoTime();
+            // замер не пишется в статистику по отпечаткам: из неё же советник берёт кандидатов
+            sqlService.execute(SqlQuery.of(sql).limitRows(cfg.getTryMaxRows()).owner(owner).noCache().noStats());
+            ms[i] = (System.nanoTime() - t0) / 1_000_000.0;
+        }
+        Arrays.sort(ms);
+        return ms[runs / 2];
+    }
+
+    private boolean indexExists(String schema, String table, String index) throws Exception {
+        for (Map<?, ?> row : rows(INDEXES_SQL, CATALOG_LIMIT)) {
+            if (schema.equals(row.get("SCHEMA_NAME")) && table.equals(row.get("TABLE_NAME"))
+                    && index.equals(row.get("INDEX_NAME"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Map<?, ?>> rows(String sql, int limit) throws Exception {
+        Map<String, Object> r = sqlService.execute(SqlQuery.of(sql).limitRows(limit).noCache().system());
+        List<Map<?, ?>> res = new ArrayList<>();
+        Object rows = r.get("rows");
+        if (rows instanceof List) {
+            for (Object row : (List<?>) rows) {
+                if (row instanceof Map) res.add((Map<?, ?>) row);
+            }
+        }
+        return res;
+    }
+
+    private static String key(Object schema, Object table) {
+        return schema + "." + table;
+    }
+
+    /**
+     * Имя в SQL: обычное в верхнем регистре — как есть, остальное в кавычках.
+     */
+    static String ident(String name) {
+        return name.matches("[A-Z_][A-Z0-9_$]*") ? name : "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    private static double round(double ms) {
+        return Math.round(ms * 100) / 100.0;
+    }
+
+    private static Double speedup(double before, double after) {
+        return after > 0 ? Math.round(before / after * 100) / 100.0 : null;
+    }
+
+    private static final class Analysis {
+        int analyzed;
+        int fromStats;
+        int fromHistory;
+        List<String> smallTables;
+        List<Candidate> candidates;
+    }
+
+    /**
+     * Индекс из SYS.INDEXES: COLUMNS вида "\"CITY\" ASC, \"_KEY\" ASC".
+     */
+    private static final class IndexDef {
+        final String name;
+        final List<String> columns;
+
+        private IndexDef(String name, List<String> columns) {
+            this.name = name;
+            this.columns = columns;
+        }
+
+        static IndexDef of(String name, String columns) {
+            List<String> cols = new ArrayList<>();
+            for (String c : columns.split(",")) {
+                String s = c.trim().replaceAll("(?i)\\s+(ASC|DESC)$", "").trim();
+                if (s.isEmpty()) continue;
+                cols.add(s.startsWith("\"") && s.endsWith("\"") && s.length() >= 2 ? s.substring(1, s.length() - 1) : s);
+            }
+            return new IndexDef(name, cols);
+        }
+    }
+
+    /**
+     * Запрос из истории; sql == null — полного текста нет (обрезанный образец статистики).
+     */
+    private static final class QueryUse {
+        final String fingerprint;
+        final String schema;
+        final long count;
+        final double totalMs;
+        final Set<String> sources = new LinkedHashSet<>();
+        String sql;
+
+        QueryUse(String fingerprint, String schema, String sql, long count, double totalMs, String source) {
+            this.fingerprint = fingerprint;
+            this.schema = schema;
+            this.sql = sql;
+            this.count = count;
+            this.totalMs = totalMs;
+            sources.add(source);
+        }
+
+        /**
+         * Можно перевыполнить как есть: полный текст, чтение, без '?' вне строковых литералов.
+         */
+        boolean retimable() {
+            if (sql == null || !SqlText.isReadOnly(sql)) return false;
+            boolean inStr = false;
+            for (int i = 0; i < sql.length(); i++) {
+                char ch = sql.charAt(i);
+                if (ch == '\'') inStr = !inStr;
+                else if (ch == '?' && !inStr) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Candidate {
+        final String schema;
+        final String table;
+        final List<String> columns;
+        final Long tableRows;
+        final List<QueryUse> queries = new ArrayList<>();
+        double benefitMs;
+        double queriesTotalMs;
+        boolean join;
+        String partiallyCoveredBy;
+
+        Candidate(String schema, String table, List<String> columns, Long tableRows) {
+            this.schema = schema;
+            this.table = table;
+            this.columns = columns;
+            this.tableRows = tableRows;
+        }
+
+        void add(QueryUse q, double weight) {
+            queries.add(q);
+            queriesTotalMs += q.totalMs;
+            benefitMs += q.totalMs * weight;
+        }
+
+        String id() {
+            return schema + "." + table + "(" + String.join(",", columns) + ")";
+        }
+
+        String indexName() {
+            String n = ("ADV_" + table + "_" + String.join("_", columns)).toUpperCase(Locale.ROOT)
+                    .replaceAll("[^A-Z0-9_]", "_");
+            return n.length() > 60 ? n.substring(0, 60) : n;
+        }
+
+        String statement() {
+            List<String> cols = new ArrayList<>();
+            for (String c : columns) cols.add(ident(c));
+            return "CREATE INDEX IF NOT EXISTS " + indexName() + " ON " + ident(schema) + "." + ident(table) +
+                    " (" + String.join(", ", cols) + ")";
+        }
+
+        List<QueryUse> sortedQueries() {
+            List<QueryUse> r = new ArrayList<>(queries);
+            r.sort(Comparator.comparingDouble((QueryUse q) -> q.totalMs).reversed());
+            return r;
+        }
+
+        Map<String, Object> info() {
+            List<Map<String, Object>> qs = new ArrayList<>();
+            for (QueryUse q : sortedQueries()) {
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("fingerprint", q.fingerprint);
+                m.put("count", q.count);
+                m.put("totalMs", round(q.totalMs));
+                m.put("sources", q.sources);
+                m.put("retimable", q.retimable());
+                qs.add(m);
+            }
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("id", id());
+            r.put("schema", schema);
+            r.put("table", table);
+            r.put("columns", columns);
+            r.put("statement", statement());
+            r.put("benefitMs", round(benefitMs));
+            r.put("queriesTotalMs", round(queriesTotalMs));
+            r.put("tableRows", tableRows);
+            r.put("join", join);
+            r.put("partiallyCoveredBy", partiallyCoveredBy);
+            r.put("queries", qs);
+            return r;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.igniteapp.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма задержек в микросекундах в духе HdrHistogram: логарифмические корзины,
+ * каждая степень двойки поделена на 8 линейных подкорзин (погрешность процентиля не больше 12.5%).
+ * Запись — один incrementAndGet без блокировок; ~2.5 КБ на гистограмму.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    /** 2^40 мкс ~ 12 дней — всё, что дольше, попадает в последнюю корзину. */
+    private static final int MAX_EXP = 40;
+    private static final int BUCKETS = (MAX_EXP - SUB_BITS + 1) * SUB + SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long micros) {
+        counts.incrementAndGet(index(Math.max(0, micros)));
+    }
+
+    /**
+     * Процентили (например 0.5, 0.95, 0.99) по текущему снимку; значение — середина корзины.
+     */
+    long[] percentiles(double... ps) {
+        long[] snap = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snap[i] = counts.get(i);
+            total += snap[i];
+        }
+        long[] r = new long[ps.length];
+        if (total == 0) return r;
+
+        for (int k = 0; k < ps.length; k++) {
+            long target = Math.max(1, (long) Math.ceil(ps[k] * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snap[i];
+                if (seen >= target) {
+                    r[k] = (lowerBound(i) + lowerBound(i + 1) - 1) / 2;
+                    break;
+                }
+            }
+        }
+        return r;
+    }
+
+    static int index(long v) {
+        if (v < SUB) return (int) v;
+        int exp = Math.min(63 - Long.numberOfLeadingZeros(v), MAX_EXP);
+        int sub = exp == MAX_EXP && (v >>> MAX_EXP) > 1 ? SUB - 1 : (int) ((v >>> (exp - SUB_BITS)) & (SUB - 1));
+        return (exp - SUB_BITS + 1) * SUB + sub;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB) return index;
+        int exp = index / SUB + SUB_BITS - 1;
+        int sub = index % SUB;
+        return (long) (SUB + sub) << (exp - SUB_BITS);
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.api.dto.ColumnVector;
+import com.example.igniteapp.api.dto.SqlParam;
+import com.example.igniteapp.config.IgniteProperties;
+import com.example.igniteapp.ignite.EmbeddedIgniteManager;
+import com.example.igniteapp.ignite.IgniteInternalSql;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.cache.query.FieldsQueryCursor;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.sql.JDBCType;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выполнение SQL прямо на embedded-узле (SqlFieldsQuery), без thin JDBC и TCP loopback.
+ * Возвращает тот же map, что и JDBC-путь SqlService.
+ * <p>
+ * Запрос идёт мимо IgniteCache.query() — без кэша-"якоря"; обращения к внутреннему API Ignite
+ * собраны в {@link IgniteInternalSql}. Схема — nativeEngine.schema, по умолчанию та же, что в jdbcUrl,
+ * чтобы неполные имена таблиц разрешались одинаково на обоих движках.
+ */
+@Component
+public class NativeQueryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(NativeQueryEngine.class);
+
+    private final IgniteProperties props;
+    private final EmbeddedIgniteManager embedded;
+    private final SqlMetrics metrics;
+
+    private static final String THIN_URL_PREFIX = "jdbc:ignite:thin://";
+
+    private final String schema;
+
+    public NativeQueryEngine(IgniteProperties props, EmbeddedIgniteManager embedded, SqlMetrics metrics) {
+        this.props = props;
+        this.embedded = embedded;
+        this.metrics = metrics;
+        String s = props.getNativeEngine().getSchema();
+        if (s == null || s.isBlank()) s = schemaFromJdbcUrl(props.getJdbcUrl());
+        this.schema = s != null ? s : "PUBLIC";
+    }
+
+    /**
+     * true — есть локальный узел, нативный путь можно использовать.
+     */
+    public boolean isAvailable() {
+        return embedded.getIgnite() != null && IgniteInternalSql.isSupported();
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    /**
+     * Схема из thin URL: параметр schema (?schema=X или ;schema=X) либо путь (//host:port/X); null — не задана.
+     * Без кавычек — в верхний регистр, как делает драйвер; в кавычках — как есть.
+     */
+    static String schemaFromJdbcUrl(String url) {
+        if (url == null || !url.regionMatches(true, 0, THIN_URL_PREFIX, 0, THIN_URL_PREFIX.length())) return null;
+        String rest = url.substring(THIN_URL_PREFIX.length());
+        int p = rest.length();
+        for (int i = 0; i < rest.length(); i++) {
+            char ch = rest.charAt(i);
+            if (ch == '?' || ch == ';') {
+                p = i;
+                break;
+            }
+        }
+        String s = null;
+        for (String kv : rest.substring(Math.min(p + 1, rest.length())).split("[&;]")) {
+            int eq = kv.indexOf('=');
+            if (eq > 0 && "schema".equalsIgnoreCase(kv.substring(0, eq).trim())) s = kv.substring(eq + 1).trim();
+        }
+        if (s == null) {
+            int slash = rest.indexOf('/');
+            if (slash >= 0 && slash < p - 1) s = rest.substring(slash + 1, p).trim();
+        }
+        if (s == null || s.isEmpty()) return null;
+        if (s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"")) return s.substring(1, s.length() - 1);
+        return s.toUpperCase(Locale.ROOT);
+    }
+
+    Map<String, Object> run(String sql, List<SqlParam> params, int limitRows, boolean compact,
+                            ResultBudget.Lease lease) throws Exception {
+        Ignite ignite = embedded.getIgnite();
+        if (ignite == null) {
+            throw new IllegalStateException("Native engine requires embedded Ignite (app.ignite.embedded.enabled=true)");
+        }
+
+        long t0 = System.currentTimeMillis();
+        String type = SqlMetrics.type(sql);
+        String sqlPreview = SqlService.safePreview(sql, 300);
+        log.info("SQL execute start (native): limitRows={}, params={}, sql=\"{}\"", limitRows, params.size(), sqlPreview);
+
+        IgniteProperties.NativeEngine cfg = props.getNativeEngine();
+        SqlFieldsQuery qry = new SqlFieldsQuery(sql)
+                .setSchema(schema)
+                .setLazy(cfg.isLazy())
+                .setArgs(SqlParams.values(params));
+        if (cfg.getPageSize() > 0) {
+            qry.setPageSize(cfg.getPageSize());
+        }
+        if (props.getQueryTimeoutSeconds() > 0) {
+            qry.setTimeout(props.getQueryTimeoutSeconds(), TimeUnit.SECONDS);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        long tExec = System.nanoTime();
+        // close() до конца выборки отменяет lazy-запрос на узле — так работает limitRows
+        try (FieldsQueryCursor<List<?>> cur = IgniteInternalSql.query(ignite, qry)) {
+            Iterator<List<?>> it = cur.iterator();
+            long tFetch = System.nanoTime();
+            metrics.phase(SqlMetrics.Phase.EXECUTE, type, "native", tFetch - tExec);
+
+            // как и в JDBC-пути: время выполнения без чтения строк
+            long elapsed = System.currentTimeMillis() - t0;
+            result.put("ok", true);
+            result.put("elapsedMs", elapsed);
+            result.put("engine", "native");
+
+            if (!IgniteInternalSql.isQuery(cur)) {
+                // DML/DDL: одна строка с числом изменённых записей
+                long upd = it.hasNext() ? ((Number) it.next().get(0)).longValue() : 0;
+                result.put("updateCount", upd);
+                result.put("columns", Collections.emptyList());
+                result.put("rows", Collections.emptyList());
+                log.info("SQL execute done (native, non-select): updateCount={}, elapsedMs={}", upd, elapsed);
+                return result;
+            }
+
+            int cols = cur.getColumnsCount();
+            List<String> columns = new ArrayList<>(cols);
+            for (int i = 0; i < cols; i++) {
+                columns.add(cur.getFieldName(i));
+            }
+
+            if (compact) {
+                int[] types = new int[cols];
+                String[] typeNames = new String[cols];
+                for (int i = 0; i < cols; i++) {
+                    types[i] = jdbcType(IgniteInternalSql.fieldTypeName(cur, i));
+                    typeNames[i] = JDBCType.valueOf(types[i]).getName();
+                }
+                List<ColumnVector> vectors = ColumnarResultReader.read(columns, types, typeNames, it, limitRows, lease);
+                int rowCount = vectors.isEmpty() ? 0 : Array.getLength(vectors.get(0).getValues());
+                metrics.phase(SqlMetrics.Phase.FETCH, type, "native", System.nanoTime() - tFetch);
+                metrics.rows(type, "native", rowCount);
+
+                result.put("format", "compact");
+                result.put("columns", columns);
+                result.put("vectors", vectors);
+                result.put("rowCount", rowCount);
+                result.put("limitRows", limitRows);
+                lease.describe(result);
+                log.info("SQL execute done (native, select, compact): rowCount={}, colCount={}, bytes={}, truncatedBy={}, elapsedMs={}",
+                        rowCount, cols, lease.getBytes(), lease.getTruncatedBy(), elapsed);
+                return result;
+            }
+
+            List<Map<String, Object>> rows = new ArrayList<>();
+            while (it.hasNext()) {
+                if (limitRows > 0 && rows.size() >= limitRows) {
+                    lease.rowLimitReached();
+                    break;
+                }
+                List<?> r = it.next();
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 0; i < cols; i++) {
+                    row.put(columns.get(i), r.get(i));
+                }
+                if (!lease.reserve(ResultSizeEstimator.map(row))) break;
+                rows.add(row);
+            }
+            metrics.phase(SqlMetrics.Phase.FETCH, type, "native", System.nanoTime() - tFetch);
+            metrics.rows(type, "native", rows.size());
+
+            result.put("columns", columns);
+            result.put("rows", rows);
+            result.put("rowCount", rows.size());
+            result.put("limitRows", limitRows);
+            lease.describe(result);
+            log.info("SQL execute done (native, select): rowCount={}, colCount={}, bytes={}, truncatedBy={}, elapsedMs={}",
+                    rows.size(), cols, lease.getBytes(), lease.getTruncatedBy(), elapsed);
+            return result;
+        } catch (Exception e) {
+            metrics.error(type, "native", e);
+            log.error("SQL execute failed (native): elapsedMs={}, sql=\"{}\"", System.currentTimeMillis() - t0, sqlPreview, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Java-класс колонки (из метаданных запроса) -> java.sql.Types, как отдал бы JDBC.
+     */
+    private static int jdbcType(String className) {
+        if (className == null) return Types.OTHER;
+        switch (className) {
+            case "java.lang.Integer": return Types.INTEGER;
+            case "java.lang.Long": return Types.BIGINT;
+            case "java.lang.Short": return Types.SMALLINT;
+            case "java.lang.Byte": return Types.TINYINT;
+            case "java.lang.Double": return Types.DOUBLE;
+            case "java.lang.Float": return Types.REAL;
+            case "java.lang.Boolean": return Types.BOOLEAN;
+            case "java.math.BigDecimal": return Types.DECIMAL;
+            case "java.lang.String": return Types.VARCHAR;
+            case "java.sql.Date": return Types.DATE;
+            case "java.sql.Time": return Types.TIME;
+            case "java.sql.Timestamp": return Types.TIMESTAMP;
+            case "[B": return Types.BINARY;
+            default: return Types.OTHER;
+        }
+    }
+}
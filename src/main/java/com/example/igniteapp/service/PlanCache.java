@@ -0,0 +1,110 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.config.IgniteProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Разобранные планы по отпечатку запроса (см. {@link SqlText#fingerprint}): LRU по числу записей + TTL.
+ * DDL через SqlService (CREATE/DROP INDEX, ALTER TABLE ...) сбрасывает планы затронутой таблицы.
+ */
+@Component
+public class PlanCache {
+
+    private final IgniteProperties props;
+
+    // access-order = LRU; все операции под монитором this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long hits;
+    private long misses;
+    private long invalidations;
+
+    public PlanCache(IgniteProperties props) {
+        this.props = props;
+    }
+
+    public synchronized Entry get(String fingerprint) {
+        Entry e = entries.get(fingerprint);
+        long ttl = props.getExplain().getPlanCacheTtlSeconds() * 1000L;
+        if (e != null && ttl > 0 && e.ageMs() > ttl) {
+            entries.remove(fingerprint);
+            e = null;
+        }
+        if (e == null) misses++;
+        else hits++;
+        return e;
+    }
+
+    public synchronized void put(Entry e) {
+        int max = props.getExplain().getPlanCacheSize();
+        if (max <= 0) return;
+        entries.put(e.fingerprint, e);
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > max && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Сбрасывает планы, читающие таблицу; table == null — сбросить всё.
+     */
+    public synchronized void invalidate(String table) {
+        if (entries.isEmpty()) return;
+        if (table == null) {
+            invalidations += entries.size();
+            entries.clear();
+            return;
+        }
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().tables.contains(table)) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("entries", entries.size());
+        r.put("maxEntries", props.getExplain().getPlanCacheSize());
+        r.put("ttlSeconds", props.getExplain().getPlanCacheTtlSeconds());
+        r.put("hits", hits);
+        r.put("misses", misses);
+        r.put("invalidations", invalidations);
+        return r;
+    }
+
+    /**
+     * План с предупреждениями и оценками размеров таблиц на момент разбора.
+     */
+    public static final class Entry {
+        final String fingerprint;
+        final QueryPlan plan;
+        final List<Map<String, Object>> warnings;
+        final Map<String, Long> tableRows;
+        final Set<String> tables;
+        final long createdAt = System.currentTimeMillis();
+
+        Entry(String fingerprint, QueryPlan plan, List<Map<String, Object>> warnings,
+              Map<String, Long> tableRows, Set<String> tables) {
+            this.fingerprint = fingerprint;
+            this.plan = plan;
+            this.warnings = Collections.unmodifiableList(warnings);
+            this.tableRows = Collections.unmodifiableMap(tableRows);
+            this.tables = tables;
+        }
+
+        long ageMs() {
+            return System.currentTimeMillis() - createdAt;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.config.IgniteProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограниченный LRU-кэш PreparedStatement на каждое физическое соединение пула.
+ * <p>
+ * Statement создаётся на "сыром" соединении (unwrap), иначе Hikari закроет его при возврате
+ * соединения в пул. Statement держит ссылку на своё соединение, поэтому записи удаляются явно:
+ * соединения, закрытые пулом (maxLifetime, idle, ошибка), вычищаются при появлении нового
+ * соединения и по таймеру statements.purgeIntervalMs. Внутренний LRU трогает только поток,
+ * взявший соединение из пула.
+ */
+@Component
+public class PreparedStatementCache {
+
+    private final IgniteProperties props;
+
+    // по идентичности: физическое соединение — ровно одна запись
+    private final Map<Connection, LinkedHashMap<String, PreparedStatement>> byConnection =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder purgedConnections = new LongAdder();
+
+    public PreparedStatementCache(IgniteProperties props) {
+        this.props = props;
+    }
+
+    /**
+     * PreparedStatement для sql на данном соединении. После выполнения — release(...).
+     */
+    public PreparedStatement prepare(Connection pooled, String sql) throws SQLException {
+        int capacity = props.getStatements().getCacheSize();
+        if (capacity <= 0) {
+            misses.increment();
+            return pooled.prepareStatement(sql);
+        }
+
+        Connection raw = pooled.unwrap(Connection.class);
+        LinkedHashMap<String, PreparedStatement> lru = lru(raw, capacity);
+
+        PreparedStatement ps = lru.remove(sql);
+        if (ps != null && !ps.isClosed()) {
+            hits.increment();
+            return ps;
+        }
+
+        misses.increment();
+        return raw.prepareStatement(sql);
+    }
+
+    /**
+     * Вернуть statement в кэш; failed=true — закрыть (состояние после ошибки не гарантировано).
+     */
+    public void release(Connection pooled, String sql, PreparedStatement ps, boolean failed) {
+        int capacity = props.getStatements().getCacheSize();
+        try {
+            if (failed || capacity <= 0) {
+                ps.close();
+                return;
+            }
+            ps.clearParameters();
+            Connection raw = pooled.unwrap(Connection.class);
+            LinkedHashMap<String, PreparedStatement> lru = lru(raw, capacity);
+            PreparedStatement prev = lru.put(sql, ps);
+            if (prev != null && prev != ps) prev.close();
+        } catch (SQLException e) {
+            try {
+                ps.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Убрать записи соединений, которые пул уже закрыл, и закрыть их statements.
+     */
+    @Scheduled(fixedDelayString = "${app.ignite.statements.purgeIntervalMs:60000}")
+    public void purgeClosed() {
+        List<Connection> conns;
+        synchronized (byConnection) {
+            conns = new ArrayList<>(byConnection.keySet());
+        }
+        for (Connection c : conns) {
+            boolean closed;
+            try {
+                closed = c.isClosed();
+            } catch (SQLException e) {
+                closed = true;
+            }
+            if (!closed) continue;
+            LinkedHashMap<String, PreparedStatement> lru = byConnection.remove(c);
+            if (lru == null) continue;
+            purgedConnections.increment();
+            // закрытое соединение пул уже никому не выдаст — LRU больше никто не трогает
+            for (PreparedStatement ps : lru.values()) {
+                try {
+                    ps.close();
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("cacheSizePerConnection", props.getStatements().getCacheSize());
+        r.put("connections", byConnection.size());
+        r.put("hits", h);
+        r.put("misses", m);
+        r.put("hitRate", h + m > 0 ? (double) h / (h + m) : 0.0);
+        r.put("evictions", evictions.sum());
+        r.put("purgedConnections", purgedConnections.sum());
+        return r;
+    }
+
+    /**
+     * LRU соединения; новое физическое соединение обычно значит, что пул закрыл какое-то старое.
+     */
+    private LinkedHashMap<String, PreparedStatement> lru(Connection raw, int capacity) {
+        LinkedHashMap<String, PreparedStatement> lru = byConnection.get(raw);
+        if (lru != null) return lru;
+        lru = byConnection.computeIfAbsent(raw, k -> newLru(capacity));
+        purgeClosed();
+        return lru;
+    }
+
+    private LinkedHashMap<String, PreparedStatement> newLru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= capacity) return false;
+                evictions.increment();
+                try {
+                    eldest.getValue().close();
+                } catch (SQLException ignored) {
+                }
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.igniteapp.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Разобранный план Ignite (H2) из EXPLAIN: по одной части на строку результата.
+ * Для распределённого запроса это map-запрос(ы) на узлах данных и последний reduce-запрос
+ * по слитой таблице (__T0, "merge_scan"/"merge_sorted"); для локального/однопартиционного — одна часть.
+ * <pre>
+ * FROM PUBLIC.P __Z0
+ *     /* PUBLIC.P.__SCAN_ *&#47;          -> P: scan
+ * INNER JOIN PUBLIC.C C__Z1
+ *     /* PUBLIC.C_NAME: NAME = ... *&#47;  -> C: index C_NAME, второй в порядке соединения
+ * </pre>
+ */
+public final class QueryPlan {
+
+    /**
+     * FROM/JOIN таблица [алиас] и следующий за ней комментарий с выбранным индексом.
+     */
+    private static final Pattern TABLE_ACCESS = Pattern.compile(
+            "\\b(FROM|JOIN)\\s+(?!\\()(\\S+?)(?:\\s+(?!/\\*)([^\\s/]+))?\\s*/\\*\\s*(.*?)\\s*\\*/",
+            Pattern.DOTALL);
+
+    private static final Pattern MERGE_TABLE = Pattern.compile("(?:^|\\.)__T\\d+$");
+
+    private final List<Part> parts;
+    private final List<Map<String, Object>> warnings;
+
+    private QueryPlan(List<Part> parts, List<Map<String, Object>> warnings) {
+        this.parts = parts;
+        this.warnings = warnings;
+    }
+
+    /**
+     * @param planRows текст плана, по одной строке результата EXPLAIN на элемент
+     */
+    public static QueryPlan parse(List<String> planRows) {
+        List<Part> parts = new ArrayList<>();
+        for (int i = 0; i < planRows.size(); i++) {
+            String text = planRows.get(i) == null ? "" : planRows.get(i);
+            boolean last = i == planRows.size() - 1;
+            String role = planRows.size() == 1 ? "single" : (last && text.contains("\"merge_") ? "reduce" : "map");
+            parts.add(Part.parse(role, text));
+        }
+        return new QueryPlan(parts, warnings(parts));
+    }
+
+    private static List<Map<String, Object>> warnings(List<Part> parts) {
+        List<Map<String, Object>> r = new ArrayList<>();
+        for (Part p : parts) {
+            if ("reduce".equals(p.role)) continue;
+            for (int i = 0; i < p.tables.size(); i++) {
+                TableAccess t = p.tables.get(i);
+                if (!"scan".equals(t.access)) continue;
+                if (i > 0) {
+                    // вложенный цикл: полный проход по таблице на каждую строку предыдущих
+                    r.add(warning("JOIN_SCAN", "high", t.table,
+                            "Full scan of " + t.table + " for every row of the preceding tables in the join (no usable index on the join condition)"));
+                } else if (p.filtered) {
+                    r.add(warning("FULL_SCAN", "warn", t.table,
+                            "Full scan of " + t.table + ": WHERE conditions are checked row by row, no index is used"));
+                } else {
+                    r.add(warning("FULL_SCAN", "info", t.table,
+                            "Full scan of " + t.table + " (no WHERE on this table)"));
+                }
+            }
+            if (p.ordered && !p.indexSorted && !"reduce".equals(p.role)) {
+                r.add(warning("SORT", "info", null, "ORDER BY is not served by an index: rows are sorted after reading"));
+            }
+        }
+        return r;
+    }
+
+    private static Map<String, Object> warning(String code, String severity, String table, String message) {
+        Map<String, Object> w = new LinkedHashMap<>();
+        w.put("code", code);
+        w.put("severity", severity);
+        w.put("table", table);
+        w.put("message", message);
+        return w;
+    }
+
+    public List<Part> getParts() { return parts; }
+
+    /**
+     * Предупреждения без оценки размеров (их добавляет {@link ExplainService}).
+     */
+    public List<Map<String, Object>> getWarnings() { return warnings; }
+
+    /**
+     * Таблицы, читаемые полным проходом (в map/single частях).
+     */
+    public List<String> scannedTables() {
+        List<String> r = new ArrayList<>();
+        for (Part p : parts) {
+            if ("reduce".equals(p.role)) continue;
+            for (TableAccess t : p.tables) {
+                if ("scan".equals(t.access) && !r.contains(t.table)) r.add(t.table);
+            }
+        }
+        return r;
+    }
+
+    public Map<String, Object> info() {
+        List<Map<String, Object>> ps = new ArrayList<>();
+        for (Part p : parts) ps.add(p.info());
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("distributed", parts.size() > 1);
+        r.put("parts", ps);
+        return r;
+    }
+
+    /**
+     * Одна часть плана: роль, таблицы в порядке соединения и признаки сортировки/группировки.
+     */
+    public static final class Part {
+        final String role;
+        final String text;
+        final List<TableAccess> tables;
+        final boolean filtered;
+        final boolean ordered;
+        final boolean indexSorted;
+        final boolean grouped;
+
+        private Part(String role, String text, List<TableAccess> tables,
+                     boolean filtered, boolean ordered, boolean indexSorted, boolean grouped) {
+            this.role = role;
+            this.text = text;
+            this.tables = tables;
+            this.filtered = filtered;
+            this.ordered = ordered;
+            this.indexSorted = indexSorted;
+            this.grouped = grouped;
+        }
+
+        static Part parse(String role, String text) {
+            List<TableAccess> tables = new ArrayList<>();
+            Matcher m = TABLE_ACCESS.matcher(text);
+            while (m.find()) {
+                String table = m.group(2);
+                if (MERGE_TABLE.matcher(table).find()) continue;
+                tables.add(TableAccess.of(table, m.group(3), m.group(4)));
+            }
+            String upper = text.toUpperCase(Locale.ROOT);
+            return new Part(role, text, Collections.unmodifiableList(tables),
+                    upper.contains("\nWHERE ") || upper.startsWith("WHERE "),
+                    upper.contains("\nORDER BY "),
+                    text.contains("/* index sorted */"),
+                    upper.contains("\nGROUP BY "));
+        }
+
+        Map<String, Object> info() {
+            List<Map<String, Object>> ts = new ArrayList<>();
+            for (TableAccess t : tables) ts.add(t.info());
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("role", role);
+            r.put("joinOrder", ts);
+            r.put("filtered", filtered);
+            r.put("orderBy", ordered);
+            r.put("indexSorted", indexSorted);
+            r.put("groupBy", grouped);
+            r.put("text", text);
+            return r;
+        }
+    }
+
+    /**
+     * Как читается таблица: scan (полный проход), primaryKey, index, function (SYSTEM_RANGE и т.п.).
+     */
+    public static final class TableAccess {
+        final String table;
+        final String alias;
+        final String access;
+        final String index;
+        final String condition;
+
+        private TableAccess(String table, String alias, String access, String index, String condition) {
+            this.table = table;
+            this.alias = alias;
+            this.access = access;
+            this.index = index;
+            this.condition = condition;
+        }
+
+        /**
+         * @param comment "PUBLIC.P.__SCAN_", "PUBLIC.\"_key_PK_proxy\": ID = 5", "function"
+         */
+        static TableAccess of(String table, String alias, String comment) {
+            String idx = comment;
+            String cond = null;
+            int colon = indexOfOutsideQuotes(comment, ':');
+            if (colon >= 0) {
+                idx = comment.substring(0, colon).trim();
+                cond = comment.substring(colon + 1).trim();
+            }
+            String name = SqlText.lastPart(idx);
+            String access;
+            if (idx.startsWith("function")) {
+                access = "function";
+                name = null;
+            } else if (name.endsWith("__SCAN_")) {
+                access = "scan";
+                name = null;
+            } else if (name.startsWith("_key_PK")) {
+                access = "primaryKey";
+            } else {
+                access = "index";
+            }
+            return new TableAccess(table, alias, access, name, cond);
+        }
+
+        private static int indexOfOutsideQuotes(String s, char c) {
+            boolean q = false;
+            for (int i = 0; i < s.length(); i++) {
+                char ch = s.charAt(i);
+                if (ch == '"') q = !q;
+                else if (ch == c && !q) return i;
+            }
+            return -1;
+        }
+
+        Map<String, Object> info() {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("table", table);
+            r.put("alias", alias);
+            r.put("access", access);
+            r.put("index", index);
+            r.put("condition", condition);
+            return r;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.config.IgniteProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Кэш результатов read-only запросов: LRU по суммарному размеру (байты) + TTL.
+ * Инвалидация — по таблице, которую меняет DML/DDL, прошедший через SqlService.
+ * <p>
+ * Чтение, начатое до записи и закончившееся после её invalidate, кэшировать нельзя — в нём
+ * могут быть старые строки. Поэтому put принимает {@link #generation()}, взятое до выполнения,
+ * и ничего не кладёт, если читаемые таблицы с тех пор сбрасывались.
+ */
+@Component
+public class QueryResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryResultCache.class);
+
+    private final IgniteProperties props;
+
+    // access-order = LRU; все операции под монитором this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    // номер последней инвалидации: всего кэша и по таблицам
+    private long generation;
+    private long invalidatedAllAt;
+    private final Map<String, Long> invalidatedAt = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long puts;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    private long rejectedTooLarge;
+    private long rejectedStale;
+
+    public QueryResultCache(IgniteProperties props) {
+        this.props = props;
+    }
+
+    public boolean isEnabled() {
+        return props.getCache().isEnabled();
+    }
+
+    public static String key(String sql, int limitRows, String variant) {
+        return variant + '|' + limitRows + '|' + SqlText.normalize(sql);
+    }
+
+    /**
+     * Копия закэшированного результата (верхний уровень), либо null.
+     */
+    public synchronized Map<String, Object> get(String key) {
+        Entry e = entries.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        if (isExpired(e, System.currentTimeMillis())) {
+            remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        Map<String, Object> copy = new LinkedHashMap<>(e.result);
+        copy.put("cached", true);
+        copy.put("cacheAgeMs", System.currentTimeMillis() - e.createdAt);
+        return copy;
+    }
+
+    /**
+     * Отметка для put: взять до выполнения запроса.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * @param generation {@link #generation()} на момент начала запроса
+     */
+    public synchronized void put(String key, Map<String, Object> result, Set<String> tables, long generation) {
+        if (invalidatedSince(tables, generation)) {
+            rejectedStale++;
+            return;
+        }
+        long size = ResultSizeEstimator.map(result) + 2L * key.length();
+        IgniteProperties.Cache cfg = props.getCache();
+        if (size > cfg.getMaxEntryBytes() || size > cfg.getMaxBytes()) {
+            rejectedTooLarge++;
+            return;
+        }
+
+        remove(key);
+        entries.put(key, new Entry(new LinkedHashMap<>(result), tables, size));
+        bytes += size;
+        puts++;
+
+        // LRU-вытеснение до бюджета
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (bytes > cfg.getMaxBytes() && it.hasNext()) {
+            Entry victim = it.next().getValue();
+            it.remove();
+            bytes -= victim.bytes;
+            evictions++;
+        }
+    }
+
+    /**
+     * Сбрасывает записи, читающие таблицу; table == null — сбросить всё.
+     */
+    public synchronized void invalidate(String table) {
+        generation++;
+        if (table == null) {
+            invalidatedAllAt = generation;
+            invalidatedAt.clear();
+        } else {
+            invalidatedAt.put(table, generation);
+        }
+        if (entries.isEmpty()) return;
+        if (table == null) {
+            invalidations += entries.size();
+            entries.clear();
+            bytes = 0;
+            return;
+        }
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        int n = 0;
+        while (it.hasNext()) {
+            Entry e = it.next().getValue();
+            if (e.tables.contains(table)) {
+                it.remove();
+                bytes -= e.bytes;
+                n++;
+            }
+        }
+        invalidations += n;
+        if (n > 0 && log.isDebugEnabled()) {
+            log.debug("Result cache invalidated: table={}, entries={}", table, n);
+        }
+    }
+
+    public synchronized void clear() {
+        invalidate(null);
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("enabled", isEnabled());
+        r.put("entries", entries.size());
+        r.put("bytes", bytes);
+        r.put("maxBytes", props.getCache().getMaxBytes());
+        r.put("ttlSeconds", props.getCache().getTtlSeconds());
+        r.put("hits", hits);
+        r.put("misses", misses);
+        r.put("hitRate", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        r.put("puts", puts);
+        r.put("evictions", evictions);
+        r.put("expirations", expirations);
+        r.put("invalidations", invalidations);
+        r.put("rejectedTooLarge", rejectedTooLarge);
+        r.put("rejectedStale", rejectedStale);
+        return r;
+    }
+
+    private boolean invalidatedSince(Set<String> tables, long since) {
+        if (invalidatedAllAt > since) return true;
+        for (String t : tables) {
+            Long at = invalidatedAt.get(t);
+            if (at != null && at > since) return true;
+        }
+        return false;
+    }
+
+    private boolean isExpired(Entry e, long now) {
+        long ttl = props.getCache().getTtlSeconds() * 1000L;
+        return ttl > 0 && now - e.createdAt > ttl;
+    }
+
+    private void remove(String key) {
+        Entry old = entries.remove(key);
+        if (old != null) bytes -= old.bytes;
+    }
+
+    private static final class Entry {
+        final Map<String, Object> result;
+        final Set<String> tables;
+        final long bytes;
+        final long createdAt = System.currentTimeMillis();
+
+        Entry(Map<String, Object> result, Set<String> tables, long bytes) {
+            this.result = Collections.unmodifiableMap(result);
+            this.tables = tables;
+            this.bytes = bytes;
+        }
+    }
+}
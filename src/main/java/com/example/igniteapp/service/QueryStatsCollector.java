@@ -0,0 +1,239 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.config.IgniteProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Статистика выполненных запросов по отпечаткам (см. {@link SqlText#fingerprint}):
+ * число, строки, p50/p95/p99, последняя ошибка — плюс кольцевой журнал медленных запросов.
+ * <p>
+ * Запись без блокировок: ConcurrentHashMap + LongAdder/AtomicLongArray, журнал — AtomicReferenceArray.
+ * Число отпечатков ограничено maxFingerprints, новые сверх лимита копятся в строке "(other)".
+ */
+@Component
+public class QueryStatsCollector {
+
+    static final String OTHER = "(other)";
+
+    private final IgniteProperties props;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile Entry other = new Entry(OTHER, "OTHER", "");
+
+    private final AtomicReferenceArray<SlowQuery> slow;
+    private final AtomicLong slowSeq = new AtomicLong();
+    private volatile long resetAt = System.currentTimeMillis();
+
+    public QueryStatsCollector(IgniteProperties props) {
+        this.props = props;
+        this.slow = new AtomicReferenceArray<>(Math.max(1, props.getQueryStats().getSlowLogSize()));
+    }
+
+    /**
+     * @param nanos время выполнения (без ожидания в admission)
+     * @param rows  прочитанные строки или updateCount
+     * @param error null — успех
+     */
+    public void record(String sql, String owner, String engine, long nanos, long rows, Throwable error) {
+        IgniteProperties.QueryStats cfg = props.getQueryStats();
+        if (!cfg.isEnabled()) return;
+
+        String fp = SqlText.fingerprint(sql, cfg.getMaxFingerprintChars());
+        Entry e = entries.get(fp);
+        if (e == null) {
+            if (entries.size() >= cfg.getMaxFingerprints()) {
+                e = other;
+            } else {
+                Entry created = new Entry(fp, SqlMetrics.type(sql), SqlService.safePreview(sql, 300));
+                Entry prev = entries.putIfAbsent(fp, created);
+                e = prev != null ? prev : created;
+            }
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        e.record(micros, rows, error);
+
+        if (micros >= cfg.getSlowThresholdMs() * 1000) {
+            long seq = slowSeq.getAndIncrement();
+            slow.set((int) (seq % slow.length()), new SlowQuery(seq, System.currentTimeMillis(), owner, engine, fp,
+                    SqlService.safePreview(sql, cfg.getMaxSlowSqlChars()), micros / 1000, rows,
+                    error != null ? String.valueOf(error.getMessage()) : null));
+        }
+    }
+
+    /**
+     * @param sort total | count | avg | p99 | max | errors | rows | last
+     */
+    public List<Map<String, Object>> top(String sort, int limit) {
+        String key = sortKey(sort);
+        List<Map<String, Object>> r = new ArrayList<>();
+        for (Entry e : entries.values()) r.add(e.info());
+        if (other.count.sum() > 0) r.add(other.info());
+        // снимок считаем один раз на строку, а не в компараторе
+        r.sort(Comparator.comparingDouble((Map<String, Object> m) -> ((Number) m.get(key)).doubleValue()).reversed());
+        return r.size() > limit ? new ArrayList<>(r.subList(0, limit)) : r;
+    }
+
+    /**
+     * Медленные запросы, новые первыми.
+     */
+    public List<Map<String, Object>> slow(int limit) {
+        long last = slowSeq.get() - 1;
+        int n = slow.length();
+        List<Map<String, Object>> r = new ArrayList<>();
+        for (long seq = last; seq >= 0 && seq > last - n && r.size() < limit; seq--) {
+            SlowQuery q = slow.get((int) (seq % n));
+            // слот мог быть уже перезаписан более новым запросом
+            if (q != null && q.seq == seq) r.add(q.info());
+        }
+        return r;
+    }
+
+    public Map<String, Object> summary() {
+        IgniteProperties.QueryStats cfg = props.getQueryStats();
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("enabled", cfg.isEnabled());
+        r.put("fingerprints", entries.size());
+        r.put("maxFingerprints", cfg.getMaxFingerprints());
+        r.put("otherCount", other.count.sum());
+        r.put("slowThresholdMs", cfg.getSlowThresholdMs());
+        r.put("slowTotal", slowSeq.get());
+        r.put("slowLogSize", slow.length());
+        r.put("since", resetAt);
+        return r;
+    }
+
+    public void reset() {
+        entries.clear();
+        other = new Entry(OTHER, "OTHER", "");
+        for (int i = 0; i < slow.length(); i++) slow.set(i, null);
+        resetAt = System.currentTimeMillis();
+    }
+
+    private static String sortKey(String sort) {
+        switch (sort == null ? "total" : sort.toLowerCase(Locale.ROOT)) {
+            case "total": return "totalMs";
+            case "count": return "count";
+            case "avg": return "avgMs";
+            case "p99": return "p99Ms";
+            case "max": return "maxMs";
+            case "errors": return "errors";
+            case "rows": return "rows";
+            case "last": return "lastSeenAt";
+            default: throw new IllegalArgumentException("Unknown sort: " + sort + " (total, count, avg, p99, max, errors, rows, last)");
+        }
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final String type;
+        final String sample;
+        final long firstSeenAt = System.currentTimeMillis();
+
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder totalMicros = new LongAdder();
+        final AtomicLong maxMicros = new AtomicLong();
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        volatile long lastSeenAt;
+        volatile String lastError;
+        volatile long lastErrorAt;
+
+        Entry(String fingerprint, String type, String sample) {
+            this.fingerprint = fingerprint;
+            this.type = type;
+            this.sample = sample;
+        }
+
+        void record(long micros, long rowCount, Throwable error) {
+            count.increment();
+            totalMicros.add(micros);
+            if (rowCount > 0) rows.add(rowCount);
+            if (micros > maxMicros.get()) maxMicros.accumulateAndGet(micros, Math::max);
+            histogram.record(micros);
+            lastSeenAt = System.currentTimeMillis();
+            if (error != null) {
+                errors.increment();
+                lastError = String.valueOf(error.getMessage());
+                lastErrorAt = lastSeenAt;
+            }
+        }
+
+        double avgMicros() {
+            long n = count.sum();
+            return n > 0 ? (double) totalMicros.sum() / n : 0;
+        }
+
+        Map<String, Object> info() {
+            long[] p = histogram.percentiles(0.5, 0.95, 0.99);
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("fingerprint", fingerprint);
+            r.put("type", type);
+            r.put("sample", sample);
+            r.put("count", count.sum());
+            r.put("errors", errors.sum());
+            r.put("rows", rows.sum());
+            r.put("totalMs", totalMicros.sum() / 1000);
+            r.put("avgMs", avgMicros() / 1000.0);
+            r.put("p50Ms", p[0] / 1000.0);
+            r.put("p95Ms", p[1] / 1000.0);
+            r.put("p99Ms", p[2] / 1000.0);
+            r.put("maxMs", maxMicros.get() / 1000.0);
+            r.put("firstSeenAt", firstSeenAt);
+            r.put("lastSeenAt", lastSeenAt);
+            r.put("lastError", lastError);
+            r.put("lastErrorAt", lastErrorAt > 0 ? lastErrorAt : null);
+            return r;
+        }
+    }
+
+    private static final class SlowQuery {
+        final long seq;
+        final long at;
+        final String owner;
+        final String engine;
+        final String fingerprint;
+        final String sql;
+        final long elapsedMs;
+        final long rows;
+        final String error;
+
+        SlowQuery(long seq, long at, String owner, String engine, String fingerprint, String sql,
+                  long elapsedMs, long rows, String error) {
+            this.seq = seq;
+            this.at = at;
+            this.owner = owner;
+            this.engine = engine;
+            this.fingerprint = fingerprint;
+            this.sql = sql;
+            this.elapsedMs = elapsedMs;
+            this.rows = rows;
+            this.error = error;
+        }
+
+        Map<String, Object> info() {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("at", at);
+            r.put("owner", owner);
+            r.put("engine", engine);
+            r.put("elapsedMs", elapsedMs);
+            r.put("rows", rows);
+            r.put("error", error);
+            r.put("fingerprint", fingerprint);
+            r.put("sql", sql);
+            return r;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.config.IgniteProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Фоновая проверка готовности: SELECT 1 и SYS.NODES по расписанию (системная полоса admission),
+ * /api/ready читает готовое состояние и не ходит в кластер.
+ * <p>
+ * Гистерезис: NOT_READY после failureThreshold неудач подряд, READY после successThreshold успехов подряд —
+ * единичный сбой не переключает readiness. Если проверка давно не завершалась (staleAfterMs), состояние
+ * считается NOT_READY независимо от последнего результата.
+ */
+@Component
+public class ReadinessChecker {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadinessChecker.class);
+
+    private final SqlService sqlService;
+    private final IgniteProperties props;
+
+    private final Probe select1;
+    private final Probe nodes;
+
+    private volatile boolean ready;
+    private volatile int consecutiveFailures;
+    private volatile int consecutiveSuccesses;
+    private volatile long checkedAt;
+    private volatile long changedAt = System.currentTimeMillis();
+    private volatile long checks;
+
+    public ReadinessChecker(SqlService sqlService, IgniteProperties props) {
+        this.sqlService = sqlService;
+        this.props = props;
+        int trend = Math.max(1, props.getReadiness().getTrendSize());
+        this.select1 = new Probe(trend);
+        this.nodes = new Probe(trend);
+    }
+
+    /**
+     * Выполняется только из планировщика (fixedDelay — не пересекается сам с собой).
+     */
+    @Scheduled(fixedDelayString = "${app.ignite.readiness.intervalMs:5000}")
+    public void check() {
+        IgniteProperties.Readiness cfg = props.getReadiness();
+
+        // всегда через JDBC: при engine=auto со встроенным узлом native проверил бы сам узел, а не тонкий клиент
+        boolean ok1 = select1.run(() -> sqlService.execute(
+                SqlQuery.of("SELECT 1").limitRows(1).noCache().engine("jdbc").system()));
+        boolean ok2 = nodes.run(() -> {
+            Map<String, Object> r = sqlService.execute(
+                    SqlQuery.of("SELECT CONSISTENT_ID FROM SYS.NODES").limitRows(10).noCache().engine("jdbc").system());
+            Object rows = r.get("rows");
+            nodes.nodeCount = rows instanceof List ? ((List<?>) rows).size() : null;
+            return r;
+        });
+        boolean ok = ok1 && ok2;
+
+        if (ok) {
+            consecutiveFailures = 0;
+            consecutiveSuccesses++;
+            if (!ready && consecutiveSuccesses >= cfg.getSuccessThreshold()) switchTo(true);
+        } else {
+            consecutiveSuccesses = 0;
+            consecutiveFailures++;
+            if (ready && consecutiveFailures >= cfg.getFailureThreshold()) switchTo(false);
+        }
+        checks++;
+        checkedAt = System.currentTimeMillis();
+    }
+
+    private void switchTo(boolean newState) {
+        ready = newState;
+        changedAt = System.currentTimeMillis();
+        if (newState) {
+            log.info("Readiness: READY");
+        } else {
+            log.warn("Readiness: NOT_READY after {} failed checks (select1: {}, nodes: {})",
+                    consecutiveFailures, select1.error, nodes.error);
+        }
+    }
+
+    /**
+     * Готов ли сервис сейчас: последнее состояние с учётом устаревания.
+     */
+    public boolean isReady() {
+        return ready && !isStale();
+    }
+
+    private boolean isStale() {
+        long at = checkedAt;
+        return at == 0 || System.currentTimeMillis() - at > props.getReadiness().getStaleAfterMs();
+    }
+
+    public Map<String, Object> state() {
+        IgniteProperties.Readiness cfg = props.getReadiness();
+        long now = System.currentTimeMillis();
+        boolean stale = isStale();
+
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", ready && !stale);
+        r.put("status", ready && !stale ? "READY" : "NOT_READY");
+        if (stale) r.put("reason", checkedAt == 0 ? "no checks yet" : "last check is older than " + cfg.getStaleAfterMs() + " ms");
+        r.put("checkedAt", checkedAt > 0 ? checkedAt : null);
+        r.put("ageMs", checkedAt > 0 ? now - checkedAt : null);
+        r.put("stateSince", changedAt);
+        r.put("consecutiveFailures", consecutiveFailures);
+        r.put("consecutiveSuccesses", consecutiveSuccesses);
+        r.put("checks", checks);
+        r.put("intervalMs", cfg.getIntervalMs());
+        r.put("select1", select1.info());
+        Map<String, Object> n = nodes.info();
+        n.put("nodeCount", nodes.nodeCount);
+        r.put("nodes", n);
+        return r;
+    }
+
+    interface ProbeCall {
+        Map<String, Object> call() throws Exception;
+    }
+
+    /**
+     * Последний результат одной проверки и кольцо последних задержек (тренд).
+     */
+    private static final class Probe {
+        private final long[] latencies;
+        private int next;
+        private int filled;
+
+        volatile boolean ok;
+        volatile String error;
+        volatile long at;
+        volatile long elapsedMs;
+        volatile Integer nodeCount;
+
+        Probe(int trendSize) {
+            this.latencies = new long[trendSize];
+        }
+
+        boolean run(ProbeCall call) {
+            long t0 = System.nanoTime();
+            boolean success;
+            String err = null;
+            try {
+                Map<String, Object> r = call.call();
+                success = Boolean.TRUE.equals(r.get("ok"));
+                if (!success) err = String.valueOf(r.get("error"));
+            } catch (Exception e) {
+                success = false;
+                err = e.getMessage();
+            }
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            synchronized (this) {
+                latencies[next] = ms;
+                next = (next + 1) % latencies.length;
+                filled = Math.min(filled + 1, latencies.length);
+            }
+            elapsedMs = ms;
+            error = err;
+            ok = success;
+            at = System.currentTimeMillis();
+            return success;
+        }
+
+        synchronized Map<String, Object> info() {
+            long sum = 0;
+            long max = 0;
+            long[] trend = new long[filled];
+            // от старых к новым
+            for (int i = 0; i < filled; i++) {
+                long v = latencies[(next - filled + i + latencies.length) % latencies.length];
+                trend[i] = v;
+                sum += v;
+                max = Math.max(max, v);
+            }
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", ok);
+            r.put("error", error);
+            r.put("at", at > 0 ? at : null);
+            r.put("elapsedMs", elapsedMs);
+            r.put("avgMs", filled > 0 ? (double) sum / filled : null);
+            r.put("maxMs", filled > 0 ? max : null);
+            r.put("trendMs", trend);
+            return r;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.config.IgniteProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Бюджет памяти на материализацию результатов SqlService (rows/compact): лимит на запрос
+ * (app.ignite.maxResultBytes) и на все одновременно читаемые результаты (app.ignite.maxTotalResultBytes).
+ * Размер строк оценивается {@link ResultSizeEstimator} по мере чтения; упёршись в любой лимит,
+ * чтение останавливается и результат помечается truncated — один огромный SELECT не кладёт JVM.
+ * <p>
+ * Байты учитываются, пока результат читается; после ответа клиенту их освобождает GC.
+ */
+@Component
+public class ResultBudget {
+
+    public static final String BY_ROWS = "rows";
+    public static final String BY_BYTES = "bytes";
+
+    private final IgniteProperties props;
+    private final AtomicLong inFlight = new AtomicLong();
+    private final Counter truncatedByRows;
+    private final Counter truncatedByBytes;
+
+    public ResultBudget(IgniteProperties props, MeterRegistry registry) {
+        this.props = props;
+        Gauge.builder("sql.result.bytes.inflight", inFlight, AtomicLong::get)
+                .description("Оценка байт результатов, которые сейчас читаются в память")
+                .register(registry);
+        truncatedByRows = truncated(registry, BY_ROWS);
+        truncatedByBytes = truncated(registry, BY_BYTES);
+    }
+
+    private static Counter truncated(MeterRegistry registry, String by) {
+        return Counter.builder("sql.result.truncated")
+                .description("Результаты, обрезанные по лимиту строк (rows) или памяти (bytes)")
+                .tag("by", by)
+                .register(registry);
+    }
+
+    /**
+     * @param requested лимит из запроса; 0 — app.ignite.maxResultBytes, больше настроенного не бывает
+     */
+    public Lease open(long requested) {
+        long max = props.getMaxResultBytes();
+        long limit = requested > 0 && (max <= 0 || requested < max) ? requested : max;
+        return new Lease(this, limit > 0 ? limit : Long.MAX_VALUE);
+    }
+
+    /**
+     * Без лимитов и без учёта в общем бюджете (бенчмарки, служебное чтение).
+     */
+    public static Lease unlimited() {
+        return new Lease(null, Long.MAX_VALUE);
+    }
+
+    private boolean reserveTotal(long bytes) {
+        long max = props.getMaxTotalResultBytes();
+        if (inFlight.addAndGet(bytes) <= max || max <= 0) return true;
+        inFlight.addAndGet(-bytes);
+        return false;
+    }
+
+    /**
+     * Учёт одного читаемого результата. Не потокобезопасен: читает один поток.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final ResultBudget budget;
+        private final long limit;
+        private long bytes;
+        private String truncatedBy;
+
+        private Lease(ResultBudget budget, long limit) {
+            this.budget = budget;
+            this.limit = limit;
+        }
+
+        /**
+         * Место под следующую строку; false — строку не брать, чтение закончить.
+         */
+        boolean reserve(long rowBytes) {
+            if (bytes + rowBytes > limit || (budget != null && !budget.reserveTotal(rowBytes))) {
+                truncated(BY_BYTES);
+                return false;
+            }
+            bytes += rowBytes;
+            return true;
+        }
+
+        /**
+         * Строк больше, чем limitRows.
+         */
+        void rowLimitReached() {
+            truncated(BY_ROWS);
+        }
+
+        private void truncated(String by) {
+            if (truncatedBy != null) return;
+            truncatedBy = by;
+            if (budget == null) return;
+            if (BY_ROWS.equals(by)) budget.truncatedByRows.increment();
+            else budget.truncatedByBytes.increment();
+        }
+
+        public long getBytes() { return bytes; }
+        public String getTruncatedBy() { return truncatedBy; }
+
+        /**
+         * truncated, truncatedBy, bytesEstimated, limitBytes — в map результата SqlService.
+         */
+        void describe(Map<String, Object> result) {
+            result.put("truncated", truncatedBy != null);
+            result.put("truncatedBy", truncatedBy);
+            result.put("bytesEstimated", bytes);
+            result.put("limitBytes", limit == Long.MAX_VALUE ? 0 : limit);
+        }
+
+        @Override
+        public void close() {
+            if (budget != null && bytes > 0) budget.inFlight.addAndGet(-bytes);
+            bytes = 0;
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.igniteapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Строки результата в компактном бинарном виде: в куче до spillThreshold байт, дальше — во временном файле,
+ * который читается через memory-mapped сегменты. Строки не живут в куче как Object[] — многогигабайтный
+ * результат читается страницами без давления на GC.
+ * <p>
+ * Формат строки — подряд значения колонок: байт-тег типа + данные (big-endian, строки — UTF-8 с длиной).
+ * Типы вне списка тегов сохраняются строкой (String.valueOf). Для страниц хранится смещение каждой
+ * {@value #INDEX_EVERY}-й строки: чтение с offset — переход по индексу и пропуск остатка.
+ * <p>
+ * Не потокобезопасен: синхронизирует владелец (SqlJob). {@link #close()} удаляет файл.
+ */
+public final class ResultBuffer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultBuffer.class);
+
+    static final String FILE_PREFIX = "result-";
+    static final String FILE_SUFFIX = ".bin";
+
+    private static final int INDEX_EVERY = 256;
+    private static final int SEGMENT_BYTES = 1 << 30;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte STRING = 9;
+    private static final byte BYTES = 10;
+    private static final byte DECIMAL = 11;
+    private static final byte DATE = 12;
+    private static final byte TIME = 13;
+    private static final byte TIMESTAMP = 14;
+    private static final byte UUID_TAG = 15;
+
+    private final int columns;
+    private final long spillThreshold;
+    private final Path dir;
+
+    // закодированная, но ещё не добавленная строка
+    private byte[] scratch = new byte[256];
+    private int scratchLen;
+
+    private byte[] heap = new byte[1024];
+    private int heapLen;
+
+    private Path file;
+    private FileChannel channel;
+    private ByteBuffer writeBuffer;
+    private MappedByteBuffer[] segments;
+    private long mappedBytes;
+
+    private long size;
+    private long rows;
+    private long[] index = new long[16];
+    private boolean closed;
+
+    /**
+     * @param spillThreshold байт в куче, дальше — файл в dir
+     */
+    public ResultBuffer(int columns, long spillThreshold, Path dir) {
+        this.columns = columns;
+        this.spillThreshold = spillThreshold;
+        this.dir = dir;
+    }
+
+    /**
+     * Кодирует строку во внутренний буфер и возвращает её размер; добавляет — {@link #append()}.
+     * Так владелец успевает проверить бюджет до записи.
+     */
+    public int encode(Object[] row) {
+        scratchLen = 0;
+        for (int i = 0; i < columns; i++) {
+            writeValue(i < row.length ? row[i] : null);
+        }
+        return scratchLen;
+    }
+
+    /**
+     * Добавляет строку, закодированную последним {@link #encode}.
+     */
+    public void append() {
+        if (closed) throw new IllegalStateException("Result buffer is closed");
+        if (rows % INDEX_EVERY == 0) {
+            int slot = (int) (rows / INDEX_EVERY);
+            if (slot == index.length) index = Arrays.copyOf(index, slot * 2);
+            index[slot] = size;
+        }
+        try {
+            if (file == null && size + scratchLen > spillThreshold) spill();
+            if (file == null) {
+                if (heapLen + scratchLen > heap.length) {
+                    heap = Arrays.copyOf(heap, Math.max(heapLen + scratchLen, heap.length * 2));
+                }
+                System.arraycopy(scratch, 0, heap, heapLen, scratchLen);
+                heapLen += scratchLen;
+            } else {
+                write(scratch, scratchLen);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write result spill file " + file, e);
+        }
+        size += scratchLen;
+        rows++;
+    }
+
+    /**
+     * Строки [offset, offset + limit).
+     */
+    public List<Object[]> read(long offset, int limit) {
+        if (closed) throw new IllegalStateException("Result buffer is closed");
+        List<Object[]> res = new ArrayList<>();
+        if (offset < 0 || offset >= rows || limit <= 0) return res;
+        try {
+            Input in = input();
+            in.pos = index[(int) (offset / INDEX_EVERY)];
+            for (long skip = offset % INDEX_EVERY; skip > 0; skip--) {
+                for (int c = 0; c < columns; c++) readValue(in, false);
+            }
+            long end = Math.min(rows, offset + limit);
+            for (long r = offset; r < end; r++) {
+                Object[] row = new Object[columns];
+                for (int c = 0; c < columns; c++) row[c] = readValue(in, true);
+                res.add(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read result spill file " + file, e);
+        }
+        return res;
+    }
+
+    public long getRows() { return rows; }
+    public long getBytes() { return size; }
+    public boolean isSpilled() { return file != null; }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        heap = null;
+        scratch = null;
+        unmapAll();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Spill file close failed: {}", e.getMessage());
+            }
+        }
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Spill file was not deleted: {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    // ---- запись
+
+    private void spill() throws IOException {
+        Files.createDirectories(dir);
+        file = Files.createTempFile(dir, FILE_PREFIX, FILE_SUFFIX);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+        write(heap, heapLen);
+        heap = null;
+        heapLen = 0;
+        log.info("Result spilled to disk: file={}, bytes={}, rows={}", file, size, rows);
+    }
+
+    private void write(byte[] b, int len) throws IOException {
+        int off = 0;
+        while (off < len) {
+            int n = Math.min(len - off, writeBuffer.remaining());
+            writeBuffer.put(b, off, n);
+            off += n;
+            if (!writeBuffer.hasRemaining()) flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) channel.write(writeBuffer);
+        writeBuffer.clear();
+    }
+
+    private void writeValue(Object v) {
+        if (v == null) {
+            put(NULL);
+        } else if (v instanceof Boolean) {
+            put((Boolean) v ? TRUE : FALSE);
+        } else if (v instanceof Byte) {
+            put(BYTE);
+            put((Byte) v);
+        } else if (v instanceof Short) {
+            put(SHORT);
+            putLong((Short) v, 2);
+        } else if (v instanceof Integer) {
+            put(INT);
+            putLong((Integer) v, 4);
+        } else if (v instanceof Long) {
+            put(LONG);
+            putLong((Long) v, 8);
+        } else if (v instanceof Float) {
+            put(FLOAT);
+            putLong(Float.floatToRawIntBits((Float) v), 4);
+        } else if (v instanceof Double) {
+            put(DOUBLE);
+            putLong(Double.doubleToRawLongBits((Double) v), 8);
+        } else if (v instanceof BigDecimal) {
+            BigDecimal d = (BigDecimal) v;
+            put(DECIMAL);
+            putLong(d.scale(), 4);
+            putBytes(d.unscaledValue().toByteArray());
+        } else if (v instanceof byte[]) {
+            put(BYTES);
+            putBytes((byte[]) v);
+        } else if (v instanceof Timestamp) {
+            Timestamp t = (Timestamp) v;
+            put(TIMESTAMP);
+            putLong(t.getTime(), 8);
+            putLong(t.getNanos(), 4);
+        } else if (v instanceof Date) {
+            put(DATE);
+            putLong(((Date) v).getTime(), 8);
+        } else if (v instanceof Time) {
+            put(TIME);
+            putLong(((Time) v).getTime(), 8);
+        } else if (v instanceof java.util.Date) {
+            put(TIMESTAMP);
+            putLong(((java.util.Date) v).getTime(), 8);
+            putLong(0, 4);
+        } else if (v instanceof UUID) {
+            put(UUID_TAG);
+            putLong(((UUID) v).getMostSignificantBits(), 8);
+            putLong(((UUID) v).getLeastSignificantBits(), 8);
+        } else {
+            put(STRING);
+            putBytes(String.valueOf(v).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void put(byte b) {
+        ensure(1);
+        scratch[scratchLen++] = b;
+    }
+
+    private void putLong(long v, int width) {
+        ensure(width);
+        for (int i = width - 1; i >= 0; i--) scratch[scratchLen++] = (byte) (v >>> (8 * i));
+    }
+
+    private void putBytes(byte[] b) {
+        putLong(b.length, 4);
+        ensure(b.length);
+        System.arraycopy(b, 0, scratch, scratchLen, b.length);
+        scratchLen += b.length;
+    }
+
+    private void ensure(int n) {
+        if (scratchLen + n > scratch.length) scratch = Arrays.copyOf(scratch, Math.max(scratchLen + n, scratch.length * 2));
+    }
+
+    // ---- чтение
+
+    private Input input() throws IOException {
+        if (file == null) return new Input(heap, null);
+        if (writeBuffer.position() > 0) flush();
+        if (mappedBytes != size) {
+            unmapAll();
+            int n = (int) ((size + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+            segments = new MappedByteBuffer[n];
+            for (int i = 0; i < n; i++) {
+                long from = (long) i * SEGMENT_BYTES;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(SEGMENT_BYTES, size - from));
+            }
+            mappedBytes = size;
+        }
+        return new Input(null, segments);
+    }
+
+    /**
+     * @param materialize false — только пропустить значение
+     */
+    private static Object readValue(Input in, boolean materialize) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL: return null;
+            case TRUE: return Boolean.TRUE;
+            case FALSE: return Boolean.FALSE;
+            case BYTE: return in.get();
+            case SHORT: return (short) in.getLong(2);
+            case INT: return (int) in.getLong(4);
+            case LONG: return in.getLong(8);
+            case FLOAT: return Float.intBitsToFloat((int) in.getLong(4));
+            case DOUBLE: return Double.longBitsToDouble(in.getLong(8));
+            case DECIMAL: {
+                int scale = (int) in.getLong(4);
+                byte[] unscaled = in.getBytes(materialize);
+                return materialize ? new BigDecimal(new BigInteger(unscaled), scale) : null;
+            }
+            case BYTES: return in.getBytes(materialize);
+            case TIMESTAMP: {
+                Timestamp t = new Timestamp(in.getLong(8));
+                t.setNanos((int) in.getLong(4));
+                return t;
+            }
+            case DATE: return new Date(in.getLong(8));
+            case TIME: return new Time(in.getLong(8));
+            case UUID_TAG: return new UUID(in.getLong(8), in.getLong(8));
+            case STRING: {
+                byte[] b = in.getBytes(materialize);
+                return materialize ? new String(b, StandardCharsets.UTF_8) : null;
+            }
+            default:
+                throw new IllegalStateException("Corrupted result buffer: unknown type tag " + tag);
+        }
+    }
+
+    /**
+     * Последовательное чтение с позиции: из кучи или по mapped-сегментам (значение может их пересекать).
+     */
+    private static final class Input {
+        final byte[] heap;
+        final MappedByteBuffer[] segments;
+        long pos;
+
+        Input(byte[] heap, MappedByteBuffer[] segments) {
+            this.heap = heap;
+            this.segments = segments;
+        }
+
+        byte get() {
+            byte b = heap != null
+                    ? heap[(int) pos]
+                    : segments[(int) (pos / SEGMENT_BYTES)].get((int) (pos % SEGMENT_BYTES));
+            pos++;
+            return b;
+        }
+
+        long getLong(int width) {
+            long v = 0;
+            for (int i = 0; i < width; i++) v = (v << 8) | (get() & 0xFF);
+            // знак для 2- и 4-байтовых значений восстанавливают приведения (short)/(int)
+            return v;
+        }
+
+        byte[] getBytes(boolean materialize) {
+            int len = (int) getLong(4);
+            if (!materialize) {
+                pos += len;
+                return null;
+            }
+            byte[] b = new byte[len];
+            if (heap != null) {
+                System.arraycopy(heap, (int) pos, b, 0, len);
+                pos += len;
+                return b;
+            }
+            int off = 0;
+            while (off < len) {
+                MappedByteBuffer seg = segments[(int) (pos / SEGMENT_BYTES)].duplicate();
+                int at = (int) (pos % SEGMENT_BYTES);
+                int n = Math.min(len - off, seg.limit() - at);
+                seg.position(at);
+                seg.get(b, off, n);
+                off += n;
+                pos += n;
+            }
+            return b;
+        }
+    }
+
+    // ---- unmap
+
+    private void unmapAll() {
+        if (segments != null) {
+            for (MappedByteBuffer b : segments) Unmapper.unmap(b);
+        }
+        segments = null;
+        mappedBytes = 0;
+    }
+
+    /**
+     * Явное освобождение mapping (Unsafe.invokeCleaner) — иначе файл держится до GC буфера.
+     * Недоступно — остаётся GC; на Linux удалённый файл освободит место после unmap.
+     */
+    private static final class Unmapper {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method m = null;
+            try {
+                Class<?> c = Class.forName("sun.misc.Unsafe");
+                Field f = c.getDeclaredField("theUnsafe");
+                f.setAccessible(true);
+                unsafe = f.get(null);
+                m = c.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (Exception | LinkageError e) {
+                log.debug("Explicit unmap is not available: {}", e.toString());
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = m;
+        }
+
+        static void unmap(MappedByteBuffer b) {
+            if (b == null || INVOKE_CLEANER == null) return;
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, b);
+            } catch (Exception e) {
+                log.debug("Unmap failed: {}", e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.igniteapp.service;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Потребитель результата запроса без материализации в память:
+ * для SELECT получает открытый ResultSet, для DML/DDL — updateCount.
+ */
+public interface ResultSetConsumer {
+
+    /**
+     * Statement перед выполнением — например, чтобы отменить запрос из другого потока.
+     */
+    default void onStatement(Statement st) throws Exception {
+    }
+
+    void onResultSet(ResultSet rs) throws Exception;
+
+    void onUpdateCount(int updateCount) throws Exception;
+
+    /**
+     * Сколько строк потребитель прочитал — для статистики запросов.
+     */
+    default long getRowCount() {
+        return 0;
+    }
+}
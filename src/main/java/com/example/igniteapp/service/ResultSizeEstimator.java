@@ -0,0 +1,78 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.api.dto.ColumnVector;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Грубая оценка размера результата в куче (байты, 64-bit JVM с compressed oops).
+ * Точность не важна — важна монотонность и дешевизна.
+ */
+public final class ResultSizeEstimator {
+
+    private static final int OBJ_HEADER = 16;
+    private static final int REF = 8;
+    private static final int MAP_ENTRY = 40;
+
+    private ResultSizeEstimator() {
+    }
+
+    public static long value(Object v) {
+        if (v == null) return 0;
+        if (v instanceof String) return OBJ_HEADER + 24 + 2L * ((String) v).length();
+        if (v instanceof Integer || v instanceof Short || v instanceof Byte || v instanceof Boolean) return 16;
+        if (v instanceof Long || v instanceof Double || v instanceof Float) return 24;
+        if (v instanceof BigDecimal || v instanceof BigInteger) return 64;
+        if (v instanceof byte[]) return OBJ_HEADER + ((byte[]) v).length;
+        if (v instanceof java.util.Date || v instanceof java.time.temporal.Temporal) return 32;
+        if (v instanceof ColumnVector) return vector((ColumnVector) v);
+        if (v instanceof Map) return map((Map<?, ?>) v);
+        if (v instanceof Collection) {
+            long s = OBJ_HEADER + 24;
+            for (Object o : (Collection<?>) v) s += REF + value(o);
+            return s;
+        }
+        if (v instanceof Object[]) {
+            long s = OBJ_HEADER;
+            for (Object o : (Object[]) v) s += REF + value(o);
+            return s;
+        }
+        if (v.getClass().isArray()) {
+            return OBJ_HEADER + (long) Array.getLength(v) * primitiveSize(v.getClass().getComponentType());
+        }
+        return 48;
+    }
+
+    /**
+     * Строка как map {column -> value}; ключи-колонки общие для всех строк и не считаются.
+     */
+    public static long map(Map<?, ?> row) {
+        long s = OBJ_HEADER + 48;
+        for (Object v : row.values()) s += MAP_ENTRY + value(v);
+        return s;
+    }
+
+    /**
+     * Строка как позиционный массив значений.
+     */
+    public static long row(Object[] row) {
+        long s = OBJ_HEADER + (long) REF * row.length;
+        for (Object v : row) s += value(v);
+        return s;
+    }
+
+    private static long vector(ColumnVector v) {
+        return OBJ_HEADER + 32 + value(v.getValues()) + (v.getNulls() != null ? OBJ_HEADER + 4L * v.getNulls().length : 0);
+    }
+
+    private static int primitiveSize(Class<?> c) {
+        if (c == long.class || c == double.class) return 8;
+        if (c == int.class || c == float.class) return 4;
+        if (c == short.class || c == char.class) return 2;
+        return 1;
+    }
+}
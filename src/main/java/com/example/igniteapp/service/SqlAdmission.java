@@ -0,0 +1,265 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.config.IgniteProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Допуск SQL к выполнению: общий лимит и лимит на пользователя с ограниченной очередью ожидания.
+ * Диагностика и readiness идут по отдельной полосе SYSTEM со своими слотами —
+ * пользовательская нагрузка их не вытесняет. Асинхронные задачи (JOB) делят с USER общий
+ * и пользовательский лимиты, но ждут слот без таймаута и вне maxQueue: их очередь — пул
+ * app.ignite.jobs, а ожидание прерывается отменой задачи (interrupt).
+ * <p>
+ * Без аутентификации все запросы идут от {@link #ANONYMOUS} — для него действует только общий лимит,
+ * иначе maxPerUser стал бы лимитом на весь сервер. Слот пользователя живёт, пока его держат
+ * или ждут, и затем удаляется — карта не растёт с числом разных principal.
+ * <pre>
+ * try (SqlAdmission.Permit p = admission.acquire(owner, SqlAdmission.Lane.USER)) { ... }
+ * </pre>
+ */
+@Component
+public class SqlAdmission {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlAdmission.class);
+
+    public enum Lane { USER, JOB, SYSTEM }
+
+    public static final String ANONYMOUS = "anonymous";
+
+    private final IgniteProperties props;
+
+    private final Semaphore global;
+    private final Semaphore system;
+    private final Map<String, UserSlot> perUser = new ConcurrentHashMap<>();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger waitingJobs = new AtomicInteger();
+    private final AtomicInteger maxWaitingSeen = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder admittedSystem = new LongAdder();
+    private final LongAdder admittedJobs = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder waitNanosTotal = new LongAdder();
+    private final AtomicLong waitNanosMax = new AtomicLong();
+
+    public SqlAdmission(IgniteProperties props) {
+        this.props = props;
+        IgniteProperties.Admission cfg = props.getAdmission();
+        this.global = new Semaphore(Math.max(1, cfg.getMaxConcurrent()), true);
+        this.system = new Semaphore(Math.max(1, cfg.getSystemConcurrent()), true);
+    }
+
+    /**
+     * Взять слот (с ожиданием до queueTimeoutMs; JOB — без таймаута). Освобождается через Permit.close().
+     */
+    public Permit acquire(String owner, Lane lane) {
+        IgniteProperties.Admission cfg = props.getAdmission();
+        if (!cfg.isEnabled()) return Permit.NONE;
+
+        if (lane == Lane.SYSTEM) {
+            // системная полоса не стоит в общей очереди; если и она занята — ждём тот же таймаут
+            if (!tryAcquire(system, cfg.getQueueTimeoutMs())) {
+                rejectedTimeout.increment();
+                throw reject("System lane is busy", cfg);
+            }
+            admittedSystem.increment();
+            return new Permit(system, null, null);
+        }
+        if (lane == Lane.JOB) {
+            return acquireJob(owner, cfg);
+        }
+
+        int w = waiting.incrementAndGet();
+        try {
+            if (w > cfg.getMaxQueue()) {
+                rejectedQueueFull.increment();
+                throw reject("Too many queued queries (" + cfg.getMaxQueue() + ")", cfg);
+            }
+            maxWaitingSeen.accumulateAndGet(w, Math::max);
+
+            long t0 = System.nanoTime();
+            long deadline = t0 + TimeUnit.MILLISECONDS.toNanos(cfg.getQueueTimeoutMs());
+
+            UserSlot user = retain(owner, cfg);
+            if (user != null && !tryAcquire(user.sem, remainingMs(deadline))) {
+                unretain(user);
+                rejectedTimeout.increment();
+                throw reject("Too many concurrent queries for user " + owner + " (" + cfg.getMaxPerUser() + ")", cfg);
+            }
+            if (!tryAcquire(global, remainingMs(deadline))) {
+                if (user != null) {
+                    user.sem.release();
+                    unretain(user);
+                }
+                rejectedTimeout.increment();
+                throw reject("Server is busy (" + cfg.getMaxConcurrent() + " concurrent queries)", cfg);
+            }
+
+            long waited = System.nanoTime() - t0;
+            waitNanosTotal.add(waited);
+            waitNanosMax.accumulateAndGet(waited, Math::max);
+            admitted.increment();
+            return new Permit(global, user, this);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Слот для асинхронной задачи: ждём сколько нужно — отказ по таймауту перевёл бы
+     * принятую задачу в FAILED, хотя она должна просто постоять в очереди.
+     */
+    private Permit acquireJob(String owner, IgniteProperties.Admission cfg) {
+        waitingJobs.incrementAndGet();
+        long t0 = System.nanoTime();
+        UserSlot user = retain(owner, cfg);
+        try {
+            if (user != null) user.sem.acquire();
+            try {
+                global.acquire();
+            } catch (InterruptedException e) {
+                if (user != null) user.sem.release();
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            if (user != null) unretain(user);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a query slot");
+        } finally {
+            waitingJobs.decrementAndGet();
+        }
+
+        long waited = System.nanoTime() - t0;
+        waitNanosTotal.add(waited);
+        waitNanosMax.accumulateAndGet(waited, Math::max);
+        admitted.increment();
+        admittedJobs.increment();
+        return new Permit(global, user, this);
+    }
+
+    /**
+     * Слот пользователя с учётом держателя; null — лимит на пользователя не действует.
+     */
+    private UserSlot retain(String owner, IgniteProperties.Admission cfg) {
+        if (owner == null || ANONYMOUS.equals(owner)) return null;
+        return perUser.compute(owner, (k, s) -> {
+            UserSlot slot = s != null ? s : new UserSlot(k, Math.max(1, cfg.getMaxPerUser()));
+            slot.refs++;
+            return slot;
+        });
+    }
+
+    private void unretain(UserSlot slot) {
+        perUser.computeIfPresent(slot.owner, (k, s) -> --s.refs > 0 ? s : null);
+    }
+
+    public Map<String, Object> stats() {
+        IgniteProperties.Admission cfg = props.getAdmission();
+        long n = admitted.sum();
+        Map<String, Integer> activeByUser = new LinkedHashMap<>();
+        for (UserSlot s : perUser.values()) {
+            int active = s.limit - s.sem.availablePermits();
+            if (active > 0) activeByUser.put(s.owner, active);
+        }
+
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("enabled", cfg.isEnabled());
+        r.put("maxConcurrent", cfg.getMaxConcurrent());
+        r.put("maxPerUser", cfg.getMaxPerUser());
+        r.put("maxQueue", cfg.getMaxQueue());
+        r.put("queueTimeoutMs", cfg.getQueueTimeoutMs());
+        r.put("active", cfg.getMaxConcurrent() - global.availablePermits());
+        r.put("activeSystem", cfg.getSystemConcurrent() - system.availablePermits());
+        r.put("activeByUser", activeByUser);
+        r.put("queueDepth", waiting.get());
+        r.put("queueDepthMax", maxWaitingSeen.get());
+        r.put("jobsWaiting", waitingJobs.get());
+        r.put("admittedTotal", n);
+        r.put("admittedJobsTotal", admittedJobs.sum());
+        r.put("admittedSystemTotal", admittedSystem.sum());
+        r.put("rejectedQueueFullTotal", rejectedQueueFull.sum());
+        r.put("rejectedTimeoutTotal", rejectedTimeout.sum());
+        r.put("waitAvgMs", n > 0 ? waitNanosTotal.sum() / n / 1_000_000.0 : 0.0);
+        r.put("waitMaxMs", waitNanosMax.get() / 1_000_000);
+        return r;
+    }
+
+    public int queueDepth() {
+        return waiting.get();
+    }
+
+    private static boolean tryAcquire(Semaphore s, long timeoutMs) {
+        try {
+            return s.tryAcquire(Math.max(0, timeoutMs), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static long remainingMs(long deadlineNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    private static AdmissionRejectedException reject(String message, IgniteProperties.Admission cfg) {
+        log.warn("SQL admission rejected: {}", message);
+        return new AdmissionRejectedException(message, cfg.getRetryAfterSeconds());
+    }
+
+    /**
+     * Лимит одного пользователя; refs — держатели и ждущие, меняется только внутри compute.
+     */
+    private static final class UserSlot {
+        final String owner;
+        final int limit;
+        final Semaphore sem;
+        int refs;
+
+        UserSlot(String owner, int limit) {
+            this.owner = owner;
+            this.limit = limit;
+            this.sem = new Semaphore(limit, true);
+        }
+    }
+
+    /**
+     * Занятый слот; close() возвращает его (повторный close безопасен).
+     */
+    public static final class Permit implements AutoCloseable {
+        static final Permit NONE = new Permit(null, null, null);
+
+        private final Semaphore lane;
+        private final UserSlot user;
+        private final SqlAdmission admission;
+        private boolean released;
+
+        private Permit(Semaphore lane, UserSlot user, SqlAdmission admission) {
+            this.lane = lane;
+            this.user = user;
+            this.admission = admission;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (released) return;
+            released = true;
+            if (lane != null) lane.release();
+            if (user != null) {
+                user.sem.release();
+                admission.unretain(user);
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.api.dto.SqlBatchResponse;
+import com.example.igniteapp.config.IgniteProperties;
+import com.example.igniteapp.ignite.IgniteConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Пакетный DML: addBatch/executeBatch на одном соединении,
+ * опционально в режиме Ignite streaming (SET STREAMING ON) для массовых INSERT.
+ * Как и SqlService.execute: слот admission на весь пакет, метрики фаз, статистика по отпечаткам
+ * (один executeBatch — одно выполнение) и сброс кэшей результатов/планов по целевым таблицам.
+ */
+@Service
+public class SqlBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlBatchService.class);
+
+    private final IgniteProperties props;
+    private final IgniteConnectionPool pool;
+    private final QueryResultCache cache;
+    private final PlanCache planCache;
+    private final SqlAdmission admission;
+    private final SqlMetrics metrics;
+    private final QueryStatsCollector queryStats;
+
+    public SqlBatchService(IgniteProperties props, IgniteConnectionPool pool, QueryResultCache cache,
+                           PlanCache planCache, SqlAdmission admission, SqlMetrics metrics,
+                           QueryStatsCollector queryStats) {
+        this.props = props;
+        this.pool = pool;
+        this.cache = cache;
+        this.planCache = planCache;
+        this.admission = admission;
+        this.metrics = metrics;
+        this.queryStats = queryStats;
+    }
+
+    /**
+     * Один шаблон с '?' и много строк значений.
+     */
+    public SqlBatchResponse executeTemplate(String sql, List<String> types, List<List<Object>> rows,
+                                            Integer batchSize, boolean streaming, Long flushFrequencyMs,
+                                            String owner) throws Exception {
+        int size = batchSize(batchSize);
+        checkLimit(rows.size());
+        String type = SqlMetrics.type(sql);
+
+        // отказ admission (429) — наружу, до соединения
+        SqlAdmission.Permit permit = admission.acquire(owner, SqlAdmission.Lane.USER);
+        SqlBatchResponse resp = start(streaming);
+        long t0 = System.nanoTime();
+        log.info("SQL batch start: mode={}, rows={}, batchSize={}, sql=\"{}\"", resp.getMode(), rows.size(), size, sql);
+
+        try (permit; Connection c = connect(type)) {
+            boolean clean = false;
+            try {
+                if (streaming) streamingOn(c, size, flushFrequencyMs);
+
+                try (PreparedStatement ps = c.prepareStatement(sql)) {
+                    applyTimeout(ps, streaming);
+                    int inBatch = 0;
+                    for (List<Object> row : rows) {
+                        for (int i = 0; i < row.size(); i++) {
+                            String paramType = types != null && i < types.size() ? types.get(i) : null;
+                            SqlParams.bind(ps, i + 1, paramType, row.get(i));
+                        }
+                        ps.addBatch();
+                        if (++inBatch == size) {
+                            flush(ps, type, sql, null, inBatch, resp, owner);
+                            inBatch = 0;
+                        }
+                    }
+                    if (inBatch > 0) flush(ps, type, sql, null, inBatch, resp, owner);
+                }
+
+                if (streaming) streamingOff(c);
+                clean = true;
+            } finally {
+                if (!clean) discard(c, streaming);
+            }
+            return finish(resp, t0, null);
+        } catch (Exception e) {
+            metrics.error(type, "jdbc", e);
+            log.error("SQL batch failed after {} items: {}", resp.getItems(), e.getMessage());
+            return finish(resp, t0, e);
+        } finally {
+            SqlService.invalidateWritten(sql, cache, planCache);
+        }
+    }
+
+    /**
+     * Список независимых SQL (Statement.addBatch).
+     */
+    public SqlBatchResponse executeStatements(List<String> statements, Integer batchSize, boolean streaming,
+                                              Long flushFrequencyMs, String owner) throws Exception {
+        int size = batchSize(batchSize);
+        checkLimit(statements.size());
+        String type = batchType(statements);
+
+        SqlAdmission.Permit permit = admission.acquire(owner, SqlAdmission.Lane.USER);
+        SqlBatchResponse resp = start(streaming);
+        long t0 = System.nanoTime();
+        log.info("SQL batch start: mode={}, statements={}, batchSize={}", resp.getMode(), statements.size(), size);
+
+        Set<String> written = new LinkedHashSet<>();
+        try (permit; Connection c = connect(type)) {
+            boolean clean = false;
+            try {
+                if (streaming) streamingOn(c, size, flushFrequencyMs);
+
+                try (Statement st = c.createStatement()) {
+                    applyTimeout(st, streaming);
+                    List<String> pending = new ArrayList<>(Math.min(size, statements.size()));
+                    for (String sql : statements) {
+                        written.add(sql);
+                        st.addBatch(sql);
+                        pending.add(sql);
+                        if (pending.size() == size) {
+                            flush(st, type, null, pending, pending.size(), resp, owner);
+                            pending.clear();
+                        }
+                    }
+                    if (!pending.isEmpty()) flush(st, type, null, pending, pending.size(), resp, owner);
+                }
+
+                if (streaming) streamingOff(c);
+                clean = true;
+            } finally {
+                if (!clean) discard(c, streaming);
+            }
+            return finish(resp, t0, null);
+        } catch (Exception e) {
+            metrics.error(type, "jdbc", e);
+            log.error("SQL batch failed after {} items: {}", resp.getItems(), e.getMessage());
+            return finish(resp, t0, e);
+        } finally {
+            for (String sql : written) SqlService.invalidateWritten(sql, cache, planCache);
+        }
+    }
+
+    /**
+     * executeBatch накопленного пакета.
+     *
+     * @param template   шаблон (executeTemplate) — весь пакет в статистике одним выполнением
+     * @param statements SQL пакета (executeStatements) — в статистике каждый отдельно, время делится поровну
+     */
+    private void flush(Statement st, String type, String template, List<String> statements, int inBatch,
+                       SqlBatchResponse resp, String owner) throws SQLException {
+        long t0 = System.nanoTime();
+        int index = resp.getBatches().size();
+        int[] counts = null;
+        SQLException error = null;
+        try {
+            counts = st.executeBatch();
+            record(resp, index, inBatch, sum(counts), t0);
+        } catch (BatchUpdateException e) {
+            // частично применённый пакет: фиксируем, что успело пройти, и пробрасываем
+            counts = e.getUpdateCounts();
+            record(resp, index, inBatch, sum(counts), t0);
+            error = new SQLException("Batch #" + index + " failed: " + e.getMessage(), e.getSQLState(), e);
+        } catch (SQLException e) {
+            error = e;
+        }
+        long nanos = System.nanoTime() - t0;
+        metrics.phase(SqlMetrics.Phase.EXECUTE, type, "jdbc", nanos);
+
+        if (template != null) {
+            queryStats.record(template, owner, "jdbc", nanos, sum(counts), error);
+        } else {
+            int n = statements.size();
+            for (int i = 0; i < n; i++) {
+                boolean applied = counts != null && i < counts.length && counts[i] != Statement.EXECUTE_FAILED;
+                queryStats.record(statements.get(i), owner, "jdbc", nanos / n,
+                        applied ? Math.max(0, counts[i]) : 0, applied ? null : error);
+            }
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * Соединение из пула с замером фазы acquire.
+     */
+    private Connection connect(String type) throws SQLException {
+        long t = System.nanoTime();
+        Connection c = pool.getConnection();
+        metrics.phase(SqlMetrics.Phase.ACQUIRE, type, "jdbc", System.nanoTime() - t);
+        return c;
+    }
+
+    /**
+     * Метка type для списка SQL: общий тип, если он у всех одинаковый, иначе OTHER.
+     */
+    private static String batchType(List<String> statements) {
+        String type = null;
+        for (String sql : statements) {
+            String t = SqlMetrics.type(sql);
+            if (type == null) {
+                type = t;
+            } else if (!type.equals(t)) {
+                return "OTHER";
+            }
+        }
+        return type != null ? type : "OTHER";
+    }
+
+    private static void record(SqlBatchResponse resp, int index, int size, long upd, long t0) {
+        resp.getBatches().add(new SqlBatchResponse.Batch(index, size, upd, (System.nanoTime() - t0) / 1_000_000));
+        resp.setItems(resp.getItems() + size);
+        resp.setUpdateCount(resp.getUpdateCount() + upd);
+    }
+
+    private void streamingOn(Connection c, int batchSize, Long flushFrequencyMs) throws SQLException {
+        long flush = flushFrequencyMs != null ? flushFrequencyMs : props.getBatch().getFlushFrequencyMs();
+        StringBuilder cmd = new StringBuilder("SET STREAMING ON");
+        if (props.getBatch().isStreamingAllowOverwrite()) cmd.append(" ALLOW_OVERWRITE ON");
+        cmd.append(" BATCH_SIZE ").append(batchSize);
+        if (flush > 0) cmd.append(" FLUSH_FREQUENCY ").append(flush);
+        try (Statement st = c.createStatement()) {
+            st.execute(cmd.toString());
+        }
+    }
+
+    private static void streamingOff(Connection c) throws SQLException {
+        // OFF дожидается сброса всех буферов стримера
+        try (Statement st = c.createStatement()) {
+            st.execute("SET STREAMING OFF");
+        }
+    }
+
+    /**
+     * Соединение после ошибки: в streaming-режиме оно могло остаться в потоковом состоянии —
+     * такое в пул не возвращаем.
+     */
+    private void discard(Connection c, boolean streaming) {
+        if (!streaming) return;
+        try {
+            streamingOff(c);
+        } catch (SQLException e) {
+            log.warn("SET STREAMING OFF failed, evicting connection: {}", e.getMessage());
+            pool.evict(c);
+        }
+    }
+
+    private void applyTimeout(Statement st, boolean streaming) throws SQLException {
+        int timeout = props.getQueryTimeoutSeconds();
+        if (!streaming && timeout > 0) {
+            st.setQueryTimeout(timeout);
+        }
+    }
+
+    private int batchSize(Integer requested) {
+        int size = requested != null && requested > 0 ? requested : props.getBatch().getBatchSize();
+        return Math.max(1, size);
+    }
+
+    private void checkLimit(int items) {
+        int max = props.getBatch().getMaxItems();
+        if (max > 0 && items > max) {
+            throw new IllegalArgumentException("Too many items in one batch request: " + items + " > " + max);
+        }
+    }
+
+    private static SqlBatchResponse start(boolean streaming) {
+        SqlBatchResponse resp = new SqlBatchResponse();
+        resp.setMode(streaming ? "streaming" : "batch");
+        return resp;
+    }
+
+    private static SqlBatchResponse finish(SqlBatchResponse resp, long t0, Exception error) {
+        long nanos = System.nanoTime() - t0;
+        resp.setOk(error == null);
+        resp.setError(error != null ? error.getMessage() : null);
+        resp.setElapsedMs(nanos / 1_000_000);
+        resp.setItemsPerSec(nanos > 0 ? resp.getItems() * 1e9 / nanos : 0);
+        log.info("SQL batch done: ok={}, items={}, batches={}, elapsedMs={}, itemsPerSec={}",
+                resp.isOk(), resp.getItems(), resp.getBatches().size(), resp.getElapsedMs(),
+                Math.round(resp.getItemsPerSec()));
+        return resp;
+    }
+
+    private static long sum(int[] counts) {
+        long s = 0;
+        if (counts == null) return 0;
+        for (int n : counts) {
+            if (n > 0) s += n;
+        }
+        return s;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.igniteapp.service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Открытый запрос: соединение + Statement + ResultSet, которые живут между HTTP-вызовами.
+ * Чтение страниц последовательное (synchronized), поток может быть любым.
+ */
+public class SqlCursor implements AutoCloseable {
+
+    private final String id;
+    private final String owner;
+    private final String sql;
+    private final Connection connection;
+    private final Statement statement;
+    private final ResultSet rs;
+    private final List<String> columns;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile long lastAccessAt = createdAt;
+    private long rowsFetched;
+    private boolean exhausted;
+    private boolean closed;
+
+    SqlCursor(String id, String owner, String sql, Connection connection, Statement statement, ResultSet rs)
+            throws SQLException {
+        this.id = id;
+        this.owner = owner;
+        this.sql = sql;
+        this.connection = connection;
+        this.statement = statement;
+        this.rs = rs;
+
+        ResultSetMetaData md = rs.getMetaData();
+        List<String> cols = new ArrayList<>(md.getColumnCount());
+        for (int i = 1; i <= md.getColumnCount(); i++) {
+            cols.add(md.getColumnLabel(i));
+        }
+        this.columns = cols;
+    }
+
+    /**
+     * Следующие maxRows строк (позиционные массивы в порядке columns).
+     */
+    public synchronized List<Object[]> fetch(int maxRows) throws SQLException {
+        if (closed) throw new SQLException("Cursor is closed: " + id);
+        lastAccessAt = System.currentTimeMillis();
+
+        List<Object[]> page = new ArrayList<>(Math.min(maxRows, 1024));
+        int cols = columns.size();
+        while (page.size() < maxRows && !exhausted) {
+            if (!rs.next()) {
+                exhausted = true;
+                break;
+            }
+            Object[] row = new Object[cols];
+            for (int i = 0; i < cols; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            page.add(row);
+        }
+        rowsFetched += page.size();
+        return page;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            rs.close();
+        } catch (SQLException ignored) {
+        }
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+        try {
+            // возвращает соединение в пул
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    public String getId() { return id; }
+    public String getOwner() { return owner; }
+    public String getSql() { return sql; }
+    public List<String> getColumns() { return columns; }
+    public long getLastAccessAt() { return lastAccessAt; }
+
+    public synchronized boolean isExhausted() { return exhausted; }
+    public synchronized long getRowsFetched() { return rowsFetched; }
+
+    public Map<String, Object> info() {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("cursorId", id);
+        r.put("owner", owner);
+        r.put("createdAt", createdAt);
+        r.put("lastAccessAt", lastAccessAt);
+        r.put("rowsFetched", getRowsFetched());
+        r.put("exhausted", isExhausted());
+        return r;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.api.dto.SqlParam;
+import com.example.igniteapp.config.IgniteProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Реестр серверных курсоров: open / fetch / close + вытеснение по idle-TTL.
+ * Листание большой таблицы = одно выполнение запроса, дальше только чтение страниц.
+ */
+@Service
+public class SqlCursorService {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlCursorService.class);
+
+    private final SqlService sqlService;
+    private final IgniteProperties props;
+
+    private final Map<String, SqlCursor> cursors = new ConcurrentHashMap<>();
+    // занятые слоты (включая курсоры, которые ещё открываются)
+    private final AtomicInteger slots = new AtomicInteger();
+    // курсоры пользователя, которые ещё открываются; подсчёт и вытеснение по лимиту на пользователя — под userLock
+    private final Map<String, Integer> openingByUser = new HashMap<>();
+    private final Object userLock = new Object();
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evictedByUserCap = new LongAdder();
+
+    public SqlCursorService(SqlService sqlService, IgniteProperties props) {
+        this.sqlService = sqlService;
+        this.props = props;
+    }
+
+    public SqlCursor open(String sql, List<SqlParam> params, String owner) throws Exception {
+        IgniteProperties.Cursors cfg = props.getCursors();
+
+        // сначала общий слот: отказ по общему лимиту не должен стоить пользователю курсора
+        if (slots.incrementAndGet() > cfg.getMaxTotal()) {
+            slots.decrementAndGet();
+            throw new IllegalStateException("Too many open cursors (" + cfg.getMaxTotal() + "), try again later");
+        }
+
+        // лимит на пользователя: закрываем его самые давно не читанные курсоры
+        List<SqlCursor> evicted = new ArrayList<>();
+        synchronized (userLock) {
+            int opening = openingByUser.getOrDefault(owner, 0);
+            List<SqlCursor> own = ownedBy(owner);
+            while (own.size() + opening >= cfg.getMaxPerUser() && !own.isEmpty()) {
+                SqlCursor oldest = own.remove(0);
+                if (cursors.remove(oldest.getId()) != null) {
+                    slots.decrementAndGet();
+                    evicted.add(oldest);
+                }
+            }
+            if (own.size() + opening >= cfg.getMaxPerUser()) {
+                // все слоты пользователя заняты курсорами, которые ещё открываются
+                slots.decrementAndGet();
+                throw new IllegalStateException("Too many cursors being opened for user " + owner
+                        + " (" + cfg.getMaxPerUser() + "), try again later");
+            }
+            openingByUser.merge(owner, 1, Integer::sum);
+        }
+        for (SqlCursor c : evicted) {
+            log.info("SQL cursor evicted (per-user cap): id={}, owner={}", c.getId(), owner);
+            evictedByUserCap.increment();
+            c.close();
+        }
+
+        String id = UUID.randomUUID().toString();
+        SqlCursor cursor = null;
+        try {
+            cursor = sqlService.openCursor(id, owner, sql, params, cfg.getFetchSize());
+            opened.increment();
+            return cursor;
+        } catch (Exception e) {
+            slots.decrementAndGet();
+            throw e;
+        } finally {
+            synchronized (userLock) {
+                // в реестр — под тем же замком, что и подсчёт: между «открывается» и «открыт» курсор не теряется
+                if (cursor != null) cursors.put(id, cursor);
+                openingByUser.computeIfPresent(owner, (k, n) -> n > 1 ? n - 1 : null);
+            }
+        }
+    }
+
+    /**
+     * Курсор владельца; чужие курсоры не видны.
+     */
+    public SqlCursor get(String id, String owner) {
+        SqlCursor c = cursors.get(id);
+        if (c == null || !c.getOwner().equals(owner)) {
+            throw new IllegalArgumentException("Cursor not found: " + id);
+        }
+        return c;
+    }
+
+    public int pageRows(Integer requested) {
+        IgniteProperties.Cursors cfg = props.getCursors();
+        int n = requested != null && requested > 0 ? requested : cfg.getDefaultPageRows();
+        return Math.min(n, cfg.getMaxPageRows());
+    }
+
+    public boolean close(String id) {
+        SqlCursor c = cursors.remove(id);
+        if (c == null) return false;
+        slots.decrementAndGet();
+        c.close();
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("open", cursors.size());
+        r.put("maxTotal", props.getCursors().getMaxTotal());
+        r.put("maxPerUser", props.getCursors().getMaxPerUser());
+        r.put("idleTtlSeconds", props.getCursors().getIdleTtlSeconds());
+        r.put("openedTotal", opened.sum());
+        r.put("expiredTotal", expired.sum());
+        r.put("evictedByUserCapTotal", evictedByUserCap.sum());
+        return r;
+    }
+
+    public List<Map<String, Object>> list(String owner) {
+        List<Map<String, Object>> r = new ArrayList<>();
+        for (SqlCursor c : ownedBy(owner)) r.add(c.info());
+        return r;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ignite.cursors.sweepIntervalMs:10000}")
+    public void evictExpired() {
+        long deadline = System.currentTimeMillis() - props.getCursors().getIdleTtlSeconds() * 1000L;
+        for (SqlCursor c : cursors.values()) {
+            if (c.getLastAccessAt() < deadline && close(c.getId())) {
+                expired.increment();
+                log.info("SQL cursor expired: id={}, owner={}, rowsFetched={}", c.getId(), c.getOwner(), c.getRowsFetched());
+            }
+        }
+    }
+
+    // раньше остановки пула, чтобы не держать его занятые соединения
+    @EventListener(ContextClosedEvent.class)
+    public void closeAll() {
+        for (String id : new ArrayList<>(cursors.keySet())) {
+            close(id);
+        }
+    }
+
+    private List<SqlCursor> ownedBy(String owner) {
+        List<SqlCursor> r = new ArrayList<>();
+        for (SqlCursor c : cursors.values()) {
+            if (c.getOwner().equals(owner)) r.add(c);
+        }
+        r.sort(Comparator.comparingLong(SqlCursor::getLastAccessAt));
+        return r;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.igniteapp.service;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Асинхронное выполнение одного SQL: состояние, прогресс и (после завершения) сохранённый результат.
+ * Строки читаются в потоке исполнителя, статус и страницы результата — из любого потока.
+ * Результат хранится в {@link ResultBuffer}: сверх spillThreshold — во временном файле, удаляемом
+ * вместе с результатом задачи.
+ */
+public class SqlJob implements ResultSetConsumer {
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    /**
+     * Разрешение на следующие байты результата (лимиты на задачу и на все задачи вместе).
+     */
+    interface Budget {
+        boolean reserve(SqlJob job, long bytes);
+    }
+
+    private final String id;
+    private final String owner;
+    private final String sql;
+    private final int limitRows;
+    private final Budget budget;
+    private final long spillThreshold;
+    private final Path spillDir;
+    private final long submittedAt = System.currentTimeMillis();
+
+    private volatile State state = State.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile long lastAccessAt = submittedAt;
+    private volatile String error;
+    private volatile Integer updateCount;
+    private volatile boolean truncated;
+    private volatile boolean resultEvicted;
+    private volatile boolean cancelRequested;
+    private volatile long rowsFetched;
+    private volatile long resultBytes;
+
+    private volatile Statement statement;
+    private volatile Future<?> future;
+
+    // последний результат общего опроса SYS.SQL_QUERIES и когда его в последний раз спрашивали
+    private volatile long igniteProbeWantedAt;
+    private volatile Map<String, Object> igniteProbe;
+
+    private List<String> columns = Collections.emptyList();
+    private ResultBuffer result;
+
+    SqlJob(String id, String owner, String sql, int limitRows, Budget budget, long spillThreshold, Path spillDir) {
+        this.id = id;
+        this.owner = owner;
+        this.sql = sql;
+        this.limitRows = limitRows;
+        this.budget = budget;
+        this.spillThreshold = spillThreshold;
+        this.spillDir = spillDir;
+    }
+
+    @Override
+    public void onStatement(Statement st) {
+        statement = st;
+        if (cancelRequested) cancelStatement();
+    }
+
+    @Override
+    public void onResultSet(ResultSet rs) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        int cols = md.getColumnCount();
+        List<String> names = new ArrayList<>(cols);
+        for (int i = 1; i <= cols; i++) {
+            names.add(md.getColumnLabel(i));
+        }
+        synchronized (this) {
+            columns = names;
+            if (result != null) result.close();
+            result = new ResultBuffer(cols, spillThreshold, spillDir);
+        }
+
+        Object[] row = new Object[cols];
+        while (rs.next()) {
+            if (cancelRequested) throw new SQLException("Cancelled");
+
+            for (int i = 0; i < cols; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            synchronized (this) {
+                if (resultEvicted) throw new SQLException("Job result was released");
+                long bytes = result.encode(row);
+                if (!budget.reserve(this, bytes)) {
+                    // дальше не читаем: закрытие ResultSet отменит остаток выборки на сервере
+                    truncated = true;
+                    return;
+                }
+                result.append();
+                resultBytes += bytes;
+                rowsFetched++;
+            }
+        }
+    }
+
+    @Override
+    public void onUpdateCount(int updateCount) {
+        this.updateCount = updateCount;
+    }
+
+    void started() {
+        startedAt = System.currentTimeMillis();
+        state = State.RUNNING;
+    }
+
+    void finished(Exception e) {
+        statement = null;
+        finishedAt = System.currentTimeMillis();
+        lastAccessAt = finishedAt;
+        if (cancelRequested) {
+            state = State.CANCELLED;
+            error = "Cancelled";
+        } else if (e != null) {
+            state = State.FAILED;
+            error = e.getMessage();
+        } else {
+            state = State.DONE;
+        }
+    }
+
+    /**
+     * Запросить отмену: в очереди — снимается, при выполнении — Statement.cancel(),
+     * а до появления Statement (ожидание слота допуска) поток задачи прерывается.
+     */
+    boolean cancel() {
+        if (isFinished()) return false;
+        cancelRequested = true;
+        Future<?> f = future;
+        if (state == State.QUEUED && f != null && f.cancel(false)) {
+            finished(null);
+            return true;
+        }
+        if (statement == null && f != null) {
+            f.cancel(true);
+        }
+        cancelStatement();
+        return true;
+    }
+
+    private void cancelStatement() {
+        Statement st = statement;
+        if (st == null) return;
+        try {
+            st.cancel();
+        } catch (SQLException ignored) {
+            // флаг cancelRequested всё равно остановит чтение строк
+        }
+    }
+
+    /**
+     * Отдать память и файл результата (TTL/бюджет/удаление задачи); статус задачи остаётся.
+     */
+    synchronized long dropResult() {
+        long freed = resultBytes;
+        if (result != null) {
+            result.close();
+            result = null;
+        }
+        resultBytes = 0;
+        resultEvicted = freed > 0 || resultEvicted;
+        return freed;
+    }
+
+    /**
+     * Страница сохранённого результата.
+     */
+    public synchronized List<Object[]> page(long offset, int limit) {
+        if (!isFinished()) throw new IllegalStateException("Job is not finished yet: " + state);
+        return peek(offset, limit);
+    }
+
+    /**
+     * Уже прочитанные строки, в том числе пока задача выполняется (SSE-канал /events).
+     */
+    public synchronized List<Object[]> peek(long offset, int limit) {
+        if (resultEvicted) throw new IllegalStateException("Job result was evicted (TTL or memory budget)");
+        lastAccessAt = System.currentTimeMillis();
+        if (result == null) return new ArrayList<>();
+        return result.read(Math.max(0, offset), Math.max(0, limit));
+    }
+
+    public boolean isFinished() {
+        State s = state;
+        return s == State.DONE || s == State.FAILED || s == State.CANCELLED;
+    }
+
+    void setFuture(Future<?> future) { this.future = future; }
+
+    long getIgniteProbeWantedAt() { return igniteProbeWantedAt; }
+    void igniteProbeWanted(long now) { this.igniteProbeWantedAt = now; }
+
+    Map<String, Object> getIgniteProbe() { return igniteProbe; }
+    void setIgniteProbe(Map<String, Object> probe) { this.igniteProbe = probe; }
+
+    public String getId() { return id; }
+    public String getOwner() { return owner; }
+    public String getSql() { return sql; }
+    public int getLimitRows() { return limitRows; }
+    public long getSubmittedAt() { return submittedAt; }
+    public long getStartedAt() { return startedAt; }
+    public State getState() { return state; }
+    public long getFinishedAt() { return finishedAt; }
+    public long getLastAccessAt() { return lastAccessAt; }
+    public long getResultBytes() { return resultBytes; }
+    public long getRowsFetched() { return rowsFetched; }
+    @Override public long getRowCount() { return rowsFetched; }
+    public synchronized boolean isSpilled() { return result != null && result.isSpilled(); }
+    public synchronized List<String> getColumns() { return columns; }
+
+    public Map<String, Object> info() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("jobId", id);
+        r.put("owner", owner);
+        r.put("state", state.name());
+        r.put("error", error);
+        r.put("sql", SqlService.safePreview(sql, 300));
+        r.put("submittedAt", submittedAt);
+        r.put("startedAt", startedAt > 0 ? startedAt : null);
+        r.put("finishedAt", finishedAt > 0 ? finishedAt : null);
+        r.put("queuedMs", (startedAt > 0 ? startedAt : now) - submittedAt);
+        r.put("runningMs", startedAt > 0 ? (finishedAt > 0 ? finishedAt : now) - startedAt : 0);
+        r.put("rowsFetched", rowsFetched);
+        r.put("updateCount", updateCount);
+        r.put("resultBytes", resultBytes);
+        r.put("resultOnDisk", isSpilled());
+        r.put("truncated", truncated);
+        r.put("resultEvicted", resultEvicted);
+        return r;
+    }
+}
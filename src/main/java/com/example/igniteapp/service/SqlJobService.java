@@ -0,0 +1,369 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.api.dto.SqlParam;
+import com.example.igniteapp.config.IgniteProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Асинхронные SQL-задачи: ограниченный пул исполнителей + очередь, отмена, хранение
+ * результатов в пределах бюджета и TTL. Долгий запрос не держит поток Tomcat.
+ * Большие результаты уходят на диск ({@link ResultBuffer}) в каталог jobs.spillDir.
+ */
+@Service
+public class SqlJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlJobService.class);
+
+    private final SqlService sqlService;
+    private final IgniteProperties props;
+    private final ThreadPoolExecutor executor;
+    private static final String SPILL_SUBDIR_PREFIX = "pid-";
+    // метка в начале текста запроса задачи: по ней запрос находится в SYS.SQL_QUERIES
+    private static final String JOB_MARKER = "/* sql-job:";
+    private static final String PROBE_OWNER = "sql-job-progress";
+
+    private final Path spillDir;
+
+    private final Map<String, SqlJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder evictedResults = new LongAdder();
+
+    public SqlJobService(SqlService sqlService, IgniteProperties props) {
+        this.sqlService = sqlService;
+        this.props = props;
+
+        IgniteProperties.Jobs cfg = props.getJobs();
+        int threads = Math.max(1, cfg.getThreads());
+        AtomicInteger n = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, cfg.getQueueCapacity())),
+                r -> {
+                    Thread t = new Thread(r, "sql-job-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        Path spillRoot = cfg.getSpillDir() == null || cfg.getSpillDir().isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "ignite-sql-ui")
+                : Paths.get(cfg.getSpillDir());
+        // свой подкаталог на процесс: несколько экземпляров на хосте могут делить spillDir
+        this.spillDir = spillRoot.resolve(SPILL_SUBDIR_PREFIX + ProcessHandle.current().pid());
+        deleteStaleSpillFiles(spillRoot);
+    }
+
+    public SqlJob submit(String sql, List<SqlParam> params, String owner, Integer limitRows) {
+        IgniteProperties.Jobs cfg = props.getJobs();
+
+        long active = ownedBy(owner).stream().filter(j -> !j.isFinished()).count();
+        if (active >= cfg.getMaxActivePerUser()) {
+            rejected.increment();
+            throw new IllegalStateException("Too many active jobs for user (" + cfg.getMaxActivePerUser() + ")");
+        }
+
+        int limit = limitRows != null && limitRows > 0 ? Math.min(limitRows, cfg.getMaxRows()) : cfg.getMaxRows();
+        SqlJob job = new SqlJob(UUID.randomUUID().toString(), owner, sql, limit, this::reserve,
+                cfg.getSpillThresholdBytes(), spillDir);
+        jobs.put(job.getId(), job);
+
+        try {
+            job.setFuture(executor.submit(() -> run(job, params)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            rejected.increment();
+            throw new IllegalStateException("Job queue is full (" + cfg.getQueueCapacity() + "), try again later");
+        }
+        submitted.increment();
+        log.info("SQL job submitted: id={}, owner={}, sql=\"{}\"", job.getId(), owner, SqlService.safePreview(sql, 300));
+        return job;
+    }
+
+    private void run(SqlJob job, List<SqlParam> params) {
+        IgniteProperties.Jobs cfg = props.getJobs();
+        job.started();
+        Exception error = null;
+        try {
+            sqlService.stream(job.getOwner(), markedSql(job), params, job.getLimitRows(), cfg.getFetchSize(),
+                    cfg.getQueryTimeoutSeconds(), SqlAdmission.Lane.JOB, job);
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            job.finished(error);
+            if (job.getState() == SqlJob.State.CANCELLED) cancelled.increment();
+            log.info("SQL job finished: id={}, state={}, rows={}, resultBytes={}",
+                    job.getId(), job.getState(), job.getRowsFetched(), job.getResultBytes());
+        }
+    }
+
+    /**
+     * Задача владельца; чужие не видны.
+     */
+    public SqlJob get(String id, String owner) {
+        SqlJob j = jobs.get(id);
+        if (j == null || !j.getOwner().equals(owner)) {
+            throw new IllegalArgumentException("Job not found: " + id);
+        }
+        return j;
+    }
+
+    /**
+     * Выполняется — отменить; завершена — удалить вместе с результатом.
+     */
+    public boolean cancelOrRemove(String id, String owner) {
+        SqlJob j = get(id, owner);
+        if (!j.isFinished()) {
+            log.info("SQL job cancel requested: id={}, owner={}", id, owner);
+            boolean wasQueued = j.getState() == SqlJob.State.QUEUED;
+            boolean r = j.cancel();
+            if (wasQueued && j.getState() == SqlJob.State.CANCELLED) cancelled.increment();
+            return r;
+        }
+        remove(j);
+        return true;
+    }
+
+    public int pageRows(Integer requested) {
+        IgniteProperties.Jobs cfg = props.getJobs();
+        int n = requested != null && requested > 0 ? requested : cfg.getDefaultPageRows();
+        return Math.min(n, cfg.getMaxPageRows());
+    }
+
+    public List<Map<String, Object>> list(String owner) {
+        List<Map<String, Object>> r = new ArrayList<>();
+        for (SqlJob j : ownedBy(owner)) r.add(j.info());
+        return r;
+    }
+
+    public Map<String, Object> stats() {
+        IgniteProperties.Jobs cfg = props.getJobs();
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("threads", executor.getMaximumPoolSize());
+        r.put("running", executor.getActiveCount());
+        r.put("queued", executor.getQueue().size());
+        r.put("queueCapacity", cfg.getQueueCapacity());
+        r.put("jobs", jobs.size());
+        r.put("retainedBytes", retainedBytes.get());
+        r.put("maxTotalResultBytes", cfg.getMaxTotalResultBytes());
+        r.put("resultsOnDisk", jobs.values().stream().filter(SqlJob::isSpilled).count());
+        r.put("spillDir", spillDir.toString());
+        r.put("submittedTotal", submitted.sum());
+        r.put("rejectedTotal", rejected.sum());
+        r.put("cancelledTotal", cancelled.sum());
+        r.put("evictedResultsTotal", evictedResults.sum());
+        return r;
+    }
+
+    /**
+     * Состояние запроса задачи на стороне Ignite (SYS.SQL_QUERIES): id, длительность, узел-инициатор —
+     * последний результат фонового опроса {@link #pollIgniteQueries()}, без обращения к кластеру.
+     * null — задача не выполняется, запрос ещё не дошёл до Ignite или уже завершился там.
+     */
+    public Map<String, Object> igniteQuery(SqlJob job) {
+        if (job.getState() != SqlJob.State.RUNNING) return null;
+        job.igniteProbeWanted(System.currentTimeMillis());
+        return job.getIgniteProbe();
+    }
+
+    /**
+     * Один запрос к SYS.SQL_QUERIES на все выполняющиеся задачи, чьё состояние спрашивали недавно
+     * (есть подписчики). Запрос задачи находится по метке {@link #JOB_MARKER} с её id — чужие запросы
+     * с тем же текстом не подходят. Идёт по обычной полосе USER и в статистику по отпечаткам не попадает.
+     */
+    @Scheduled(fixedDelayString = "${app.ignite.events.progressIntervalMs:1000}")
+    public void pollIgniteQueries() {
+        long now = System.currentTimeMillis();
+        long wantedAfter = now - 3 * Math.max(1, props.getEvents().getProgressIntervalMs());
+        List<SqlJob> watched = new ArrayList<>();
+        for (SqlJob j : jobs.values()) {
+            if (j.getState() == SqlJob.State.RUNNING && j.getIgniteProbeWantedAt() >= wantedAfter) watched.add(j);
+        }
+        if (watched.isEmpty()) return;
+
+        Map<String, Object> res;
+        try {
+            res = sqlService.execute(SqlQuery.of("SELECT QUERY_ID, SQL, START_TIME, DURATION, ORIGIN_NODE_ID, LOCAL, SCHEMA_NAME " +
+                            "FROM SYS.SQL_QUERIES WHERE SQL LIKE '" + JOB_MARKER + "%'")
+                    .limitRows(Math.max(1, props.getJobs().getThreads()) * 2)
+                    .noCache().noStats().engine("jdbc").owner(PROBE_OWNER));
+        } catch (Exception e) {
+            log.debug("SYS.SQL_QUERIES lookup failed: {}", e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(res.get("ok")) || !(res.get("rows") instanceof List)) return;
+
+        Map<String, Map<String, Object>> byJob = new LinkedHashMap<>();
+        for (Object o : (List<?>) res.get("rows")) {
+            if (!(o instanceof Map)) continue;
+            Map<?, ?> row = (Map<?, ?>) o;
+            String id = markedJobId(row.get("SQL"));
+            if (id == null) continue;
+
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("queryId", row.get("QUERY_ID"));
+            r.put("startTime", row.get("START_TIME") instanceof Date ? ((Date) row.get("START_TIME")).getTime() : null);
+            r.put("durationMs", row.get("DURATION"));
+            r.put("originNodeId", row.get("ORIGIN_NODE_ID"));
+            r.put("local", row.get("LOCAL"));
+            r.put("schema", row.get("SCHEMA_NAME"));
+            byJob.put(id, r);
+        }
+        for (SqlJob j : watched) j.setIgniteProbe(byJob.get(j.getId()));
+    }
+
+    /**
+     * Текст, который уходит в Ignite: SQL задачи с меткой-комментарием в начале.
+     */
+    static String markedSql(SqlJob job) {
+        return JOB_MARKER + job.getId() + " */ " + job.getSql();
+    }
+
+    private static String markedJobId(Object sql) {
+        if (!(sql instanceof String) || !((String) sql).startsWith(JOB_MARKER)) return null;
+        String s = (String) sql;
+        int end = s.indexOf(" */", JOB_MARKER.length());
+        return end > 0 ? s.substring(JOB_MARKER.length(), end) : null;
+    }
+
+    /**
+     * Бюджет результатов (куча + диск): сначала лимит задачи, потом общий —
+     * при нехватке вытесняются результаты давно не читанных завершённых задач.
+     */
+    private boolean reserve(SqlJob job, long bytes) {
+        IgniteProperties.Jobs cfg = props.getJobs();
+        if (job.getResultBytes() + bytes > cfg.getMaxResultBytes()) return false;
+
+        if (retainedBytes.addAndGet(bytes) <= cfg.getMaxTotalResultBytes()) return true;
+
+        for (SqlJob old : finishedByAccess()) {
+            release(old);
+            evictedResults.increment();
+            log.info("SQL job result evicted (result budget): id={}", old.getId());
+            if (retainedBytes.get() <= cfg.getMaxTotalResultBytes()) return true;
+        }
+        retainedBytes.addAndGet(-bytes);
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ignite.jobs.sweepIntervalMs:10000}")
+    public void evictExpired() {
+        IgniteProperties.Jobs cfg = props.getJobs();
+        long now = System.currentTimeMillis();
+        long resultDeadline = now - cfg.getResultTtlSeconds() * 1000L;
+        long jobDeadline = now - cfg.getJobTtlSeconds() * 1000L;
+        for (SqlJob j : jobs.values()) {
+            if (!j.isFinished()) continue;
+            if (j.getLastAccessAt() < jobDeadline) {
+                remove(j);
+            } else if (j.getLastAccessAt() < resultDeadline && j.getResultBytes() > 0) {
+                release(j);
+                evictedResults.increment();
+                log.info("SQL job result expired: id={}, owner={}", j.getId(), j.getOwner());
+            }
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        for (SqlJob j : jobs.values()) j.cancel();
+        executor.shutdownNow();
+        for (SqlJob j : jobs.values()) release(j);
+        try {
+            Files.deleteIfExists(spillDir);
+        } catch (IOException e) {
+            log.debug("Result spill dir not removed: {}: {}", spillDir, e.getMessage());
+        }
+    }
+
+    /**
+     * Файлы результатов, оставшиеся после аварийной остановки прошлых процессов: подкаталоги
+     * pid-N, чей процесс уже не жив (или совпадает с нашим pid — повторное использование номера).
+     * Каталоги живых экземпляров не трогаются.
+     */
+    private void deleteStaleSpillFiles(Path spillRoot) {
+        if (!Files.isDirectory(spillRoot)) return;
+        long self = ProcessHandle.current().pid();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(spillRoot, SPILL_SUBDIR_PREFIX + "*")) {
+            for (Path d : dirs) {
+                long pid;
+                try {
+                    pid = Long.parseLong(d.getFileName().toString().substring(SPILL_SUBDIR_PREFIX.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (pid != self && ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) continue;
+                deleteSpillFiles(d);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to clean result spill dir {}: {}", spillRoot, e.getMessage());
+        }
+    }
+
+    private static void deleteSpillFiles(Path dir) {
+        if (!Files.isDirectory(dir)) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir,
+                ResultBuffer.FILE_PREFIX + "*" + ResultBuffer.FILE_SUFFIX)) {
+            for (Path f : files) {
+                Files.deleteIfExists(f);
+                log.info("Stale result spill file deleted: {}", f);
+            }
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            // в каталоге остались чужие файлы — не наш каталог, оставляем
+            log.warn("Failed to clean result spill dir {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void remove(SqlJob j) {
+        if (jobs.remove(j.getId()) != null) release(j);
+    }
+
+    private void release(SqlJob j) {
+        retainedBytes.addAndGet(-j.dropResult());
+    }
+
+    private List<SqlJob> finishedByAccess() {
+        List<SqlJob> r = new ArrayList<>();
+        for (SqlJob j : jobs.values()) {
+            if (j.isFinished() && j.getResultBytes() > 0) r.add(j);
+        }
+        r.sort(Comparator.comparingLong(SqlJob::getLastAccessAt));
+        return r;
+    }
+
+    private List<SqlJob> ownedBy(String owner) {
+        List<SqlJob> r = new ArrayList<>();
+        for (SqlJob j : jobs.values()) {
+            if (j.getOwner().equals(owner)) r.add(j);
+        }
+        r.sort(Comparator.comparingLong(SqlJob::getSubmittedAt).reversed());
+        return r;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.ignite.IgniteInternalSql;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики SQL для /actuator/prometheus: время по фазам (acquire, execute, fetch, serialize),
+ * строки, байты ответа и ошибки по SQLState.
+ * <p>
+ * Метки только с ограниченным набором значений: тип оператора (см. {@link #type(String)}),
+ * движок, SQLState. Текст SQL в метки не попадает.
+ */
+@Component
+public class SqlMetrics {
+
+    public enum Phase {
+        ACQUIRE, EXECUTE, FETCH, SERIALIZE;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    /** Всё остальное (в т.ч. мусор на входе) схлопывается в OTHER. */
+    private static final Set<String> TYPES = Set.of(
+            "SELECT", "INSERT", "UPDATE", "DELETE", "MERGE", "CREATE", "DROP", "ALTER",
+            "EXPLAIN", "COPY", "SET", "KILL", "ANALYZE");
+
+    /** Фиксированные границы гистограммы вместо процентилей: дёшево и агрегируется между узлами. */
+    private static final Duration[] SLO = {
+            Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25),
+            Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+            Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10),
+            Duration.ofSeconds(30)
+    };
+
+    private final MeterRegistry registry;
+
+    // builder + поиск в реестре на каждый запрос заметно дороже, чем map по готовому ключу
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public SqlMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Тип оператора для метки: SELECT, INSERT, ... (WITH считается SELECT), иначе OTHER.
+     */
+    public static String type(String sql) {
+        String t = SqlText.statementType(sql);
+        if ("WITH".equals(t)) return "SELECT";
+        return TYPES.contains(t) ? t : "OTHER";
+    }
+
+    public void phase(Phase phase, String type, String engine, long nanos) {
+        timers.computeIfAbsent(phase.tag + '|' + type + '|' + engine, k -> Timer.builder("sql.phase")
+                .description("Время фазы обработки SQL-запроса")
+                .tags("phase", phase.tag, "type", type, "engine", engine)
+                .serviceLevelObjectives(SLO)
+                .register(registry)
+        ).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void rows(String type, String engine, long rows) {
+        if (rows <= 0) return;
+        counter("sql.rows", "Строки, отданные клиенту", "type", type, "engine", engine).increment(rows);
+    }
+
+    public void bytes(String uri, long bytes) {
+        if (bytes <= 0) return;
+        counter("sql.response.bytes", "Байты тела ответа (до сжатия)", "uri", uri).increment(bytes);
+    }
+
+    public void error(String type, String engine, Throwable e) {
+        counter("sql.errors", "Ошибки SQL по SQLState", "type", type, "engine", engine, "sqlstate", sqlState(e))
+                .increment();
+    }
+
+    private Counter counter(String name, String description, String... tags) {
+        return counters.computeIfAbsent(name + '|' + String.join("|", tags), k -> Counter.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(registry));
+    }
+
+    /**
+     * SQLState из цепочки причин (JDBC или нативный движок); нет или не похож на SQLState — UNKNOWN.
+     */
+    static String sqlState(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            String s = null;
+            if (t instanceof SQLException) s = ((SQLException) t).getSQLState();
+            else s = IgniteInternalSql.sqlState(t);
+            if (s != null && s.length() == 5 && s.chars().allMatch(Character::isLetterOrDigit)) {
+                return s.toUpperCase(Locale.ROOT);
+            }
+        }
+        return "UNKNOWN";
+    }
+}
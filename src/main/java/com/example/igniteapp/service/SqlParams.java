@@ -0,0 +1,164 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.api.dto.SqlParam;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Привязка типизированных параметров запроса к PreparedStatement.
+ */
+public final class SqlParams {
+
+    private SqlParams() {
+    }
+
+    public static void bind(PreparedStatement ps, List<SqlParam> params) throws SQLException {
+        if (params == null) return;
+        for (int i = 0; i < params.size(); i++) {
+            SqlParam p = params.get(i);
+            bind(ps, i + 1, p != null ? p.getType() : null, p != null ? p.getValue() : null);
+        }
+    }
+
+    public static void bind(PreparedStatement ps, int idx, String type, Object v) throws SQLException {
+        String t = type == null ? "" : type.trim().toUpperCase(Locale.ROOT);
+
+        if (v == null) {
+            ps.setNull(idx, sqlType(t));
+            return;
+        }
+        ps.setObject(idx, value(idx, t, v));
+    }
+
+    /**
+     * Значения параметров как Java-объекты — для выполнения без JDBC (SqlFieldsQuery.setArgs).
+     */
+    public static Object[] values(List<SqlParam> params) throws SQLException {
+        if (params == null) return new Object[0];
+        Object[] r = new Object[params.size()];
+        for (int i = 0; i < r.length; i++) {
+            SqlParam p = params.get(i);
+            if (p == null || p.getValue() == null) continue;
+            r[i] = value(i + 1, p.getType() == null ? "" : p.getType().trim().toUpperCase(Locale.ROOT), p.getValue());
+        }
+        return r;
+    }
+
+    /**
+     * Однозначная запись параметров для ключа кэша: каждое поле с префиксом длины,
+     * тип JSON-значения учитывается (42 и "42" — разные ключи), null отличается от "null".
+     */
+    public static String cacheKey(List<SqlParam> params) {
+        if (params == null || params.isEmpty()) return "0";
+        StringBuilder sb = new StringBuilder().append(params.size());
+        for (SqlParam p : params) {
+            if (p == null) {
+                sb.append(";-");
+                continue;
+            }
+            Object v = p.getValue();
+            appendField(sb.append(';'), p.getType());
+            appendField(sb, v == null ? null : v.getClass().getSimpleName());
+            appendField(sb, v == null ? null : String.valueOf(v));
+        }
+        return sb.toString();
+    }
+
+    private static void appendField(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append('-');
+        } else {
+            sb.append(s.length()).append(':').append(s);
+        }
+    }
+
+    private static Object value(int idx, String t, Object v) throws SQLException {
+        try {
+            switch (t) {
+                case "":
+                    return v;
+                case "VARCHAR":
+                case "STRING":
+                case "CHAR":
+                    return v.toString();
+                case "INT":
+                case "INTEGER":
+                case "SMALLINT":
+                case "TINYINT":
+                    return v instanceof Number ? ((Number) v).intValue() : Integer.parseInt(v.toString().trim());
+                case "BIGINT":
+                case "LONG":
+                    return v instanceof Number ? ((Number) v).longValue() : Long.parseLong(v.toString().trim());
+                case "DOUBLE":
+                case "FLOAT":
+                case "REAL":
+                    return v instanceof Number ? ((Number) v).doubleValue() : Double.parseDouble(v.toString().trim());
+                case "DECIMAL":
+                case "NUMERIC":
+                    return new BigDecimal(v.toString().trim());
+                case "BOOLEAN":
+                case "BOOL":
+                    return v instanceof Boolean ? (Boolean) v : Boolean.parseBoolean(v.toString().trim());
+                case "DATE":
+                    return Date.valueOf(LocalDate.parse(v.toString().trim()));
+                case "TIME":
+                    return Time.valueOf(LocalTime.parse(v.toString().trim()));
+                case "TIMESTAMP":
+                    return Timestamp.valueOf(LocalDateTime.parse(v.toString().trim().replace(' ', 'T')));
+                case "UUID":
+                    return UUID.fromString(v.toString().trim());
+                default:
+                    throw new SQLException("Unsupported parameter type: " + t);
+            }
+        } catch (RuntimeException e) {
+            throw new SQLException("Invalid value for parameter #" + idx + " (" + t + "): " + v, e);
+        }
+    }
+
+    private static int sqlType(String t) {
+        switch (t) {
+            case "INT":
+            case "INTEGER":
+                return Types.INTEGER;
+            case "SMALLINT":
+                return Types.SMALLINT;
+            case "TINYINT":
+                return Types.TINYINT;
+            case "BIGINT":
+            case "LONG":
+                return Types.BIGINT;
+            case "DOUBLE":
+            case "FLOAT":
+            case "REAL":
+                return Types.DOUBLE;
+            case "DECIMAL":
+            case "NUMERIC":
+                return Types.DECIMAL;
+            case "BOOLEAN":
+            case "BOOL":
+                return Types.BOOLEAN;
+            case "DATE":
+                return Types.DATE;
+            case "TIME":
+                return Types.TIME;
+            case "TIMESTAMP":
+                return Types.TIMESTAMP;
+            case "UUID":
+                return Types.OTHER;
+            default:
+                return Types.VARCHAR;
+        }
+    }
+}
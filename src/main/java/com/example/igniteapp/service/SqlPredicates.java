@@ -0,0 +1,152 @@
+package com.example.igniteapp.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Таблицы и простые предикаты из отпечатка запроса ({@link SqlText#fingerprint}: верхний регистр,
+ * литералы заменены на '?'). Без полноценного парсера, как и {@link SqlText}:
+ * <pre>
+ * SELECT ... FROM P P JOIN C C ON P.CITY = C.NAME WHERE P.AGE > ? AND NAME IN (?+)
+ *   tables:     P (алиас P), C (алиас C)
+ *   predicates: P.CITY eq join, C.NAME eq join, P.AGE range, NAME eq (таблицу определит вызывающий)
+ * </pre>
+ * Условия над выражениями (LOWER(NAME) = ?), &lt;&gt;, NOT IN, IS NULL не разбираются — индекс по столбцу
+ * им всё равно не поможет.
+ */
+final class SqlPredicates {
+
+    static final String EQ = "eq";
+    static final String RANGE = "range";
+    static final String LIKE = "like";
+
+    private static final String ID = "(?:\"[^\"]+\"|[A-Z_][A-Z0-9_$]*)";
+
+    private static final String NOT_KEYWORD =
+            "(?!(?:WHERE|ON|JOIN|INNER|LEFT|RIGHT|FULL|OUTER|CROSS|NATURAL|GROUP|ORDER|HAVING|LIMIT|OFFSET|" +
+                    "UNION|EXCEPT|INTERSECT|MINUS|SET|USING|USE|FOR|WINDOW|FETCH)\\b)";
+
+    private static final String TABLE = "(" + ID + "(?:\\s*\\.\\s*" + ID + ")?)(?:\\s+(?:AS\\s+)?" + NOT_KEYWORD + "(" + ID + "))?";
+
+    private static final Pattern TABLE_REF = Pattern.compile("\\b(?:FROM|JOIN|UPDATE)\\s+" + TABLE);
+
+    private static final Pattern NEXT_TABLE = Pattern.compile("\\s*,\\s*" + TABLE);
+
+    private static final Pattern CONDITIONS = Pattern.compile("\\b(?:WHERE|ON)\\b");
+
+    private static final String COLUMN = "(?:(" + ID + ")\\s*\\.\\s*)?(" + ID + ")";
+
+    private static final Pattern PREDICATE = Pattern.compile(
+            "(?<![\\w$\".])" + COLUMN +
+                    "\\s*(<=|>=|<>|!=|=|<|>|\\bNOT\\s+IN\\b|\\bIN\\b|\\bNOT\\s+LIKE\\b|\\bLIKE\\b|\\bBETWEEN\\b)\\s*" +
+                    "(?:" + COLUMN + "(?![\\w$\"(.])|-?\\?|\\()");
+
+    private final List<TableRef> tables;
+    private final List<Predicate> predicates;
+
+    private SqlPredicates(List<TableRef> tables, List<Predicate> predicates) {
+        this.tables = tables;
+        this.predicates = predicates;
+    }
+
+    static SqlPredicates parse(String fingerprint) {
+        List<TableRef> tables = new ArrayList<>();
+        List<Predicate> predicates = new ArrayList<>();
+        if (fingerprint == null) return new SqlPredicates(tables, predicates);
+
+        Matcher m = TABLE_REF.matcher(fingerprint);
+        while (m.find()) {
+            tables.add(TableRef.of(m.group(1), m.group(2)));
+            // FROM A, B B2, C
+            Matcher next = NEXT_TABLE.matcher(fingerprint);
+            int pos = m.end();
+            while (next.region(pos, fingerprint.length()).lookingAt()) {
+                tables.add(TableRef.of(next.group(1), next.group(2)));
+                pos = next.end();
+            }
+        }
+
+        Matcher c = CONDITIONS.matcher(fingerprint);
+        if (c.find()) {
+            Matcher p = PREDICATE.matcher(fingerprint);
+            p.region(c.end(), fingerprint.length());
+            while (p.find()) {
+                String kind = kind(p.group(3));
+                if (kind == null) continue;
+                boolean join = p.group(5) != null;
+                predicates.add(new Predicate(unquote(p.group(1)), unquote(p.group(2)), kind, join));
+                if (join) predicates.add(new Predicate(unquote(p.group(4)), unquote(p.group(5)), kind, true));
+            }
+        }
+        return new SqlPredicates(Collections.unmodifiableList(tables), Collections.unmodifiableList(predicates));
+    }
+
+    private static String kind(String op) {
+        String o = op.replaceAll("\\s+", " ");
+        switch (o) {
+            case "=":
+            case "IN":
+                return EQ;
+            case "<":
+            case ">":
+            case "<=":
+            case ">=":
+            case "BETWEEN":
+                return RANGE;
+            case "LIKE":
+                return LIKE;
+            default:
+                return null;
+        }
+    }
+
+    private static String unquote(String ident) {
+        return ident == null ? null : SqlText.lastPart(ident);
+    }
+
+    List<TableRef> tables() { return tables; }
+
+    List<Predicate> predicates() { return predicates; }
+
+    /**
+     * Таблица из FROM/JOIN/UPDATE; schema == null — схема запроса по умолчанию.
+     */
+    static final class TableRef {
+        final String schema;
+        final String table;
+        final String alias;
+
+        private TableRef(String schema, String table, String alias) {
+            this.schema = schema;
+            this.table = table;
+            this.alias = alias;
+        }
+
+        static TableRef of(String name, String alias) {
+            String s = name.trim();
+            int dot = s.startsWith("\"") ? s.indexOf('.', s.indexOf('"', 1)) : s.indexOf('.');
+            String schema = dot > 0 ? unquote(s.substring(0, dot).trim()) : null;
+            return new TableRef(schema, unquote(s), unquote(alias));
+        }
+    }
+
+    /**
+     * Условие на столбец; qualifier == null — столбец без алиаса.
+     */
+    static final class Predicate {
+        final String qualifier;
+        final String column;
+        final String kind;
+        final boolean join;
+
+        Predicate(String qualifier, String column, String kind, boolean join) {
+            this.qualifier = qualifier;
+            this.column = column;
+            this.kind = kind;
+            this.join = join;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.igniteapp.service;
+
+import com.example.igniteapp.api.dto.SqlParam;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Параметры одного выполнения SQL через SqlService.
+ * <pre>
+ * sqlService.execute(SqlQuery.of("SELECT 1").limitRows(1).noCache());
+ * </pre>
+ */
+public class SqlQuery {
+
+    private final String sql;
+    private int limitRows;
+    private long maxResultBytes;
+    private boolean compact;
+    private boolean useCache = true;
+    private boolean recordStats = true;
+    private List<SqlParam> params = Collections.emptyList();
+    private String engine;
+    private String owner = SqlAdmission.ANONYMOUS;
+    private SqlAdmission.Lane lane = SqlAdmission.Lane.USER;
+
+    private SqlQuery(String sql) {
+        this.sql = sql;
+    }
+
+    public static SqlQuery of(String sql) {
+        return new SqlQuery(sql);
+    }
+
+    /**
+     * Лимит строк; 0 — значение по умолчанию (app.ignite.maxRows).
+     */
+    public SqlQuery limitRows(int limitRows) {
+        this.limitRows = limitRows;
+        return this;
+    }
+
+    /**
+     * Бюджет памяти результата; 0 — app.ignite.maxResultBytes (больше него задать нельзя).
+     */
+    public SqlQuery maxResultBytes(long maxResultBytes) {
+        this.maxResultBytes = maxResultBytes;
+        return this;
+    }
+
+    public SqlQuery compact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
+    public SqlQuery useCache(boolean useCache) {
+        this.useCache = useCache;
+        return this;
+    }
+
+    public SqlQuery noCache() {
+        return useCache(false);
+    }
+
+    /**
+     * Не учитывать выполнение в статистике по отпечаткам (QueryStatsCollector) — для служебных
+     * проб и повторных замеров, которые иначе искажали бы картину пользовательской нагрузки.
+     */
+    public SqlQuery noStats() {
+        this.recordStats = false;
+        return this;
+    }
+
+    /**
+     * Значения для '?' в SQL; непустой список = выполнение через PreparedStatement.
+     */
+    public SqlQuery params(List<SqlParam> params) {
+        this.params = params != null ? params : Collections.emptyList();
+        return this;
+    }
+
+    /**
+     * jdbc | native | auto; null — app.ignite.engine.
+     */
+    public SqlQuery engine(String engine) {
+        this.engine = engine;
+        return this;
+    }
+
+    /**
+     * Пользователь — для лимита одновременных запросов на пользователя.
+     */
+    public SqlQuery owner(String owner) {
+        this.owner = owner != null ? owner : SqlAdmission.ANONYMOUS;
+        return this;
+    }
+
+    /**
+     * Служебный запрос (диагностика, readiness): отдельная полоса допуска, без очереди пользователей.
+     */
+    public SqlQuery system() {
+        this.lane = SqlAdmission.Lane.SYSTEM;
+        return this;
+    }
+
+    public String getSql() { return sql; }
+    public int getLimitRows() { return limitRows; }
+    public long getMaxResultBytes() { return maxResultBytes; }
+    public boolean isCompact() { return compact; }
+    public boolean isUseCache() { return useCache; }
+    public boolean isRecordStats() { return recordStats; }
+    public List<SqlParam> getParams() { return params; }
+    public String getEngine() { return engine; }
+    public String getOwner() { return owner; }
+    public SqlAdmission.Lane getLane() { return lane; }
+}
@@ -1,10 +1,14 @@
 package com.example.igniteapp.service;
 
+import com.example.igniteapp.api.dto.ColumnVector;
+import com.example.igniteapp.api.dto.SqlParam;
 import com.example.igniteapp.config.IgniteProperties;
+import com.example.igniteapp.ignite.IgniteConnectionPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.lang.reflect.Array;
 import java.sql.*;
 import java.util.*;
 
@@ -14,9 +18,36 @@ public class SqlService {
     private static final Logger log = LoggerFactory.getLogger(SqlService.class);
 
     private final IgniteProperties props;
+    private final IgniteConnectionPool pool;
+    private final QueryResultCache cache;
+    private final PreparedStatementCache statementCache;
+    private final NativeQueryEngine nativeEngine;
+    private final SqlAdmission admission;
+    private final SqlMetrics metrics;
+    private final QueryStatsCollector queryStats;
+    private final PlanCache planCache;
+    private final ResultBudget resultBudget;
 
-    public SqlService(IgniteProperties props) {
+    public SqlService(IgniteProperties props,
+                      IgniteConnectionPool pool,
+                      QueryResultCache cache,
+                      PreparedStatementCache statementCache,
+                      NativeQueryEngine nativeEngine,
+                      SqlAdmission admission,
+                      SqlMetrics metrics,
+                      QueryStatsCollector queryStats,
+                      PlanCache planCache,
+                      ResultBudget resultBudget) {
         this.props = props;
+        this.pool = pool;
+        this.cache = cache;
+        this.statementCache = statementCache;
+        this.nativeEngine = nativeEngine;
+        this.admission = admission;
+        this.metrics = metrics;
+        this.queryStats = queryStats;
+        this.planCache = planCache;
+        this.resultBudget = resultBudget;
 
         // на всякий случай регистрируем драйвер (не обязательно, но полезно)
         try {
@@ -29,41 +60,141 @@ public class SqlService {
     }
 
     public Map<String, Object> execute(String sql) throws Exception {
-        return executeWithLimit(sql, props.getMaxRows());
+        return execute(SqlQuery.of(sql));
     }
 
     public Map<String, Object> executeWithLimit(String sql, int limitRows) throws Exception {
+        return execute(SqlQuery.of(sql).limitRows(limitRows));
+    }
+
+    public Map<String, Object> execute(SqlQuery q) throws Exception {
+        String sql = q.getSql();
+        int limitRows = q.getLimitRows() > 0 ? q.getLimitRows() : props.getMaxRows();
+        boolean readOnly = SqlText.isReadOnly(sql);
+
+        boolean useNative = useNative(q.getEngine());
+        String engine = useNative ? "native" : "jdbc";
+
+        String cacheKey = null;
+        long cacheGeneration = 0;
+        if (readOnly && q.isUseCache() && cache.isEnabled()) {
+            long t0 = System.nanoTime();
+            // параметры — последними и с префиксами длин: иначе разные наборы могли бы дать одну строку
+            String variant = (q.isCompact() ? "compact" : "rows") + ';' + engine + ';' + q.getMaxResultBytes()
+                    + ';' + SqlParams.cacheKey(q.getParams());
+            cacheKey = QueryResultCache.key(sql, limitRows, variant);
+            Map<String, Object> hit = cache.get(cacheKey);
+            if (hit != null) {
+                hit.put("elapsedMs", (System.nanoTime() - t0) / 1_000_000);
+                log.info("SQL execute done (cache hit): sql=\"{}\"", safePreview(sql, 300));
+                return hit;
+            }
+            // до выполнения: запись, сбросившая таблицу, пока запрос шёл, не даст положить старые строки
+            cacheGeneration = cache.generation();
+        }
+
+        try (SqlAdmission.Permit permit = admission.acquire(q.getOwner(), q.getLane());
+             ResultBudget.Lease lease = resultBudget.open(q.getMaxResultBytes())) {
+            long t0 = System.nanoTime();
+            Map<String, Object> result;
+            try {
+                result = useNative
+                        ? nativeEngine.run(sql, q.getParams(), limitRows, q.isCompact(), lease)
+                        : run(sql, q.getParams(), limitRows, q.isCompact(), lease, q.getLane());
+            } catch (Exception e) {
+                if (q.isRecordStats()) queryStats.record(sql, q.getOwner(), engine, System.nanoTime() - t0, 0, e);
+                throw e;
+            }
+            if (q.isRecordStats()) queryStats.record(sql, q.getOwner(), engine, System.nanoTime() - t0, rowsOf(result), null);
+            // обрезанный из-за нехватки памяти результат при следующем запросе может оказаться полным
+            if (cacheKey != null && !ResultBudget.BY_BYTES.equals(lease.getTruncatedBy())) {
+                cache.put(cacheKey, result, SqlText.readTables(sql), cacheGeneration);
+            }
+            return result;
+        } finally {
+            // DML/DDL мог изменить данные даже при ошибке (частичное применение); EXPLAIN ничего не меняет
+            if (SqlText.mayWrite(sql)) invalidateWritten(sql, cache, planCache);
+        }
+    }
+
+    /**
+     * После DML/DDL: кэш результатов по целевой таблице, для DDL — ещё и планы
+     * (новый/удалённый индекс или колонка их меняют). Общее для execute, stream и batch.
+     */
+    static void invalidateWritten(String sql, QueryResultCache cache, PlanCache planCache) {
+        String target = SqlText.writeTarget(sql);
+        cache.invalidate(target);
+        if (SqlText.isDdl(sql)) planCache.invalidate(target);
+    }
+
+    private static long rowsOf(Map<String, Object> result) {
+        Object n = result.get("rowCount");
+        if (!(n instanceof Number)) n = result.get("updateCount");
+        return n instanceof Number ? ((Number) n).longValue() : 0;
+    }
+
+    /**
+     * jdbc | native | auto (по умолчанию app.ignite.engine): auto — native, если поднят embedded-узел.
+     */
+    private boolean useNative(String requested) {
+        String engine = requested != null && !requested.isBlank() ? requested : props.getEngine();
+        switch (engine == null ? "" : engine.trim().toLowerCase(Locale.ROOT)) {
+            case "jdbc":
+                return false;
+            case "native":
+                if (!nativeEngine.isAvailable()) {
+                    throw new IllegalStateException("Native engine requires embedded Ignite (app.ignite.embedded.enabled=true)");
+                }
+                return true;
+            case "auto":
+            case "":
+                return nativeEngine.isAvailable();
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine + " (expected jdbc, native or auto)");
+        }
+    }
+
+    /**
+     * @param compact true — результат SELECT в колоночном виде (ключ "vectors", см. ColumnVector)
+     *                вместо списка map-строк
+     */
+    private Map<String, Object> run(String sql, List<SqlParam> params, int limitRows, boolean compact,
+                                    ResultBudget.Lease budget, SqlAdmission.Lane lane) throws Exception {
         long t0 = System.currentTimeMillis();
+        String type = SqlMetrics.type(sql);
 
         Map<String, Object> result = new LinkedHashMap<>();
         String jdbcUrl = props.getJdbcUrl();
 
         String sqlPreview = safePreview(sql, 300);
-        log.info("SQL execute start: limitRows={}, url={}, sql=\"{}\"",
+        log.info("SQL execute start: limitRows={}, params={}, url={}, sql=\"{}\"",
                 limitRows,
+                params.size(),
                 safeJdbcUrl(jdbcUrl),
                 sqlPreview
         );
 
-        try (Connection c = DriverManager.getConnection(jdbcUrl);
-             Statement st = c.createStatement()) {
+        try (Connection c = connect(type, lane);
+             StatementLease lease = lease(c, sql, params)) {
+            Statement st = lease.statement;
 
             // таймаут на запрос (если поле есть в props)
-            int timeout = props.getQueryTimeoutSeconds();
-            if (timeout > 0) {
-                st.setQueryTimeout(timeout);
-            }
+            applyTimeout(st, props.getQueryTimeoutSeconds());
 
-            // вот тут и есть limitRows
-            if (limitRows > 0 && limitRows != props.getMaxRows()) {
-                st.setMaxRows(limitRows);
+            // вот тут и есть limitRows: на одну строку больше, чтобы узнать, что результат обрезан
+            if (limitRows > 0) {
+                st.setMaxRows(limitRows < Integer.MAX_VALUE ? limitRows + 1 : limitRows);
             }
 
-            boolean hasResultSet = st.execute(sql);
+            long tExec = System.nanoTime();
+            boolean hasResultSet = lease.execute();
+            long tFetch = System.nanoTime();
+            metrics.phase(SqlMetrics.Phase.EXECUTE, type, "jdbc", tFetch - tExec);
 
             long elapsed = System.currentTimeMillis() - t0;
             result.put("ok", true);
             result.put("elapsedMs", elapsed);
+            result.put("engine", "jdbc");
 
             if (!hasResultSet) {
                 int upd = st.getUpdateCount();
@@ -75,6 +206,28 @@ public class SqlService {
                 return result;
             }
 
+            if (compact) {
+                try (ResultSet rs = st.getResultSet()) {
+                    List<ColumnVector> vectors = ColumnarResultReader.read(rs, limitRows, budget);
+                    List<String> columns = new ArrayList<>(vectors.size());
+                    for (ColumnVector v : vectors) columns.add(v.getName());
+                    int rowCount = vectors.isEmpty() ? 0 : Array.getLength(vectors.get(0).getValues());
+                    metrics.phase(SqlMetrics.Phase.FETCH, type, "jdbc", System.nanoTime() - tFetch);
+                    metrics.rows(type, "jdbc", rowCount);
+
+                    result.put("format", "compact");
+                    result.put("columns", columns);
+                    result.put("vectors", vectors);
+                    result.put("rowCount", rowCount);
+                    result.put("limitRows", limitRows);
+                    budget.describe(result);
+
+                    log.info("SQL execute done (select, compact): rowCount={}, colCount={}, bytes={}, truncatedBy={}, elapsedMs={}",
+                            rowCount, columns.size(), budget.getBytes(), budget.getTruncatedBy(), elapsed);
+                    return result;
+                }
+            }
+
             try (ResultSet rs = st.getResultSet()) {
                 ResultSetMetaData md = rs.getMetaData();
 
@@ -83,22 +236,18 @@ public class SqlService {
                     columns.add(md.getColumnLabel(i));
                 }
 
-                List<Map<String, Object>> rows = new ArrayList<>();
-                while (rs.next()) {
-                    Map<String, Object> row = new LinkedHashMap<>();
-                    for (int i = 1; i <= md.getColumnCount(); i++) {
-                        row.put(columns.get(i - 1), rs.getObject(i));
-                    }
-                    rows.add(row);
-                }
+                List<Map<String, Object>> rows = readRows(rs, columns, limitRows, budget);
+                metrics.phase(SqlMetrics.Phase.FETCH, type, "jdbc", System.nanoTime() - tFetch);
+                metrics.rows(type, "jdbc", rows.size());
 
                 result.put("columns", columns);
                 result.put("rows", rows);
                 result.put("rowCount", rows.size());
                 result.put("limitRows", limitRows);
+                budget.describe(result);
 
-                log.info("SQL execute done (select): rowCount={}, colCount={}, elapsedMs={}",
-                        rows.size(), columns.size(), elapsed);
+                log.info("SQL execute done (select): rowCount={}, colCount={}, bytes={}, truncatedBy={}, elapsedMs={}",
+                        rows.size(), columns.size(), budget.getBytes(), budget.getTruncatedBy(), elapsed);
 
                 // для детального дебага можно включить DEBUG уровень
                 if (log.isDebugEnabled()) {
@@ -110,6 +259,7 @@ public class SqlService {
             }
         } catch (Exception e) {
             long elapsed = System.currentTimeMillis() - t0;
+            metrics.error(type, "jdbc", e);
 
             // отдаём ответ в твоём формате, но НЕ глотаем исключение (пусть контроллер решает)
             log.error("SQL execute failed: elapsedMs={}, sql=\"{}\"", elapsed, sqlPreview, e);
@@ -117,7 +267,251 @@ public class SqlService {
         }
     }
 
-    private static String safePreview(String sql, int maxLen) {
+    /**
+     * Строки ResultSet в map "колонка -> значение" (формат rows ответа /api/sql).
+     *
+     * @param limitRows 0 — без лимита; если строк больше, {@link ResultBudget.Lease#rowLimitReached}
+     * @param lease     бюджет памяти: строка, на которую не хватило места, не читается
+     */
+    static List<Map<String, Object>> readRows(ResultSet rs, List<String> columns, int limitRows,
+                                              ResultBudget.Lease lease) throws SQLException {
+        int cols = columns.size();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        while (rs.next()) {
+            if (limitRows > 0 && rows.size() >= limitRows) {
+                lease.rowLimitReached();
+                break;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 1; i <= cols; i++) {
+                row.put(columns.get(i - 1), rs.getObject(i));
+            }
+            if (!lease.reserve(ResultSizeEstimator.map(row))) break;
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Выполняет SQL и отдаёт ResultSet потребителю построчно, не собирая строки в память.
+     * Страницы с сервера тянутся по мере чтения (fetchSize), поэтому медленный потребитель
+     * естественно притормаживает выборку.
+     */
+    public void stream(String owner, String sql, List<SqlParam> params, int limitRows, int fetchSize,
+                       ResultSetConsumer consumer) throws Exception {
+        stream(owner, sql, params, limitRows, fetchSize, props.getStream().getQueryTimeoutSeconds(), consumer);
+    }
+
+    public void stream(String owner, String sql, List<SqlParam> params, int limitRows, int fetchSize,
+                       int timeoutSeconds, ResultSetConsumer consumer) throws Exception {
+        stream(owner, sql, params, limitRows, fetchSize, timeoutSeconds, SqlAdmission.Lane.USER, consumer);
+    }
+
+    /**
+     * То же с явной полосой допуска (асинхронные задачи идут по JOB — ждут слот без таймаута).
+     */
+    public void stream(String owner, String sql, List<SqlParam> params, int limitRows, int fetchSize,
+                       int timeoutSeconds, SqlAdmission.Lane lane, ResultSetConsumer consumer) throws Exception {
+        long t0 = System.currentTimeMillis();
+        String type = SqlMetrics.type(sql);
+
+        String sqlPreview = safePreview(sql, 300);
+        log.info("SQL stream start: limitRows={}, fetchSize={}, sql=\"{}\"", limitRows, fetchSize, sqlPreview);
+
+        try (SqlAdmission.Permit permit = admission.acquire(owner, lane)) {
+            long tStart = System.nanoTime();
+            try (Connection c = connect(type);
+                 Statement st = createStatement(c, sql, params)) {
+
+                applyTimeout(st, timeoutSeconds);
+                if (limitRows > 0) {
+                    st.setMaxRows(limitRows);
+                }
+                if (fetchSize > 0) {
+                    st.setFetchSize(fetchSize);
+                }
+                consumer.onStatement(st);
+
+                long tExec = System.nanoTime();
+                boolean hasResultSet = execute(st, sql);
+                metrics.phase(SqlMetrics.Phase.EXECUTE, type, "jdbc", System.nanoTime() - tExec);
+
+                if (!hasResultSet) {
+                    int upd = st.getUpdateCount();
+                    consumer.onUpdateCount(upd);
+                    queryStats.record(sql, owner, "jdbc", System.nanoTime() - tStart, upd, null);
+                    log.info("SQL stream done (non-select): updateCount={}, elapsedMs={}",
+                            upd, System.currentTimeMillis() - t0);
+                    return;
+                }
+
+                try (ResultSet rs = st.getResultSet()) {
+                    consumer.onResultSet(rs);
+                }
+                queryStats.record(sql, owner, "jdbc", System.nanoTime() - tStart, consumer.getRowCount(), null);
+
+                log.info("SQL stream done (select): elapsedMs={}", System.currentTimeMillis() - t0);
+            } catch (Exception e) {
+                queryStats.record(sql, owner, "jdbc", System.nanoTime() - tStart, consumer.getRowCount(), e);
+                throw e;
+            }
+        } catch (AdmissionRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            metrics.error(type, "jdbc", e);
+            log.error("SQL stream failed: elapsedMs={}, sql=\"{}\"", System.currentTimeMillis() - t0, sqlPreview, e);
+            throw e;
+        } finally {
+            // как в execute: и при ошибке — DML мог примениться частично
+            if (SqlText.mayWrite(sql)) invalidateWritten(sql, cache, planCache);
+        }
+    }
+
+    /**
+     * Открывает SELECT и оставляет Connection/Statement/ResultSet открытыми.
+     * Закрывать (и возвращать соединение в пул) должен владелец курсора.
+     */
+    public SqlCursor openCursor(String id, String owner, String sql, List<SqlParam> params, int fetchSize)
+            throws Exception {
+        String sqlPreview = safePreview(sql, 300);
+        log.info("SQL cursor open: id={}, owner={}, fetchSize={}, sql=\"{}\"", id, owner, fetchSize, sqlPreview);
+
+        // слот нужен только на выполнение; дальше курсор ограничен app.ignite.cursors.*
+        try (SqlAdmission.Permit permit = admission.acquire(owner, SqlAdmission.Lane.USER)) {
+            long tStart = System.nanoTime();
+            Connection c = connect("SELECT");
+            Statement st = null;
+            try {
+                st = createStatement(c, sql, params);
+                applyTimeout(st, props.getQueryTimeoutSeconds());
+                if (fetchSize > 0) {
+                    st.setFetchSize(fetchSize);
+                }
+                // executeQuery: DML/DDL отклоняется драйвером, курсор только для SELECT
+                long tExec = System.nanoTime();
+                ResultSet rs = st instanceof PreparedStatement
+                        ? ((PreparedStatement) st).executeQuery()
+                        : st.executeQuery(sql);
+                metrics.phase(SqlMetrics.Phase.EXECUTE, "SELECT", "jdbc", System.nanoTime() - tExec);
+                // строки курсора читаются потом постранично — здесь только время открытия
+                queryStats.record(sql, owner, "jdbc", System.nanoTime() - tStart, 0, null);
+                return new SqlCursor(id, owner, sql, c, st, rs);
+            } catch (Exception e) {
+                metrics.error("SELECT", "jdbc", e);
+                queryStats.record(sql, owner, "jdbc", System.nanoTime() - tStart, 0, e);
+                log.error("SQL cursor open failed: id={}, sql=\"{}\"", id, sqlPreview, e);
+                if (st != null) {
+                    try {
+                        st.close();
+                    } catch (SQLException ignored) {
+                    }
+                }
+                c.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Соединение из пула с замером фазы acquire.
+     */
+    private Connection connect(String type) throws SQLException {
+        return connect(type, SqlAdmission.Lane.USER);
+    }
+
+    /**
+     * SYSTEM — из служебного пула: основной могут держать пользователи и курсоры.
+     */
+    private Connection connect(String type, SqlAdmission.Lane lane) throws SQLException {
+        long t = System.nanoTime();
+        Connection c = lane == SqlAdmission.Lane.SYSTEM ? pool.getSystemConnection() : pool.getConnection();
+        metrics.phase(SqlMetrics.Phase.ACQUIRE, type, "jdbc", System.nanoTime() - t);
+        return c;
+    }
+
+    /**
+     * Обычный Statement, либо (если есть параметры) PreparedStatement с привязанными значениями.
+     * Без кэша — для долгоживущих выборок (stream, курсоры).
+     */
+    private static Statement createStatement(Connection c, String sql, List<SqlParam> params) throws SQLException {
+        if (params == null || params.isEmpty()) {
+            return c.createStatement();
+        }
+        PreparedStatement ps = c.prepareStatement(sql);
+        try {
+            SqlParams.bind(ps, params);
+        } catch (SQLException e) {
+            ps.close();
+            throw e;
+        }
+        return ps;
+    }
+
+    private static boolean execute(Statement st, String sql) throws SQLException {
+        return st instanceof PreparedStatement ? ((PreparedStatement) st).execute() : st.execute(sql);
+    }
+
+    /**
+     * Statement на время одного execute: с параметрами — из PreparedStatementCache
+     * (и возвращается туда), без — обычный, закрывается.
+     */
+    private StatementLease lease(Connection c, String sql, List<SqlParam> params) throws SQLException {
+        if (params == null || params.isEmpty()) {
+            return new StatementLease(c, sql, c.createStatement(), false);
+        }
+
+        PreparedStatement ps = statementCache.prepare(c, sql);
+        try {
+            // statement мог остаться с лимитом от прошлого выполнения
+            ps.setMaxRows(0);
+            SqlParams.bind(ps, params);
+        } catch (SQLException e) {
+            statementCache.release(c, sql, ps, true);
+            throw e;
+        }
+        return new StatementLease(c, sql, ps, true);
+    }
+
+    private final class StatementLease implements AutoCloseable {
+        final Connection connection;
+        final String sql;
+        final Statement statement;
+        final boolean prepared;
+        boolean failed;
+
+        StatementLease(Connection connection, String sql, Statement statement, boolean prepared) {
+            this.connection = connection;
+            this.sql = sql;
+            this.statement = statement;
+            this.prepared = prepared;
+        }
+
+        boolean execute() throws SQLException {
+            try {
+                return SqlService.execute(statement, sql);
+            } catch (SQLException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (prepared) {
+                statementCache.release(connection, sql, (PreparedStatement) statement, failed);
+            } else {
+                statement.close();
+            }
+        }
+    }
+
+    private static void applyTimeout(Statement st, int timeoutSeconds) throws SQLException {
+        if (timeoutSeconds > 0) {
+            st.setQueryTimeout(timeoutSeconds);
+        }
+    }
+
+    static String safePreview(String sql, int maxLen) {
         if (sql == null) return "";
         String s = sql.replace('\n', ' ').replace('\r', ' ').trim();
         if (s.length() <= maxLen) return s;
@@ -0,0 +1,275 @@
+package com.example.igniteapp.service;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Лёгкий разбор текста SQL без полноценного парсера:
+ * нормализация, тип оператора, таблицы на чтение и таблица-цель DML/DDL.
+ * Ошибается в сторону "не знаю" — вызывающий код должен трактовать null как "все таблицы".
+ */
+public final class SqlText {
+
+    private static final String IDENT = "((?:\"[^\"]+\"|[A-Za-z_][A-Za-z0-9_$]*)(?:\\s*\\.\\s*(?:\"[^\"]+\"|[A-Za-z_][A-Za-z0-9_$]*))?)";
+
+    private static final Pattern READ_TABLE = Pattern.compile(
+            "(?i)\\b(?:FROM|JOIN)\\s+" + IDENT + "((?:\\s*(?:AS\\s+)?[A-Za-z_][A-Za-z0-9_]*)?(?:\\s*,\\s*" + IDENT + "(?:\\s+(?:AS\\s+)?[A-Za-z_][A-Za-z0-9_]*)?)*)");
+
+    private static final Pattern NEXT_IN_LIST = Pattern.compile(",\\s*" + IDENT);
+
+    private static final Pattern WRITE_TARGET = Pattern.compile(
+            "(?i)^\\s*(?:/\\*[\\s\\S]*?\\*/\\s*)*(?:INSERT\\s+INTO|MERGE\\s+INTO|UPDATE|DELETE\\s+FROM|" +
+                    "(?:CREATE|DROP|ALTER)\\s+TABLE(?:\\s+IF\\s+(?:NOT\\s+)?EXISTS)?|" +
+                    "CREATE\\s+(?:SPATIAL\\s+)?INDEX(?:\\s+IF\\s+NOT\\s+EXISTS)?\\s+\\S+\\s+ON|" +
+                    "COPY\\s+FROM\\s+'[^']*'\\s+INTO)\\s+" + IDENT);
+
+    private SqlText() {
+    }
+
+    /**
+     * Схлопывает пробелы вне строковых литералов и убирает ';' в конце.
+     */
+    public static String normalize(String sql) {
+        if (sql == null) return "";
+        StringBuilder sb = new StringBuilder(sql.length());
+        boolean inStr = false;
+        boolean pendingSpace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char ch = sql.charAt(i);
+            if (inStr) {
+                sb.append(ch);
+                if (ch == '\'') inStr = false;
+                continue;
+            }
+            if (Character.isWhitespace(ch)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            if (ch == '\'') inStr = true;
+            sb.append(ch);
+        }
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) == ';') end--;
+        return sb.substring(0, end).trim();
+    }
+
+    /**
+     * Отпечаток запроса: литералы и параметры заменены на '?', списки "?, ?, ?" схлопнуты в "?+",
+     * комментарии убраны, пробелы схлопнуты, всё вне кавычек — в верхнем регистре.
+     * Запросы, отличающиеся только значениями, получают один отпечаток. Один проход по строке.
+     * <pre>
+     * select * from t where id in (1, 2, 3) and name = 'x'  ->  SELECT * FROM T WHERE ID IN (?+) AND NAME = ?
+     * </pre>
+     *
+     * @param maxLen длина отпечатка, дальше обрезается (0 — без ограничения)
+     */
+    public static String fingerprint(String sql, int maxLen) {
+        if (sql == null) return "";
+        int n = sql.length();
+        StringBuilder sb = new StringBuilder(Math.min(n, maxLen > 0 ? maxLen + 1 : n));
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < n && (maxLen <= 0 || sb.length() < maxLen)) {
+            char ch = sql.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                pendingSpace = sb.length() > 0;
+                i++;
+                continue;
+            }
+            if (ch == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+                while (i < n && sql.charAt(i) != '\n') i++;
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (ch == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+
+            if (ch == '\'') {
+                // строковый литерал ('' внутри — экранированная кавычка)
+                i++;
+                while (i < n) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < n && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                pendingSpace = placeholder(sb, pendingSpace);
+                continue;
+            }
+            if (ch == '?' || (Character.isDigit(ch) && (pendingSpace || !identPart(sb)))) {
+                i++;
+                if (ch != '?') {
+                    while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) i++;
+                }
+                pendingSpace = placeholder(sb, pendingSpace);
+                continue;
+            }
+
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            if (ch == '"') {
+                // идентификатор в кавычках — как есть, с учётом регистра
+                int end = sql.indexOf('"', i + 1);
+                end = end < 0 ? n : end + 1;
+                sb.append(sql, i, end);
+                i = end;
+                continue;
+            }
+            sb.append(Character.toUpperCase(ch));
+            i++;
+        }
+        int end = sb.length();
+        while (end > 0 && (sb.charAt(end - 1) == ';' || sb.charAt(end - 1) == ' ')) end--;
+        sb.setLength(end);
+        return sb.toString();
+    }
+
+    /**
+     * Дописывает '?', склеивая "?, ?" в "?+". Возвращает новое значение pendingSpace.
+     */
+    private static boolean placeholder(StringBuilder sb, boolean pendingSpace) {
+        int len = sb.length();
+        if (len >= 2 && sb.charAt(len - 1) == ',' && (sb.charAt(len - 2) == '?' || sb.charAt(len - 2) == '+')) {
+            sb.setLength(len - 1);
+            if (sb.charAt(len - 2) == '?') sb.append('+');
+            return false;
+        }
+        if (pendingSpace) sb.append(' ');
+        sb.append('?');
+        return false;
+    }
+
+    /**
+     * Цифра продолжает идентификатор (T1, COL_2), а не начинает число.
+     */
+    private static boolean identPart(StringBuilder sb) {
+        if (sb.length() == 0) return false;
+        char p = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(p) || p == '_' || p == '$' || p == '"';
+    }
+
+    /**
+     * Первое ключевое слово в верхнем регистре: SELECT, INSERT, CREATE, ...
+     * Комментарии перед ним пропускаются (метка задачи, подсказки из клиентов).
+     */
+    public static String statementType(String sql) {
+        if (sql == null) return "UNKNOWN";
+        int i = 0;
+        int n = sql.length();
+        while (i < n) {
+            char ch = sql.charAt(i);
+            if (Character.isWhitespace(ch) || ch == '(') {
+                i++;
+            } else if (ch == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+                while (i < n && sql.charAt(i) != '\n') i++;
+            } else if (ch == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+            } else {
+                break;
+            }
+        }
+        int start = i;
+        while (i < n && Character.isLetter(sql.charAt(i))) i++;
+        return i > start ? sql.substring(start, i).toUpperCase(Locale.ROOT) : "UNKNOWN";
+    }
+
+    public static boolean isReadOnly(String sql) {
+        String t = statementType(sql);
+        return "SELECT".equals(t) || "WITH".equals(t);
+    }
+
+    /**
+     * Может ли запрос изменить данные или схему (сброс кэшей): всё, кроме SELECT/WITH и EXPLAIN.
+     */
+    public static boolean mayWrite(String sql) {
+        return !isReadOnly(sql) && !"EXPLAIN".equals(statementType(sql));
+    }
+
+    public static boolean isDdl(String sql) {
+        String t = statementType(sql);
+        return "CREATE".equals(t) || "DROP".equals(t) || "ALTER".equals(t);
+    }
+
+    /**
+     * Таблицы из FROM/JOIN (имя без схемы, в верхнем регистре для не-кавычных).
+     */
+    public static Set<String> readTables(String sql) {
+        Set<String> res = new LinkedHashSet<>();
+        if (sql == null) return res;
+        Matcher m = READ_TABLE.matcher(sql);
+        while (m.find()) {
+            res.add(tableName(m.group(1)));
+            String rest = m.group(2);
+            if (rest != null && rest.indexOf(',') >= 0) {
+                Matcher lm = NEXT_IN_LIST.matcher(rest);
+                while (lm.find()) res.add(tableName(lm.group(1)));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Таблица, которую меняет DML/DDL; null — если определить не удалось.
+     */
+    public static String writeTarget(String sql) {
+        if (sql == null) return null;
+        Matcher m = WRITE_TARGET.matcher(sql);
+        return m.find() ? tableName(m.group(1)) : null;
+    }
+
+    /**
+     * "PUBLIC".t1 -> T1, "MixedCase" -> MixedCase.
+     */
+    static String tableName(String ident) {
+        String s = ident.trim();
+        int dot = lastDotOutsideQuotes(s);
+        if (dot >= 0) s = s.substring(dot + 1).trim();
+        if (s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"")) {
+            return s.substring(1, s.length() - 1);
+        }
+        return s.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * PUBLIC."_key_PK" -> _key_PK, PUBLIC.P_CITY -> P_CITY (без смены регистра).
+     */
+    static String lastPart(String ident) {
+        String s = ident.trim();
+        int dot = lastDotOutsideQuotes(s);
+        if (dot >= 0) s = s.substring(dot + 1).trim();
+        if (s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"")) {
+            return s.substring(1, s.length() - 1);
+        }
+        return s;
+    }
+
+    private static int lastDotOutsideQuotes(String s) {
+        boolean q = false;
+        int dot = -1;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"') q = !q;
+            else if (ch == '.' && !q) dot = i;
+        }
+        return dot;
+    }
+}
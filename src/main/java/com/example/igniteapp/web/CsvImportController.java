@@ -0,0 +1,121 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.service.CsvImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping("/api/import")
+public class CsvImportController {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvImportController.class);
+
+    private final CsvImportService importService;
+
+    public CsvImportController(CsvImportService importService) {
+        this.importService = importService;
+    }
+
+    @Operation(
+            summary = "Загрузить CSV в существующую таблицу",
+            description =
+                    "Тело запроса — сам файл (text/csv, можно gzip: Content-Encoding: gzip или gzip=true). " +
+                            "Файл читается потоком, память не зависит от размера.\n\n" +
+                            "Колонки: по заголовку (header=true), по списку columns=A,B,C или все колонки таблицы по порядку. " +
+                            "Пустое поле без кавычек — NULL.\n\n" +
+                            "mode: auto — IgniteDataStreamer при embedded-узле, иначе JDBC streaming; streamer; jdbc.\n" +
+                            "Прогресс — GET /api/import (jobId можно задать самому; видны только свои импорты).\n\n" +
+                            "rowsSubmitted — строки, переданы в Ignite. При app.ignite.csvImport.allowOverwrite=false строки " +
+                            "с уже существующим ключом Ignite пропускает молча, и они тоже входят в rowsSubmitted.\n\n" +
+                            "Пример: curl -X POST --data-binary @data.csv -H 'Content-Type: text/csv' " +
+                            "'.../api/import/csv?table=TEST_TABLE&threads=8'"
+    )
+    @ApiResponse(responseCode = "200", description = "Итог: rowsSubmitted, rowsFailed, elapsedMs, rowsPerSec; ok=false с error")
+    @PostMapping("/csv")
+    public Map<String, Object> importCsv(@RequestParam String table,
+                                         @RequestParam(defaultValue = "PUBLIC") String schema,
+                                         @RequestParam(defaultValue = "true") boolean header,
+                                         @RequestParam(required = false) String columns,
+                                         @RequestParam(defaultValue = ",") String delimiter,
+                                         @RequestParam(defaultValue = "UTF-8") String charset,
+                                         @RequestParam(required = false) String mode,
+                                         @RequestParam(required = false) Integer threads,
+                                         @RequestParam(required = false) Integer batchSize,
+                                         @RequestParam(defaultValue = "0") long maxErrors,
+                                         @RequestParam(defaultValue = "false") boolean gzip,
+                                         @RequestParam(required = false) String jobId,
+                                         HttpServletRequest request,
+                                         Principal principal) {
+        log.info("POST /api/import/csv table={}.{}", schema, table);
+        try (InputStream in = body(request, gzip)) {
+            CsvImportService.Options opt = CsvImportService.Options.into(schema, table)
+                    .owner(SqlCursorController.owner(principal))
+                    .jobId(jobId)
+                    .header(header)
+                    .delimiter(delimiter(delimiter))
+                    .charset(Charset.forName(charset))
+                    .mode(mode)
+                    .threads(threads)
+                    .batchSize(batchSize)
+                    .maxErrors(maxErrors);
+            if (columns != null && !columns.isBlank()) {
+                opt.columns(Arrays.asList(columns.split("\\s*,\\s*")));
+            }
+            return importService.importCsv(in, opt);
+        } catch (Exception e) {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", false);
+            r.put("error", e.getMessage());
+            return r;
+        }
+    }
+
+    @Operation(summary = "Мои импорты: выполняющиеся и последние завершённые", description = "rowsParsed/rowsSubmitted/bytesRead обновляются во время загрузки.")
+    @GetMapping
+    public Map<String, Object> list(Principal principal) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", true);
+        r.put("imports", importService.list(SqlCursorController.owner(principal)));
+        return r;
+    }
+
+    @Operation(summary = "Прогресс одного импорта")
+    @GetMapping("/{id}")
+    public Map<String, Object> get(@PathVariable String id, Principal principal) {
+        try {
+            return importService.get(id, SqlCursorController.owner(principal));
+        } catch (Exception e) {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", false);
+            r.put("error", e.getMessage());
+            return r;
+        }
+    }
+
+    private static InputStream body(HttpServletRequest request, boolean gzip) throws Exception {
+        InputStream in = request.getInputStream();
+        String enc = request.getHeader("Content-Encoding");
+        if (gzip || (enc != null && enc.toLowerCase().contains("gzip"))) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        return in;
+    }
+
+    private static char delimiter(String d) {
+        if ("\\t".equals(d) || "tab".equalsIgnoreCase(d)) return '\t';
+        if (d.length() != 1) throw new IllegalArgumentException("delimiter must be a single character");
+        return d.charAt(0);
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.service.ResultSetConsumer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Пишет результат в CSV (RFC 4180) прямо из ResultSet в поток ответа.
+ * <p>
+ * Для каждой колонки по ResultSetMetaData один раз выбирается кодировщик: целые читаются через
+ * getLong и пишутся цифрами прямо в байтовый буфер, строки кодируются в UTF-8 без промежуточных
+ * byte[]. Ни Object[], ни Map на строку не создаётся — память постоянна при любом объёме.
+ * <p>
+ * NULL — пустое поле, пустая строка — {@code ""}; даты/время — в формате, который читает /api/import/csv.
+ */
+class CsvResultWriter implements ResultSetConsumer {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    /**
+     * Значение колонки col текущей строки; для NULL не пишет ничего (пустое поле).
+     */
+    private interface Encoder {
+        void write(ResultSet rs, int col, CsvResultWriter w) throws Exception;
+    }
+
+    private static final Encoder LONG = (rs, col, w) -> {
+        long v = rs.getLong(col);
+        if (!rs.wasNull()) w.writeLong(v);
+    };
+    private static final Encoder DOUBLE = (rs, col, w) -> {
+        double v = rs.getDouble(col);
+        if (!rs.wasNull()) w.writeAscii(Double.toString(v));
+    };
+    private static final Encoder BOOLEAN = (rs, col, w) -> {
+        boolean v = rs.getBoolean(col);
+        if (!rs.wasNull()) w.writeAscii(v ? "true" : "false");
+    };
+    private static final Encoder DECIMAL = (rs, col, w) -> {
+        BigDecimal v = rs.getBigDecimal(col);
+        if (v != null) w.writeAscii(v.toPlainString());
+    };
+    private static final Encoder DATE = (rs, col, w) -> {
+        Date v = rs.getDate(col);
+        if (v != null) w.writeAscii(v.toString());
+    };
+    private static final Encoder TIME = (rs, col, w) -> {
+        Time v = rs.getTime(col);
+        if (v != null) w.writeAscii(v.toString());
+    };
+    private static final Encoder TIMESTAMP = (rs, col, w) -> {
+        Timestamp v = rs.getTimestamp(col);
+        if (v != null) w.writeAscii(v.toString());
+    };
+    private static final Encoder BINARY = (rs, col, w) -> {
+        byte[] v = rs.getBytes(col);
+        if (v != null) w.writeHex(v);
+    };
+    private static final Encoder TEXT = (rs, col, w) -> {
+        String v = rs.getString(col);
+        if (v != null) w.writeText(v);
+    };
+    private static final Encoder OBJECT = (rs, col, w) -> {
+        Object v = rs.getObject(col);
+        if (v != null) w.writeText(String.valueOf(v));
+    };
+
+    private final OutputStream out;
+    private final byte delimiter;
+    private final boolean header;
+    private final byte[] buf;
+    private int pos;
+
+    private long rowCount;
+    // rs.next() (подкачка страниц) отдельно от кодирования и записи — для метрик фаз fetch/serialize
+    private long fetchNanos;
+    private long serializeNanos;
+
+    CsvResultWriter(OutputStream out, char delimiter, boolean header, int bufferBytes) {
+        if (delimiter > 0x7F || delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("delimiter must be an ASCII character other than quote or line break");
+        }
+        this.out = out;
+        this.delimiter = (byte) delimiter;
+        this.header = header;
+        this.buf = new byte[Math.max(1024, bufferBytes)];
+    }
+
+    @Override
+    public void onResultSet(ResultSet rs) throws Exception {
+        ResultSetMetaData md = rs.getMetaData();
+        int cols = md.getColumnCount();
+        Encoder[] enc = new Encoder[cols];
+        for (int i = 0; i < cols; i++) {
+            enc[i] = encoder(md.getColumnType(i + 1));
+        }
+
+        if (header) {
+            for (int i = 1; i <= cols; i++) {
+                if (i > 1) put(delimiter);
+                writeText(md.getColumnLabel(i));
+            }
+            endLine();
+        }
+
+        long now = System.nanoTime();
+        while (true) {
+            boolean more = rs.next();
+            long t = System.nanoTime();
+            fetchNanos += t - now;
+            if (!more) break;
+
+            for (int i = 0; i < cols; i++) {
+                if (i > 0) put(delimiter);
+                enc[i].write(rs, i + 1, this);
+            }
+            endLine();
+            rowCount++;
+
+            now = System.nanoTime();
+            serializeNanos += now - t;
+        }
+        flush();
+    }
+
+    @Override
+    public void onUpdateCount(int updateCount) {
+        throw new IllegalArgumentException("Only queries returning rows can be exported");
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    long getSerializeNanos() {
+        return serializeNanos;
+    }
+
+    void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    private static Encoder encoder(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return DOUBLE;
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return BOOLEAN;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return DECIMAL;
+            case Types.DATE:
+                return DATE;
+            case Types.TIME:
+                return TIME;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return BINARY;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.CLOB:
+                return TEXT;
+            default:
+                return OBJECT;
+        }
+    }
+
+    // ---- запись в буфер
+
+    private void writeLong(long v) throws IOException {
+        if (v == Long.MIN_VALUE) {
+            writeAscii(Long.toString(v));
+            return;
+        }
+        ensure(20);
+        if (v < 0) {
+            buf[pos++] = '-';
+            v = -v;
+        }
+        int start = pos;
+        do {
+            buf[pos++] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v != 0);
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            byte b = buf[i];
+            buf[i] = buf[j];
+            buf[j] = b;
+        }
+    }
+
+    /**
+     * Числа/даты: только ASCII, кавычки не нужны.
+     */
+    private void writeAscii(String s) throws IOException {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            if (pos == buf.length) drain();
+            buf[pos++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void writeHex(byte[] v) throws IOException {
+        for (byte b : v) {
+            ensure(2);
+            buf[pos++] = HEX[(b >> 4) & 0xF];
+            buf[pos++] = HEX[b & 0xF];
+        }
+    }
+
+    /**
+     * Строка в UTF-8; в кавычках, если пустая или содержит разделитель, кавычку или перевод строки.
+     */
+    private void writeText(String s) throws IOException {
+        int n = s.length();
+        boolean quote = n == 0;
+        for (int i = 0; i < n && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+        }
+        if (quote) put((byte) '"');
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            ensure(4);
+            if (c < 0x80) {
+                if (c == '"') buf[pos++] = '"';
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        if (quote) put((byte) '"');
+    }
+
+    private void endLine() throws IOException {
+        ensure(2);
+        buf[pos++] = '\r';
+        buf[pos++] = '\n';
+    }
+
+    private void put(byte b) throws IOException {
+        ensure(1);
+        buf[pos++] = b;
+    }
+
+    private void ensure(int n) throws IOException {
+        if (pos + n > buf.length) drain();
+    }
+
+    private void drain() throws IOException {
+        if (pos == 0) return;
+        out.write(buf, 0, pos);
+        pos = 0;
+    }
+}
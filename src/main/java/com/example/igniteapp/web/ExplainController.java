@@ -0,0 +1,75 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.api.dto.SqlExecuteRequest;
+import com.example.igniteapp.service.AdmissionRejectedException;
+import com.example.igniteapp.service.ExplainService;
+import com.example.igniteapp.service.SqlQuery;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sql")
+public class ExplainController {
+
+    private final ExplainService explainService;
+
+    public ExplainController(ExplainService explainService) {
+        this.explainService = explainService;
+    }
+
+    @Operation(
+            summary = "План запроса (EXPLAIN) с разбором и предупреждениями",
+            description =
+                    "Выполняет EXPLAIN через SqlService и разбирает план H2: части map/reduce (distributed=true) " +
+                            "или одна single, порядок соединения таблиц, способ чтения каждой " +
+                            "(scan, primaryKey, index, function), индекс и условие.\n\n" +
+                            "warnings: FULL_SCAN (warn — с WHERE, info — без), JOIN_SCAN (high — скан внутри соединения), " +
+                            "SORT (info — ORDER BY не по индексу); estimatedRows — оценка размера таблицы.\n\n" +
+                            "План кэшируется по отпечатку запроса; refresh=true — построить заново."
+    )
+    @ApiResponse(responseCode = "200", description = "ok=true: план; ok=false: ошибка EXPLAIN")
+    @PostMapping(value = "/explain", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> explain(@RequestBody SqlExecuteRequest req,
+                                       @RequestParam(defaultValue = "false") boolean refresh,
+                                       Principal principal) {
+        String sql = req != null && req.getSql() != null ? req.getSql().replaceAll(";\\s*$", "") : "";
+        try {
+            return explainService.explain(SqlQuery.of(sql)
+                    .params(req != null ? req.getParams() : null)
+                    .engine(req != null ? req.getEngine() : null)
+                    .owner(SqlCursorController.owner(principal)), refresh);
+        } catch (AdmissionRejectedException e) {
+            // -> 429 (ApiExceptionHandler)
+            throw e;
+        } catch (Exception e) {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", false);
+            r.put("error", e.getMessage());
+            return r;
+        }
+    }
+
+    @Operation(summary = "Статистика кэша планов")
+    @GetMapping("/plans")
+    public Map<String, Object> plans() {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", true);
+        r.putAll(explainService.cacheStats());
+        return r;
+    }
+
+    @Operation(summary = "Очистить кэш планов")
+    @DeleteMapping("/plans")
+    public Map<String, Object> clearPlans() {
+        explainService.clearCache();
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", true);
+        return r;
+    }
+}
@@ -1,21 +1,28 @@
 package com.example.igniteapp.web;
 
 import com.example.igniteapp.api.dto.IgniteOverviewResponse;
+import com.example.igniteapp.config.IgniteProperties;
+import com.example.igniteapp.ignite.IgniteConnectionPool;
 import com.example.igniteapp.service.IgniteDiagService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.LinkedHashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/ignite")
 public class IgniteDiagController {
 
     private final IgniteDiagService diagService;
+    private final IgniteConnectionPool pool;
+    private final IgniteProperties props;
 
-    public IgniteDiagController(IgniteDiagService diagService) {
+    public IgniteDiagController(IgniteDiagService diagService, IgniteConnectionPool pool, IgniteProperties props) {
         this.diagService = diagService;
+        this.pool = pool;
+        this.props = props;
     }
 
     @Operation(
@@ -26,15 +33,23 @@ public class IgniteDiagController {
                             "• SYS.CACHES\n" +
                             "• SYS.SCHEMAS\n" +
                             "• SYS.SQL_QUERIES\n\n" +
-                            "Формат каждого блока совпадает с /api/sql (columns + rows)."
+                            "Формат каждого блока совпадает с /api/sql (columns + rows), не больше " +
+                            "app.ignite.overview.maxRowsPerView строк (truncated=true, если есть ещё).\n\n" +
+                            "Ответ берётся из снимка в памяти (ageMs — его возраст), снимок обновляется в фоне " +
+                            "раз в refreshIntervalMs. refresh=true — обновить сейчас и дождаться."
     )
     @ApiResponse(responseCode = "200", description = "ok=true либо ok=false с error")
     @GetMapping("/overview")
-    public IgniteOverviewResponse overview() {
+    public IgniteOverviewResponse overview(@RequestParam(defaultValue = "false") boolean refresh) {
         IgniteOverviewResponse resp = new IgniteOverviewResponse();
         try {
+            IgniteDiagService.Snapshot s = diagService.overview(refresh);
             resp.setOk(true);
-            resp.setData(diagService.overview());
+            resp.setData(s.getData());
+            resp.setSnapshotAt(s.getTakenAt());
+            resp.setAgeMs(s.ageMs());
+            resp.setRefreshMs(s.getRefreshMs());
+            resp.setRefreshIntervalMs(props.getOverview().getRefreshIntervalMs());
             return resp;
         } catch (Exception e) {
             resp.setOk(false);
@@ -43,4 +58,17 @@ public class IgniteDiagController {
             return resp;
         }
     }
+
+    @Operation(
+            summary = "Статистика пула JDBC соединений",
+            description = "active/idle/total соединений, число ожидающих потоков и время ожидания соединения из пула."
+    )
+    @ApiResponse(responseCode = "200", description = "Текущее состояние пула")
+    @GetMapping("/pool")
+    public Map<String, Object> pool() {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", true);
+        r.put("pool", pool.stats());
+        return r;
+    }
 }
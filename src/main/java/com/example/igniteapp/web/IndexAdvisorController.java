@@ -0,0 +1,69 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.service.AdmissionRejectedException;
+import com.example.igniteapp.service.IndexAdvisor;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sql/advisor")
+public class IndexAdvisorController {
+
+    private final IndexAdvisor advisor;
+
+    public IndexAdvisorController(IndexAdvisor advisor) {
+        this.advisor = advisor;
+    }
+
+    @Operation(
+            summary = "Кандидаты в индексы по истории запросов",
+            description =
+                    "Разбирает запросы из статистики /api/sql/stats и SYS.SQL_QUERIES_HISTORY: столбцы в условиях " +
+                            "WHERE/ON (=, IN, соединения, диапазоны, LIKE), по которым у таблицы нет индекса (SYS.INDEXES).\n\n" +
+                            "Кандидаты упорядочены по benefitMs — суммарному времени затронутых запросов с весом " +
+                            "по виду условия; таблицы меньше minTableRows пропускаются."
+    )
+    @GetMapping
+    public Map<String, Object> advise() {
+        try {
+            return advisor.advise();
+        } catch (AdmissionRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @Operation(
+            summary = "Проверить кандидата: CREATE INDEX и перемер запросов",
+            description =
+                    "Перемеряет до tryMaxQueries самых дорогих запросов кандидата (только SELECT без параметров), " +
+                            "создаёт индекс, перемеряет снова и, если keep=false, удаляет созданный индекс. " +
+                            "Время — медиана tryRuns прогонов. Одновременно проверяется один кандидат."
+    )
+    @ApiResponse(responseCode = "200", description = "ok=true: время до/после и ускорение; ok=false: ошибка")
+    @PostMapping("/try")
+    public Map<String, Object> tryCandidate(@RequestParam String id,
+                                            @RequestParam(defaultValue = "false") boolean keep,
+                                            Principal principal) {
+        try {
+            return advisor.tryCandidate(id, keep, SqlCursorController.owner(principal));
+        } catch (AdmissionRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    private static Map<String, Object> error(Exception e) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", false);
+        r.put("error", e.getMessage());
+        return r;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.service.ResultSetConsumer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+/**
+ * Пишет результат в NDJSON прямо из ResultSet:
+ * <pre>
+ * {"type":"columns","columns":["ID","NAME"]}
+ * [1,"a"]
+ * [2,"b"]
+ * {"type":"end","rowCount":2,"elapsedMs":5}
+ * </pre>
+ * Строки не накапливаются: каждая сразу уходит в буфер ответа — но только целиком. Строка собирается
+ * в собственном буфере, так что ошибка посреди строки (getObject, сериализация) не оставляет
+ * в ответе оборванный JSON перед строкой {"type":"error"}.
+ */
+class NdjsonResultWriter implements ResultSetConsumer {
+
+    private final ObjectMapper mapper;
+    private final OutputStream out;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    private JsonGenerator gen;
+    private final int flushEveryRows;
+    private final long t0 = System.currentTimeMillis();
+
+    private long rowCount;
+    // rs.next() (подкачка страниц) отдельно от записи строк в ответ — для метрик фаз fetch/serialize
+    private long fetchNanos;
+    private long serializeNanos;
+
+    NdjsonResultWriter(ObjectMapper mapper, OutputStream out, int flushEveryRows) throws IOException {
+        this.mapper = mapper;
+        this.out = out;
+        this.flushEveryRows = Math.max(1, flushEveryRows);
+        this.gen = newGenerator();
+    }
+
+    private JsonGenerator newGenerator() throws IOException {
+        JsonGenerator g = mapper.getFactory().createGenerator(line);
+        g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        g.setRootValueSeparator(null);
+        return g;
+    }
+
+    @Override
+    public void onResultSet(ResultSet rs) throws Exception {
+        ResultSetMetaData md = rs.getMetaData();
+        int cols = md.getColumnCount();
+
+        gen.writeStartObject();
+        gen.writeStringField("type", "columns");
+        gen.writeArrayFieldStart("columns");
+        for (int i = 1; i <= cols; i++) {
+            gen.writeString(md.getColumnLabel(i));
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+        newLine();
+
+        long now = System.nanoTime();
+        while (true) {
+            boolean more = rs.next();
+            long t = System.nanoTime();
+            fetchNanos += t - now;
+            if (!more) break;
+
+            gen.writeStartArray();
+            for (int i = 1; i <= cols; i++) {
+                gen.writeObject(rs.getObject(i));
+            }
+            gen.writeEndArray();
+            newLine();
+
+            rowCount++;
+            // первую строку отдаём сразу (time-to-first-byte), дальше пачками
+            if (rowCount == 1 || rowCount % flushEveryRows == 0) {
+                flush();
+            }
+            now = System.nanoTime();
+            serializeNanos += now - t;
+        }
+
+        writeEnd(null);
+    }
+
+    @Override
+    public void onUpdateCount(int updateCount) throws Exception {
+        writeEnd(updateCount);
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    long getSerializeNanos() {
+        return serializeNanos;
+    }
+
+    void writeError(String error) throws IOException {
+        if (!gen.getOutputContext().inRoot()) {
+            // оборванная строка: генератор остался внутри массива — выбрасываем его вместе с недописанным
+            gen = newGenerator();
+        }
+        line.reset();
+        gen.writeStartObject();
+        gen.writeStringField("type", "error");
+        gen.writeStringField("error", error);
+        gen.writeNumberField("rowCount", rowCount);
+        gen.writeEndObject();
+        newLine();
+        flush();
+    }
+
+    private void writeEnd(Integer updateCount) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", "end");
+        gen.writeNumberField("rowCount", rowCount);
+        if (updateCount != null) {
+            gen.writeNumberField("updateCount", updateCount);
+        }
+        gen.writeNumberField("elapsedMs", System.currentTimeMillis() - t0);
+        gen.writeEndObject();
+        newLine();
+        flush();
+    }
+
+    /**
+     * Завершает строку и переносит её в ответ.
+     */
+    private void newLine() throws IOException {
+        gen.writeRaw('\n');
+        gen.flush();
+        line.writeTo(out);
+        line.reset();
+    }
+
+    private void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.service.QueryStatsCollector;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sql")
+public class QueryStatsController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final QueryStatsCollector stats;
+
+    public QueryStatsController(QueryStatsCollector stats) {
+        this.stats = stats;
+    }
+
+    @Operation(
+            summary = "Статистика запросов по отпечаткам",
+            description =
+                    "Отпечаток — SQL без литералов (значения заменены на ?). На каждый: count, errors, rows, " +
+                            "totalMs, avgMs, p50Ms/p95Ms/p99Ms, maxMs, последняя ошибка.\n\n" +
+                            "sort: total (по умолчанию), count, avg, p99, max, errors, rows, last."
+    )
+    @ApiResponse(responseCode = "200", description = "ok=true: summary + queries; ok=false: неизвестный sort")
+    @GetMapping("/stats")
+    public Map<String, Object> top(@RequestParam(defaultValue = "total") String sort,
+                                   @RequestParam(defaultValue = "50") int limit) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        List<Map<String, Object>> queries;
+        try {
+            queries = stats.top(sort, Math.min(Math.max(1, limit), MAX_LIMIT));
+        } catch (IllegalArgumentException e) {
+            r.put("ok", false);
+            r.put("error", e.getMessage());
+            return r;
+        }
+        r.put("ok", true);
+        r.put("summary", stats.summary());
+        r.put("queries", queries);
+        return r;
+    }
+
+    @Operation(
+            summary = "Медленные запросы",
+            description = "Последние запросы дольше app.ignite.queryStats.slowThresholdMs, новые первыми (кольцевой буфер slowLogSize)."
+    )
+    @GetMapping("/slow")
+    public Map<String, Object> slow(@RequestParam(defaultValue = "50") int limit) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", true);
+        r.put("summary", stats.summary());
+        r.put("queries", stats.slow(Math.min(Math.max(1, limit), MAX_LIMIT)));
+        return r;
+    }
+
+    @Operation(summary = "Сбросить статистику и журнал медленных запросов")
+    @DeleteMapping("/stats")
+    public Map<String, Object> reset() {
+        stats.reset();
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", true);
+        return r;
+    }
+}
@@ -1,8 +1,18 @@
 package com.example.igniteapp.web;
 
+import com.example.igniteapp.api.dto.ColumnVector;
 import com.example.igniteapp.api.dto.SqlExecuteRequest;
+import com.example.igniteapp.config.IgniteProperties;
 import com.example.igniteapp.api.dto.SqlExecuteResponse;
+import com.example.igniteapp.service.AdmissionRejectedException;
+import com.example.igniteapp.service.ExplainService;
+import com.example.igniteapp.service.PreparedStatementCache;
+import com.example.igniteapp.service.QueryResultCache;
+import com.example.igniteapp.service.SqlAdmission;
+import com.example.igniteapp.service.SqlMetrics;
+import com.example.igniteapp.service.SqlQuery;
 import com.example.igniteapp.service.SqlService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -12,6 +22,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
+import java.security.Principal;
 import java.util.Collections;
 import java.util.Map;
 import org.slf4j.Logger;
@@ -22,12 +36,33 @@ import org.slf4j.LoggerFactory;
 public class SqlApiController {
 
     private final SqlService sqlService;
+    private final QueryResultCache resultCache;
+    private final PreparedStatementCache statementCache;
+    private final SqlAdmission admission;
+    private final SqlMetrics metrics;
+    private final ExplainService explainService;
+    private final IgniteProperties props;
+    private final ObjectMapper mapper;
 
     private static final Logger log = LoggerFactory.getLogger(SqlApiController.class);
 
 
-    public SqlApiController(SqlService sqlService) {
+    public SqlApiController(SqlService sqlService,
+                            QueryResultCache resultCache,
+                            PreparedStatementCache statementCache,
+                            SqlAdmission admission,
+                            SqlMetrics metrics,
+                            ExplainService explainService,
+                            IgniteProperties props,
+                            ObjectMapper mapper) {
         this.sqlService = sqlService;
+        this.resultCache = resultCache;
+        this.statementCache = statementCache;
+        this.admission = admission;
+        this.metrics = metrics;
+        this.explainService = explainService;
+        this.props = props;
+        this.mapper = mapper;
     }
 
     @Operation(
@@ -35,7 +70,12 @@ public class SqlApiController {
             description =
                     "Выполняет переданный SQL через Ignite thin JDBC.\n\n" +
                             "• Для SELECT вернёт: columns + rows.\n" +
-                            "• Для DDL/DML вернёт: updateCount.\n\n" +
+                            "• Для DDL/DML вернёт: updateCount.\n" +
+                            "• format=compact: vectors — по одному типизированному массиву на колонку.\n" +
+                            "• Результат ограничен app.ignite.maxRows и бюджетом памяти app.ignite.maxResultBytes " +
+                            "(limitRows / maxResultBytes в запросе — меньше): truncated, truncatedBy, rowCount, bytesEstimated.\n" +
+                            "• app.ignite.explain.guard=confirm|reject: SELECT с полным сканом большой таблицы " +
+                            "не выполняется (confirmRequired, planWarnings); confirmFullScan=true — выполнить всё равно.\n\n" +
                             "Подсказка: лучше отправлять SQL без ';' на конце.",
             requestBody = @RequestBody(
                     required = true,
@@ -58,6 +98,15 @@ public class SqlApiController {
                                     @ExampleObject(
                                             name = "SELECT из таблицы",
                                             value = "{ \"sql\": \"SELECT * FROM test_table\" }"
+                                    ),
+                                    @ExampleObject(
+                                            name = "С параметрами",
+                                            value = "{ \"sql\": \"SELECT * FROM test_table WHERE id = ? AND name = ?\", " +
+                                                    "\"params\": [{\"type\": \"INT\", \"value\": 1}, {\"value\": \"hello\"}] }"
+                                    ),
+                                    @ExampleObject(
+                                            name = "Компактный (колоночный) формат",
+                                            value = "{ \"sql\": \"SELECT * FROM test_table\", \"format\": \"compact\" }"
                                     )
                             }
                     )
@@ -109,7 +158,9 @@ public class SqlApiController {
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public SqlExecuteResponse exec(@org.springframework.web.bind.annotation.RequestBody SqlExecuteRequest req) {
+    public SqlExecuteResponse exec(@org.springframework.web.bind.annotation.RequestBody SqlExecuteRequest req,
+                                   Principal principal,
+                                   HttpServletRequest request) {
         log.info("POST /api/sql from client");
         String sql = req != null ? req.getSql() : null;
 
@@ -120,7 +171,33 @@ public class SqlApiController {
             // на всякий случай уберём один ';' в конце
             sql = sql.replaceAll(";\\s*$", "");
 
-            Map<String, Object> raw = sqlService.execute(sql);
+            boolean compact = req != null && "compact".equalsIgnoreCase(req.getFormat());
+            boolean useCache = req == null || !Boolean.TRUE.equals(req.getNoCache());
+            SqlQuery query = SqlQuery.of(sql)
+                    .compact(compact)
+                    .useCache(useCache)
+                    .params(req != null ? req.getParams() : null)
+                    .engine(req != null ? req.getEngine() : null)
+                    .maxResultBytes(req != null && req.getMaxResultBytes() != null ? req.getMaxResultBytes() : 0)
+                    .limitRows(req != null && req.getLimitRows() != null && req.getLimitRows() > 0
+                            ? Math.min(req.getLimitRows(), props.getMaxRows()) : 0)
+                    .owner(SqlCursorController.owner(principal));
+
+            Map<String, Object> blocked = explainService.guard(query,
+                    req != null && Boolean.TRUE.equals(req.getConfirmFullScan()));
+            if (blocked != null) {
+                resp.setOk(false);
+                resp.setError((String) blocked.get("error"));
+                resp.setConfirmRequired((Boolean) blocked.get("confirmRequired"));
+                @SuppressWarnings("unchecked")
+                var warnings = (java.util.List<Map<String, Object>>) blocked.get("warnings");
+                resp.setPlanWarnings(warnings);
+                resp.setColumns(Collections.emptyList());
+                resp.setRows(Collections.emptyList());
+                return resp;
+            }
+
+            Map<String, Object> raw = sqlService.execute(query);
 
             resp.setOk(Boolean.TRUE.equals(raw.get("ok")));
             Object ms = raw.get("elapsedMs");
@@ -139,8 +216,28 @@ public class SqlApiController {
             Object uc = raw.get("updateCount");
             resp.setUpdateCount(uc instanceof Number ? ((Number) uc).intValue() : null);
 
+            Object rc = raw.get("rowCount");
+            resp.setRowCount(rc instanceof Number ? ((Number) rc).intValue() : null);
+            resp.setTruncated((Boolean) raw.get("truncated"));
+            resp.setTruncatedBy((String) raw.get("truncatedBy"));
+            Object bytes = raw.get("bytesEstimated");
+            resp.setBytesEstimated(bytes instanceof Number ? ((Number) bytes).longValue() : null);
+
+            resp.setFormat(compact ? "compact" : "rows");
+            resp.setCached(Boolean.TRUE.equals(raw.get("cached")) ? Boolean.TRUE : null);
+            resp.setEngine((String) raw.get("engine"));
+            @SuppressWarnings("unchecked")
+            var vectors = (java.util.List<ColumnVector>) raw.get("vectors");
+            resp.setVectors(vectors);
+
+            // дальше Jackson пишет ответ — это фаза serialize (замеряет SqlMetricsFilter)
+            SqlMetricsFilter.serializeStarts(request, SqlMetrics.type(sql),
+                    resp.getEngine() != null ? resp.getEngine() : "cache");
             return resp;
 
+        } catch (AdmissionRejectedException e) {
+            // -> 429 (ApiExceptionHandler)
+            throw e;
         } catch (Exception e) {
             resp.setOk(false);
             resp.setElapsedMs(0L);
@@ -151,4 +248,104 @@ public class SqlApiController {
             return resp;
         }
     }
+
+    @Operation(
+            summary = "Выполнить SQL с потоковой выдачей (NDJSON)",
+            description =
+                    "Строки пишутся в ответ прямо из ResultSet по мере чтения, без сборки всего результата в памяти.\n\n" +
+                            "Формат (application/x-ndjson), по одному JSON на строку:\n" +
+                            "• {\"type\":\"columns\",\"columns\":[...]}\n" +
+                            "• [v1, v2, ...] — строка результата\n" +
+                            "• {\"type\":\"end\",\"rowCount\":N,\"elapsedMs\":...} или {\"type\":\"error\",...}\n\n" +
+                            "limitRows=0 — без ограничения, fetchSize — размер страницы thin JDBC."
+    )
+    @ApiResponse(responseCode = "200", description = "NDJSON поток; ошибка приходит последней строкой с type=error")
+    @PostMapping(
+            value = "/sql/stream",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = "application/x-ndjson"
+    )
+    public void stream(@org.springframework.web.bind.annotation.RequestBody SqlExecuteRequest req,
+                       @RequestParam(defaultValue = "0") int limitRows,
+                       @RequestParam(required = false) Integer fetchSize,
+                       HttpServletResponse response,
+                       Principal principal) throws Exception {
+        log.info("POST /api/sql/stream from client");
+        String sql = req != null && req.getSql() != null ? req.getSql() : "";
+        sql = sql.replaceAll(";\\s*$", "");
+
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        // не даём прокси буферизовать поток целиком
+        response.setHeader("X-Accel-Buffering", "no");
+
+        OutputStream out = response.getOutputStream();
+        NdjsonResultWriter writer = new NdjsonResultWriter(mapper, out, props.getStream().getFlushEveryRows());
+        int fs = fetchSize != null ? fetchSize : props.getStream().getFetchSize();
+
+        String type = SqlMetrics.type(sql);
+        try {
+            sqlService.stream(SqlCursorController.owner(principal), sql,
+                    req != null ? req.getParams() : null, limitRows, fs, writer);
+            recordStream(type, writer);
+        } catch (AdmissionRejectedException e) {
+            // ещё ничего не записано — можно отдать 429
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            writer.writeError(e.getMessage());
+        } catch (Exception e) {
+            recordStream(type, writer);
+            writer.writeError(String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void recordStream(String type, NdjsonResultWriter writer) {
+        if (writer.getFetchNanos() == 0) return;
+        metrics.phase(SqlMetrics.Phase.FETCH, type, "jdbc", writer.getFetchNanos());
+        metrics.phase(SqlMetrics.Phase.SERIALIZE, type, "jdbc", writer.getSerializeNanos());
+        metrics.rows(type, "jdbc", writer.getRowCount());
+    }
+
+    @Operation(
+            summary = "Статистика кэша результатов",
+            description = "hits/misses/evictions/invalidations и занятый объём. Кэш включается app.ignite.cache.enabled=true."
+    )
+    @GetMapping("/sql/cache")
+    public Map<String, Object> cacheStats() {
+        Map<String, Object> r = new java.util.LinkedHashMap<>();
+        r.put("ok", true);
+        r.put("cache", resultCache.stats());
+        return r;
+    }
+
+    @Operation(summary = "Очистить кэш результатов")
+    @DeleteMapping("/sql/cache")
+    public Map<String, Object> cacheClear() {
+        resultCache.clear();
+        return cacheStats();
+    }
+
+    @Operation(
+            summary = "Статистика кэша PreparedStatement",
+            description = "Попадания/промахи кэша подготовленных запросов (для запросов с params)."
+    )
+    @GetMapping("/sql/statements")
+    public Map<String, Object> statementStats() {
+        Map<String, Object> r = new java.util.LinkedHashMap<>();
+        r.put("ok", true);
+        r.put("statements", statementCache.stats());
+        return r;
+    }
+
+    @Operation(
+            summary = "Статистика допуска запросов",
+            description = "Активные запросы (всего / системные / по пользователям), глубина очереди, время ожидания, отказы (429)."
+    )
+    @GetMapping("/sql/admission")
+    public Map<String, Object> admissionStats() {
+        Map<String, Object> r = new java.util.LinkedHashMap<>();
+        r.put("ok", true);
+        r.put("admission", admission.stats());
+        return r;
+    }
 }
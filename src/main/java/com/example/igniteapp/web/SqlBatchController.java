@@ -0,0 +1,99 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.api.dto.SqlBatchRequest;
+import com.example.igniteapp.api.dto.SqlBatchResponse;
+import com.example.igniteapp.service.AdmissionRejectedException;
+import com.example.igniteapp.service.SqlBatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+
+@RestController
+@RequestMapping("/api/sql")
+public class SqlBatchController {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlBatchController.class);
+
+    private final SqlBatchService batchService;
+
+    public SqlBatchController(SqlBatchService batchService) {
+        this.batchService = batchService;
+    }
+
+    @Operation(
+            summary = "Пакетное выполнение DML",
+            description =
+                    "Один HTTP-запрос, одно соединение, executeBatch пакетами по batchSize.\n\n" +
+                            "• sql + rows (+ types) — шаблон с '?' и строки значений;\n" +
+                            "• statements — список отдельных SQL.\n\n" +
+                            "streaming=true включает Ignite streaming (SET STREAMING ON) — для массовых INSERT.",
+            requestBody = @RequestBody(
+                    required = true,
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = SqlBatchRequest.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Шаблон + строки",
+                                            value = "{ \"sql\": \"INSERT INTO test_table (id, name) VALUES (?, ?)\", " +
+                                                    "\"types\": [\"INT\", \"VARCHAR\"], \"rows\": [[1, \"a\"], [2, \"b\"]] }"
+                                    ),
+                                    @ExampleObject(
+                                            name = "Streaming INSERT",
+                                            value = "{ \"sql\": \"INSERT INTO test_table (id, name) VALUES (?, ?)\", " +
+                                                    "\"rows\": [[1, \"a\"], [2, \"b\"]], \"streaming\": true, \"batchSize\": 5000 }"
+                                    ),
+                                    @ExampleObject(
+                                            name = "Список SQL",
+                                            value = "{ \"statements\": [\"DELETE FROM test_table WHERE id = 1\", " +
+                                                    "\"UPDATE test_table SET name = 'x' WHERE id = 2\"] }"
+                                    )
+                            }
+                    )
+            )
+    )
+    @ApiResponse(responseCode = "200", description = "ok=true с updateCount по пакетам, либо ok=false с error")
+    @ApiResponse(responseCode = "429", description = "Нет свободного слота admission (Retry-After)")
+    @PostMapping(
+            value = "/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public SqlBatchResponse batch(@org.springframework.web.bind.annotation.RequestBody SqlBatchRequest req,
+                                  Principal principal) {
+        log.info("POST /api/sql/batch from client");
+        try {
+            if (req == null) throw new IllegalArgumentException("Empty request");
+            boolean streaming = Boolean.TRUE.equals(req.getStreaming());
+            String owner = SqlCursorController.owner(principal);
+
+            if (req.getStatements() != null && !req.getStatements().isEmpty()) {
+                return batchService.executeStatements(
+                        req.getStatements(), req.getBatchSize(), streaming, req.getFlushFrequencyMs(), owner);
+            }
+            if (req.getSql() == null || req.getSql().isBlank() || req.getRows() == null) {
+                throw new IllegalArgumentException("Either statements or sql + rows must be set");
+            }
+            String sql = req.getSql().replaceAll(";\\s*$", "");
+            return batchService.executeTemplate(
+                    sql, req.getTypes(), req.getRows(), req.getBatchSize(), streaming, req.getFlushFrequencyMs(), owner);
+        } catch (AdmissionRejectedException e) {
+            // -> 429 (ApiExceptionHandler)
+            throw e;
+        } catch (Exception e) {
+            SqlBatchResponse resp = new SqlBatchResponse();
+            resp.setOk(false);
+            resp.setError(e.getMessage());
+            return resp;
+        }
+    }
+}
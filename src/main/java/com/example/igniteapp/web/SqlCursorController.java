@@ -0,0 +1,141 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.api.dto.SqlExecuteRequest;
+import com.example.igniteapp.service.AdmissionRejectedException;
+import com.example.igniteapp.service.ExplainService;
+import com.example.igniteapp.service.SqlAdmission;
+import com.example.igniteapp.service.SqlCursor;
+import com.example.igniteapp.service.SqlCursorService;
+import com.example.igniteapp.service.SqlQuery;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sql/cursors")
+public class SqlCursorController {
+
+    private final SqlCursorService cursorService;
+    private final ExplainService explainService;
+
+    public SqlCursorController(SqlCursorService cursorService, ExplainService explainService) {
+        this.cursorService = cursorService;
+        this.explainService = explainService;
+    }
+
+    @Operation(
+            summary = "Открыть серверный курсор",
+            description =
+                    "Выполняет SELECT один раз и держит ResultSet открытым на сервере.\n\n" +
+                            "Ответ: cursorId, columns и первая страница rows (позиционные массивы, pageRows строк).\n" +
+                            "Дальше — GET /api/sql/cursors/{id}?rows=N, закрыть — DELETE /api/sql/cursors/{id}.\n" +
+                            "Неиспользуемые курсоры закрываются по app.ignite.cursors.idleTtlSeconds.\n\n" +
+                            "Guard app.ignite.explain.guard — как в /api/sql (confirmRequired, warnings; confirmFullScan=true)."
+    )
+    @ApiResponse(responseCode = "200", description = "ok=true с первой страницей либо ok=false с error")
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> open(@RequestBody SqlExecuteRequest req,
+                                    @RequestParam(required = false) Integer pageRows,
+                                    Principal principal) {
+        try {
+            String sql = req != null && req.getSql() != null ? req.getSql() : "";
+            sql = sql.replaceAll(";\\s*$", "");
+
+            Map<String, Object> blocked = explainService.guard(SqlQuery.of(sql)
+                            .params(req != null ? req.getParams() : null)
+                            .owner(owner(principal)),
+                    req != null && Boolean.TRUE.equals(req.getConfirmFullScan()));
+            if (blocked != null) return blocked;
+
+            SqlCursor cursor = cursorService.open(sql, req != null ? req.getParams() : null, owner(principal));
+            Map<String, Object> r = page(cursor, cursorService.pageRows(pageRows));
+            r.put("columns", cursor.getColumns());
+            return r;
+        } catch (AdmissionRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @Operation(summary = "Следующая страница курсора", description = "rows — сколько строк прочитать (ограничено maxPageRows).")
+    @ApiResponse(responseCode = "200", description = "ok=true со страницей; hasMore=false — курсор дочитан и закрыт")
+    @GetMapping("/{id}")
+    public Map<String, Object> next(@PathVariable String id,
+                                    @RequestParam(required = false) Integer rows,
+                                    Principal principal) {
+        try {
+            return page(cursorService.get(id, owner(principal)), cursorService.pageRows(rows));
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @Operation(summary = "Закрыть курсор", description = "Освобождает ResultSet и возвращает соединение в пул.")
+    @DeleteMapping("/{id}")
+    public Map<String, Object> close(@PathVariable String id, Principal principal) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        try {
+            cursorService.get(id, owner(principal));
+            r.put("ok", cursorService.close(id));
+        } catch (Exception e) {
+            return error(e);
+        }
+        return r;
+    }
+
+    @Operation(summary = "Мои открытые курсоры и общая статистика")
+    @GetMapping
+    public Map<String, Object> list(Principal principal) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", true);
+        r.put("cursors", cursorService.list(owner(principal)));
+        r.put("stats", cursorService.stats());
+        return r;
+    }
+
+    /**
+     * Страница курсора; если чтение упало, курсор закрывается — иначе он держал бы соединение до idle-TTL.
+     */
+    private Map<String, Object> page(SqlCursor cursor, int rows) throws Exception {
+        long t0 = System.currentTimeMillis();
+        List<Object[]> page;
+        try {
+            page = cursor.fetch(rows);
+        } catch (Exception e) {
+            cursorService.close(cursor.getId());
+            throw e;
+        }
+        boolean hasMore = !cursor.isExhausted();
+        if (!hasMore) {
+            cursorService.close(cursor.getId());
+        }
+
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", true);
+        r.put("cursorId", cursor.getId());
+        r.put("rows", page);
+        r.put("rowCount", page.size());
+        r.put("rowsFetched", cursor.getRowsFetched());
+        r.put("hasMore", hasMore);
+        r.put("elapsedMs", System.currentTimeMillis() - t0);
+        return r;
+    }
+
+    static String owner(Principal principal) {
+        return principal != null && principal.getName() != null ? principal.getName() : SqlAdmission.ANONYMOUS;
+    }
+
+    private static Map<String, Object> error(Exception e) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", false);
+        r.put("error", e.getMessage());
+        return r;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.api.dto.SqlExecuteRequest;
+import com.example.igniteapp.api.dto.SqlParam;
+import com.example.igniteapp.config.IgniteProperties;
+import com.example.igniteapp.service.AdmissionRejectedException;
+import com.example.igniteapp.service.SqlMetrics;
+import com.example.igniteapp.service.SqlService;
+import com.example.igniteapp.service.SqlText;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.Principal;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/sql/export")
+public class SqlExportController {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlExportController.class);
+
+    private final SqlService sqlService;
+    private final SqlMetrics metrics;
+    private final IgniteProperties props;
+    private final ObjectMapper mapper;
+
+    public SqlExportController(SqlService sqlService, SqlMetrics metrics, IgniteProperties props, ObjectMapper mapper) {
+        this.sqlService = sqlService;
+        this.metrics = metrics;
+        this.props = props;
+        this.mapper = mapper;
+    }
+
+    @Operation(
+            summary = "Выгрузить результат SELECT в CSV (поток)",
+            description =
+                    "Строки пишутся из ResultSet прямо в ответ (RFC 4180, UTF-8, заголовок — имена колонок), " +
+                            "память не зависит от объёма. gzip=true — файл .csv.gz (уровень app.ignite.export.gzipLevel).\n\n" +
+                            "NULL — пустое поле, пустая строка — \"\"; даты и числа в формате, который читает /api/import/csv.\n\n" +
+                            "Ошибка до первых байт — JSON ok=false (429 при перегрузке); ошибка посреди выгрузки " +
+                            "обрывает соединение, и клиент видит незавершённую загрузку.\n\n" +
+                            "Пример: curl -OJ -H 'Content-Type: application/json' -d '{\"sql\":\"SELECT * FROM T\"}' " +
+                            "'.../api/sql/export?gzip=true'"
+    )
+    @ApiResponse(responseCode = "200", description = "text/csv или application/gzip, Content-Disposition: attachment")
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void export(@org.springframework.web.bind.annotation.RequestBody SqlExecuteRequest req,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       @RequestParam(defaultValue = "true") boolean header,
+                       @RequestParam(defaultValue = ",") String delimiter,
+                       @RequestParam(defaultValue = "0") int limitRows,
+                       HttpServletResponse response,
+                       Principal principal) throws Exception {
+        export(req != null ? req.getSql() : null, req != null ? req.getParams() : null,
+                gzip, header, delimiter, limitRows, response, principal);
+    }
+
+    @Operation(
+            summary = "Выгрузить результат SELECT в CSV по ссылке",
+            description = "То же, что POST, но SQL в параметре sql (без параметров запроса) — для скачивания браузером."
+    )
+    @GetMapping
+    public void exportByLink(@RequestParam String sql,
+                             @RequestParam(defaultValue = "false") boolean gzip,
+                             @RequestParam(defaultValue = "true") boolean header,
+                             @RequestParam(defaultValue = ",") String delimiter,
+                             @RequestParam(defaultValue = "0") int limitRows,
+                             HttpServletResponse response,
+                             Principal principal) throws Exception {
+        export(sql, null, gzip, header, delimiter, limitRows, response, principal);
+    }
+
+    private void export(String sql, List<SqlParam> params, boolean gzip, boolean header, String delimiter,
+                        int limitRows, HttpServletResponse response, Principal principal) throws Exception {
+        IgniteProperties.Export cfg = props.getExport();
+        sql = sql != null ? sql.replaceAll(";\\s*$", "") : "";
+        log.info("SQL export: gzip={}, limitRows={}", gzip, limitRows);
+        if (!SqlText.isReadOnly(sql)) {
+            error(response, 400, "Only SELECT queries can be exported");
+            return;
+        }
+        char delim;
+        try {
+            delim = delimiter(delimiter);
+        } catch (IllegalArgumentException e) {
+            error(response, 400, e.getMessage());
+            return;
+        }
+
+        String file = "export-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + (gzip ? ".csv.gz" : ".csv");
+        response.setContentType(gzip ? "application/gzip" : "text/csv; charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + file + "\"");
+
+        long t0 = System.currentTimeMillis();
+        String type = SqlMetrics.type(sql);
+        OutputStream out = response.getOutputStream();
+        GZIPOutputStream gz = gzip ? new LevelGzipOutputStream(out, cfg.getGzipLevel(), cfg.getBufferBytes()) : null;
+        CsvResultWriter writer = new CsvResultWriter(gz != null ? gz : out, delim, header, cfg.getBufferBytes());
+
+        try {
+            sqlService.stream(SqlCursorController.owner(principal), sql, params, limitRows, cfg.getFetchSize(),
+                    cfg.getQueryTimeoutSeconds(), writer);
+            if (gz != null) gz.finish();
+            out.flush();
+        } catch (Exception e) {
+            if (!response.isCommitted()) {
+                // в ответ ещё ничего не ушло — обычная ошибка вместо обрезанного файла
+                response.reset();
+                if (e instanceof AdmissionRejectedException) throw e;
+                error(response, 400, String.valueOf(e.getMessage()));
+                return;
+            }
+            log.warn("SQL export aborted after {} rows: {}", writer.getRowCount(), e.getMessage());
+            // ответ уже идёт: исключение обрывает соединение, файл у клиента останется незавершённым
+            throw e;
+        } finally {
+            record(type, writer);
+        }
+        log.info("SQL export done: rows={}, elapsedMs={}", writer.getRowCount(), System.currentTimeMillis() - t0);
+    }
+
+    private void record(String type, CsvResultWriter writer) {
+        if (writer.getFetchNanos() == 0) return;
+        metrics.phase(SqlMetrics.Phase.FETCH, type, "jdbc", writer.getFetchNanos());
+        metrics.phase(SqlMetrics.Phase.SERIALIZE, type, "jdbc", writer.getSerializeNanos());
+        metrics.rows(type, "jdbc", writer.getRowCount());
+    }
+
+    private void error(HttpServletResponse response, int status, String error) throws IOException {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", false);
+        r.put("error", error);
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        mapper.writeValue(response.getOutputStream(), r);
+    }
+
+    private static char delimiter(String d) {
+        if ("\\t".equals(d) || "tab".equalsIgnoreCase(d)) return '\t';
+        if (d.length() != 1) throw new IllegalArgumentException("delimiter must be a single character");
+        char c = d.charAt(0);
+        if (c > 0x7F || c == '"' || c == '\r' || c == '\n') {
+            throw new IllegalArgumentException("delimiter must be an ASCII character other than quote or line break");
+        }
+        return c;
+    }
+
+    /**
+     * GZIPOutputStream с заданным уровнем сжатия (по умолчанию в JDK — 6, для выгрузки медленно).
+     */
+    private static final class LevelGzipOutputStream extends GZIPOutputStream {
+        LevelGzipOutputStream(OutputStream out, int level, int bufferBytes) throws IOException {
+            super(out, Math.max(512, bufferBytes));
+            def.setLevel(Math.max(1, Math.min(9, level)));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.api.dto.SqlExecuteRequest;
+import com.example.igniteapp.service.SqlJob;
+import com.example.igniteapp.service.SqlJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.servlet.http.HttpServletResponse;
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sql/jobs")
+public class SqlJobController {
+
+    private final SqlJobService jobService;
+    private final SqlJobEvents events;
+
+    public SqlJobController(SqlJobService jobService, SqlJobEvents events) {
+        this.jobService = jobService;
+        this.events = events;
+    }
+
+    @Operation(
+            summary = "Запустить SQL асинхронно",
+            description =
+                    "Ставит запрос в очередь и сразу возвращает jobId.\n\n" +
+                            "Статус — GET /api/sql/jobs/{id}, результат — GET /api/sql/jobs/{id}/result?offset=0&rows=500, " +
+                            "отмена (или удаление завершённой) — DELETE /api/sql/jobs/{id}.\n" +
+                            "Результаты хранятся в пределах app.ignite.jobs.maxResultBytes / maxTotalResultBytes и resultTtlSeconds."
+    )
+    @ApiResponse(responseCode = "200", description = "ok=true с jobId либо ok=false с error (очередь заполнена, лимит задач)")
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> submit(@RequestBody SqlExecuteRequest req,
+                                      @RequestParam(required = false) Integer limitRows,
+                                      Principal principal) {
+        try {
+            String sql = req != null && req.getSql() != null ? req.getSql() : "";
+            sql = sql.replaceAll(";\\s*$", "");
+
+            SqlJob job = jobService.submit(sql, req != null ? req.getParams() : null,
+                    SqlCursorController.owner(principal), limitRows);
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", true);
+            r.putAll(job.info());
+            return r;
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @Operation(summary = "Статус задачи", description = "state: QUEUED, RUNNING, DONE, FAILED, CANCELLED; rowsFetched растёт по ходу чтения.")
+    @GetMapping("/{id}")
+    public Map<String, Object> status(@PathVariable String id, Principal principal) {
+        try {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", true);
+            r.putAll(jobService.get(id, SqlCursorController.owner(principal)).info());
+            return r;
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @Operation(summary = "Страница результата завершённой задачи", description = "rows — позиционные массивы в порядке columns.")
+    @GetMapping("/{id}/result")
+    public Map<String, Object> result(@PathVariable String id,
+                                      @RequestParam(defaultValue = "0") long offset,
+                                      @RequestParam(required = false) Integer rows,
+                                      Principal principal) {
+        try {
+            SqlJob job = jobService.get(id, SqlCursorController.owner(principal));
+            List<Object[]> page = job.page(offset, jobService.pageRows(rows));
+
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", true);
+            r.put("jobId", id);
+            r.put("state", job.getState().name());
+            r.put("columns", job.getColumns());
+            r.put("rows", page);
+            r.put("offset", offset);
+            r.put("rowCount", page.size());
+            r.put("totalRows", job.getRowsFetched());
+            r.put("hasMore", offset + page.size() < job.getRowsFetched());
+            return r;
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @Operation(
+            summary = "Ход задачи и строки по мере чтения (Server-Sent Events)",
+            description =
+                    "text/event-stream, data — JSON:\n" +
+                            "• preview — columns и первые строки, как только они прочитаны;\n" +
+                            "• rows — следующие пачки (offset, rows) до app.ignite.events.maxStreamRows;\n" +
+                            "• progress — state, rowsFetched, elapsedMs и ignite (запрос в SYS.SQL_QUERIES: queryId, durationMs, originNodeId);\n" +
+                            "• done — итог задачи + streamedRows и hasMore (остальное — GET /{id}/result?offset=streamedRows); канал закрывается.\n\n" +
+                            "Переподключение с заголовком Last-Event-ID продолжает рассылку строк с этого места. " +
+                            "Закрытие канала задачу не отменяет — для этого DELETE /api/sql/jobs/{id}.\n\n" +
+                            "Пример: curl -N '.../api/sql/jobs/{id}/events'"
+    )
+    @ApiResponse(responseCode = "200", description = "Поток событий; задача не найдена — сразу done с ok=false")
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable String id,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                             HttpServletResponse response,
+                             Principal principal) {
+        // не буферизовать поток в прокси (nginx) и не кэшировать
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+        SqlJob job;
+        try {
+            job = jobService.get(id, SqlCursorController.owner(principal));
+        } catch (Exception e) {
+            return events.failed(e.getMessage());
+        }
+        return events.subscribe(job, resumeFrom(lastEventId));
+    }
+
+    @Operation(summary = "Отменить задачу / удалить результат", description = "Выполняющаяся задача отменяется (Statement.cancel), завершённая удаляется.")
+    @DeleteMapping("/{id}")
+    public Map<String, Object> cancel(@PathVariable String id, Principal principal) {
+        try {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", jobService.cancelOrRemove(id, SqlCursorController.owner(principal)));
+            return r;
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @Operation(summary = "Мои задачи и общая статистика исполнителя")
+    @GetMapping
+    public Map<String, Object> list(Principal principal) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", true);
+        r.put("jobs", jobService.list(SqlCursorController.owner(principal)));
+        r.put("stats", jobService.stats());
+        r.put("eventStreams", events.getActive());
+        return r;
+    }
+
+    private static long resumeFrom(String lastEventId) {
+        if (lastEventId == null || lastEventId.isEmpty()) return 0;
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static Map<String, Object> error(Exception e) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", false);
+        r.put("error", e.getMessage());
+        return r;
+    }
+}
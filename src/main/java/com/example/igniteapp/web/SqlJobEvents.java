@@ -0,0 +1,224 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.config.IgniteProperties;
+import com.example.igniteapp.service.SqlJob;
+import com.example.igniteapp.service.SqlJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SSE-канал задачи: строки и прогресс рассылаются по таймеру из общего небольшого пула —
+ * подписка не держит ни поток Tomcat, ни поток исполнителя задачи.
+ * <p>
+ * События (data — JSON):
+ * <ul>
+ *   <li>preview — columns и первые previewRows строк, как только они прочитаны;</li>
+ *   <li>rows — следующие пачки (offset, rows), не больше batchRows за тик и maxStreamRows всего
+ *       (и после завершения задачи — остаток дописывается тем же темпом, перед done);</li>
+ *   <li>progress — state, rowsFetched, время и состояние запроса в SYS.SQL_QUERIES (ignite);</li>
+ *   <li>done — итог задачи (как GET /api/sql/jobs/{id}) + streamedRows, hasMore; после него канал закрывается.</li>
+ * </ul>
+ * id события со строками — сколько строк отдано; при переподключении браузер присылает его
+ * в Last-Event-ID, и рассылка продолжается с этого места.
+ */
+@Component
+public class SqlJobEvents {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlJobEvents.class);
+
+    private final SqlJobService jobService;
+    private final IgniteProperties props;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicInteger active = new AtomicInteger();
+
+    public SqlJobEvents(SqlJobService jobService, IgniteProperties props) {
+        this.jobService = jobService;
+        this.props = props;
+        AtomicInteger n = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(1, props.getEvents().getThreads()), r -> {
+            Thread t = new Thread(r, "sql-job-events-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Подписка на задачу; fromRow > 0 — продолжение после переподключения (без preview).
+     */
+    public SseEmitter subscribe(SqlJob job, long fromRow) {
+        IgniteProperties.Events cfg = props.getEvents();
+        if (active.incrementAndGet() > cfg.getMaxStreams()) {
+            active.decrementAndGet();
+            return failed("Too many event streams (max " + cfg.getMaxStreams() + ")");
+        }
+        // без таймаута: задача может идти часами, отвалившийся клиент обнаружится на очередном progress
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscription s = new Subscription(job, emitter, Math.max(0, fromRow));
+        emitter.onCompletion(s::stop);
+        emitter.onTimeout(s::stop);
+        emitter.onError(e -> s.stop());
+        s.start(scheduler.scheduleWithFixedDelay(s, 0, Math.max(10, cfg.getTickMs()), TimeUnit.MILLISECONDS));
+        log.debug("SQL job events subscribed: id={}, fromRow={}", job.getId(), fromRow);
+        return emitter;
+    }
+
+    /**
+     * Канал из одного события done с ok=false (задача не найдена, лимит каналов).
+     */
+    public SseEmitter failed(String error) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("ok", false);
+        r.put("error", error);
+        try {
+            emitter.send(SseEmitter.event().name("done").data(r, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private final class Subscription implements Runnable {
+        private final SqlJob job;
+        private final SseEmitter emitter;
+        private long sent;
+        private long lastProgressAt;
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        private volatile ScheduledFuture<?> future;
+
+        Subscription(SqlJob job, SseEmitter emitter, long fromRow) {
+            this.job = job;
+            this.emitter = emitter;
+            this.sent = fromRow;
+        }
+
+        void start(ScheduledFuture<?> f) {
+            future = f;
+            // stop() мог успеть раньше, чем future присвоен
+            if (stopped.get()) f.cancel(false);
+        }
+
+        void stop() {
+            if (!stopped.compareAndSet(false, true)) return;
+            active.decrementAndGet();
+            ScheduledFuture<?> f = future;
+            if (f != null) f.cancel(false);
+        }
+
+        @Override
+        public void run() {
+            if (stopped.get()) return;
+            try {
+                // состояние — до чтения строк: после finished новых строк уже не будет
+                boolean finished = job.isFinished();
+                boolean more = sendRows();
+                if (finished) {
+                    // остаток дописывается так же по пачке за тик — общий пул не занят одним каналом
+                    if (!more) done();
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastProgressAt >= props.getEvents().getProgressIntervalMs()) {
+                    lastProgressAt = now;
+                    progress();
+                }
+            } catch (IOException e) {
+                // клиент ушёл; ошибку отправки контейнер обработает сам
+                log.debug("SQL job events client gone: id={}: {}", job.getId(), e.getMessage());
+                stop();
+            } catch (Exception e) {
+                log.warn("SQL job events failed: id={}: {}", job.getId(), e.getMessage());
+                Map<String, Object> r = new LinkedHashMap<>();
+                r.put("ok", false);
+                r.put("error", e.getMessage());
+                r.putAll(job.info());
+                try {
+                    emitter.send(SseEmitter.event().name("done").data(r, MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                } catch (Exception ignored) {
+                    // канал уже закрыт
+                }
+                stop();
+            }
+        }
+
+        /**
+         * Не больше одной пачки за тик (в пределах maxStreamRows); true — после неё остались неотправленные строки.
+         */
+        private boolean sendRows() throws IOException {
+            IgniteProperties.Events cfg = props.getEvents();
+            long limit = Math.min(job.getRowsFetched(), cfg.getMaxStreamRows());
+            if (sent >= limit) return false;
+            boolean preview = sent == 0;
+            int n = (int) Math.min(limit - sent, Math.max(1, preview ? cfg.getPreviewRows() : cfg.getBatchRows()));
+            List<Object[]> rows = job.peek(sent, n);
+            if (rows.isEmpty()) return false;
+
+            Map<String, Object> r = new LinkedHashMap<>();
+            if (preview) r.put("columns", job.getColumns());
+            r.put("offset", sent);
+            r.put("rows", rows);
+            r.put("rowsFetched", job.getRowsFetched());
+            sent += rows.size();
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(sent))
+                    .name(preview ? "preview" : "rows")
+                    .data(r, MediaType.APPLICATION_JSON));
+            return sent < limit;
+        }
+
+        private void progress() throws IOException {
+            long now = System.currentTimeMillis();
+            long startedAt = job.getStartedAt();
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("jobId", job.getId());
+            r.put("state", job.getState().name());
+            r.put("rowsFetched", job.getRowsFetched());
+            r.put("streamedRows", sent);
+            r.put("resultBytes", job.getResultBytes());
+            r.put("elapsedMs", now - job.getSubmittedAt());
+            r.put("runningMs", startedAt > 0 ? now - startedAt : 0);
+            r.put("ignite", jobService.igniteQuery(job));
+            emitter.send(SseEmitter.event().name("progress").data(r, MediaType.APPLICATION_JSON));
+        }
+
+        private void done() throws IOException {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("ok", job.getState() == SqlJob.State.DONE);
+            r.putAll(job.info());
+            r.put("columns", job.getColumns());
+            r.put("streamedRows", sent);
+            // остальное — GET /api/sql/jobs/{id}/result?offset=streamedRows
+            r.put("hasMore", job.getRowsFetched() > sent);
+            emitter.send(SseEmitter.event().name("done").data(r, MediaType.APPLICATION_JSON));
+            emitter.complete();
+            stop();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.igniteapp.web;
+
+import com.example.igniteapp.service.SqlMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Для /api/sql/**: считает байты тела ответа и, если контроллер отметил начало сериализации
+ * ({@link #serializeStarts}), время от возврата из контроллера до конца записи ответа.
+ */
+@Component
+public class SqlMetricsFilter extends OncePerRequestFilter {
+
+    private static final String ATTR_START = SqlMetricsFilter.class.getName() + ".start";
+    private static final String ATTR_TYPE = SqlMetricsFilter.class.getName() + ".type";
+    private static final String ATTR_ENGINE = SqlMetricsFilter.class.getName() + ".engine";
+
+    private final SqlMetrics metrics;
+
+    public SqlMetricsFilter(SqlMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Вызывается контроллером прямо перед return: дальше работает только сериализация ответа.
+     */
+    static void serializeStarts(HttpServletRequest request, String type, String engine) {
+        request.setAttribute(ATTR_TYPE, type);
+        request.setAttribute(ATTR_ENGINE, engine);
+        request.setAttribute(ATTR_START, System.nanoTime());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/sql");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CountingResponse counting = new CountingResponse(response);
+        boolean async = false;
+        try {
+            chain.doFilter(request, counting);
+            // SSE (/api/sql/jobs/{id}/events): ответ дописывается из другого потока уже после выхода
+            // из фильтра — flush отсюда писал бы в него одновременно с рассылкой событий
+            async = request.isAsyncStarted();
+            if (!async) counting.flushBuffer();
+        } finally {
+            Object start = request.getAttribute(ATTR_START);
+            if (start instanceof Long) {
+                metrics.phase(SqlMetrics.Phase.SERIALIZE, (String) request.getAttribute(ATTR_TYPE),
+                        (String) request.getAttribute(ATTR_ENGINE), System.nanoTime() - (Long) start);
+            }
+            // шаблон маршрута, а не сам URI: /api/sql/cursors/{id}, а не id курсора
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (!async) metrics.bytes(pattern != null ? pattern.toString() : "UNKNOWN", counting.bytes());
+        }
+    }
+
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private CountingOutputStream out;
+        private PrintWriter writer;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        long bytes() {
+            return out != null ? out.count : 0;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) throw new IllegalStateException("getWriter() has already been called");
+            if (out == null) out = new CountingOutputStream(super.getOutputStream());
+            return out;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (out != null) throw new IllegalStateException("getOutputStream() has already been called");
+                out = new CountingOutputStream(super.getOutputStream());
+                writer = new PrintWriter(new OutputStreamWriter(out, Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) writer.flush();
+            super.flushBuffer();
+        }
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private long count;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            delegate.setWriteListener(listener);
+        }
+    }
+}
@@ -54,18 +54,297 @@ function renderTable(columns, rows) {
   return html;
 }
 
-async function runSql() {
+// Компактный формат: vectors = [{name, jdbcType, values, nulls}], по одному на колонку
+function vectorCell(v, rowIdx, nullSet) {
+  if (nullSet && nullSet.has(rowIdx)) return null;
+  return v.values[rowIdx];
+}
+
+function vectorRowCount(vectors) {
+  if (!Array.isArray(vectors) || vectors.length === 0) return 0;
+  return vectors[0].values ? vectors[0].values.length : 0;
+}
+
+// compact -> позиционные строки для таблицы результата
+function vectorsToRows(vectors) {
+  const rowCount = vectorRowCount(vectors);
+  const nullSets = vectors.map(v => Array.isArray(v.nulls) ? new Set(v.nulls) : null);
+  const rows = new Array(rowCount);
+  for (let r = 0; r < rowCount; r++) {
+    const row = new Array(vectors.length);
+    for (let c = 0; c < vectors.length; c++) row[c] = vectorCell(vectors[c], r, nullSets[c]);
+    rows[r] = row;
+  }
+  return rows;
+}
+
+// ---- Таблица результата: в DOM только видимые строки, следующие страницы — по мере прокрутки
+const GRID_ROW_H = 30;
+const GRID_OVERSCAN = 12;
+const GRID_PAGE_ROWS = 500;
+const gridCollator = new Intl.Collator(undefined, {numeric: true});
+
+function gridCompare(a, b) {
+  if (typeof a === "number" && typeof b === "number") return a - b;
+  if (typeof a === "boolean" && typeof b === "boolean") return (a ? 1 : 0) - (b ? 1 : 0);
+  return gridCollator.compare(String(a), String(b));
+}
+
+function gridCell(v) {
+  if (v == null) return `<span class="vgrid-null">NULL</span>`;
+  const s = typeof v === "object" ? JSON.stringify(v) : String(v);
+  return s.length > 40 ? `<span title="${escapeHtml(s)}">${escapeHtml(s)}</span>` : escapeHtml(s);
+}
+
+class VirtualGrid {
+  /**
+   * rows — позиционные массивы; hasMore — дочитывать при прокрутке:
+   * sql — первая страница пришла из /api/sql, дальше открыть курсор /api/sql/cursors;
+   * cursorId — следующие страницы курсора; jobId — страницы результата задачи /api/sql/jobs/{id}/result.
+   */
+  constructor(wrap, columns, rows, opts = {}) {
+    this.columns = columns;
+    this.rows = rows;
+    this.sql = opts.sql || null;
+    this.confirmFullScan = !!opts.confirmFullScan;
+    this.cursorId = opts.cursorId || null;
+    this.jobId = opts.jobId || null;
+    this.hasMore = !!opts.hasMore;
+    this.onChange = opts.onChange || (() => {});
+    this.loading = false;
+    this.error = null;
+    this.sortCol = -1;
+    this.sortDir = 0;
+    this.order = null;
+    this.frame = 0;
+    this.widths = columns.map((c, i) => this.initialWidth(i));
+
+    wrap.innerHTML = `<div class="vgrid"><div class="vgrid-head"></div><div class="vgrid-body"></div></div>`;
+    this.el = wrap.firstElementChild;
+    this.head = this.el.children[0];
+    this.body = this.el.children[1];
+
+    this.el.addEventListener("scroll", () => this.schedule());
+    this.head.addEventListener("mousedown", e => this.startResize(e));
+    this.head.addEventListener("click", e => this.toggleSort(e));
+
+    this.renderHead();
+    this.layout();
+    this.render();
+  }
+
+  initialWidth(col) {
+    let len = String(this.columns[col]).length + 2;
+    for (let r = 0; r < Math.min(this.rows.length, 50); r++) {
+      const v = this.rows[r][col];
+      len = Math.max(len, v == null ? 4 : String(typeof v === "object" ? JSON.stringify(v) : v).length);
+    }
+    return Math.min(360, Math.max(60, len * 8 + 20));
+  }
+
+  renderHead() {
+    this.head.innerHTML = this.columns.map((c, i) => {
+      const mark = i === this.sortCol ? (this.sortDir > 0 ? " ▲" : " ▼") : "";
+      return `<div class="vgrid-th" data-col="${i}" title="Сортировка по загруженным строкам">` +
+          `${escapeHtml(c)}${mark}<span class="vgrid-resize" data-col="${i}"></span></div>`;
+    }).join("");
+  }
+
+  layout() {
+    const total = this.widths.reduce((a, w) => a + w, 0);
+    this.el.style.setProperty("--vgrid-cols", this.widths.map(w => w + "px").join(" "));
+    this.el.style.setProperty("--vgrid-width", total + "px");
+    this.body.style.height = (this.rows.length * GRID_ROW_H) + "px";
+  }
+
+  schedule() {
+    if (this.frame) return;
+    this.frame = requestAnimationFrame(() => {
+      this.frame = 0;
+      this.render();
+    });
+  }
+
+  render() {
+    const n = this.rows.length;
+    const top = Math.max(0, this.el.scrollTop - this.head.offsetHeight);
+    const first = Math.max(0, Math.floor(top / GRID_ROW_H) - GRID_OVERSCAN);
+    const last = Math.min(n, Math.ceil((top + this.el.clientHeight) / GRID_ROW_H) + GRID_OVERSCAN);
+
+    const parts = [];
+    for (let i = first; i < last; i++) {
+      const row = this.rows[this.order ? this.order[i] : i];
+      parts.push(`<div class="vgrid-row${i % 2 ? " odd" : ""}" style="top:${i * GRID_ROW_H}px">`);
+      for (let c = 0; c < row.length; c++) parts.push(`<div class="vgrid-td">${gridCell(row[c])}</div>`);
+      parts.push(`</div>`);
+    }
+    this.body.innerHTML = parts.join("");
+
+    if (this.hasMore && !this.loading && last >= n - GRID_PAGE_ROWS / 2) this.fetchMore();
+  }
+
+  // строки, пришедшие по SSE-каналу задачи: в конец, перерисовка — в следующем кадре
+  append(rows) {
+    for (const row of rows) this.rows.push(row);
+    if (this.sortDir) this.sort();
+    this.layout();
+    this.schedule();
+    this.onChange(this);
+  }
+
+  async fetchMore() {
+    this.loading = true;
+    this.onChange(this);
+    try {
+      if (this.cursorId || this.jobId) {
+        const r = await fetch(this.cursorId
+            ? `api/sql/cursors/${encodeURIComponent(this.cursorId)}?rows=${GRID_PAGE_ROWS}`
+            : `api/sql/jobs/${encodeURIComponent(this.jobId)}/result?offset=${this.rows.length}&rows=${GRID_PAGE_ROWS}`);
+        const data = await r.json();
+        if (!data.ok) throw new Error(data.error ?? "Unknown error");
+        for (const row of data.rows) this.rows.push(row);
+        this.hasMore = !!data.hasMore;
+      } else {
+        await this.openCursor();
+      }
+      if (this.sortDir) this.sort();
+    } catch (e) {
+      this.hasMore = false;
+      this.error = String(e.message || e);
+    } finally {
+      this.loading = false;
+    }
+    this.layout();
+    this.render();
+    this.onChange(this);
+  }
+
+  /**
+   * Курсор держит соединение пула, поэтому открывается только когда пролистали первую страницу.
+   * Курсор выполняет запрос заново: загруженные строки заменяются его строками — без дублей
+   * и пропусков, даже если без ORDER BY порядок между выполнениями разный.
+   */
+  async openCursor() {
+    const r = await fetch(`api/sql/cursors?pageRows=${this.rows.length + GRID_PAGE_ROWS}`, {
+      method: "POST",
+      headers: {"Content-Type": "application/json"},
+      body: JSON.stringify({sql: this.sql, confirmFullScan: this.confirmFullScan || undefined})
+    });
+    const data = await r.json();
+    if (!data.ok) throw new Error(data.error ?? "Unknown error");
+    this.cursorId = data.cursorId;
+    this.rows = data.rows;
+    this.hasMore = !!data.hasMore;
+  }
+
+  startResize(e) {
+    if (!e.target.classList.contains("vgrid-resize")) return;
+    e.preventDefault();
+    const col = +e.target.dataset.col;
+    const x0 = e.clientX;
+    const w0 = this.widths[col];
+    const move = ev => {
+      this.widths[col] = Math.max(40, w0 + ev.clientX - x0);
+      this.layout();
+    };
+    const up = () => {
+      document.removeEventListener("mousemove", move);
+      document.removeEventListener("mouseup", up);
+      // click после отпускания мыши — не сортировка
+      this.resizedAt = performance.now();
+    };
+    document.addEventListener("mousemove", move);
+    document.addEventListener("mouseup", up);
+  }
+
+  toggleSort(e) {
+    const th = e.target.closest(".vgrid-th");
+    if (!th || e.target.classList.contains("vgrid-resize")) return;
+    if (this.resizedAt && performance.now() - this.resizedAt < 300) return;
+    const col = +th.dataset.col;
+    // по возрастанию -> по убыванию -> как пришло с сервера
+    this.sortDir = col !== this.sortCol ? 1 : (this.sortDir === 1 ? -1 : 0);
+    this.sortCol = this.sortDir ? col : -1;
+    this.sort();
+    this.renderHead();
+    this.render();
+    this.onChange(this);
+  }
+
+  sort() {
+    if (!this.sortDir) {
+      this.order = null;
+      return;
+    }
+    const col = this.sortCol;
+    const dir = this.sortDir;
+    const rows = this.rows;
+    const order = Array.from(rows.keys());
+    order.sort((a, b) => {
+      const x = rows[a][col];
+      const y = rows[b][col];
+      // NULL всегда в конце
+      if (x == null || y == null) return (x == null) - (y == null);
+      return dir * gridCompare(x, y) || a - b;
+    });
+    this.order = order;
+  }
+
+  close() {
+    if (this.cursorId && this.hasMore) {
+      fetch(`api/sql/cursors/${encodeURIComponent(this.cursorId)}`, {method: "DELETE", keepalive: true}).catch(() => {});
+    }
+    // задача: отменить, если ещё идёт, и освободить сохранённый результат
+    if (this.jobId) {
+      fetch(`api/sql/jobs/${encodeURIComponent(this.jobId)}`, {method: "DELETE", keepalive: true}).catch(() => {});
+    }
+    this.hasMore = false;
+  }
+}
+
+let resultGrid = null;
+let lastJson = null;
+let liveRun = null;
+
+// сырой JSON — только по запросу (раскрыть блок): большой ответ не форматируется зря
+function showJson(data) {
+  lastJson = data;
+  const box = document.getElementById("jsonBox");
+  const out = document.getElementById("out");
+  if (!box.open) {
+    out.textContent = "";
+    return;
+  }
+  const text = typeof data === "string" ? data : JSON.stringify(data, null, 2);
+  out.textContent = text && text.length > 500000 ? text.slice(0, 500000) + "\n… (обрезано)" : (text ?? "");
+}
+
+function gridStatus(grid, t0Ms) {
+  const meta = document.getElementById("meta");
+  const rows = grid.rows.length;
+  const more = grid.loading ? " • загрузка…" : (grid.hasMore ? "+ (дальше — при прокрутке)" : "");
+  const sort = grid.sortDir ? ` • сортировка ${grid.columns[grid.sortCol]} по загруженным` : "";
+  const err = grid.error ? ` • ошибка подгрузки: ${grid.error}` : "";
+  meta.textContent = `OK • rows=${rows}${more}${sort}${err} • ${t0Ms} ms`;
+}
+
+async function runSql(confirmFullScan = false) {
   const sqlEl = document.getElementById("sql");
   const hint = document.getElementById("hint");
   const meta = document.getElementById("meta");
-  const out  = document.getElementById("out");
   const tableWrap = document.getElementById("tableWrap");
 
   const sql = sqlEl.value.replace(/;\s*$/, "");
+  // SELECT: первая страница — обычным /api/sql с кэшем, native и бюджетом памяти;
+  // если строк больше, серверный курсор откроется только при прокрутке дальше
+  const isQuery = /^[\s(]*(select|with)\b/i.test(sql);
 
+  stopLive();
+  if (resultGrid) resultGrid.close();
+  resultGrid = null;
   hint.textContent = "Выполняю…";
   meta.textContent = "";
-  out.textContent = "";
+  showJson(null);
   tableWrap.innerHTML = "";
 
   const t0 = performance.now();
@@ -74,11 +353,23 @@ async function runSql() {
     const r = await fetch("api/sql", {
       method: "POST",
       headers: {"Content-Type": "application/json"},
-      body: JSON.stringify({sql})
+      body: JSON.stringify({
+        sql, format: "compact", limitRows: isQuery ? GRID_PAGE_ROWS : undefined,
+        confirmFullScan: confirmFullScan || undefined
+      })
     });
 
     const data = await r.json();
-    out.textContent = JSON.stringify(data, null, 2);
+    showJson(data);
+
+    // guard (app.ignite.explain.guard=confirm): в плане полный скан большой таблицы
+    if (!data.ok && data.confirmRequired && !confirmFullScan) {
+      const warnings = data.planWarnings || data.warnings || [];
+      const list = warnings.map(w => `• ${w.message} (~${w.estimatedRows} rows)`).join("\n");
+      if (confirm(`В плане запроса полный скан большой таблицы:\n${list}\n\nВыполнить всё равно?`)) {
+        return runSql(true);
+      }
+    }
 
     if (!data.ok) {
       hint.textContent = "Ошибка";
@@ -86,14 +377,25 @@ async function runSql() {
       return;
     }
 
-    const elapsedMs = data.elapsedMs ?? Math.round(performance.now() - t0);
-    const isSelect = Array.isArray(data.columns) && Array.isArray(data.rows);
-
-    if (isSelect) {
-      meta.textContent = `OK • rows=${data.rows.length} • ${elapsedMs} ms`;
-      tableWrap.innerHTML = renderTable(data.columns, data.rows);
+    const elapsedMs = Math.round(performance.now() - t0);
+    const truncated = data.truncated
+        ? ` • обрезано (${data.truncatedBy === "bytes" ? `бюджет памяти, ~${Math.round((data.bytesEstimated ?? 0) / 1024)} KB` : "лимит строк"})`
+        : "";
+
+    if (isQuery && Array.isArray(data.vectors) && data.updateCount == null) {
+      resultGrid = new VirtualGrid(tableWrap, data.vectors.map(v => v.name), vectorsToRows(data.vectors), {
+        sql,
+        confirmFullScan,
+        hasMore: !!data.truncated,
+        onChange: g => gridStatus(g, elapsedMs)
+      });
+      gridStatus(resultGrid, elapsedMs);
+    } else if (Array.isArray(data.vectors) && data.updateCount == null) {
+      const columns = data.vectors.map(v => v.name);
+      resultGrid = new VirtualGrid(tableWrap, columns, vectorsToRows(data.vectors));
+      meta.textContent = `OK • rows=${resultGrid.rows.length}${truncated} • ${data.elapsedMs ?? elapsedMs} ms`;
     } else {
-      meta.textContent = `OK • updateCount=${data.updateCount ?? 0} • ${elapsedMs} ms`;
+      meta.textContent = `OK • updateCount=${data.updateCount ?? 0} • ${data.elapsedMs ?? elapsedMs} ms`;
       tableWrap.innerHTML = `<div class="empty">Команда выполнена (не SELECT)</div>`;
     }
 
@@ -101,7 +403,182 @@ async function runSql() {
   } catch (e) {
     hint.textContent = "Ошибка";
     meta.textContent = "Network/JS error";
-    out.textContent = String(e);
+    showJson(String(e));
+  }
+}
+
+// ---- Live: SQL как асинхронная задача + SSE /api/sql/jobs/{id}/events — первые строки сразу,
+// дальше пачками по мере чтения, раз в секунду прогресс и состояние запроса в Ignite
+function stopLive() {
+  if (!liveRun) return;
+  liveRun.es.close();
+  if (!liveRun.finished) {
+    fetch(`api/sql/jobs/${encodeURIComponent(liveRun.jobId)}`, {method: "DELETE", keepalive: true}).catch(() => {});
+  }
+  liveRun = null;
+}
+
+function liveStatus(run) {
+  const meta = document.getElementById("meta");
+  const p = run.progress || {};
+  const loaded = resultGrid ? resultGrid.rows.length : 0;
+  const ig = p.ignite
+      ? ` • Ignite: ${p.ignite.queryId} • ${p.ignite.durationMs} ms${p.ignite.local ? " (local)" : ""}`
+      : "";
+  const elapsed = Math.round(performance.now() - run.t0);
+  meta.textContent = `${p.state ?? "QUEUED"} • rows=${loaded}/${Math.max(loaded, p.rowsFetched ?? 0)} • ${elapsed} ms${ig}`;
+}
+
+async function runLive() {
+  const sql = document.getElementById("sql").value.replace(/;\s*$/, "");
+  const hint = document.getElementById("hint");
+  const meta = document.getElementById("meta");
+  const tableWrap = document.getElementById("tableWrap");
+
+  stopLive();
+  if (resultGrid) resultGrid.close();
+  resultGrid = null;
+  hint.textContent = "Выполняю (live)…";
+  meta.textContent = "";
+  showJson(null);
+  tableWrap.innerHTML = "";
+
+  let data;
+  try {
+    const r = await fetch("api/sql/jobs", {
+      method: "POST",
+      headers: {"Content-Type": "application/json"},
+      body: JSON.stringify({sql})
+    });
+    data = await r.json();
+  } catch (e) {
+    hint.textContent = "Ошибка";
+    meta.textContent = "Network/JS error";
+    showJson(String(e));
+    return;
+  }
+  showJson(data);
+  if (!data.ok) {
+    hint.textContent = "Ошибка";
+    meta.textContent = data.error ?? "Unknown error";
+    return;
+  }
+
+  const jobId = data.jobId;
+  const run = {jobId, es: new EventSource(`api/sql/jobs/${encodeURIComponent(jobId)}/events`),
+    t0: performance.now(), progress: null, finished: false};
+  liveRun = run;
+  const live = () => liveRun === run;
+
+  run.es.addEventListener("preview", ev => {
+    if (!live() || resultGrid) return;
+    const d = JSON.parse(ev.data);
+    resultGrid = new VirtualGrid(tableWrap, d.columns, d.rows, {jobId, onChange: () => liveStatus(run)});
+    hint.textContent = `Первые строки через ${Math.round(performance.now() - run.t0)} ms`;
+    liveStatus(run);
+  });
+  run.es.addEventListener("rows", ev => {
+    if (live() && resultGrid) resultGrid.append(JSON.parse(ev.data).rows);
+  });
+  run.es.addEventListener("progress", ev => {
+    if (!live()) return;
+    run.progress = JSON.parse(ev.data);
+    liveStatus(run);
+  });
+  run.es.addEventListener("done", ev => {
+    // без close() EventSource переподключится сам
+    run.es.close();
+    if (!live()) return;
+    run.finished = true;
+    const d = JSON.parse(ev.data);
+    showJson(d);
+    if (d.updateCount != null) {
+      meta.textContent = `OK • updateCount=${d.updateCount} • ${d.runningMs} ms`;
+      tableWrap.innerHTML = `<div class="empty">Команда выполнена (не SELECT)</div>`;
+      hint.textContent = "Готово";
+      return;
+    }
+    if (!resultGrid && Array.isArray(d.columns) && d.columns.length) {
+      resultGrid = new VirtualGrid(tableWrap, d.columns, [], {jobId});
+    }
+    if (!d.ok) {
+      hint.textContent = "Ошибка";
+      meta.textContent = `${d.state ?? "FAILED"}: ${d.error ?? "Unknown error"}` +
+          (resultGrid ? ` • rows=${resultGrid.rows.length}` : "");
+      return;
+    }
+    // сверх events.maxStreamRows — страницами /result при прокрутке
+    resultGrid.hasMore = !!d.hasMore;
+    resultGrid.onChange = g => gridStatus(g, d.runningMs);
+    gridStatus(resultGrid, d.runningMs);
+    hint.textContent = d.truncated ? "Готово (результат обрезан лимитом задачи)" : "Готово";
+  });
+  run.es.onerror = () => {
+    if (!live()) return;
+    if (run.es.readyState === EventSource.CLOSED) {
+      hint.textContent = "Ошибка";
+      meta.textContent = "SSE: соединение закрыто";
+      liveRun = null;
+    } else {
+      // браузер переподключится с Last-Event-ID и получит строки с того же места
+      hint.textContent = "Переподключение…";
+    }
+  };
+}
+
+function renderPlan(data) {
+  const parts = [];
+  const warnings = data.warnings || [];
+  const flags = [
+    data.distributed ? "distributed (map + reduce)" : "single",
+    data.cached ? `из кэша планов, ${Math.round((data.planAgeMs || 0) / 1000)} s` : "новый план",
+    data.guard && data.guard.wouldBlock ? `guard=${data.guard.mode}: запрос будет остановлен` : null
+  ].filter(Boolean);
+  parts.push(`<div class="plan-meta">${escapeHtml(flags.join(" • "))}</div>`);
+
+  if (warnings.length === 0) {
+    parts.push(`<div class="plan-warn sev-ok">Полных сканов нет</div>`);
+  }
+  for (const w of warnings) {
+    const rows = w.estimatedRows != null ? ` (~${w.estimatedRows} rows)` : "";
+    parts.push(`<div class="plan-warn sev-${escapeHtml(w.severity)}">${escapeHtml(w.code)}: ${escapeHtml(w.message + rows)}</div>`);
+  }
+
+  for (const p of data.parts || []) {
+    const tables = (p.joinOrder || []).map((t, i) => ({
+      "#": i + 1, table: t.table, access: t.access, index: t.index ?? "", condition: t.condition ?? ""
+    }));
+    parts.push(`<h3>${escapeHtml(p.role)}${p.indexSorted ? " • index sorted" : ""}</h3>`);
+    parts.push(`<div class="table-wrap">${renderTable(["#", "table", "access", "index", "condition"], tables)}</div>`);
+  }
+  return parts.join("");
+}
+
+async function explainSql() {
+  const sql = document.getElementById("sql").value.replace(/;\s*$/, "");
+  const hint = document.getElementById("hint");
+  const planWrap = document.getElementById("planWrap");
+
+  hint.textContent = "EXPLAIN…";
+  planWrap.innerHTML = "";
+  try {
+    const r = await fetch("api/sql/explain", {
+      method: "POST",
+      headers: {"Content-Type": "application/json"},
+      body: JSON.stringify({sql})
+    });
+    const data = await r.json();
+    showJson(data);
+    if (!data.ok) {
+      hint.textContent = "Ошибка EXPLAIN";
+      planWrap.innerHTML = `<div class="plan-warn sev-high">${escapeHtml(data.error ?? "Unknown error")}</div>`;
+      return;
+    }
+    hint.textContent = "План";
+    planWrap.innerHTML = renderPlan(data);
+  } catch (e) {
+    hint.textContent = "Ошибка";
+    showJson(String(e));
   }
 }
 
@@ -120,7 +597,7 @@ function renderDiagBlock(title, qr, hintCol) {
   if (!qr || !qr.ok) {
     return `<div class="diag-card"><div class="diag-title">${escapeHtml(title)}</div><div class="diag-bad">Нет данных</div></div>`;
   }
-  const count = pickCountFromQueryResult(qr);
+  const count = pickCountFromQueryResult(qr) + (qr.truncated ? "+" : "");
   const rows = shortRows(qr.rows, 4);
   const cols = qr.columns || [];
   const hintText = hintCol && rows[0] && rows[0][hintCol] ? String(rows[0][hintCol]) : "";
@@ -141,7 +618,7 @@ function renderDiagBlock(title, qr, hintCol) {
   `;
 }
 
-async function refreshDiagnostics() {
+async function refreshDiagnostics(force) {
   const diagMeta = document.getElementById("diagMeta");
   const diagOut = document.getElementById("diagOut");
 
@@ -151,7 +628,7 @@ async function refreshDiagnostics() {
   const t0 = performance.now();
 
   try {
-    const r = await fetch("api/ignite/overview");
+    const r = await fetch(force === true ? "api/ignite/overview?refresh=true" : "api/ignite/overview");
     const payload = await r.json();
 
     if (!payload.ok) {
@@ -161,7 +638,8 @@ async function refreshDiagnostics() {
     }
 
     const elapsed = Math.round(performance.now() - t0);
-    diagMeta.textContent = `OK • ${elapsed} ms`;
+    const age = payload.ageMs != null ? ` • снимок ${(payload.ageMs / 1000).toFixed(1)} s назад (обновление ${payload.refreshMs} ms)` : "";
+    diagMeta.textContent = `OK • ${elapsed} ms${age}`;
 
     const data = payload.data || {};
     const nodes = data.nodes;
@@ -180,15 +658,193 @@ async function refreshDiagnostics() {
   }
 }
 
-document.getElementById("run").addEventListener("click", runSql);
+function fmtMs(v) {
+  if (v == null) return "";
+  return v >= 100 ? String(Math.round(v)) : Number(v).toFixed(2);
+}
+
+function fmtTime(ts) {
+  return ts ? new Date(ts).toLocaleTimeString() : "";
+}
+
+async function refreshStats() {
+  const statsMeta = document.getElementById("statsMeta");
+  const statsWrap = document.getElementById("statsWrap");
+  const slowWrap = document.getElementById("slowWrap");
+  const sort = document.getElementById("statsSort").value;
+
+  statsMeta.textContent = "Загружаю…";
+
+  try {
+    const [top, slow] = await Promise.all([
+      fetch(`api/sql/stats?sort=${encodeURIComponent(sort)}&limit=20`).then(r => r.json()),
+      fetch("api/sql/slow?limit=20").then(r => r.json())
+    ]);
+
+    if (!top.ok) {
+      statsMeta.textContent = "Ошибка";
+      statsWrap.innerHTML = `<div class="empty">${escapeHtml(top.error ?? "Unknown error")}</div>`;
+      return;
+    }
+
+    const s = top.summary || {};
+    statsMeta.textContent = `отпечатков: ${s.fingerprints} из ${s.maxFingerprints}` +
+        ` • медленных (≥ ${s.slowThresholdMs} ms): ${s.slowTotal} • с ${fmtTime(s.since)}`;
+
+    const topCols = ["count", "errors", "rows", "total ms", "avg ms", "p50 ms", "p95 ms", "p99 ms", "max ms", "last error", "fingerprint"];
+    statsWrap.innerHTML = renderTable(topCols, (top.queries || []).map(q => ({
+      "count": q.count,
+      "errors": q.errors,
+      "rows": q.rows,
+      "total ms": q.totalMs,
+      "avg ms": fmtMs(q.avgMs),
+      "p50 ms": fmtMs(q.p50Ms),
+      "p95 ms": fmtMs(q.p95Ms),
+      "p99 ms": fmtMs(q.p99Ms),
+      "max ms": fmtMs(q.maxMs),
+      "last error": q.lastError ?? "",
+      "fingerprint": q.fingerprint
+    })));
+
+    const slowCols = ["at", "owner", "engine", "ms", "rows", "error", "sql"];
+    slowWrap.innerHTML = renderTable(slowCols, ((slow && slow.queries) || []).map(q => ({
+      "at": fmtTime(q.at),
+      "owner": q.owner,
+      "engine": q.engine,
+      "ms": q.elapsedMs,
+      "rows": q.rows,
+      "error": q.error ?? "",
+      "sql": q.sql
+    })));
+  } catch (e) {
+    statsMeta.textContent = "Ошибка";
+    statsWrap.innerHTML = `<div class="empty">${escapeHtml(String(e))}</div>`;
+  }
+}
+
+async function resetStats() {
+  await fetch("api/sql/stats", {method: "DELETE"});
+  refreshStats();
+}
+
+let advisorCandidates = [];
+
+async function refreshAdvisor() {
+  const meta = document.getElementById("advisorMeta");
+  const wrap = document.getElementById("advisorWrap");
+  meta.textContent = "Загружаю…";
+
+  try {
+    const data = await fetch("api/sql/advisor").then(r => r.json());
+    if (!data.ok) {
+      meta.textContent = "Ошибка";
+      wrap.innerHTML = `<div class="empty">${escapeHtml(data.error ?? "Unknown error")}</div>`;
+      return;
+    }
+    advisorCandidates = data.candidates || [];
+    const small = (data.skippedSmallTables || []).length;
+    meta.textContent = `запросов разобрано: ${data.analyzedQueries} (статистика ${data.fromStats}, история ${data.fromHistory})` +
+        (small ? ` • пропущено таблиц меньше ${data.minTableRows} строк: ${small}` : "");
+    if (advisorCandidates.length === 0) {
+      wrap.innerHTML = `<div class="empty">Кандидатов нет</div>`;
+      return;
+    }
+
+    const cols = ["benefit ms", "queries ms", "table rows", "queries", "statement", ""];
+    let html = `<table class="grid"><thead><tr>`;
+    for (const c of cols) html += `<th>${escapeHtml(c)}</th>`;
+    html += `</tr></thead><tbody>`;
+    advisorCandidates.forEach((c, i) => {
+      const note = c.partiallyCoveredBy ? ` (есть ${c.partiallyCoveredBy})` : "";
+      const canTry = (c.queries || []).some(q => q.retimable);
+      html += `<tr>
+        <td>${escapeHtml(fmtMs(c.benefitMs))}</td>
+        <td>${escapeHtml(fmtMs(c.queriesTotalMs))}</td>
+        <td>${escapeHtml(c.tableRows ?? "?")}</td>
+        <td title="${escapeHtml((c.queries || []).map(q => q.fingerprint).join("\n"))}">${(c.queries || []).length}</td>
+        <td>${escapeHtml(c.statement + note)}</td>
+        <td class="nowrap">
+          <button class="btn-secondary" data-use="${i}">Use</button>
+          <button class="btn-secondary" data-try="${i}" ${canTry ? "" : "disabled title=\"Нет запросов без параметров\""}>Try</button>
+        </td>
+      </tr>`;
+    });
+    html += `</tbody></table>`;
+    wrap.innerHTML = html;
+  } catch (e) {
+    meta.textContent = "Ошибка";
+    wrap.innerHTML = `<div class="empty">${escapeHtml(String(e))}</div>`;
+  }
+}
+
+async function tryCandidate(c) {
+  const box = document.getElementById("advisorTry");
+  box.textContent = `Проверяю ${c.id}…`;
+  try {
+    const data = await fetch(`api/sql/advisor/try?id=${encodeURIComponent(c.id)}`, {method: "POST"}).then(r => r.json());
+    if (!data.ok) {
+      box.textContent = `Ошибка: ${data.error ?? "Unknown error"}`;
+      return;
+    }
+    const perQuery = (data.queries || [])
+        .map(q => `${fmtMs(q.beforeMs)} → ${fmtMs(q.afterMs)} ms (×${q.speedup ?? "?"})`).join("; ");
+    box.textContent = `${data.statement}: ${fmtMs(data.beforeMs)} → ${fmtMs(data.afterMs)} ms, ×${data.speedup ?? "?"}` +
+        ` • создание ${fmtMs(data.createMs)} ms • ${data.kept ? "индекс оставлен" : "индекс удалён"} • ${perQuery}`;
+  } catch (e) {
+    box.textContent = String(e);
+  }
+}
+
+document.getElementById("advisorWrap").addEventListener("click", (e) => {
+  const b = e.target.closest("button");
+  if (!b) return;
+  if (b.dataset.use != null) {
+    document.getElementById("sql").value = advisorCandidates[+b.dataset.use].statement + ";";
+  } else if (b.dataset.try != null) {
+    tryCandidate(advisorCandidates[+b.dataset.try]);
+  }
+});
+
+// выгрузка без лимита строк: браузер сам пишет поток /api/sql/export в файл
+function exportCsv() {
+  const sql = document.getElementById("sql").value.replace(/;\s*$/, "");
+  const hint = document.getElementById("hint");
+  if (!/^[\s(]*(select|with)\b/i.test(sql)) {
+    hint.textContent = "Export: только SELECT";
+    return;
+  }
+  const a = document.createElement("a");
+  a.href = "api/sql/export?gzip=true&sql=" + encodeURIComponent(sql);
+  a.download = "";
+  document.body.appendChild(a);
+  a.click();
+  a.remove();
+  hint.textContent = "Export: загрузка началась";
+}
+
+document.getElementById("run").addEventListener("click", () => runSql());
+document.getElementById("runLive").addEventListener("click", runLive);
+document.getElementById("exportCsv").addEventListener("click", exportCsv);
+document.getElementById("jsonBox").addEventListener("toggle", () => showJson(lastJson));
+// уход со страницы: открытый курсор не ждёт idleTtlSeconds, задача отменяется
+window.addEventListener("pagehide", () => {
+  stopLive();
+  if (resultGrid) resultGrid.close();
+});
+document.getElementById("explain").addEventListener("click", explainSql);
 document.getElementById("sql").addEventListener("keydown", (e) => {
   if ((e.ctrlKey || e.metaKey) && e.key === "Enter") runSql();
 });
 
-document.getElementById("refreshDiag").addEventListener("click", refreshDiagnostics);
+document.getElementById("refreshDiag").addEventListener("click", () => refreshDiagnostics(true));
+document.getElementById("refreshStats").addEventListener("click", refreshStats);
+document.getElementById("statsSort").addEventListener("change", refreshStats);
+document.getElementById("resetStats").addEventListener("click", resetStats);
+document.getElementById("refreshAdvisor").addEventListener("click", refreshAdvisor);
 
 // auto-load diagnostics on page open
 refreshDiagnostics();
+refreshStats();
 
 // theme init + handler
 initTheme();